@@ -21,6 +21,7 @@ import org.pac4j.core.authorization.generator.AuthorizationGenerator;
 import org.pac4j.core.context.WebContext;
 import org.pac4j.core.context.session.SessionStore;
 import org.pac4j.core.ext.authentication.userdetails.UserDetailsService;
+import org.pac4j.core.ext.resilience.Deadline;
 import org.pac4j.core.profile.CommonProfile;
 import org.pac4j.core.profile.UserProfile;
 
@@ -39,6 +40,10 @@ public class UserDetailsAuthorizationGenerator<U extends CommonProfile> implemen
 	
 	@Override
     public Optional<UserProfile> generate(WebContext context, SessionStore sessionStore, UserProfile profile) {
+		final Deadline deadline = Deadline.from(context);
+		if (deadline != null) {
+			deadline.check("loading the user details of: " + profile.getId());
+		}
 		UserDetails details = getDetailsService().loadUserDetails(context, profile);
         profile.addPermissions(details.getPermissions());
         profile.addRoles(details.getRoles());
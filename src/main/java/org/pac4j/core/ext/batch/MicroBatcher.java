@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.batch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.pac4j.core.exception.TechnicalException;
+import org.pac4j.core.ext.utils.FutureUtils;
+import org.pac4j.core.util.CommonHelper;
+
+/**
+ * Group the keys submitted by concurrent callers into batches, loaded by a single call :
+ * a batch is sent when it is full or when its time window is over, whichever comes first.
+ * Each caller gets the value of its own key, or the failure of the whole batch.
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+public class MicroBatcher<K, V> {
+
+	public static final long DEFAULT_WINDOW = 2;
+
+	/**
+	 * Load of the values of a batch of keys.
+	 */
+	@FunctionalInterface
+	public interface BatchLoader<K, V> {
+
+		/**
+		 * @param keys the keys of the batch
+		 * @return the values, in the order of the keys, <code>null</code> for a key without value
+		 */
+		List<V> load(List<K> keys);
+
+	}
+
+	private final int maxBatchSize;
+	private final long window;
+	private final BatchLoader<K, V> loader;
+	private final Executor executor;
+
+	private final Object lock = new Object();
+	private List<Pending<K, V>> pending = new ArrayList<>();
+	private ScheduledFuture<?> timer;
+
+	private final LongAdder batchCount = new LongAdder();
+	private final LongAdder fullBatchCount = new LongAdder();
+	private final LongAdder keyCount = new LongAdder();
+
+	/**
+	 * @param maxBatchSize the maximum number of keys of a batch
+	 * @param window the maximum time, in milliseconds, a key waits for other keys before its batch is sent
+	 * @param loader the load of a batch
+	 * @param executor the executor of the loads
+	 */
+	public MicroBatcher(int maxBatchSize, long window, BatchLoader<K, V> loader, Executor executor) {
+		CommonHelper.assertTrue(maxBatchSize > 0, "maxBatchSize must be greater than 0");
+		CommonHelper.assertTrue(window > 0, "window must be greater than 0");
+		CommonHelper.assertNotNull("loader", loader);
+		CommonHelper.assertNotNull("executor", executor);
+		this.maxBatchSize = maxBatchSize;
+		this.window = window;
+		this.loader = loader;
+		this.executor = executor;
+	}
+
+	/**
+	 * Add the key to the current batch.
+	 * @param key the key
+	 * @return the future value of the key, <code>null</code> if the batch has no value for it
+	 */
+	public CompletableFuture<V> submit(K key) {
+		final Pending<K, V> entry = new Pending<>(key);
+		List<Pending<K, V>> full = null;
+		synchronized (lock) {
+			pending.add(entry);
+			if (pending.size() >= maxBatchSize) {
+				full = pending;
+				pending = new ArrayList<>();
+				if (timer != null) {
+					timer.cancel(false);
+					timer = null;
+				}
+			} else if (pending.size() == 1) {
+				timer = FutureUtils.TIMER.schedule(this::flush, window, TimeUnit.MILLISECONDS);
+			}
+		}
+		if (full != null) {
+			fullBatchCount.increment();
+			dispatch(full);
+		}
+		return entry.future;
+	}
+
+	private void flush() {
+		final List<Pending<K, V>> batch;
+		synchronized (lock) {
+			if (pending.isEmpty()) {
+				return;
+			}
+			batch = pending;
+			pending = new ArrayList<>();
+			timer = null;
+		}
+		dispatch(batch);
+	}
+
+	private void dispatch(final List<Pending<K, V>> batch) {
+		batchCount.increment();
+		keyCount.add(batch.size());
+		try {
+			executor.execute(() -> load(batch));
+		} catch (RejectedExecutionException e) {
+			for (Pending<K, V> entry : batch) {
+				entry.future.completeExceptionally(e);
+			}
+		}
+	}
+
+	private void load(final List<Pending<K, V>> batch) {
+		final List<K> keys = new ArrayList<>(batch.size());
+		for (Pending<K, V> entry : batch) {
+			keys.add(entry.key);
+		}
+		try {
+			final List<V> values = loader.load(keys);
+			if (values == null || values.size() != keys.size()) {
+				throw new TechnicalException("Batch of " + keys.size() + " keys loaded " + (values == null ? 0 : values.size()) + " values");
+			}
+			for (int i = 0; i < batch.size(); i++) {
+				batch.get(i).future.complete(values.get(i));
+			}
+		} catch (RuntimeException | Error e) {
+			for (Pending<K, V> entry : batch) {
+				entry.future.completeExceptionally(e);
+			}
+		}
+	}
+
+	/**
+	 * @return the number of batches sent
+	 */
+	public long getBatchCount() {
+		return batchCount.sum();
+	}
+
+	/**
+	 * @return the number of batches sent because they were full, before the end of their window
+	 */
+	public long getFullBatchCount() {
+		return fullBatchCount.sum();
+	}
+
+	/**
+	 * @return the number of keys sent in batches
+	 */
+	public long getKeyCount() {
+		return keyCount.sum();
+	}
+
+	/**
+	 * @return the average number of keys per batch, <code>0</code> when no batch was sent
+	 */
+	public double getAverageBatchSize() {
+		final long batches = getBatchCount();
+		return batches == 0 ? 0 : (double) getKeyCount() / batches;
+	}
+
+	public int getMaxBatchSize() {
+		return maxBatchSize;
+	}
+
+	public long getWindow() {
+		return window;
+	}
+
+	@Override
+	public String toString() {
+		return CommonHelper.toNiceString(this.getClass(), "maxBatchSize", maxBatchSize, "window", window, "batchCount", getBatchCount(),
+				"fullBatchCount", getFullBatchCount(), "averageBatchSize", getAverageBatchSize());
+	}
+
+	private static final class Pending<K, V> {
+
+		private final K key;
+		private final CompletableFuture<V> future = new CompletableFuture<>();
+
+		private Pending(K key) {
+			this.key = key;
+		}
+
+	}
+
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.pac4j.core.exception.TechnicalException;
+
+/**
+ * Build the cache keys of the tokens : the raw token never leaves the request, only its SHA-256 digest is kept.
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+public class CacheKeys {
+
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new TechnicalException(e);
+		}
+	});
+
+	/**
+	 * Digest the given token.
+	 * @param token the raw token
+	 * @return the hex encoded SHA-256 digest of the token
+	 */
+	public static String sha256(String token) {
+		MessageDigest digest = SHA_256.get();
+		digest.reset();
+		byte[] hash = digest.digest(token.getBytes(StandardCharsets.UTF_8));
+		char[] chars = new char[hash.length * 2];
+		for (int i = 0; i < hash.length; i++) {
+			chars[i * 2] = HEX[(hash[i] >> 4) & 0x0F];
+			chars[i * 2 + 1] = HEX[hash[i] & 0x0F];
+		}
+		return new String(chars);
+	}
+
+}
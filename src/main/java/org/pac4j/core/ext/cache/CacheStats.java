@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.cache;
+
+import org.pac4j.core.util.CommonHelper;
+
+/**
+ * Immutable snapshot of the statistics of a cache.
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+public final class CacheStats {
+
+	private final long hitCount;
+	private final long missCount;
+	private final long evictionCount;
+	private final long expiredCount;
+	private final long size;
+
+	public CacheStats(long hitCount, long missCount, long evictionCount, long expiredCount, long size) {
+		this.hitCount = hitCount;
+		this.missCount = missCount;
+		this.evictionCount = evictionCount;
+		this.expiredCount = expiredCount;
+		this.size = size;
+	}
+
+	public long getHitCount() {
+		return hitCount;
+	}
+
+	public long getMissCount() {
+		return missCount;
+	}
+
+	public long getRequestCount() {
+		return hitCount + missCount;
+	}
+
+	/**
+	 * @return the ratio of lookups that were served from the cache, <code>1.0</code> when there was no lookup
+	 */
+	public double getHitRate() {
+		long requestCount = getRequestCount();
+		return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+	}
+
+	/**
+	 * @return the number of entries removed because the cache was full
+	 */
+	public long getEvictionCount() {
+		return evictionCount;
+	}
+
+	/**
+	 * @return the number of entries removed because their time to live was over
+	 */
+	public long getExpiredCount() {
+		return expiredCount;
+	}
+
+	public long getSize() {
+		return size;
+	}
+
+	@Override
+	public String toString() {
+		return CommonHelper.toNiceString(this.getClass(), "hitCount", hitCount, "missCount", missCount,
+				"hitRate", getHitRate(), "evictionCount", evictionCount, "expiredCount", expiredCount, "size", size);
+	}
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.cache;
+
+import org.pac4j.core.ext.profile.TokenProfile;
+
+/**
+ * Profile found in a {@link TokenProfileCache}, with its freshness at the time of the lookup,
+ * the validators of the response it was extracted from and its expiration time.
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+public final class CachedTokenProfile<P extends TokenProfile> {
+
+	public enum Freshness {
+		/** Within its time to live */
+		FRESH,
+		/** Within its time to live but past its refresh time : served while refreshed in the background */
+		REFRESH,
+		/** Past its time to live : only served if the profile url cannot answer */
+		STALE
+	}
+
+	private final P profile;
+	private final Freshness freshness;
+	private final String etag;
+	private final String lastModified;
+	private final long expiresAt;
+
+	public CachedTokenProfile(P profile, Freshness freshness) {
+		this(profile, freshness, null, null);
+	}
+
+	public CachedTokenProfile(P profile, Freshness freshness, String etag, String lastModified) {
+		this(profile, freshness, etag, lastModified, 0);
+	}
+
+	/**
+	 * @param profile the profile
+	 * @param freshness the freshness of the profile
+	 * @param etag the <code>ETag</code> of the response of the profile url, may be null
+	 * @param lastModified the <code>Last-Modified</code> date of the response of the profile url, may be null
+	 * @param expiresAt the time, in milliseconds since the epoch, the profile is no more fresh, <code>0</code> for the time to live of the cache
+	 */
+	public CachedTokenProfile(P profile, Freshness freshness, String etag, String lastModified, long expiresAt) {
+		this.profile = profile;
+		this.freshness = freshness;
+		this.etag = etag;
+		this.lastModified = lastModified;
+		this.expiresAt = expiresAt;
+	}
+
+	public P getProfile() {
+		return profile;
+	}
+
+	public Freshness getFreshness() {
+		return freshness;
+	}
+
+	public String getEtag() {
+		return etag;
+	}
+
+	public String getLastModified() {
+		return lastModified;
+	}
+
+	/**
+	 * @return the time, in milliseconds since the epoch, the profile is no more fresh, <code>0</code> for the time to live of the cache
+	 */
+	public long getExpiresAt() {
+		return expiresAt;
+	}
+
+	/**
+	 * @return whether the profile can be revalidated by a conditional request to the profile url
+	 */
+	public boolean hasValidators() {
+		return etag != null || lastModified != null;
+	}
+
+}
@@ -0,0 +1,277 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import org.pac4j.core.exception.TechnicalException;
+import org.pac4j.core.ext.cache.CachedTokenProfile.Freshness;
+import org.pac4j.core.ext.profile.TokenProfile;
+import org.pac4j.core.util.CommonHelper;
+
+/**
+ * Compact binary {@link TokenProfileCodec} : a version byte, then the fields of the profile and its attributes,
+ * tagged by type, with variable length integers for the sizes.
+ * <p>Only plain attribute values are supported : strings, numbers, booleans, dates, and lists, sets or maps of them.
+ * Nothing is deserialized by reflection, so that a value read from a shared store cannot instantiate arbitrary classes.</p>
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+public class CompactTokenProfileCodec<P extends TokenProfile> implements TokenProfileCodec<P> {
+
+	private static final byte VERSION = 1;
+
+	private static final byte NULL = 0;
+	private static final byte STRING = 1;
+	private static final byte INTEGER = 2;
+	private static final byte LONG = 3;
+	private static final byte DOUBLE = 4;
+	private static final byte FLOAT = 5;
+	private static final byte BOOLEAN = 6;
+	private static final byte DATE = 7;
+	private static final byte BIG_INTEGER = 8;
+	private static final byte BIG_DECIMAL = 9;
+	private static final byte LIST = 10;
+	private static final byte SET = 11;
+	private static final byte MAP = 12;
+
+	private final Supplier<P> profileFactory;
+
+	/**
+	 * @param profileFactory the factory of the decoded profiles
+	 */
+	public CompactTokenProfileCodec(Supplier<P> profileFactory) {
+		CommonHelper.assertNotNull("profileFactory", profileFactory);
+		this.profileFactory = profileFactory;
+	}
+
+	@Override
+	public byte[] encode(CachedTokenProfile<P> entry) {
+		final P profile = entry.getProfile();
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeByte(VERSION);
+			out.writeLong(entry.getExpiresAt());
+			writeString(out, entry.getEtag());
+			writeString(out, entry.getLastModified());
+			writeString(out, profile.getId());
+			writeString(out, profile.getClientName());
+			writeString(out, profile.getLinkedId());
+			out.writeBoolean(profile.isRemembered());
+			writeValue(out, profile.getRoles());
+			writeValue(out, profile.getPermissions());
+			writeValue(out, profile.getAttributes());
+			writeValue(out, profile.getAuthenticationAttributes());
+		} catch (IOException e) {
+			throw new TechnicalException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public CachedTokenProfile<P> decode(byte[] value) {
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(value))) {
+			final byte version = in.readByte();
+			if (version != VERSION) {
+				throw new TechnicalException("Unsupported profile encoding version: " + version);
+			}
+			final long expiresAt = in.readLong();
+			final String etag = readString(in);
+			final String lastModified = readString(in);
+			final String id = readString(in);
+			final String clientName = readString(in);
+			final String linkedId = readString(in);
+			final boolean remembered = in.readBoolean();
+			final Set<String> roles = (Set<String>) readValue(in);
+			final Set<String> permissions = (Set<String>) readValue(in);
+			final Map<String, Object> attributes = (Map<String, Object>) readValue(in);
+			final Map<String, Object> authenticationAttributes = (Map<String, Object>) readValue(in);
+			final P profile = profileFactory.get();
+			profile.build(id, attributes, authenticationAttributes);
+			profile.setRoles(roles);
+			profile.setPermissions(permissions);
+			profile.setClientName(clientName);
+			profile.setLinkedId(linkedId);
+			profile.setRemembered(remembered);
+			return new CachedTokenProfile<>(profile, Freshness.FRESH, etag, lastModified, expiresAt);
+		} catch (IOException | ClassCastException | IllegalArgumentException e) {
+			throw new TechnicalException("Cannot decode the profile", e);
+		}
+	}
+
+	private void writeValue(DataOutputStream out, Object value) throws IOException {
+		if (value == null) {
+			out.writeByte(NULL);
+		} else if (value instanceof String) {
+			out.writeByte(STRING);
+			writeString(out, (String) value);
+		} else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+			out.writeByte(INTEGER);
+			out.writeInt(((Number) value).intValue());
+		} else if (value instanceof Long) {
+			out.writeByte(LONG);
+			out.writeLong((Long) value);
+		} else if (value instanceof Double) {
+			out.writeByte(DOUBLE);
+			out.writeDouble((Double) value);
+		} else if (value instanceof Float) {
+			out.writeByte(FLOAT);
+			out.writeFloat((Float) value);
+		} else if (value instanceof Boolean) {
+			out.writeByte(BOOLEAN);
+			out.writeBoolean((Boolean) value);
+		} else if (value instanceof Date) {
+			out.writeByte(DATE);
+			out.writeLong(((Date) value).getTime());
+		} else if (value instanceof BigInteger) {
+			out.writeByte(BIG_INTEGER);
+			writeString(out, value.toString());
+		} else if (value instanceof BigDecimal) {
+			out.writeByte(BIG_DECIMAL);
+			writeString(out, value.toString());
+		} else if (value instanceof Collection) {
+			final Collection<?> values = (Collection<?>) value;
+			out.writeByte(value instanceof Set ? SET : LIST);
+			writeVarInt(out, values.size());
+			for (Object element : values) {
+				writeValue(out, element);
+			}
+		} else if (value instanceof Map) {
+			final Map<?, ?> values = (Map<?, ?>) value;
+			out.writeByte(MAP);
+			writeVarInt(out, values.size());
+			for (Map.Entry<?, ?> element : values.entrySet()) {
+				writeString(out, String.valueOf(element.getKey()));
+				writeValue(out, element.getValue());
+			}
+		} else {
+			throw new TechnicalException("Unsupported attribute type: " + value.getClass().getName());
+		}
+	}
+
+	private Object readValue(DataInputStream in) throws IOException {
+		final byte type = in.readByte();
+		switch (type) {
+		case NULL:
+			return null;
+		case STRING:
+			return readString(in);
+		case INTEGER:
+			return in.readInt();
+		case LONG:
+			return in.readLong();
+		case DOUBLE:
+			return in.readDouble();
+		case FLOAT:
+			return in.readFloat();
+		case BOOLEAN:
+			return in.readBoolean();
+		case DATE:
+			return new Date(in.readLong());
+		case BIG_INTEGER:
+			return new BigInteger(readString(in));
+		case BIG_DECIMAL:
+			return new BigDecimal(readString(in));
+		case LIST:
+		case SET: {
+			final int size = readVarInt(in);
+			final Collection<Object> values = type == SET ? new LinkedHashSet<>() : new ArrayList<>(Math.min(size, 64));
+			for (int i = 0; i < size; i++) {
+				values.add(readValue(in));
+			}
+			return values;
+		}
+		case MAP: {
+			final int size = readVarInt(in);
+			final Map<String, Object> values = new LinkedHashMap<>();
+			for (int i = 0; i < size; i++) {
+				values.put(readString(in), readValue(in));
+			}
+			return values;
+		}
+		default:
+			throw new IOException("Unknown value type: " + type);
+		}
+	}
+
+	/* Strings are prefixed by their length + 1, 0 standing for null */
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		if (value == null) {
+			writeVarInt(out, 0);
+			return;
+		}
+		final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		writeVarInt(out, bytes.length + 1);
+		out.write(bytes);
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		final int length = readVarInt(in) - 1;
+		if (length < 0) {
+			return null;
+		}
+		if (length > in.available()) {
+			throw new IOException("Truncated string of " + length + " bytes");
+		}
+		final byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+
+	private static int readVarInt(DataInputStream in) throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 32; shift += 7) {
+			final byte b = in.readByte();
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				if (value < 0) {
+					throw new IOException("Negative size: " + value);
+				}
+				return value;
+			}
+		}
+		throw new IOException("Malformed variable length integer");
+	}
+
+	@Override
+	public String toString() {
+		return CommonHelper.toNiceString(this.getClass(), "version", VERSION);
+	}
+
+}
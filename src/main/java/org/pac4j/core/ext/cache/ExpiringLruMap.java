@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.pac4j.core.util.CommonHelper;
+
+/**
+ * Map bounded in size, whose entries expire at a given time.
+ * <p>The entries are spread over segments, each one being a LRU map guarded by its own lock :
+ * when a segment is full, its least recently used entry is evicted.</p>
+ * <p>An optional {@link EntryListener} follows the entries added and removed, to maintain a secondary index.</p>
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+class ExpiringLruMap<V> {
+
+	private static final int MAX_SEGMENTS = 16;
+
+	private final Segment[] segments;
+	private final int segmentMask;
+	private final EntryListener<V> listener;
+
+	private final LongAdder hitCount = new LongAdder();
+	private final LongAdder missCount = new LongAdder();
+	private final LongAdder evictionCount = new LongAdder();
+	private final LongAdder expiredCount = new LongAdder();
+
+	ExpiringLruMap(int maxSize) {
+		this(maxSize, null);
+	}
+
+	/**
+	 * @param maxSize the maximum number of entries
+	 * @param listener the listener of the entries added and removed, may be null
+	 */
+	@SuppressWarnings("unchecked")
+	ExpiringLruMap(int maxSize, EntryListener<V> listener) {
+		CommonHelper.assertTrue(maxSize > 0, "maxSize must be greater than 0");
+		this.listener = listener;
+		int segmentCount = 1;
+		while (segmentCount < MAX_SEGMENTS && segmentCount * 2 <= maxSize) {
+			segmentCount *= 2;
+		}
+		this.segments = (Segment[]) new ExpiringLruMap<?>.Segment[segmentCount];
+		this.segmentMask = segmentCount - 1;
+		int segmentCapacity = (maxSize + segmentCount - 1) / segmentCount;
+		for (int i = 0; i < segmentCount; i++) {
+			this.segments[i] = new Segment(segmentCapacity);
+		}
+	}
+
+	/**
+	 * @param key the key
+	 * @return the value of the key, or <code>null</code> if missing or expired
+	 */
+	V get(String key) {
+		Segment segment = segmentFor(key);
+		Expiring<V> entry;
+		segment.lock.lock();
+		try {
+			entry = segment.map.get(key);
+			if (entry != null && entry.isExpired(System.currentTimeMillis())) {
+				segment.map.remove(key);
+				expiredCount.increment();
+				removed(key, entry);
+				entry = null;
+			}
+		} finally {
+			segment.lock.unlock();
+		}
+		if (entry == null) {
+			missCount.increment();
+			return null;
+		}
+		hitCount.increment();
+		return entry.value;
+	}
+
+	/**
+	 * @param key the key
+	 * @param value the value
+	 * @param expiresAt the expiration time of the value, in milliseconds since the epoch
+	 */
+	void put(String key, V value, long expiresAt) {
+		Expiring<V> entry = new Expiring<>(value, expiresAt);
+		Segment segment = segmentFor(key);
+		segment.lock.lock();
+		try {
+			removed(key, segment.map.put(key, entry));
+			if (listener != null) {
+				listener.added(key, value);
+			}
+		} finally {
+			segment.lock.unlock();
+		}
+	}
+
+	void remove(String key) {
+		Segment segment = segmentFor(key);
+		segment.lock.lock();
+		try {
+			removed(key, segment.map.remove(key));
+		} finally {
+			segment.lock.unlock();
+		}
+	}
+
+	void clear() {
+		for (Segment segment : segments) {
+			segment.lock.lock();
+			try {
+				if (listener != null) {
+					segment.map.forEach(this::removed);
+				}
+				segment.map.clear();
+			} finally {
+				segment.lock.unlock();
+			}
+		}
+	}
+
+	long size() {
+		long size = 0;
+		for (Segment segment : segments) {
+			segment.lock.lock();
+			try {
+				size += segment.map.size();
+			} finally {
+				segment.lock.unlock();
+			}
+		}
+		return size;
+	}
+
+	CacheStats stats() {
+		return new CacheStats(hitCount.sum(), missCount.sum(), evictionCount.sum(), expiredCount.sum(), size());
+	}
+
+	private void removed(String key, Expiring<V> entry) {
+		if (listener != null && entry != null) {
+			listener.removed(key, entry.value);
+		}
+	}
+
+	private Segment segmentFor(String key) {
+		int h = key.hashCode();
+		return segments[(h ^ (h >>> 16)) & segmentMask];
+	}
+
+	/**
+	 * Listener of the entries of the map, called under the lock of the segment of the key :
+	 * it must be fast and must not call the map.
+	 */
+	interface EntryListener<V> {
+
+		void added(String key, V value);
+
+		void removed(String key, V value);
+
+	}
+
+	private static final class Expiring<V> {
+
+		private final V value;
+		private final long expiresAt;
+
+		private Expiring(V value, long expiresAt) {
+			this.value = value;
+			this.expiresAt = expiresAt;
+		}
+
+		private boolean isExpired(long now) {
+			return now >= expiresAt;
+		}
+
+	}
+
+	private final class Segment {
+
+		private final ReentrantLock lock = new ReentrantLock();
+		private final Map<String, Expiring<V>> map;
+
+		@SuppressWarnings("serial")
+		private Segment(final int capacity) {
+			this.map = new LinkedHashMap<String, Expiring<V>>(16, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, Expiring<V>> eldest) {
+					if (size() <= capacity) {
+						return false;
+					}
+					if (eldest.getValue().isExpired(System.currentTimeMillis())) {
+						expiredCount.increment();
+					} else {
+						evictionCount.increment();
+					}
+					removed(eldest.getKey(), eldest.getValue());
+					return true;
+				}
+			};
+		}
+
+	}
+
+}
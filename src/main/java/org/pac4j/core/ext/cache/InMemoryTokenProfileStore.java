@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.cache;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.pac4j.core.util.CommonHelper;
+
+/**
+ * In-memory {@link TokenProfileStore}, bounded in size : the reference implementation of the store,
+ * shared by the authenticators of a same JVM or served to other nodes by a {@link SocketTokenProfileStoreServer}.
+ * <p>The operations complete immediately, in the calling thread.</p>
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+public class InMemoryTokenProfileStore implements TokenProfileStore {
+
+	public static final int DEFAULT_MAX_SIZE = 100000;
+
+	private final int maxSize;
+	private final ExpiringLruMap<byte[]> values;
+
+	public InMemoryTokenProfileStore() {
+		this(DEFAULT_MAX_SIZE);
+	}
+
+	/**
+	 * @param maxSize the maximum number of stored values
+	 */
+	public InMemoryTokenProfileStore(int maxSize) {
+		this.maxSize = maxSize;
+		this.values = new ExpiringLruMap<>(maxSize);
+	}
+
+	@Override
+	public CompletableFuture<byte[]> getAsync(String key) {
+		return CompletableFuture.completedFuture(values.get(key));
+	}
+
+	@Override
+	public CompletableFuture<Map<String, byte[]>> getAllAsync(Collection<String> keys) {
+		final Map<String, byte[]> found = new LinkedHashMap<>();
+		for (String key : keys) {
+			final byte[] value = values.get(key);
+			if (value != null) {
+				found.put(key, value);
+			}
+		}
+		return CompletableFuture.completedFuture(found);
+	}
+
+	@Override
+	public CompletableFuture<Void> putAsync(String key, byte[] value, long timeToLive) {
+		if (timeToLive > 0) {
+			values.put(key, value, System.currentTimeMillis() + timeToLive);
+		} else {
+			values.remove(key);
+		}
+		return CompletableFuture.completedFuture(null);
+	}
+
+	@Override
+	public CompletableFuture<Void> removeAsync(String key) {
+		values.remove(key);
+		return CompletableFuture.completedFuture(null);
+	}
+
+	@Override
+	public CompletableFuture<Void> clearAsync() {
+		values.clear();
+		return CompletableFuture.completedFuture(null);
+	}
+
+	/**
+	 * @return the number of stored values, expired values not yet evicted included
+	 */
+	public long size() {
+		return values.size();
+	}
+
+	/**
+	 * @return a snapshot of the store statistics
+	 */
+	public CacheStats getStats() {
+		return values.stats();
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	@Override
+	public String toString() {
+		return CommonHelper.toNiceString(this.getClass(), "maxSize", maxSize, "stats", getStats());
+	}
+
+}
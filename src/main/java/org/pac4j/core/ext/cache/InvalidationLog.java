@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.pac4j.core.util.CommonHelper;
+
+/**
+ * Invalidations of the cached profiles, remembered after the cache entries are removed.
+ * <p>Every invalidation takes the next generation : a load started before it must not cache its profile,
+ * see {@link #isInvalidatedSince(String, String, long)}. The tokens and users invalidated stay revoked for the tokens
+ * verified locally, without cache nor profile url, until the token expires or the time to live is over,
+ * see {@link #isRevoked(String, String, long)}.</p>
+ * <p>The invalidations are bounded in number : when full, the least recently used one is forgotten.</p>
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+public class InvalidationLog {
+
+	public static final int DEFAULT_MAX_SIZE = 100000;
+	public static final long DEFAULT_TIME_TO_LIVE = 24 * 60 * 60 * 1000;
+
+	private final int maxSize;
+	private final long timeToLive;
+	private final AtomicLong generation = new AtomicLong();
+	private final ExpiringLruMap<Tombstone> tokens;
+	private final ExpiringLruMap<Tombstone> users;
+	private volatile long allGeneration;
+	private volatile boolean revocations;
+
+	public InvalidationLog() {
+		this(DEFAULT_MAX_SIZE, DEFAULT_TIME_TO_LIVE);
+	}
+
+	/**
+	 * @param maxSize the maximum number of tokens, and of users, remembered
+	 * @param timeToLive the time a user, or a token without known expiration, stays revoked, in milliseconds
+	 */
+	public InvalidationLog(int maxSize, long timeToLive) {
+		CommonHelper.assertTrue(timeToLive > 0, "timeToLive must be greater than 0");
+		this.maxSize = maxSize;
+		this.timeToLive = timeToLive;
+		this.tokens = new ExpiringLruMap<>(maxSize);
+		this.users = new ExpiringLruMap<>(maxSize);
+	}
+
+	/**
+	 * @return the current generation, to take before loading a profile
+	 */
+	public long generation() {
+		return generation.get();
+	}
+
+	/**
+	 * @param key the hashed token
+	 * @param expiresAt the expiration time of the token, in milliseconds since the epoch, <code>0</code> if unknown
+	 */
+	public void invalidateToken(String key, long expiresAt) {
+		final long now = System.currentTimeMillis();
+		tokens.put(key, new Tombstone(generation.incrementAndGet(), now), expiresAt > now ? expiresAt : now + timeToLive);
+		revocations = true;
+	}
+
+	/**
+	 * @param userId the id of the user profile
+	 */
+	public void invalidateUser(String userId) {
+		final long now = System.currentTimeMillis();
+		users.put(userId, new Tombstone(generation.incrementAndGet(), now), now + timeToLive);
+		revocations = true;
+	}
+
+	/**
+	 * Invalidate the loads in progress : the tokens verified locally are not revoked.
+	 */
+	public void invalidateAll() {
+		allGeneration = generation.incrementAndGet();
+	}
+
+	/**
+	 * @param key the hashed token
+	 * @param userId the id of the loaded profile, may be null
+	 * @param since the generation taken before loading the profile
+	 * @return whether the token, its user or all the profiles were invalidated after the given generation
+	 */
+	public boolean isInvalidatedSince(String key, String userId, long since) {
+		if (generation.get() == since) {
+			return false;
+		}
+		if (allGeneration > since) {
+			return true;
+		}
+		final Tombstone token = key != null ? tokens.get(key) : null;
+		if (token != null && token.generation > since) {
+			return true;
+		}
+		final Tombstone user = userId != null ? users.get(userId) : null;
+		return user != null && user.generation > since;
+	}
+
+	/**
+	 * @param key the hashed token
+	 * @param userId the id of the user profile, may be null
+	 * @param issuedAt the issue time of the token, in milliseconds since the epoch, <code>0</code> if unknown
+	 * @return whether the token is invalidated, or was issued before the invalidation of its user
+	 */
+	public boolean isRevoked(String key, String userId, long issuedAt) {
+		if (!revocations) {
+			return false;
+		}
+		if (key != null && tokens.get(key) != null) {
+			return true;
+		}
+		final Tombstone user = userId != null ? users.get(userId) : null;
+		return user != null && (issuedAt <= 0 || issuedAt <= user.time);
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	public long getTimeToLive() {
+		return timeToLive;
+	}
+
+	@Override
+	public String toString() {
+		return CommonHelper.toNiceString(this.getClass(), "maxSize", maxSize, "timeToLive", timeToLive, "generation", generation(),
+				"tokens", tokens.size(), "users", users.size());
+	}
+
+	private static final class Tombstone {
+
+		private final long generation;
+		private final long time;
+
+		private Tombstone(long generation, long time) {
+			this.generation = generation;
+			this.time = time;
+		}
+
+	}
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.cache;
+
+import org.pac4j.core.util.CommonHelper;
+
+/**
+ * In-memory {@link RejectedTokenCache} bounded in size, with a short time to live so that
+ * a token accepted again upstream is not refused for long.
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+public class LocalRejectedTokenCache implements RejectedTokenCache {
+
+	public static final int DEFAULT_MAX_SIZE = 10000;
+	public static final long DEFAULT_TIME_TO_LIVE = 10 * 1000;
+
+	private final int maxSize;
+	private final long timeToLive;
+	private final ExpiringLruMap<Boolean> rejections;
+
+	public LocalRejectedTokenCache() {
+		this(DEFAULT_MAX_SIZE, DEFAULT_TIME_TO_LIVE);
+	}
+
+	/**
+	 * @param maxSize the maximum number of rejected tokens remembered
+	 * @param timeToLive the time a rejection is remembered, in milliseconds
+	 */
+	public LocalRejectedTokenCache(int maxSize, long timeToLive) {
+		CommonHelper.assertTrue(timeToLive > 0, "timeToLive must be greater than 0");
+		this.maxSize = maxSize;
+		this.timeToLive = timeToLive;
+		this.rejections = new ExpiringLruMap<>(maxSize);
+	}
+
+	@Override
+	public boolean isRejected(String key) {
+		return rejections.get(key) != null;
+	}
+
+	@Override
+	public void reject(String key) {
+		rejections.put(key, Boolean.TRUE, System.currentTimeMillis() + timeToLive);
+	}
+
+	@Override
+	public void invalidate(String key) {
+		rejections.remove(key);
+	}
+
+	@Override
+	public void invalidateAll() {
+		rejections.clear();
+	}
+
+	@Override
+	public CacheStats getStats() {
+		return rejections.stats();
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	public long getTimeToLive() {
+		return timeToLive;
+	}
+
+	@Override
+	public String toString() {
+		return CommonHelper.toNiceString(this.getClass(), "maxSize", maxSize, "timeToLive", timeToLive, "stats", getStats());
+	}
+
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.cache;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.pac4j.core.ext.cache.CachedTokenProfile.Freshness;
+import org.pac4j.core.ext.profile.TokenProfile;
+import org.pac4j.core.ext.utils.ProfileUtils;
+import org.pac4j.core.util.CommonHelper;
+
+/**
+ * In-memory {@link TokenProfileCache} bounded in size, with a time to live for each entry :
+ * its expiration time if any (see {@link CachedTokenProfile#getExpiresAt()}), else the time to live of the cache.
+ * <p>The entries are spread over segments, each one being a LRU map guarded by its own lock :
+ * when a segment is full, its least recently used entry is evicted.</p>
+ * <p>Optionally, an entry past its refresh time is still served while it is refreshed in the background,
+ * and an entry past its time to live is kept for a while, to be served if the profile url cannot answer
+ * or to be revalidated by a conditional request.</p>
+ * <p>Profiles are copied when they enter and leave the cache, so that callers can never alter a cached profile.</p>
+ * <p>The keys are indexed by the id of their profile, so that all the tokens of a user are invalidated at once.</p>
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+public class LocalTokenProfileCache<P extends TokenProfile> implements TokenProfileCache<P> {
+
+	public static final int DEFAULT_MAX_SIZE = 10000;
+	public static final long DEFAULT_TIME_TO_LIVE = 60 * 1000;
+
+	private final int maxSize;
+	private final long timeToLive;
+	private final long refreshAfter;
+	private final long staleIfError;
+	private final ExpiringLruMap<Stored<P>> profiles;
+	private final ConcurrentMap<String, Set<String>> keysByUserId = new ConcurrentHashMap<>();
+
+	public LocalTokenProfileCache() {
+		this(DEFAULT_MAX_SIZE, DEFAULT_TIME_TO_LIVE);
+	}
+
+	/**
+	 * @param maxSize the maximum number of cached profiles
+	 * @param timeToLive the time to live of the cached profiles, in milliseconds
+	 */
+	public LocalTokenProfileCache(int maxSize, long timeToLive) {
+		this(maxSize, timeToLive, 0, 0);
+	}
+
+	/**
+	 * @param maxSize the maximum number of cached profiles
+	 * @param timeToLive the time to live of the cached profiles, in milliseconds
+	 * @param refreshAfter the age, in milliseconds, from which a profile is refreshed in the background, <code>0</code> to disable ;
+	 * scaled by the time to live of the entries which have their own expiration time
+	 * @param staleIfError the time, in milliseconds, a profile is kept past its time to live to be served if the profile url cannot answer, <code>0</code> to disable
+	 */
+	public LocalTokenProfileCache(int maxSize, long timeToLive, long refreshAfter, long staleIfError) {
+		CommonHelper.assertTrue(timeToLive > 0, "timeToLive must be greater than 0");
+		CommonHelper.assertTrue(refreshAfter >= 0 && refreshAfter < timeToLive, "refreshAfter must be positive and lower than timeToLive");
+		CommonHelper.assertTrue(staleIfError >= 0, "staleIfError must be positive");
+		this.maxSize = maxSize;
+		this.timeToLive = timeToLive;
+		this.refreshAfter = refreshAfter;
+		this.staleIfError = staleIfError;
+		this.profiles = new ExpiringLruMap<>(maxSize, new UserIndex());
+	}
+
+	@Override
+	public P get(String key) {
+		CachedTokenProfile<P> entry = getEntry(key);
+		return entry != null && entry.getFreshness() != Freshness.STALE ? entry.getProfile() : null;
+	}
+
+	@Override
+	public CachedTokenProfile<P> getEntry(String key) {
+		Stored<P> stored = profiles.get(key);
+		if (stored == null) {
+			return null;
+		}
+		long age = System.currentTimeMillis() - stored.storedAt;
+		Freshness freshness;
+		if (age >= stored.timeToLive) {
+			freshness = Freshness.STALE;
+		} else if (stored.refreshAfter > 0 && age >= stored.refreshAfter) {
+			freshness = Freshness.REFRESH;
+		} else {
+			freshness = Freshness.FRESH;
+		}
+		return new CachedTokenProfile<>(ProfileUtils.copy(stored.profile), freshness, stored.etag, stored.lastModified,
+				stored.storedAt + stored.timeToLive);
+	}
+
+	@Override
+	public void put(String key, P profile) {
+		put(key, new CachedTokenProfile<>(profile, Freshness.FRESH));
+	}
+
+	@Override
+	public void put(String key, CachedTokenProfile<P> entry) {
+		long now = System.currentTimeMillis();
+		long entryTimeToLive = entry.getExpiresAt() > 0 ? Math.max(0, entry.getExpiresAt() - now) : timeToLive;
+		if (entryTimeToLive == 0 && staleIfError == 0) {
+			// already expired, nothing to serve nor to revalidate
+			profiles.remove(key);
+			return;
+		}
+		long entryRefreshAfter = entryTimeToLive == timeToLive ? refreshAfter : (long) ((double) refreshAfter / timeToLive * entryTimeToLive);
+		profiles.put(key, new Stored<>(ProfileUtils.copy(entry.getProfile()), now, entryTimeToLive, entryRefreshAfter,
+				entry.getEtag(), entry.getLastModified()), now + entryTimeToLive + staleIfError);
+	}
+
+	@Override
+	public void invalidate(String key) {
+		profiles.remove(key);
+	}
+
+	@Override
+	public Set<String> invalidateUser(String userId) {
+		final Set<String> keys = keysByUserId.get(userId);
+		if (keys == null) {
+			return Collections.emptySet();
+		}
+		final Set<String> removed = new HashSet<>(keys);
+		for (String key : removed) {
+			profiles.remove(key);
+		}
+		return removed;
+	}
+
+	@Override
+	public void invalidateAll() {
+		profiles.clear();
+	}
+
+	@Override
+	public long size() {
+		return profiles.size();
+	}
+
+	@Override
+	public CacheStats getStats() {
+		return profiles.stats();
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	@Override
+	public long getTimeToLive() {
+		return timeToLive;
+	}
+
+	public long getRefreshAfter() {
+		return refreshAfter;
+	}
+
+	public long getStaleIfError() {
+		return staleIfError;
+	}
+
+	@Override
+	public String toString() {
+		return CommonHelper.toNiceString(this.getClass(), "maxSize", maxSize, "timeToLive", timeToLive,
+				"refreshAfter", refreshAfter, "staleIfError", staleIfError, "stats", getStats());
+	}
+
+	/*
+	 * Index of the keys by user id, maintained under the lock of the segment of the key
+	 */
+	private final class UserIndex implements ExpiringLruMap.EntryListener<Stored<P>> {
+
+		@Override
+		public void added(String key, Stored<P> stored) {
+			final String userId = stored.profile.getId();
+			if (userId != null) {
+				keysByUserId.compute(userId, (id, keys) -> {
+					final Set<String> userKeys = keys != null ? keys : ConcurrentHashMap.newKeySet();
+					userKeys.add(key);
+					return userKeys;
+				});
+			}
+		}
+
+		@Override
+		public void removed(String key, Stored<P> stored) {
+			final String userId = stored.profile.getId();
+			if (userId != null) {
+				keysByUserId.computeIfPresent(userId, (id, keys) -> {
+					keys.remove(key);
+					return keys.isEmpty() ? null : keys;
+				});
+			}
+		}
+
+	}
+
+	private static final class Stored<P> {
+
+		private final P profile;
+		private final long storedAt;
+		private final long timeToLive;
+		private final long refreshAfter;
+		private final String etag;
+		private final String lastModified;
+
+		private Stored(P profile, long storedAt, long timeToLive, long refreshAfter, String etag, String lastModified) {
+			this.profile = profile;
+			this.storedAt = storedAt;
+			this.timeToLive = timeToLive;
+			this.refreshAfter = refreshAfter;
+			this.etag = etag;
+			this.lastModified = lastModified;
+		}
+
+	}
+
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.cache;
+
+/**
+ * Negative cache of the tokens definitively rejected by the profile url (401, 403),
+ * so that replayed revoked or forged tokens are refused without calling the profile url again.
+ * <p>Keys are digests of the token (see {@link CacheKeys}), never the raw token value.</p>
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+public interface RejectedTokenCache {
+
+	/**
+	 * @param key the hashed token
+	 * @return whether the token was recently rejected
+	 */
+	boolean isRejected(String key);
+
+	/**
+	 * Remember that the token was rejected.
+	 * @param key the hashed token
+	 */
+	void reject(String key);
+
+	/**
+	 * Forget the rejection of the token.
+	 * @param key the hashed token
+	 */
+	void invalidate(String key);
+
+	/**
+	 * Forget all the rejections.
+	 */
+	void invalidateAll();
+
+	/**
+	 * @return a snapshot of the cache statistics, a hit being a rejection served from the cache
+	 */
+	CacheStats getStats();
+
+}
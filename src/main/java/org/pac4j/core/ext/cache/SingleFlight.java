@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+import org.pac4j.core.exception.HttpCommunicationException;
+import org.pac4j.core.exception.TechnicalException;
+import org.pac4j.core.ext.utils.FutureUtils;
+import org.pac4j.core.util.CommonHelper;
+
+/**
+ * Coalesce the concurrent loads of a same key : the first caller runs the load while the others
+ * wait, for a bounded time, for its result or its failure.
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+public class SingleFlight<V> {
+
+	public static final long DEFAULT_WAIT_TIMEOUT = 10 * 1000;
+
+	private final ConcurrentMap<String, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+	private final long waitTimeout;
+	private final UnaryOperator<V> sharer;
+
+	private final LongAdder loadCount = new LongAdder();
+	private final LongAdder joinCount = new LongAdder();
+	private final LongAdder timeoutCount = new LongAdder();
+
+	public SingleFlight() {
+		this(DEFAULT_WAIT_TIMEOUT, UnaryOperator.identity());
+	}
+
+	/**
+	 * @param waitTimeout the maximum time, in milliseconds, a caller waits for the load of another caller
+	 * @param sharer the function applied to the loaded value before handing it to a waiting caller, to copy mutable values
+	 */
+	public SingleFlight(long waitTimeout, UnaryOperator<V> sharer) {
+		CommonHelper.assertTrue(waitTimeout > 0, "waitTimeout must be greater than 0");
+		CommonHelper.assertNotNull("sharer", sharer);
+		this.waitTimeout = waitTimeout;
+		this.sharer = sharer;
+	}
+
+	/**
+	 * Load the value of the key, or wait for the load already in flight for this key.
+	 * @param key the key
+	 * @param loader the load of the value
+	 * @return the loaded value
+	 */
+	public V execute(String key, Supplier<V> loader) {
+		final CompletableFuture<V> future = new CompletableFuture<>();
+		final CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+		if (existing == null) {
+			loadCount.increment();
+			try {
+				V value = loader.get();
+				future.complete(value);
+				return value;
+			} catch (RuntimeException | Error e) {
+				future.completeExceptionally(e);
+				throw e;
+			} finally {
+				inFlight.remove(key, future);
+			}
+		}
+		joinCount.increment();
+		try {
+			return sharer.apply(existing.get(waitTimeout, TimeUnit.MILLISECONDS));
+		} catch (TimeoutException e) {
+			timeoutCount.increment();
+			throw new HttpCommunicationException("No result after waiting " + waitTimeout + " ms for the in-flight call");
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw new TechnicalException(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new TechnicalException(e);
+		}
+	}
+
+	/**
+	 * Load the value of the key without blocking, or join the load already in flight for this key.
+	 * @param key the key
+	 * @param loader the asynchronous load of the value
+	 * @return the future value
+	 */
+	public CompletableFuture<V> executeAsync(String key, Supplier<CompletableFuture<V>> loader) {
+		final CompletableFuture<V> future = new CompletableFuture<>();
+		final CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+		if (existing == null) {
+			loadCount.increment();
+			CompletableFuture<V> loading;
+			try {
+				loading = loader.get();
+			} catch (RuntimeException | Error e) {
+				loading = FutureUtils.failedFuture(e);
+			}
+			loading.whenComplete((value, t) -> {
+				inFlight.remove(key, future);
+				if (t != null) {
+					future.completeExceptionally(FutureUtils.unwrap(t));
+				} else {
+					future.complete(value);
+				}
+			});
+			return future;
+		}
+		joinCount.increment();
+		return FutureUtils.withTimeout(existing, waitTimeout, () -> {
+			timeoutCount.increment();
+			return new HttpCommunicationException("No result after waiting " + waitTimeout + " ms for the in-flight call");
+		}).thenApply(sharer);
+	}
+
+	/**
+	 * @return the number of keys currently loading
+	 */
+	public int getInFlightCount() {
+		return inFlight.size();
+	}
+
+	/**
+	 * @return the number of loads actually run
+	 */
+	public long getLoadCount() {
+		return loadCount.sum();
+	}
+
+	/**
+	 * @return the number of callers that waited for the load of another caller instead of running their own
+	 */
+	public long getJoinCount() {
+		return joinCount.sum();
+	}
+
+	/**
+	 * @return the number of waiting callers that gave up after the wait timeout
+	 */
+	public long getTimeoutCount() {
+		return timeoutCount.sum();
+	}
+
+	public long getWaitTimeout() {
+		return waitTimeout;
+	}
+
+	@Override
+	public String toString() {
+		return CommonHelper.toNiceString(this.getClass(), "waitTimeout", waitTimeout, "inFlightCount", getInFlightCount(),
+				"loadCount", getLoadCount(), "joinCount", getJoinCount(), "timeoutCount", getTimeoutCount());
+	}
+
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+
+import org.pac4j.core.ext.utils.FutureUtils;
+import org.pac4j.core.util.CommonHelper;
+
+/**
+ * {@link TokenProfileStore} client of a {@link SocketTokenProfileStoreServer}, a stand-in of a shared store for tests and benchmarks.
+ * <p>The blocking socket calls run on the executor, over pooled connections : a connection is closed on any failure.</p>
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+public class SocketTokenProfileStore implements TokenProfileStore, Closeable {
+
+	public static final int DEFAULT_TIMEOUT = 1000;
+	public static final int DEFAULT_MAX_IDLE_CONNECTIONS = 8;
+
+	private final InetSocketAddress address;
+	private final int timeout;
+	private final int maxIdleConnections;
+	private final Executor executor;
+	private final Queue<Connection> idleConnections = new ConcurrentLinkedQueue<>();
+	private volatile boolean closed;
+
+	/**
+	 * @param host the host of the server
+	 * @param port the port of the server
+	 */
+	public SocketTokenProfileStore(String host, int port) {
+		this(new InetSocketAddress(host, port), DEFAULT_TIMEOUT, DEFAULT_MAX_IDLE_CONNECTIONS, FutureUtils.WORKER);
+	}
+
+	/**
+	 * @param address the address of the server
+	 * @param timeout the connect and read timeout, in milliseconds
+	 * @param maxIdleConnections the maximum number of connections kept open between the calls
+	 * @param executor the executor of the blocking socket calls
+	 */
+	public SocketTokenProfileStore(InetSocketAddress address, int timeout, int maxIdleConnections, Executor executor) {
+		CommonHelper.assertNotNull("address", address);
+		CommonHelper.assertTrue(timeout > 0, "timeout must be greater than 0");
+		CommonHelper.assertNotNull("executor", executor);
+		this.address = address;
+		this.timeout = timeout;
+		this.maxIdleConnections = maxIdleConnections;
+		this.executor = executor;
+	}
+
+	@Override
+	public CompletableFuture<byte[]> getAsync(String key) {
+		return call(connection -> {
+			connection.out.writeByte(SocketTokenProfileStoreServer.GET);
+			connection.out.writeUTF(key);
+			connection.out.flush();
+			return SocketTokenProfileStoreServer.readValue(connection.in, Integer.MAX_VALUE);
+		});
+	}
+
+	@Override
+	public CompletableFuture<Map<String, byte[]>> getAllAsync(Collection<String> keys) {
+		return call(connection -> {
+			connection.out.writeByte(SocketTokenProfileStoreServer.GET_ALL);
+			connection.out.writeInt(keys.size());
+			for (String key : keys) {
+				connection.out.writeUTF(key);
+			}
+			connection.out.flush();
+			final int count = connection.in.readInt();
+			final Map<String, byte[]> values = new LinkedHashMap<>();
+			for (int i = 0; i < count; i++) {
+				values.put(connection.in.readUTF(), SocketTokenProfileStoreServer.readValue(connection.in, Integer.MAX_VALUE));
+			}
+			return values;
+		});
+	}
+
+	@Override
+	public CompletableFuture<Void> putAsync(String key, byte[] value, long timeToLive) {
+		return call(connection -> {
+			connection.out.writeByte(SocketTokenProfileStoreServer.PUT);
+			connection.out.writeUTF(key);
+			connection.out.writeLong(timeToLive);
+			SocketTokenProfileStoreServer.writeValue(connection.out, value);
+			connection.out.flush();
+			connection.in.readByte();
+			return null;
+		});
+	}
+
+	@Override
+	public CompletableFuture<Void> removeAsync(String key) {
+		return call(connection -> {
+			connection.out.writeByte(SocketTokenProfileStoreServer.REMOVE);
+			connection.out.writeUTF(key);
+			connection.out.flush();
+			connection.in.readByte();
+			return null;
+		});
+	}
+
+	@Override
+	public CompletableFuture<Void> clearAsync() {
+		return call(connection -> {
+			connection.out.writeByte(SocketTokenProfileStoreServer.CLEAR);
+			connection.out.flush();
+			connection.in.readByte();
+			return null;
+		});
+	}
+
+	private <R> CompletableFuture<R> call(SocketCall<R> socketCall) {
+		if (closed) {
+			return FutureUtils.failedFuture(new IOException("Store closed"));
+		}
+		try {
+			return CompletableFuture.supplyAsync(() -> {
+				Connection connection = idleConnections.poll();
+				try {
+					if (connection == null) {
+						connection = new Connection(address, timeout);
+					}
+					final R result = socketCall.call(connection);
+					release(connection);
+					return result;
+				} catch (IOException e) {
+					if (connection != null) {
+						connection.close();
+					}
+					throw new UncheckedIOException(e);
+				}
+			}, executor);
+		} catch (RuntimeException e) {
+			return FutureUtils.failedFuture(e);
+		}
+	}
+
+	private void release(Connection connection) {
+		if (closed || idleConnections.size() >= maxIdleConnections) {
+			connection.close();
+			return;
+		}
+		idleConnections.offer(connection);
+	}
+
+	@Override
+	public void close() {
+		closed = true;
+		Connection connection;
+		while ((connection = idleConnections.poll()) != null) {
+			connection.close();
+		}
+	}
+
+	public InetSocketAddress getAddress() {
+		return address;
+	}
+
+	public int getTimeout() {
+		return timeout;
+	}
+
+	@Override
+	public String toString() {
+		return CommonHelper.toNiceString(this.getClass(), "address", address, "timeout", timeout,
+				"maxIdleConnections", maxIdleConnections, "idleConnections", idleConnections.size());
+	}
+
+	@FunctionalInterface
+	private interface SocketCall<R> {
+		R call(Connection connection) throws IOException;
+	}
+
+	private static final class Connection {
+
+		private final Socket socket;
+		private final DataInputStream in;
+		private final DataOutputStream out;
+
+		private Connection(InetSocketAddress address, int timeout) throws IOException {
+			socket = new Socket();
+			try {
+				socket.connect(address, timeout);
+				socket.setSoTimeout(timeout);
+				socket.setTcpNoDelay(true);
+				in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+				out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			} catch (IOException e) {
+				socket.close();
+				throw e;
+			}
+		}
+
+		private void close() {
+			try {
+				socket.close();
+			} catch (IOException e) {
+				// already broken
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.pac4j.core.exception.TechnicalException;
+import org.pac4j.core.ext.utils.FutureUtils;
+import org.pac4j.core.util.CommonHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Serve a {@link TokenProfileStore} on a loopback socket to the {@link SocketTokenProfileStore} clients :
+ * a stand-in of a shared store like Redis or Memcached, to run the {@link TieredTokenProfileCache} of several nodes
+ * on a single host, in tests or benchmarks.
+ * <p>Each request is a frame : an operation byte followed by its arguments, answered on the same connection.
+ * Each connection is served by its own daemon thread.</p>
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+public class SocketTokenProfileStoreServer implements Closeable {
+
+	static final byte GET = 1;
+	static final byte GET_ALL = 2;
+	static final byte PUT = 3;
+	static final byte REMOVE = 4;
+	static final byte CLEAR = 5;
+
+	static final byte FOUND = 1;
+	static final byte MISSING = 0;
+	static final byte DONE = 0;
+
+	public static final int DEFAULT_MAX_VALUE_SIZE = 1024 * 1024;
+
+	private static final AtomicInteger THREADS = new AtomicInteger();
+
+	protected final Logger logger = LoggerFactory.getLogger(getClass());
+
+	private final TokenProfileStore store;
+	private final int maxValueSize;
+	private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+	private volatile ServerSocket serverSocket;
+
+	public SocketTokenProfileStoreServer() {
+		this(new InMemoryTokenProfileStore(), DEFAULT_MAX_VALUE_SIZE);
+	}
+
+	/**
+	 * @param store the served store
+	 * @param maxValueSize the maximum size of a stored value, in bytes
+	 */
+	public SocketTokenProfileStoreServer(TokenProfileStore store, int maxValueSize) {
+		CommonHelper.assertNotNull("store", store);
+		CommonHelper.assertTrue(maxValueSize > 0, "maxValueSize must be greater than 0");
+		this.store = store;
+		this.maxValueSize = maxValueSize;
+	}
+
+	/**
+	 * Listen on the loopback interface.
+	 * @param port the port, <code>0</code> for an ephemeral port, see {@link #getPort()}
+	 * @return this server
+	 * @throws IOException if the port cannot be bound
+	 */
+	public synchronized SocketTokenProfileStoreServer start(int port) throws IOException {
+		CommonHelper.assertTrue(serverSocket == null, "server already started");
+		final ServerSocket socket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+		serverSocket = socket;
+		newThread(() -> accept(socket)).start();
+		return this;
+	}
+
+	/**
+	 * @return the listening port, <code>-1</code> if not started
+	 */
+	public int getPort() {
+		final ServerSocket socket = serverSocket;
+		return socket == null ? -1 : socket.getLocalPort();
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		final ServerSocket socket = serverSocket;
+		serverSocket = null;
+		if (socket != null) {
+			socket.close();
+		}
+		for (Socket connection : connections) {
+			connection.close();
+		}
+	}
+
+	private void accept(ServerSocket socket) {
+		while (!socket.isClosed()) {
+			try {
+				final Socket connection = socket.accept();
+				connection.setTcpNoDelay(true);
+				connections.add(connection);
+				newThread(() -> serve(connection)).start();
+			} catch (IOException e) {
+				if (!socket.isClosed()) {
+					logger.warn("Cannot accept a connection: {}", e.getMessage());
+				}
+			}
+		}
+	}
+
+	private void serve(Socket connection) {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(connection.getInputStream()));
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()))) {
+			while (true) {
+				final byte operation;
+				try {
+					operation = in.readByte();
+				} catch (EOFException e) {
+					return;
+				}
+				handle(operation, in, out);
+				out.flush();
+			}
+		} catch (SocketException e) {
+			logger.debug("Connection closed: {}", e.getMessage());
+		} catch (IOException | RuntimeException e) {
+			logger.warn("Connection aborted: {}", e.toString());
+		} finally {
+			connections.remove(connection);
+			try {
+				connection.close();
+			} catch (IOException e) {
+				logger.debug("Cannot close the connection: {}", e.getMessage());
+			}
+		}
+	}
+
+	private void handle(byte operation, DataInputStream in, DataOutputStream out) throws IOException {
+		switch (operation) {
+		case GET: {
+			final byte[] value = FutureUtils.join(store.getAsync(in.readUTF()));
+			writeValue(out, value);
+			break;
+		}
+		case GET_ALL: {
+			final int count = in.readInt();
+			final List<String> keys = new ArrayList<>(Math.min(count, 1024));
+			for (int i = 0; i < count; i++) {
+				keys.add(in.readUTF());
+			}
+			final Map<String, byte[]> values = FutureUtils.join(store.getAllAsync(keys));
+			out.writeInt(values.size());
+			for (Map.Entry<String, byte[]> value : values.entrySet()) {
+				out.writeUTF(value.getKey());
+				writeValue(out, value.getValue());
+			}
+			break;
+		}
+		case PUT: {
+			final String key = in.readUTF();
+			final long timeToLive = in.readLong();
+			final byte[] value = readValue(in, maxValueSize);
+			FutureUtils.join(store.putAsync(key, value, timeToLive));
+			out.writeByte(DONE);
+			break;
+		}
+		case REMOVE:
+			FutureUtils.join(store.removeAsync(in.readUTF()));
+			out.writeByte(DONE);
+			break;
+		case CLEAR:
+			FutureUtils.join(store.clearAsync());
+			out.writeByte(DONE);
+			break;
+		default:
+			throw new TechnicalException("Unknown operation: " + operation);
+		}
+	}
+
+	static void writeValue(DataOutputStream out, byte[] value) throws IOException {
+		if (value == null) {
+			out.writeByte(MISSING);
+			return;
+		}
+		out.writeByte(FOUND);
+		out.writeInt(value.length);
+		out.write(value);
+	}
+
+	static byte[] readValue(DataInputStream in, int maxValueSize) throws IOException {
+		if (in.readByte() == MISSING) {
+			return null;
+		}
+		final int length = in.readInt();
+		if (length < 0 || length > maxValueSize) {
+			throw new IOException("Invalid value size: " + length);
+		}
+		final byte[] value = new byte[length];
+		in.readFully(value);
+		return value;
+	}
+
+	private static Thread newThread(Runnable runnable) {
+		final Thread thread = new Thread(runnable, "pac4j-ext-profile-store-" + THREADS.incrementAndGet());
+		thread.setDaemon(true);
+		return thread;
+	}
+
+	@Override
+	public String toString() {
+		return CommonHelper.toNiceString(this.getClass(), "port", getPort(), "maxValueSize", maxValueSize,
+				"connections", connections.size(), "store", store);
+	}
+
+}
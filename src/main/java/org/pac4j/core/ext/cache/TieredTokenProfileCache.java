@@ -0,0 +1,307 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.cache;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.pac4j.core.exception.TechnicalException;
+import org.pac4j.core.ext.cache.CachedTokenProfile.Freshness;
+import org.pac4j.core.ext.profile.TokenProfile;
+import org.pac4j.core.ext.utils.FutureUtils;
+import org.pac4j.core.util.CommonHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Two tiers {@link TokenProfileCache} : a local cache in front of a {@link TokenProfileStore} shared by the nodes,
+ * so that a token is introspected once per time to live by the whole cluster rather than by each node.
+ * <p>A local miss, or a stale local profile, probes the shared store before the profile url is called : a profile found there is
+ * decoded and copied in the local cache until its expiration time. The cached profiles are written to both tiers, the shared
+ * store being written in the background. A slow or failing shared store is treated as a miss : it never fails a lookup.</p>
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+public class TieredTokenProfileCache<P extends TokenProfile> implements TokenProfileCache<P> {
+
+	public static final long DEFAULT_STORE_TIMEOUT = 50;
+	public static final long DEFAULT_STORE_TIME_TO_LIVE = 60 * 1000;
+
+	protected final Logger logger = LoggerFactory.getLogger(getClass());
+
+	private final TokenProfileCache<P> localCache;
+	private final TokenProfileStore store;
+	private final TokenProfileCodec<P> codec;
+	private final long storeTimeout;
+	private final long storeTimeToLive;
+
+	private final LongAdder storeHitCount = new LongAdder();
+	private final LongAdder storeMissCount = new LongAdder();
+	private final LongAdder storeErrorCount = new LongAdder();
+
+	public TieredTokenProfileCache(TokenProfileCache<P> localCache, TokenProfileStore store, TokenProfileCodec<P> codec) {
+		this(localCache, store, codec, DEFAULT_STORE_TIMEOUT, DEFAULT_STORE_TIME_TO_LIVE);
+	}
+
+	/**
+	 * @param localCache the local cache, first tier
+	 * @param store the shared store, second tier
+	 * @param codec the encoding of the profiles in the shared store
+	 * @param storeTimeout the maximum wait, in milliseconds, for the shared store on a local miss
+	 * @param storeTimeToLive the time to live, in milliseconds, in the shared store of the profiles without expiration time
+	 */
+	public TieredTokenProfileCache(TokenProfileCache<P> localCache, TokenProfileStore store, TokenProfileCodec<P> codec,
+			long storeTimeout, long storeTimeToLive) {
+		CommonHelper.assertNotNull("localCache", localCache);
+		CommonHelper.assertNotNull("store", store);
+		CommonHelper.assertNotNull("codec", codec);
+		CommonHelper.assertTrue(storeTimeout > 0, "storeTimeout must be greater than 0");
+		CommonHelper.assertTrue(storeTimeToLive > 0, "storeTimeToLive must be greater than 0");
+		this.localCache = localCache;
+		this.store = store;
+		this.codec = codec;
+		this.storeTimeout = storeTimeout;
+		this.storeTimeToLive = storeTimeToLive;
+	}
+
+	@Override
+	public P get(String key) {
+		CachedTokenProfile<P> entry = getEntry(key);
+		return entry != null && entry.getFreshness() != Freshness.STALE ? entry.getProfile() : null;
+	}
+
+	@Override
+	public CachedTokenProfile<P> getEntry(String key) {
+		final CachedTokenProfile<P> local = localCache.getEntry(key);
+		if (local != null && local.getFreshness() != Freshness.STALE) {
+			return local;
+		}
+		byte[] value;
+		try {
+			value = store.getAsync(key).get(storeTimeout, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			onStoreError("get", key, e);
+			return local;
+		} catch (ExecutionException e) {
+			onStoreError("get", key, FutureUtils.unwrap(e));
+			return local;
+		} catch (RuntimeException e) {
+			onStoreError("get", key, e);
+			return local;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new TechnicalException(e);
+		}
+		return promote(key, value, local);
+	}
+
+	@Override
+	public CompletableFuture<CachedTokenProfile<P>> getEntryAsync(String key) {
+		final CachedTokenProfile<P> local = localCache.getEntry(key);
+		if (local != null && local.getFreshness() != Freshness.STALE) {
+			return CompletableFuture.completedFuture(local);
+		}
+		CompletableFuture<byte[]> value;
+		try {
+			value = store.getAsync(key);
+		} catch (RuntimeException e) {
+			value = FutureUtils.failedFuture(e);
+		}
+		if (!value.isDone()) {
+			value = FutureUtils.withTimeout(value, storeTimeout,
+					() -> new TimeoutException("No answer of the store after " + storeTimeout + " ms"));
+		}
+		return value.handle((found, t) -> {
+			if (t != null) {
+				onStoreError("get", key, FutureUtils.unwrap(t));
+				return local;
+			}
+			return promote(key, found, local);
+		});
+	}
+
+	/*
+	 * Decode the profile found in the store and copy it in the local cache, or fall back on the stale local profile
+	 */
+	private CachedTokenProfile<P> promote(String key, byte[] value, CachedTokenProfile<P> local) {
+		if (value == null) {
+			storeMissCount.increment();
+			return local;
+		}
+		final CachedTokenProfile<P> shared;
+		try {
+			shared = codec.decode(value);
+		} catch (RuntimeException e) {
+			onStoreError("decode", key, e);
+			return local;
+		}
+		if (shared.getExpiresAt() <= System.currentTimeMillis()) {
+			storeMissCount.increment();
+			return local;
+		}
+		storeHitCount.increment();
+		localCache.put(key, shared);
+		return shared;
+	}
+
+	@Override
+	public void put(String key, P profile) {
+		put(key, new CachedTokenProfile<>(profile, Freshness.FRESH));
+	}
+
+	@Override
+	public void put(String key, CachedTokenProfile<P> entry) {
+		localCache.put(key, entry);
+		final long now = System.currentTimeMillis();
+		final long timeToLive = entry.getExpiresAt() > 0 ? entry.getExpiresAt() - now : storeTimeToLive;
+		if (timeToLive <= 0) {
+			return;
+		}
+		try {
+			// the nodes reading the profile share its expiration time
+			final byte[] value = codec.encode(new CachedTokenProfile<>(entry.getProfile(), Freshness.FRESH, entry.getEtag(),
+					entry.getLastModified(), now + timeToLive));
+			store.putAsync(key, value, timeToLive).whenComplete((v, t) -> {
+				if (t != null) {
+					onStoreError("put", key, FutureUtils.unwrap(t));
+				}
+			});
+		} catch (RuntimeException e) {
+			onStoreError("put", key, e);
+		}
+	}
+
+	@Override
+	public void invalidate(String key) {
+		localCache.invalidate(key);
+		removeFromStore(key);
+	}
+
+	private void removeFromStore(String key) {
+		try {
+			store.removeAsync(key).whenComplete((v, t) -> {
+				if (t != null) {
+					onStoreError("remove", key, FutureUtils.unwrap(t));
+				}
+			});
+		} catch (RuntimeException e) {
+			onStoreError("remove", key, e);
+		}
+	}
+
+	/**
+	 * Remove the profiles of the user from the local cache, and the same keys from the shared store :
+	 * the keys of the user only known by other nodes are removed by their own invalidation.
+	 */
+	@Override
+	public Set<String> invalidateUser(String userId) {
+		final Set<String> keys = localCache.invalidateUser(userId);
+		for (String key : keys) {
+			removeFromStore(key);
+		}
+		return keys;
+	}
+
+	@Override
+	public void invalidateAll() {
+		localCache.invalidateAll();
+		try {
+			store.clearAsync().whenComplete((v, t) -> {
+				if (t != null) {
+					onStoreError("clear", null, FutureUtils.unwrap(t));
+				}
+			});
+		} catch (RuntimeException e) {
+			onStoreError("clear", null, e);
+		}
+	}
+
+	private void onStoreError(String operation, String key, Throwable t) {
+		storeErrorCount.increment();
+		logger.debug("Store {} failure for key: {} -> {}", operation, key, t.toString());
+	}
+
+	/**
+	 * @return the number of profiles in the local cache
+	 */
+	@Override
+	public long size() {
+		return localCache.size();
+	}
+
+	/**
+	 * @return a snapshot of the statistics of the local cache
+	 */
+	@Override
+	public CacheStats getStats() {
+		return localCache.getStats();
+	}
+
+	/**
+	 * @return the number of local misses served by the shared store
+	 */
+	public long getStoreHitCount() {
+		return storeHitCount.sum();
+	}
+
+	/**
+	 * @return the number of local misses not found in the shared store
+	 */
+	public long getStoreMissCount() {
+		return storeMissCount.sum();
+	}
+
+	/**
+	 * @return the number of failed or timed out calls to the shared store, and of undecodable values
+	 */
+	public long getStoreErrorCount() {
+		return storeErrorCount.sum();
+	}
+
+	public TokenProfileCache<P> getLocalCache() {
+		return localCache;
+	}
+
+	public TokenProfileStore getStore() {
+		return store;
+	}
+
+	/**
+	 * @return the time to live of the local cache
+	 */
+	@Override
+	public long getTimeToLive() {
+		return localCache.getTimeToLive();
+	}
+
+	public long getStoreTimeout() {
+		return storeTimeout;
+	}
+
+	public long getStoreTimeToLive() {
+		return storeTimeToLive;
+	}
+
+	@Override
+	public String toString() {
+		return CommonHelper.toNiceString(this.getClass(), "localCache", localCache, "store", store, "storeTimeout", storeTimeout,
+				"storeHitCount", getStoreHitCount(), "storeMissCount", getStoreMissCount(), "storeErrorCount", getStoreErrorCount());
+	}
+
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.cache;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import org.pac4j.core.ext.exception.MethodNotSupportedException;
+import org.pac4j.core.ext.profile.TokenProfile;
+
+/**
+ * Cache of the profiles extracted for a token.
+ * <p>Keys are digests of the token (see {@link CacheKeys}), never the raw token value.</p>
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+public interface TokenProfileCache<P extends TokenProfile> {
+
+	/**
+	 * Return the profile cached for the given key.
+	 * @param key the hashed token
+	 * @return a copy of the cached profile or <code>null</code> if missing or expired
+	 */
+	P get(String key);
+
+	/**
+	 * Return the profile cached for the given key, even if it is no more fresh.
+	 * Caches without refresh ahead nor stale serving only return fresh profiles.
+	 * @param key the hashed token
+	 * @return a copy of the cached profile with its freshness, or <code>null</code> if missing or past its stale limit
+	 */
+	default CachedTokenProfile<P> getEntry(String key) {
+		P profile = get(key);
+		return profile == null ? null : new CachedTokenProfile<>(profile, CachedTokenProfile.Freshness.FRESH);
+	}
+
+	/**
+	 * Return the profile cached for the given key without blocking the caller, see {@link #getEntry(String)}.
+	 * Caches backed by a remote store look it up asynchronously, the others answer immediately.
+	 * @param key the hashed token
+	 * @return the future cached profile with its freshness, completed with <code>null</code> if missing or past its stale limit
+	 */
+	default CompletableFuture<CachedTokenProfile<P>> getEntryAsync(String key) {
+		return CompletableFuture.completedFuture(getEntry(key));
+	}
+
+	/**
+	 * Cache the profile extracted for the given key.
+	 * @param key the hashed token
+	 * @param profile the profile to cache
+	 */
+	void put(String key, P profile);
+
+	/**
+	 * Cache the profile extracted for the given key with the validators of its response, see {@link CachedTokenProfile#hasValidators()},
+	 * until its expiration time, see {@link CachedTokenProfile#getExpiresAt()}.
+	 * Caches without revalidation support only keep the profile, caches without per-entry expiration use their own time to live.
+	 * @param key the hashed token
+	 * @param entry the profile to cache, its validators and its expiration time, its freshness is ignored
+	 */
+	default void put(String key, CachedTokenProfile<P> entry) {
+		put(key, entry.getProfile());
+	}
+
+	/**
+	 * Remove the profile cached for the given key.
+	 * @param key the hashed token
+	 */
+	void invalidate(String key);
+
+	/**
+	 * Remove the profiles cached for all the tokens of the given user, on revocation or logout.
+	 * @param userId the id of the user profile, see {@link org.pac4j.core.profile.UserProfile#getId()}
+	 * @return the keys of the removed profiles
+	 * @throws MethodNotSupportedException if the cache does not index its profiles by user
+	 */
+	default Set<String> invalidateUser(String userId) {
+		throw new MethodNotSupportedException("Invalidation by user not supported by: " + getClass().getName());
+	}
+
+	/**
+	 * Remove all the cached profiles.
+	 */
+	void invalidateAll();
+
+	/**
+	 * @return the time to live, in milliseconds, of the cached profiles without expiration time, <code>0</code> if unknown
+	 */
+	default long getTimeToLive() {
+		return 0;
+	}
+
+	/**
+	 * @return the number of cached profiles, expired entries not yet evicted included
+	 */
+	long size();
+
+	/**
+	 * @return a snapshot of the cache statistics
+	 */
+	CacheStats getStats();
+
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.cache;
+
+import org.pac4j.core.ext.profile.TokenProfile;
+
+/**
+ * Serialization of the cached token profiles in a {@link TokenProfileStore}.
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+public interface TokenProfileCodec<P extends TokenProfile> {
+
+	/**
+	 * Encode the given profile with its validators and its expiration time, its freshness is not kept.
+	 * @param entry the cached profile
+	 * @return the encoded profile
+	 * @throws org.pac4j.core.exception.TechnicalException if the profile cannot be encoded
+	 */
+	byte[] encode(CachedTokenProfile<P> entry);
+
+	/**
+	 * Decode the given profile.
+	 * @param value the encoded profile
+	 * @return the cached profile, {@link CachedTokenProfile.Freshness#FRESH}
+	 * @throws org.pac4j.core.exception.TechnicalException if the value cannot be decoded
+	 */
+	CachedTokenProfile<P> decode(byte[] value);
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.cache;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * Shared store of the encoded token profiles, the second tier of a {@link TieredTokenProfileCache} :
+ * the profiles extracted by a node are found by the others without calling the profile url again.
+ * <p>Keys are digests of the token (see {@link CacheKeys}), never the raw token value. Values are encoded by a {@link TokenProfileCodec}.</p>
+ * <p>The operations must not block the caller : a store backed by a remote server runs them on its own threads.</p>
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+public interface TokenProfileStore {
+
+	/**
+	 * Read the value stored for the given key.
+	 * @param key the hashed token
+	 * @return the future value, completed with <code>null</code> if missing or expired
+	 */
+	CompletableFuture<byte[]> getAsync(String key);
+
+	/**
+	 * Read the values stored for the given keys, in a single round trip if the store supports it.
+	 * @param keys the hashed tokens
+	 * @return the future values of the keys found, missing and expired keys being absent
+	 */
+	default CompletableFuture<Map<String, byte[]>> getAllAsync(Collection<String> keys) {
+		final List<String> distinctKeys = keys.stream().distinct().collect(Collectors.toList());
+		final List<CompletableFuture<byte[]>> values = distinctKeys.stream().map(this::getAsync).collect(Collectors.toList());
+		return CompletableFuture.allOf(values.toArray(new CompletableFuture<?>[0])).thenApply(v -> {
+			final Map<String, byte[]> found = new LinkedHashMap<>();
+			for (int i = 0; i < distinctKeys.size(); i++) {
+				final byte[] value = values.get(i).join();
+				if (value != null) {
+					found.put(distinctKeys.get(i), value);
+				}
+			}
+			return found;
+		});
+	}
+
+	/**
+	 * Store the value of the given key.
+	 * @param key the hashed token
+	 * @param value the encoded profile
+	 * @param timeToLive the time to live of the value, in milliseconds
+	 * @return the future completed once stored
+	 */
+	CompletableFuture<Void> putAsync(String key, byte[] value, long timeToLive);
+
+	/**
+	 * Remove the value of the given key.
+	 * @param key the hashed token
+	 * @return the future completed once removed
+	 */
+	CompletableFuture<Void> removeAsync(String key);
+
+	/**
+	 * Remove all the values.
+	 * @return the future completed once removed
+	 */
+	CompletableFuture<Void> clearAsync();
+
+}
@@ -16,15 +16,28 @@
 package org.pac4j.core.ext.client;
 
 import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 import org.pac4j.core.client.DirectClient;
+import org.pac4j.core.context.WebContext;
+import org.pac4j.core.context.session.SessionStore;
+import org.pac4j.core.credentials.Credentials;
+import org.pac4j.core.exception.CredentialsException;
 import org.pac4j.core.ext.Pac4jExtConstants;
 import org.pac4j.core.ext.credentials.SignatureCredentials;
+import org.pac4j.core.ext.credentials.authenticator.AsyncAuthenticator;
 import org.pac4j.core.ext.credentials.authenticator.SignatureAuthenticator;
+import org.pac4j.core.ext.credentials.extractor.RequestBodySupplier;
 import org.pac4j.core.ext.credentials.extractor.SignatureParameterExtractor;
 import org.pac4j.core.ext.profile.Signature;
 import org.pac4j.core.ext.profile.SignatureProfile;
 import org.pac4j.core.ext.profile.creator.SignatureProfileCreator;
+import org.pac4j.core.ext.signature.SignedBody;
+import org.pac4j.core.ext.utils.FutureUtils;
+import org.pac4j.core.profile.UserProfile;
 import org.pac4j.core.profile.creator.ProfileCreator;
 import org.pac4j.core.util.CommonHelper;
 
@@ -33,6 +46,17 @@ public abstract class SignatureClient<C extends SignatureCredentials, P extends
 	
 	private String signatureParamName = Pac4jExtConstants.SIGNATURE_PARAM;
 	
+	/* Name of the key id parameter, see SignatureAuthenticator#setKeyRegistry */
+	private String keyIdParamName;
+	
+	/* Names of the timestamp and nonce parameters, see SignatureAuthenticator#setReplayGuard */
+	private String timestampParamName;
+	
+	private String nonceParamName;
+	
+	/* Raw body of the request, see SignatureAuthenticator#setMaxBodySize */
+	private RequestBodySupplier requestBodySupplier;
+	
 	private boolean supportGetRequest = true;
 
 	private boolean supportPostRequest;
@@ -63,15 +87,80 @@ public abstract class SignatureClient<C extends SignatureCredentials, P extends
 	@Override
 	protected void internalInit(final boolean forceReinit) {
 		defaultProfileCreator(new SignatureProfileCreator());
-		defaultCredentialsExtractor(new SignatureParameterExtractor(
+		final SignatureParameterExtractor credentialsExtractor = new SignatureParameterExtractor(
 				this.getSignatureParamName(), this.isSupportGetRequest(),
-				this.isSupportPostRequest(), this.getCharset()));
+				this.isSupportPostRequest(), this.getCharset());
+		credentialsExtractor.setKeyIdParamName(this.getKeyIdParamName());
+		credentialsExtractor.setTimestampParamName(this.getTimestampParamName());
+		credentialsExtractor.setNonceParamName(this.getNonceParamName());
+		credentialsExtractor.setRequestBodySupplier(this.getRequestBodySupplier());
+		defaultCredentialsExtractor(credentialsExtractor);
 		// ensures components have been properly initialized
         CommonHelper.assertNotNull("credentialsExtractor", getCredentialsExtractor());
         CommonHelper.assertNotNull("authenticator", getAuthenticator());
         CommonHelper.assertNotNull("profileCreator", getProfileCreator());
 	}
 
+
+	/**
+	 * Authenticate the request without blocking the caller, the profile being created on the given executor,
+	 * see {@link #getUserProfileAsync(WebContext, SessionStore, Executor, Executor)}.
+	 *
+	 * @param context the web context, read by the calling thread and by the executor
+	 * @param sessionStore the session store
+	 * @param executor the executor of the blocking work and of the profile creation
+	 * @return the future user profile
+	 */
+	public CompletableFuture<Optional<UserProfile>> getUserProfileAsync(final WebContext context, final SessionStore sessionStore,
+			final Executor executor) {
+		return getUserProfileAsync(context, sessionStore, executor, executor);
+	}
+
+	/**
+	 * Authenticate the request without blocking the caller : the credentials are extracted by the calling thread,
+	 * then validated by the {@link AsyncAuthenticator}. The profile creator and the authorization generators read the web context :
+	 * the profile is created on the completion executor, like the executor of the request context of the web framework.
+	 * Like {@link #getCredentials(WebContext, SessionStore)}, invalid credentials give an empty profile.
+	 *
+	 * @param context the web context, read by the calling thread and by the completion executor
+	 * @param sessionStore the session store
+	 * @param executor the executor of the blocking work
+	 * @param completionExecutor the executor creating the profile once the credentials are validated
+	 * @return the future user profile
+	 */
+	public CompletableFuture<Optional<UserProfile>> getUserProfileAsync(final WebContext context, final SessionStore sessionStore,
+			final Executor executor, final Executor completionExecutor) {
+		CommonHelper.assertNotNull("completionExecutor", completionExecutor);
+		init();
+		CommonHelper.assertTrue(getAuthenticator() instanceof AsyncAuthenticator, "authenticator must be an AsyncAuthenticator");
+		final Optional<Credentials> credentials;
+		try {
+			credentials = getCredentialsExtractor().extract(context, sessionStore);
+		} catch (final CredentialsException e) {
+			logger.info("Failed to retrieve credentials: {}", e.getMessage());
+			return CompletableFuture.completedFuture(Optional.empty());
+		}
+		if (!credentials.isPresent()) {
+			return CompletableFuture.completedFuture(Optional.empty());
+		}
+		return ((AsyncAuthenticator<?>) getAuthenticator()).validateAsync(credentials.get(), context, sessionStore, executor)
+			.handleAsync((profile, t) -> {
+				if (t == null) {
+					final SignedBody signedBody = ((SignatureCredentials) credentials.get()).getSignedBody();
+					if (signedBody != null) {
+						context.setRequestAttribute(SignedBody.ATTRIBUTE, signedBody);
+					}
+					return getUserProfile(credentials.get(), context, sessionStore);
+				}
+				final Throwable cause = FutureUtils.unwrap(t);
+				if (cause instanceof CredentialsException) {
+					logger.info("Failed to validate credentials: {}", cause.getMessage());
+					return Optional.<UserProfile> empty();
+				}
+				throw cause instanceof RuntimeException ? (RuntimeException) cause : new CompletionException(cause);
+			}, completionExecutor);
+	}
+
 	public boolean isSupportGetRequest() {
 		return supportGetRequest;
 	}
@@ -100,6 +189,50 @@ public abstract class SignatureClient<C extends SignatureCredentials, P extends
 		return signatureParamName;
 	}
 	
+	public String getKeyIdParamName() {
+		return keyIdParamName;
+	}
+
+	/**
+	 * @param keyIdParamName the name of the parameter, or header, of the id of the key of the caller
+	 */
+	public void setKeyIdParamName(String keyIdParamName) {
+		this.keyIdParamName = keyIdParamName;
+	}
+	
+	public String getTimestampParamName() {
+		return timestampParamName;
+	}
+
+	/**
+	 * @param timestampParamName the name of the parameter, or header, of the timestamp of the request
+	 */
+	public void setTimestampParamName(String timestampParamName) {
+		this.timestampParamName = timestampParamName;
+	}
+
+	public String getNonceParamName() {
+		return nonceParamName;
+	}
+
+	/**
+	 * @param nonceParamName the name of the parameter, or header, of the nonce of the request
+	 */
+	public void setNonceParamName(String nonceParamName) {
+		this.nonceParamName = nonceParamName;
+	}
+
+	public RequestBodySupplier getRequestBodySupplier() {
+		return requestBodySupplier;
+	}
+
+	/**
+	 * @param requestBodySupplier the access to the raw request body, verified while read instead of being buffered as a String
+	 */
+	public void setRequestBodySupplier(RequestBodySupplier requestBodySupplier) {
+		this.requestBodySupplier = requestBodySupplier;
+	}
+	
 	public void setLoginUrl(String loginUrl) {
 		this.loginUrl = loginUrl;
 	}
@@ -15,12 +15,28 @@
  */
 package org.pac4j.core.ext.client;
 
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
 import org.pac4j.core.client.DirectClient;
+import org.pac4j.core.context.WebContext;
+import org.pac4j.core.context.session.SessionStore;
+import org.pac4j.core.credentials.Credentials;
+import org.pac4j.core.exception.CredentialsException;
+import org.pac4j.core.ext.cache.RejectedTokenCache;
+import org.pac4j.core.ext.cache.TokenProfileCache;
+import org.pac4j.core.ext.credentials.authenticator.AsyncAuthenticator;
 import org.pac4j.core.ext.credentials.authenticator.TokenAuthenticator;
 import org.pac4j.core.ext.credentials.extractor.TokenParameterExtractor;
+import org.pac4j.core.ext.http.transport.HttpTransport;
 import org.pac4j.core.ext.profile.Token;
 import org.pac4j.core.ext.profile.TokenProfile;
 import org.pac4j.core.ext.profile.creator.TokenProfileCreator;
+import org.pac4j.core.ext.resilience.Deadline;
+import org.pac4j.core.ext.utils.FutureUtils;
+import org.pac4j.core.profile.UserProfile;
 import org.pac4j.core.profile.creator.ProfileCreator;
 import org.pac4j.core.util.CommonHelper;
 
@@ -36,6 +52,27 @@ public abstract class TokenClient<P extends TokenProfile, T extends Token> exten
 	 */
 	private String loginUrl;
 	
+	/** 
+	 * The cache of the token profiles, given to the token authenticator if it has none
+	 */
+	private TokenProfileCache<P> profileCache;
+	
+	/** 
+	 * The negative cache of the rejected tokens, given to the token authenticator if it has none
+	 */
+	private RejectedTokenCache rejectedTokenCache;
+	
+	/** 
+	 * The HTTP client of the token authenticator, given to it if it has none
+	 */
+	private HttpTransport httpTransport;
+	
+	/** 
+	 * The time budget of the authentication of a request, in milliseconds, 0 for none : credentials extraction,
+	 * profile retrieval and authorization generation included
+	 */
+	private long requestTimeout = 0;
+	
 	public TokenClient() {
 	}
 
@@ -53,9 +90,27 @@ public abstract class TokenClient<P extends TokenProfile, T extends Token> exten
     }
 	
 	@Override
+	@SuppressWarnings("unchecked")
 	protected void internalInit(final boolean forceReinit) {
 		defaultProfileCreator(new TokenProfileCreator());
 		defaultCredentialsExtractor(new TokenParameterExtractor(this.getParameterName(), this.isSupportGetRequest(), this.isSupportPostRequest()));
+		if (getAuthenticator() instanceof TokenAuthenticator) {
+			TokenAuthenticator<P, T> tokenAuthenticator = (TokenAuthenticator<P, T>) getAuthenticator();
+			if (getProfileCache() != null && tokenAuthenticator.getProfileCache() == null) {
+				tokenAuthenticator.setProfileCache(getProfileCache());
+			}
+			if (getRejectedTokenCache() != null && tokenAuthenticator.getRejectedTokenCache() == null) {
+				tokenAuthenticator.setRejectedTokenCache(getRejectedTokenCache());
+			}
+			if (getHttpTransport() != null && !tokenAuthenticator.hasHttpTransport()) {
+				tokenAuthenticator.setHttpTransport(getHttpTransport());
+			}
+			if (getRequestTimeout() > 0 && tokenAuthenticator.getRequestTimeout() <= 0) {
+				tokenAuthenticator.setRequestTimeout(getRequestTimeout());
+			}
+			// initialized once configured, before the first requests rather than by the concurrent first requests
+			tokenAuthenticator.init();
+		}
 		
 		// ensures components have been properly initialized
         CommonHelper.assertNotNull("credentialsExtractor", getCredentialsExtractor());
@@ -63,6 +118,79 @@ public abstract class TokenClient<P extends TokenProfile, T extends Token> exten
         CommonHelper.assertNotNull("profileCreator", getProfileCreator());
 	}
 	
+	@Override
+	protected Optional<Credentials> retrieveCredentials(final WebContext context, final SessionStore sessionStore) {
+		attachDeadline(context);
+		return super.retrieveCredentials(context, sessionStore);
+	}
+	
+	/**
+	 * Give its deadline to the request, read by the authenticator and the authorization generators, see {@link Deadline#from(WebContext)}.
+	 *
+	 * @param context the web context
+	 */
+	protected void attachDeadline(final WebContext context) {
+		if (getRequestTimeout() > 0) {
+			Deadline.attach(context, getRequestTimeout());
+		}
+	}
+
+	/**
+	 * Authenticate the request without blocking the caller, the profile being created on the given executor,
+	 * see {@link #getUserProfileAsync(WebContext, SessionStore, Executor, Executor)}.
+	 *
+	 * @param context the web context, read by the calling thread and by the executor
+	 * @param sessionStore the session store
+	 * @param executor the executor of the blocking work and of the profile creation
+	 * @return the future user profile
+	 */
+	public CompletableFuture<Optional<UserProfile>> getUserProfileAsync(final WebContext context, final SessionStore sessionStore,
+			final Executor executor) {
+		return getUserProfileAsync(context, sessionStore, executor, executor);
+	}
+
+	/**
+	 * Authenticate the request without blocking the caller : the credentials are extracted by the calling thread,
+	 * then validated by the {@link AsyncAuthenticator}. The profile creator and the authorization generators read the web context :
+	 * the profile is created on the completion executor, like the executor of the request context of the web framework.
+	 * Like {@link #getCredentials(WebContext, SessionStore)}, invalid credentials give an empty profile.
+	 *
+	 * @param context the web context, read by the calling thread and by the completion executor
+	 * @param sessionStore the session store
+	 * @param executor the executor of the blocking work
+	 * @param completionExecutor the executor creating the profile once the credentials are validated
+	 * @return the future user profile
+	 */
+	public CompletableFuture<Optional<UserProfile>> getUserProfileAsync(final WebContext context, final SessionStore sessionStore,
+			final Executor executor, final Executor completionExecutor) {
+		CommonHelper.assertNotNull("completionExecutor", completionExecutor);
+		init();
+		CommonHelper.assertTrue(getAuthenticator() instanceof AsyncAuthenticator, "authenticator must be an AsyncAuthenticator");
+		attachDeadline(context);
+		final Optional<Credentials> credentials;
+		try {
+			credentials = getCredentialsExtractor().extract(context, sessionStore);
+		} catch (final CredentialsException e) {
+			logger.info("Failed to retrieve credentials: {}", e.getMessage());
+			return CompletableFuture.completedFuture(Optional.empty());
+		}
+		if (!credentials.isPresent()) {
+			return CompletableFuture.completedFuture(Optional.empty());
+		}
+		return ((AsyncAuthenticator<?>) getAuthenticator()).validateAsync(credentials.get(), context, sessionStore, executor)
+			.handleAsync((profile, t) -> {
+				if (t == null) {
+					return getUserProfile(credentials.get(), context, sessionStore);
+				}
+				final Throwable cause = FutureUtils.unwrap(t);
+				if (cause instanceof CredentialsException) {
+					logger.info("Failed to validate credentials: {}", cause.getMessage());
+					return Optional.<UserProfile> empty();
+				}
+				throw cause instanceof RuntimeException ? (RuntimeException) cause : new CompletionException(cause);
+			}, completionExecutor);
+	}
+
 	public String getParameterName() {
 		return parameterName;
 	}
@@ -94,4 +222,36 @@ public abstract class TokenClient<P extends TokenProfile, T extends Token> exten
 	public String getLoginUrl() {
 		return loginUrl;
 	}
+
+	public TokenProfileCache<P> getProfileCache() {
+		return profileCache;
+	}
+
+	public void setProfileCache(TokenProfileCache<P> profileCache) {
+		this.profileCache = profileCache;
+	}
+
+	public RejectedTokenCache getRejectedTokenCache() {
+		return rejectedTokenCache;
+	}
+
+	public void setRejectedTokenCache(RejectedTokenCache rejectedTokenCache) {
+		this.rejectedTokenCache = rejectedTokenCache;
+	}
+
+	public HttpTransport getHttpTransport() {
+		return httpTransport;
+	}
+
+	public void setHttpTransport(HttpTransport httpTransport) {
+		this.httpTransport = httpTransport;
+	}
+
+	public long getRequestTimeout() {
+		return requestTimeout;
+	}
+
+	public void setRequestTimeout(long requestTimeout) {
+		this.requestTimeout = requestTimeout;
+	}
 }
@@ -15,7 +15,10 @@
  */
 package org.pac4j.core.ext.credentials;
 
+import java.io.InputStream;
+
 import org.pac4j.core.credentials.Credentials;
+import org.pac4j.core.ext.signature.SignedBody;
 import org.pac4j.core.util.CommonHelper;
 
 /**
@@ -27,10 +30,34 @@ public class SignatureCredentials extends Credentials {
 
 	private final String payload;
     private final String signature;
+    /* Id of the key of the caller, see org.pac4j.core.ext.signature.KeyRegistry */
+    private final String keyId;
+    /* Optional replay protection, see org.pac4j.core.ext.signature.ReplayGuard */
+    private final String timestamp;
+    private final String nonce;
+    /* Raw request body read while verified, instead of the payload, see org.pac4j.core.ext.signature.VerifyingInputStream */
+    private final transient InputStream body;
+    private transient SignedBody signedBody;
 
     public SignatureCredentials(String payload, String signature) {
+        this(payload, signature, null, null);
+    }
+
+    public SignatureCredentials(String payload, String signature, String timestamp, String nonce) {
+        this(payload, null, signature, timestamp, nonce);
+    }
+
+    public SignatureCredentials(String payload, InputStream body, String signature, String timestamp, String nonce) {
+        this(payload, body, signature, null, timestamp, nonce);
+    }
+
+    public SignatureCredentials(String payload, InputStream body, String signature, String keyId, String timestamp, String nonce) {
         this.payload = payload;
+        this.body = body;
         this.signature = signature;
+        this.keyId = keyId;
+        this.timestamp = timestamp;
+        this.nonce = nonce;
     }
 
     public String getPayload() {
@@ -41,6 +68,37 @@ public class SignatureCredentials extends Credentials {
 		return signature;
 	}
 
+	public String getKeyId() {
+		return keyId;
+	}
+
+	public String getTimestamp() {
+		return timestamp;
+	}
+
+	public String getNonce() {
+		return nonce;
+	}
+
+	/**
+	 * @return the raw request body not read yet, <code>null</code> when the payload was read as a String
+	 */
+	public InputStream getBody() {
+		return body;
+	}
+
+	/**
+	 * @return the request body once read and verified from {@link #getBody()}, to read it again ; also attached to the request,
+	 *         it must be released at the end of the request, see {@link SignedBody#release(org.pac4j.core.context.WebContext)}
+	 */
+	public SignedBody getSignedBody() {
+		return signedBody;
+	}
+
+	public void setSignedBody(SignedBody signedBody) {
+		this.signedBody = signedBody;
+	}
+
 	@Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -58,7 +116,8 @@ public class SignatureCredentials extends Credentials {
 
     @Override
     public String toString() {
-        return CommonHelper.toNiceString(this.getClass(), "payload", this.payload, "signature", this.signature);
+        return CommonHelper.toNiceString(this.getClass(), "payload", this.payload, "signature", this.signature, "keyId", this.keyId,
+        		"timestamp", this.timestamp, "nonce", this.nonce);
     }
     
 }
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.credentials.authenticator;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import org.pac4j.core.context.WebContext;
+import org.pac4j.core.context.session.SessionStore;
+import org.pac4j.core.credentials.Credentials;
+import org.pac4j.core.profile.UserProfile;
+
+/**
+ * Non-blocking counterpart of {@link org.pac4j.core.credentials.authenticator.Authenticator}, for hosts which
+ * cannot park a thread for each request being authenticated.
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+public interface AsyncAuthenticator<P extends UserProfile> {
+
+	/**
+	 * Validate the credentials without blocking the caller : the returned future fails with a
+	 * {@link org.pac4j.core.exception.CredentialsException} if the credentials are invalid.
+	 * On success, the profile is also set on the credentials.
+	 *
+	 * @param credentials the given credentials
+	 * @param context the web context, only read by the calling thread
+	 * @param sessionStore the session store
+	 * @param executor the executor of the blocking work, if any
+	 * @return the future user profile
+	 */
+	CompletableFuture<Optional<P>> validateAsync(Credentials credentials, WebContext context, SessionStore sessionStore, Executor executor);
+
+}
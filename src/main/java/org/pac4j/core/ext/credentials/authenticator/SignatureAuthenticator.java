@@ -15,18 +15,35 @@
  */
 package org.pac4j.core.ext.credentials.authenticator;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.pac4j.core.context.WebContext;
 import org.pac4j.core.context.session.SessionStore;
 import org.pac4j.core.credentials.Credentials;
 import org.pac4j.core.credentials.authenticator.Authenticator;
 import org.pac4j.core.exception.CredentialsException;
+import org.pac4j.core.exception.TechnicalException;
 import org.pac4j.core.ext.credentials.SignatureCredentials;
+import org.pac4j.core.ext.exception.MethodNotSupportedException;
 import org.pac4j.core.ext.profile.Signature;
 import org.pac4j.core.ext.profile.SignatureProfile;
 import org.pac4j.core.ext.profile.definition.SignatureProfileDefinitionAware;
+import org.pac4j.core.ext.signature.KeyRegistry;
+import org.pac4j.core.ext.signature.ReplayGuard;
+import org.pac4j.core.ext.signature.SignatureVerification;
+import org.pac4j.core.ext.signature.SignatureVerifier;
+import org.pac4j.core.ext.signature.SignedBody;
+import org.pac4j.core.ext.signature.VerifyingInputStream;
+import org.pac4j.core.ext.utils.ByteArrayPool;
+import org.pac4j.core.ext.utils.FutureUtils;
 import org.pac4j.core.util.CommonHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,10 +53,28 @@ import org.slf4j.LoggerFactory;
  * @author 		： <a href="https://github.com/hiwepy">hiwepy</a>
  */
 public abstract class SignatureAuthenticator<C extends SignatureCredentials, P extends SignatureProfile, T extends Signature>
-	extends SignatureProfileDefinitionAware<P, T>  implements Authenticator {
+	extends SignatureProfileDefinitionAware<P, T>  implements Authenticator, AsyncAuthenticator<P> {
+	
+	public static final long DEFAULT_MAX_BODY_SIZE = 16 * 1024 * 1024;
 	
 	protected final Logger logger = LoggerFactory.getLogger(getClass());
     private String charset = StandardCharsets.UTF_8.name();
+    
+    /* Verification of the signature before the profile extraction, left to the profile definition when null */
+    private SignatureVerifier signatureVerifier;
+    
+    /* Rejection of the replayed requests by their timestamp and nonce, disabled when null */
+    private ReplayGuard replayGuard;
+    
+    /* Dedicated executor of the asynchronous verifications, the executor of the caller when null */
+    private Executor verificationExecutor;
+    
+    /* Keys of the callers by key id, instead of the single signature verifier, when not null */
+    private KeyRegistry keyRegistry;
+    
+    /* Bound and buffers of the request bodies read as streams */
+    private long maxBodySize = DEFAULT_MAX_BODY_SIZE;
+    private ByteArrayPool bodyPool = ByteArrayPool.shared();
 	
 	public SignatureAuthenticator() {
 	}
@@ -57,18 +92,186 @@ public abstract class SignatureAuthenticator<C extends SignatureCredentials, P e
         }
         
     	SignatureCredentials signatureCredentials = (SignatureCredentials) credentials;
+        if (signatureCredentials.getBody() != null) {
+        	validateBody(signatureCredentials, context);
+        	return;
+        }
+        
         String payload = signatureCredentials.getPayload();
         if (CommonHelper.isBlank(payload)) {
             throw new CredentialsException("Payload cannot be blank");
         }
+        
+        final SignatureVerifier signatureVerifier = resolveSignatureVerifier(signatureCredentials);
+        if (signatureVerifier != null) {
+        	if (!verify(signatureVerifier, signedPrefix(signatureCredentials), payload.getBytes(Charset.forName(charset)),
+        			signatureCredentials.getSignature())) {
+        		throw new CredentialsException("Invalid signature");
+        	}
+        	checkReplay(signatureCredentials);
+        }
 
         final Optional<P> profile = Optional.of(getProfileDefinition().extractUserProfile(payload, signatureCredentials.getSignature()));
+        if (signatureVerifier == null) {
+        	// verified by the profile definition
+        	checkReplay(signatureCredentials);
+        }
         
+        addKeyId(profile.get(), signatureCredentials);
         logger.debug("profile: {}", profile.get());
         credentials.setUserProfile(profile.get());
         
     }
 
+	/**
+	 * Read the raw request body into pooled arrays while its signature is verified, then extract the profile from these arrays.
+	 * The verified body is kept in the credentials and in the request for the application, which must release it at the end
+	 * of the request, see {@link SignedBody#release(WebContext)}.
+	 */
+	protected void validateBody(SignatureCredentials credentials, WebContext context) {
+		final SignatureVerifier signatureVerifier = resolveSignatureVerifier(credentials);
+		final SignedBody signedBody = new SignedBody(bodyPool, maxBodySize);
+		boolean valid = false;
+		try {
+			if (signatureVerifier == null) {
+				try (InputStream body = credentials.getBody()) {
+					signedBody.readFrom(body);
+				}
+			} else {
+				final SignatureVerification verification = signatureVerifier.newVerification();
+				final byte[] prefix = signedPrefix(credentials);
+				if (prefix != null) {
+					verification.update(prefix, 0, prefix.length);
+				}
+				try (VerifyingInputStream body = new VerifyingInputStream(credentials.getBody(), verification)) {
+					signedBody.readFrom(body);
+					if (!body.verify(credentials.getSignature())) {
+						throw new CredentialsException("Invalid signature");
+					}
+				}
+			}
+			if (signedBody.getLength() == 0) {
+				throw new CredentialsException("Payload cannot be blank");
+			}
+
+			if (signatureVerifier != null) {
+				checkReplay(credentials);
+			}
+
+			final P profile;
+			try (InputStream body = signedBody.getInputStream()) {
+				profile = getProfileDefinition().extractUserProfile(body, Charset.forName(charset), credentials.getSignature());
+			}
+			if (signatureVerifier == null) {
+				// verified by the profile definition
+				checkReplay(credentials);
+			}
+			addKeyId(profile, credentials);
+			logger.debug("profile: {}", profile);
+			credentials.setSignedBody(signedBody);
+			if (context != null) {
+				context.setRequestAttribute(SignedBody.ATTRIBUTE, signedBody);
+			}
+			credentials.setUserProfile(profile);
+			valid = true;
+		} catch (IOException e) {
+			throw new CredentialsException("Cannot read the request body: " + e.getMessage());
+		} finally {
+			if (!valid) {
+				signedBody.close();
+			}
+		}
+	}
+
+	/**
+	 * Return the verifier of the key of the caller when the authenticator has a key registry, the signature verifier otherwise.
+	 * @param credentials the credentials
+	 * @return the verifier, <code>null</code> to leave the verification to the profile definition
+	 */
+	protected SignatureVerifier resolveSignatureVerifier(SignatureCredentials credentials) {
+		final KeyRegistry keyRegistry = getKeyRegistry();
+		if (keyRegistry == null) {
+			return getSignatureVerifier();
+		}
+		if (CommonHelper.isBlank(credentials.getKeyId())) {
+			throw new CredentialsException("Key id cannot be blank");
+		}
+		final SignatureVerifier verifier = keyRegistry.getVerifier(credentials.getKeyId());
+		if (verifier == null) {
+			throw new CredentialsException("Unknown key id: " + credentials.getKeyId());
+		}
+		return verifier;
+	}
+
+	private void addKeyId(P profile, SignatureCredentials credentials) {
+		if (credentials.getKeyId() != null) {
+			profile.addAttribute(SignatureProfile.KEY_ID, credentials.getKeyId());
+		}
+	}
+
+	/**
+	 * Return the bytes signed before the payload when the replay guard is enabled, so that a captured payload and signature
+	 * cannot be sent again with another timestamp or nonce : <code>timestamp + "\n" + nonce + "\n"</code>, UTF-8 encoded.
+	 * @param credentials the credentials
+	 * @return the signed prefix, <code>null</code> without replay guard
+	 */
+	protected byte[] signedPrefix(SignatureCredentials credentials) {
+		if (getReplayGuard() == null) {
+			return null;
+		}
+		final String timestamp = credentials.getTimestamp() == null ? "" : credentials.getTimestamp();
+		final String nonce = credentials.getNonce() == null ? "" : credentials.getNonce();
+		return (timestamp + "\n" + nonce + "\n").getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static boolean verify(SignatureVerifier verifier, byte[] prefix, byte[] payload, String signature) {
+		if (prefix == null) {
+			return verifier.verify(payload, signature);
+		}
+		final SignatureVerification verification;
+		try {
+			verification = verifier.newVerification();
+		} catch (MethodNotSupportedException e) {
+			final byte[] signed = Arrays.copyOf(prefix, prefix.length + payload.length);
+			System.arraycopy(payload, 0, signed, prefix.length, payload.length);
+			return verifier.verify(signed, signature);
+		}
+		try (SignatureVerification opened = verification) {
+			opened.update(prefix, 0, prefix.length);
+			opened.update(payload, 0, payload.length);
+			return opened.verify(signature);
+		}
+	}
+
+	/**
+	 * Reject the replayed requests, after the signature so that forged requests do not fill the nonces.
+	 */
+	protected void checkReplay(SignatureCredentials credentials) {
+		final ReplayGuard replayGuard = getReplayGuard();
+		if (replayGuard != null) {
+			replayGuard.check(credentials.getTimestamp(), credentials.getNonce());
+		}
+	}
+
+	/**
+	 * Signature checks are CPU bound : they run on the verification executor if any, on the given executor otherwise.
+	 * The web context is not read nor written by these executors : the verified body is in the credentials,
+	 * see {@link SignatureCredentials#getSignedBody()}.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public CompletableFuture<Optional<P>> validateAsync(Credentials credentials, WebContext context, SessionStore sessionStore, Executor executor) {
+		final Executor verificationExecutor = getVerificationExecutor();
+		try {
+			return CompletableFuture.supplyAsync(() -> {
+				validate(credentials, null, sessionStore);
+				return Optional.of((P) credentials.getUserProfile());
+			}, verificationExecutor != null ? verificationExecutor : executor);
+		} catch (RejectedExecutionException e) {
+			return FutureUtils.failedFuture(new TechnicalException("Too many signature verifications in progress"));
+		}
+	}
+
 	public String getCharset() {
 		return charset;
 	}
@@ -76,5 +279,83 @@ public abstract class SignatureAuthenticator<C extends SignatureCredentials, P e
 	public void setCharset(String charset) {
 		this.charset = charset;
 	}
-	
+
+	public SignatureVerifier getSignatureVerifier() {
+		return signatureVerifier;
+	}
+
+	/**
+	 * Verify the signature of the payload, encoded with the charset, before the profile is extracted.
+	 * @param signatureVerifier the signature verifier, like {@link org.pac4j.core.ext.signature.HmacSignatureVerifier}
+	 * or {@link org.pac4j.core.ext.signature.PublicKeySignatureVerifier}
+	 */
+	public void setSignatureVerifier(SignatureVerifier signatureVerifier) {
+		this.signatureVerifier = signatureVerifier;
+	}
+
+	public ReplayGuard getReplayGuard() {
+		return replayGuard;
+	}
+
+	/**
+	 * Reject the requests out of the timestamp window or with a nonce already used. The timestamp and the nonce,
+	 * see {@link org.pac4j.core.ext.credentials.extractor.SignatureParameterExtractor#setTimestampParamName(String)},
+	 * are signed before the payload, see {@link #signedPrefix(SignatureCredentials)}. Without signature verifier,
+	 * the profile definition must verify them with the payload.
+	 * @param replayGuard the replay guard
+	 */
+	public void setReplayGuard(ReplayGuard replayGuard) {
+		this.replayGuard = replayGuard;
+	}
+
+	public Executor getVerificationExecutor() {
+		return verificationExecutor;
+	}
+
+	/**
+	 * Run the asynchronous verifications, see {@link #validateAsync}, on a dedicated executor : bounded, like
+	 * {@link FutureUtils#newBoundedExecutor(String, int, int)}, it caps the CPU spent on expensive RSA verifications
+	 * and rejects the requests beyond its queue. The synchronous verifications run on the calling thread.
+	 * @param verificationExecutor the executor of the verifications
+	 */
+	public void setVerificationExecutor(Executor verificationExecutor) {
+		this.verificationExecutor = verificationExecutor;
+	}
+
+	public KeyRegistry getKeyRegistry() {
+		return keyRegistry;
+	}
+
+	/**
+	 * Verify the signatures with the key of each caller, found by the key id of the request,
+	 * see {@link org.pac4j.core.ext.credentials.extractor.SignatureParameterExtractor#setKeyIdParamName(String)}.
+	 * The key id is added to the profile, see {@link SignatureProfile#getKeyId()}.
+	 * @param keyRegistry the registry of the keys of the callers
+	 */
+	public void setKeyRegistry(KeyRegistry keyRegistry) {
+		this.keyRegistry = keyRegistry;
+	}
+
+	public long getMaxBodySize() {
+		return maxBodySize;
+	}
+
+	/**
+	 * @param maxBodySize the maximum size, in bytes, of a request body read as a stream, larger ones are rejected
+	 */
+	public void setMaxBodySize(long maxBodySize) {
+		this.maxBodySize = maxBodySize;
+	}
+
+	public ByteArrayPool getBodyPool() {
+		return bodyPool;
+	}
+
+	/**
+	 * @param bodyPool the pool of the arrays holding the request bodies read as streams
+	 */
+	public void setBodyPool(ByteArrayPool bodyPool) {
+		this.bodyPool = bodyPool;
+	}
+
 }
@@ -16,13 +16,26 @@
 package org.pac4j.core.ext.credentials.authenticator;
 
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.io.UnsupportedEncodingException;
-import java.net.HttpURLConnection;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 
 import org.pac4j.core.context.HttpConstants;
 import org.pac4j.core.context.WebContext;
@@ -32,25 +45,58 @@ import org.pac4j.core.credentials.TokenCredentials;
 import org.pac4j.core.credentials.authenticator.Authenticator;
 import org.pac4j.core.exception.CredentialsException;
 import org.pac4j.core.exception.HttpCommunicationException;
+import org.pac4j.core.ext.batch.MicroBatcher;
+import org.pac4j.core.ext.cache.CacheKeys;
+import org.pac4j.core.ext.cache.CachedTokenProfile;
+import org.pac4j.core.ext.cache.CachedTokenProfile.Freshness;
+import org.pac4j.core.ext.cache.InvalidationLog;
+import org.pac4j.core.ext.cache.LocalTokenProfileCache;
+import org.pac4j.core.ext.cache.RejectedTokenCache;
+import org.pac4j.core.ext.cache.SingleFlight;
+import org.pac4j.core.ext.cache.TokenProfileCache;
+import org.pac4j.core.ext.exception.BulkheadFullException;
+import org.pac4j.core.ext.exception.CallNotPermittedException;
+import org.pac4j.core.ext.exception.KeySetUnavailableException;
+import org.pac4j.core.ext.exception.ProfileUnavailableException;
+import org.pac4j.core.ext.http.transport.AsyncHttpTransport;
+import org.pac4j.core.ext.http.transport.DecompressingHttpTransport;
+import org.pac4j.core.ext.http.transport.HttpRequest;
+import org.pac4j.core.ext.http.transport.HttpRequestTemplate;
+import org.pac4j.core.ext.http.transport.HttpResponse;
+import org.pac4j.core.ext.http.transport.HttpTransport;
+import org.pac4j.core.ext.http.transport.LimitedInputStream;
+import org.pac4j.core.ext.http.transport.LoadBalancingHttpTransport;
+import org.pac4j.core.ext.http.transport.UrlConnectionHttpTransport;
+import org.pac4j.core.ext.jwt.JwkSetSource;
+import org.pac4j.core.ext.jwt.JwtVerifier;
 import org.pac4j.core.ext.profile.Token;
 import org.pac4j.core.ext.profile.TokenProfile;
 import org.pac4j.core.ext.profile.TokenProfileDefinition;
 import org.pac4j.core.ext.profile.definition.TokenProfileDefinitionAware;
+import org.pac4j.core.ext.resilience.AdaptiveConcurrencyLimiter;
+import org.pac4j.core.ext.resilience.Bulkhead;
+import org.pac4j.core.ext.resilience.CircuitBreaker;
+import org.pac4j.core.ext.resilience.Deadline;
+import org.pac4j.core.ext.resilience.RetryPolicy;
+import org.pac4j.core.ext.revocation.RevocationEvent;
+import org.pac4j.core.ext.revocation.RevocationListener;
+import org.pac4j.core.ext.utils.FutureUtils;
 import org.pac4j.core.ext.utils.HttpHeaders;
+import org.pac4j.core.ext.utils.ProfileUtils;
 import org.pac4j.core.util.CommonHelper;
-import org.pac4j.core.util.HttpUtils;
-import org.pac4j.core.util.HttpUtils2;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.alibaba.fastjson.JSONObject;
 
 public abstract class TokenAuthenticator<P extends TokenProfile, T extends Token>
-	extends TokenProfileDefinitionAware<P, T>  implements Authenticator {
+	extends TokenProfileDefinitionAware<P, T>  implements Authenticator, AsyncAuthenticator<P>, RevocationListener {
 	
 	protected final Logger logger = LoggerFactory.getLogger(getClass());
 	protected final String DEFAULT_USER_AGENT = "Mozilla/5.0 (Windows NT 10.0; Win64; x64; rv:70.0) Gecko/20100101 Firefox/70.0";
 	protected final String DEFAULT_ACCEPT_HEADER = "application/json, text/plain, */*";
+	public static final long DEFAULT_MAX_BODY_SIZE = 1024 * 1024;
+	public static final long DEFAULT_MAX_PROFILE_TIME_TO_LIVE = 60 * 60 * 1000;
 	
 	/* Map containing user defined headers */
 	private Map<String, String> customHeaders = new HashMap<>();
@@ -63,6 +109,75 @@ public abstract class TokenAuthenticator<P extends TokenProfile, T extends Token
 	
 	private String parameterName = "token";
 	
+	/* Maximum size of the response of the profile url, in bytes */
+	private long maxBodySize = DEFAULT_MAX_BODY_SIZE;
+	
+	/* State built at initialization, published at once : null until the authenticator is initialized */
+	private volatile InitState<T, P> initState;
+	
+	/* HTTP client calling the profile url, a UrlConnectionHttpTransport created on first use when not set */
+	private volatile HttpTransport httpTransport;
+	
+	/* Whether the profile url is asked for compressed responses */
+	private boolean compressionEnabled = false;
+	
+	/* Cache of the profiles extracted for the tokens, disabled when null */
+	private TokenProfileCache<P> profileCache;
+	
+	/* Coalescing of the concurrent profile loads of a same token, disabled when null */
+	private SingleFlight<P> singleFlight;
+	
+	/* Negative cache of the tokens rejected by the profile url, disabled when null */
+	private RejectedTokenCache rejectedTokenCache;
+	
+	/* Maximum number of tokens introspected in a single call, batching disabled when lower than 2 */
+	private int batchSize = 0;
+	
+	/* Maximum time a token waits for other tokens before its batch is sent, in milliseconds */
+	private long batchWindow = MicroBatcher.DEFAULT_WINDOW;
+	
+	/* Executor of the batch calls */
+	private Executor batchExecutor;
+	
+	/* Local verification of the JWTs, disabled when null */
+	private JwtVerifier jwtVerifier;
+	
+	/* Circuit breaker of the calls to the profile url, disabled when null */
+	private CircuitBreaker circuitBreaker;
+	
+	/* Cap of the concurrent calls to the profile url, disabled when null */
+	private Bulkhead bulkhead;
+	
+	/* Limit of the concurrent calls to the profile url tuned from its response times, disabled when null */
+	private AdaptiveConcurrencyLimiter concurrencyLimiter;
+	
+	/* Retries of the failed calls to the profile url, disabled when null */
+	private RetryPolicy retryPolicy;
+	
+	/* Time budget of the profile retrieval, in milliseconds, when the request has no deadline, 0 for none */
+	private long requestTimeout = 0;
+	
+	/* Time to live of the cached profiles without max-age nor expiration time, in milliseconds, 0 for the time to live of the cache */
+	private long profileTimeToLive = 0;
+	
+	/* Maximum time to live of the cached profiles, in milliseconds, 0 for the time to live of the profile cache */
+	private long maxProfileTimeToLive = 0;
+	
+	/* Whether the cached profiles are revalidated by conditional requests */
+	private boolean revalidationEnabled = false;
+	
+	/* Number of the cached profiles revalidated by a 304 response */
+	private final LongAdder notModifiedCount = new LongAdder();
+	
+	/* Executor of the background refreshes of the cached profiles, FutureUtils.BACKGROUND when null */
+	private Executor refreshExecutor;
+	
+	/* Keys of the tokens whose cached profile is being refreshed */
+	private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+	
+	/* Invalidated tokens and users, kept from the loads in progress and revoked for the local verification */
+	private InvalidationLog invalidationLog = new InvalidationLog();
+	
 	public TokenAuthenticator() {
 	}
 	
@@ -75,12 +190,75 @@ public abstract class TokenAuthenticator<P extends TokenProfile, T extends Token
     protected void internalInit(final boolean forceReinit) {
 		CommonHelper.assertNotNull("parameterName", parameterName);
 		CommonHelper.assertNotNull("profileDefinition", getProfileDefinition());
+		final List<String> profileBaseUrls = getProfileDefinition().getProfileBaseUrls();
+		HttpTransport transport = profileBaseUrls.isEmpty() ? getHttpTransport() : new LoadBalancingHttpTransport(getHttpTransport(), profileBaseUrls);
+		if (compressionEnabled) {
+			// a batch response holds several profiles
+			final long maxDecompressedSize = getMaxBodySize() > Long.MAX_VALUE / Math.max(1, batchSize) ? Long.MAX_VALUE : getMaxBodySize() * Math.max(1, batchSize);
+			transport = new DecompressingHttpTransport(transport, maxDecompressedSize);
+		}
+		final boolean requestHooksOverridden = isOverridden("finalHeaders", WebContext.class, Token.class, String.class, Map.class)
+				|| isOverridden("finalParams", WebContext.class, Token.class, String.class, Map.class);
+		final boolean restApiOverridden = isOverridden("retrieveUserProfileFromRestApi", WebContext.class, Token.class, String.class);
+		final MicroBatcher<T, P> batcher = batchSize > 1 && getProfileDefinition().isBatchSupported() && !restApiOverridden
+				? new MicroBatcher<>(batchSize, batchWindow, this::loadUserProfiles, batchExecutor != null ? batchExecutor : FutureUtils.WORKER)
+				: null;
+		initState = new InitState<>(compileRequestTemplate(), transport, batcher, requestHooksOverridden, restApiOverridden);
+    }
+    
+    /*
+     * The state built at initialization. init() is throttled : a request concurrent with the first initialization skips it,
+     * so the state is read from here, waiting for the initialization in progress or running it.
+     */
+    private InitState<T, P> initState() {
+    	InitState<T, P> state = initState;
+    	if (state == null) {
+    		// init() holds the same lock while initializing
+    		synchronized (this) {
+    			state = initState;
+    			if (state == null) {
+    				init(true);
+    				state = initState;
+    			}
+    		}
+    	}
+    	return state;
     }
 	
 	@Override
     public void validate(Credentials credentials, WebContext context, SessionStore sessionStore) {
         
-    	if (credentials == null) {
+    	init();
+    	TokenCredentials tokenCredentials = checkCredentials(credentials);
+        
+        final Optional<P> profile = retrieveUserProfileFromToken(context , tokenCredentials);
+        
+        logger.debug("profile: {}", profile.get());
+        credentials.setUserProfile(profile.get());
+        
+    }
+	
+	@Override
+	public CompletableFuture<Optional<P>> validateAsync(Credentials credentials, WebContext context, SessionStore sessionStore, Executor executor) {
+		
+		final TokenCredentials tokenCredentials;
+		try {
+			init();
+			tokenCredentials = checkCredentials(credentials);
+		} catch (final RuntimeException e) {
+			return FutureUtils.failedFuture(e);
+		}
+		
+		return retrieveUserProfileFromTokenAsync(context, tokenCredentials, executor).thenApply(profile -> {
+			logger.debug("profile: {}", profile.get());
+	        credentials.setUserProfile(profile.get());
+	        return profile;
+		});
+	}
+	
+	protected TokenCredentials checkCredentials(Credentials credentials) {
+		
+		if (credentials == null) {
             throw new CredentialsException("No credential");
         }
         
@@ -89,13 +267,8 @@ public abstract class TokenAuthenticator<P extends TokenProfile, T extends Token
         if (CommonHelper.isBlank(token)) {
             throw new CredentialsException("Token cannot be blank");
         }
-        
-        final Optional<P> profile = retrieveUserProfileFromToken(context , tokenCredentials);
-        
-        logger.debug("profile: {}", profile.get());
-        credentials.setUserProfile(profile.get());
-        
-    }
+        return tokenCredentials;
+	}
 	
 	/**
      * Get the access token from Auth credentials.
@@ -118,24 +291,726 @@ public abstract class TokenAuthenticator<P extends TokenProfile, T extends Token
     	
     	logger.debug("accessToken: {}", accessToken.getRawResponse());
     	
+    	final long generation = getInvalidationLog().generation();
+    	final P verifiedProfile = verifyLocally(accessToken);
+    	if (verifiedProfile != null) {
+    		return Optional.of(verifiedProfile);
+    	}
+    	
+    	final TokenProfileCache<P> profileCache = getProfileCache();
+    	final SingleFlight<P> singleFlight = getSingleFlight();
+    	final String cacheKey = isCacheKeyRequired() ? profileCacheKey(accessToken) : null;
+    	final CachedTokenProfile<P> cached = getCachedProfile(accessToken, cacheKey);
+    	if (cached != null && cached.getFreshness() != Freshness.STALE) {
+    		if (cached.getFreshness() == Freshness.REFRESH) {
+    			refreshUserProfile(context, accessToken, cached, cacheKey, getRefreshExecutor());
+    		}
+    		return Optional.of(cached.getProfile());
+    	}
+    	
+    	final Supplier<P> loader = () -> {
+    		if (isLoadingEntries()) {
+    			final CachedTokenProfile<P> loadedEntry = revalidateUserProfile(context, accessToken, cached);
+    			cacheProfile(cacheKey, loadedEntry, generation);
+    			return loadedEntry.getProfile();
+    		}
+    		final P loadedProfile = loadUserProfile(context, accessToken);
+    		if (profileCache != null) {
+    			cacheProfile(cacheKey, cacheEntry(null, loadedProfile), generation);
+    		}
+    		return loadedProfile;
+    	};
+    	final P profile;
+    	try {
+    		profile = singleFlight != null ? singleFlight.execute(cacheKey, loader) : loader.get();
+    	} catch (final ProfileUnavailableException e) {
+    		if (cached == null || cached.getProfile().isTokenExpired()) {
+    			throw e;
+    		}
+    		logger.warn("Serving the stale profile of token: {} -> {}", accessToken.getRawResponse(), e.getMessage());
+    		return Optional.of(cached.getProfile());
+    	}
+        logger.debug("Authentication success for token: {}", accessToken.getRawResponse());
+        return Optional.of(profile);
+    }
+    
+    /**
+     * Retrieve the user profile from the access token without blocking the caller.
+     *
+     * @param context the web context, only read by the calling thread
+     * @param credentials the credentials
+     * @param executor the executor of the blocking work
+     * @return the future user profile
+     */
+    protected CompletableFuture<Optional<P>> retrieveUserProfileFromTokenAsync(final WebContext context, final TokenCredentials credentials,
+    		final Executor executor) {
+    	
+    	if (initState().restApiOverridden) {
+    		// the overridden call blocks and reads the web context : it runs on the calling thread
+    		try {
+    			return CompletableFuture.completedFuture(retrieveUserProfileFromToken(context, credentials));
+    		} catch (final RuntimeException e) {
+    			return FutureUtils.failedFuture(e);
+    		}
+    	}
+    	final T accessToken = getAccessToken(credentials);
+    	
+    	logger.debug("accessToken: {}", accessToken.getRawResponse());
+    	
+    	final String cacheKey = isCacheKeyRequired() ? profileCacheKey(accessToken) : null;
+    	final long generation = getInvalidationLog().generation();
+    	final CompletableFuture<CachedTokenProfile<P>> lookup;
+    	try {
+    		final P verifiedProfile = verifyLocally(accessToken);
+    		if (verifiedProfile != null) {
+    			return CompletableFuture.completedFuture(Optional.of(verifiedProfile));
+    		}
+    		lookup = getCachedProfileAsync(accessToken, cacheKey);
+    	} catch (final RuntimeException e) {
+    		return FutureUtils.failedFuture(e);
+    	}
+    	if (lookup.isDone()) {
+    		final CachedTokenProfile<P> cached;
+    		try {
+    			cached = FutureUtils.join(lookup);
+    		} catch (final RuntimeException e) {
+    			return FutureUtils.failedFuture(e);
+    		}
+    		return retrieveUserProfileAsync(context, accessToken, cacheKey, generation, cached, null, null, executor);
+    	}
+    	// the web context is only read by the calling thread : the profile request is built before the shared cache answers
+    	final String profileUrl;
+    	final HttpRequest request;
+    	try {
+    		profileUrl = getProfileDefinition().getProfileUrl(context, accessToken);
+    		request = buildProfileRequest(context, accessToken, profileUrl);
+    	} catch (final RuntimeException e) {
+    		return FutureUtils.failedFuture(e);
+    	}
+    	return lookup.thenCompose(cached -> retrieveUserProfileAsync(null, accessToken, cacheKey, generation, cached, request, profileUrl, executor));
+    }
+    
+    /*
+     * Serve the cached profile or load it, from the web context or from the profile request built before the cache lookup
+     */
+    private CompletableFuture<Optional<P>> retrieveUserProfileAsync(final WebContext context, final T accessToken, final String cacheKey,
+    		final long generation, final CachedTokenProfile<P> cached, final HttpRequest preparedRequest, final String preparedUrl, final Executor executor) {
+    	
+    	final TokenProfileCache<P> profileCache = getProfileCache();
+    	final SingleFlight<P> singleFlight = getSingleFlight();
+    	if (cached != null && cached.getFreshness() != Freshness.STALE) {
+    		if (cached.getFreshness() == Freshness.REFRESH && context != null) {
+    			refreshUserProfile(context, accessToken, cached, cacheKey, executor);
+    		}
+    		return CompletableFuture.completedFuture(Optional.of(cached.getProfile()));
+    	}
+    	
+    	final Supplier<CompletableFuture<P>> loader = () -> {
+    		if (isLoadingEntries()) {
+    			final CompletableFuture<CachedTokenProfile<P>> loading = preparedRequest != null
+    					? revalidateUserProfileAsync(preparedRequest, preparedUrl, accessToken, cached, executor)
+    					: revalidateUserProfileAsync(context, accessToken, cached, executor);
+    			return loading.thenApply(loadedEntry -> {
+    				cacheProfile(cacheKey, loadedEntry, generation);
+    				return loadedEntry.getProfile();
+    			});
+    		}
+    		return loadUserProfileAsync(context, accessToken, executor).thenApply(loadedProfile -> {
+    			if (profileCache != null) {
+    				cacheProfile(cacheKey, cacheEntry(null, loadedProfile), generation);
+    			}
+    			return loadedProfile;
+    		});
+    	};
+    	final CompletableFuture<P> profile = singleFlight != null ? singleFlight.executeAsync(cacheKey, loader) : loader.get();
+    	return profile.handle((loadedProfile, t) -> {
+    		if (t != null) {
+    			final Throwable cause = FutureUtils.unwrap(t);
+    			if (cached == null || cached.getProfile().isTokenExpired() || !(cause instanceof ProfileUnavailableException)) {
+    				throw new CompletionException(cause);
+    			}
+    			logger.warn("Serving the stale profile of token: {} -> {}", accessToken.getRawResponse(), cause.getMessage());
+    			return Optional.of(cached.getProfile());
+    		}
+    		logger.debug("Authentication success for token: {}", accessToken.getRawResponse());
+    		return Optional.of(loadedProfile);
+    	});
+    }
+    
+    /**
+     * Verify the access token locally if it is a signed JWT, without calling the profile url.
+     *
+     * @param accessToken the access token
+     * @return the user profile, or null if the token must be introspected by the profile url, as when the key set cannot be loaded
+     * @throws CredentialsException if the JWT is invalid or expired
+     * @see #setJwtVerifier(JwtVerifier)
+     */
+    protected P verifyLocally(final T accessToken) {
+    	
+    	final JwtVerifier jwtVerifier = getJwtVerifier();
+    	if (jwtVerifier == null || !JwtVerifier.isJwt(accessToken.getRawResponse())) {
+    		return null;
+    	}
+    	final JSONObject claims;
+    	try {
+    		claims = jwtVerifier.verify(accessToken.getRawResponse());
+    	} catch (final KeySetUnavailableException e) {
+    		// an outage of the JWKS url must not reject the tokens the profile url still accepts, the source logs the failed loads
+    		logger.debug("Local verification unavailable, introspecting token: {} -> {}", accessToken.getRawResponse(), e.getMessage());
+    		return null;
+    	}
+    	if (claims == null) {
+    		return null;
+    	}
+    	final P profile = getProfileDefinition().extractUserProfileFromClaims(claims);
+    	// a signed token stays valid until it expires : its invalidation must be checked here
+    	final Long issuedAt = JwtVerifier.getNumericDate(claims, "iat");
+    	if (getInvalidationLog().isRevoked(profileCacheKey(accessToken), profile.getId(), issuedAt != null ? issuedAt * 1000 : 0)) {
+    		throw new CredentialsException("Revoked token");
+    	}
+    	logger.debug("Local verification success for token: {}", accessToken.getRawResponse());
+    	return profile;
+    }
+    
+    /*
+     * Cache the loaded profile, unless its token or its user was invalidated since the load started
+     */
+    private void cacheProfile(final String cacheKey, final CachedTokenProfile<P> entry, final long generation) {
+    	final InvalidationLog invalidationLog = getInvalidationLog();
+    	final String userId = entry.getProfile().getId();
+    	if (invalidationLog.isInvalidatedSince(cacheKey, userId, generation)) {
+    		logger.debug("Profile not cached, invalidated while loading: {}", cacheKey);
+    		return;
+    	}
+    	final TokenProfileCache<P> profileCache = getProfileCache();
+    	profileCache.put(cacheKey, entry);
+    	// an invalidation between the check and the put removed nothing yet
+    	if (invalidationLog.isInvalidatedSince(cacheKey, userId, generation)) {
+    		profileCache.invalidate(cacheKey);
+    	}
+    }
+    
+    private boolean isCacheKeyRequired() {
+    	return getProfileCache() != null || getSingleFlight() != null || getRejectedTokenCache() != null;
+    }
+    
+    /**
+     * Look the access token up in the caches, before any call to the profile url.
+     *
+     * @param accessToken the access token
+     * @param cacheKey the key of the access token in the caches
+     * @return the cached user profile with its freshness, or null if not cached
+     * @throws HttpCommunicationException if the token was recently rejected by the profile url
+     */
+    protected CachedTokenProfile<P> getCachedProfile(final T accessToken, final String cacheKey) {
+    	
+    	final RejectedTokenCache rejectedTokenCache = getRejectedTokenCache();
+    	if (rejectedTokenCache != null && rejectedTokenCache.isRejected(cacheKey)) {
+    		logger.debug("Rejected token cache hit for token: {}", accessToken.getRawResponse());
+    		throw new HttpCommunicationException("No data found for accessToken: " + accessToken);
+    	}
+    	final TokenProfileCache<P> profileCache = getProfileCache();
+    	if (profileCache != null) {
+    		final CachedTokenProfile<P> cached = profileCache.getEntry(cacheKey);
+    		if (cached != null) {
+    			logger.debug("Profile cache hit ({}) for token: {}", cached.getFreshness(), accessToken.getRawResponse());
+    			return cached;
+    		}
+    	}
+    	return null;
+    }
+    
+    /**
+     * Look the access token up in the caches without blocking the caller, see {@link #getCachedProfile(Token, String)}.
+     *
+     * @param accessToken the access token
+     * @param cacheKey the key of the access token in the caches
+     * @return the future cached user profile with its freshness, completed with null if not cached
+     * @throws HttpCommunicationException if the token was recently rejected by the profile url
+     * @see TokenProfileCache#getEntryAsync(String)
+     */
+    protected CompletableFuture<CachedTokenProfile<P>> getCachedProfileAsync(final T accessToken, final String cacheKey) {
+    	
+    	final RejectedTokenCache rejectedTokenCache = getRejectedTokenCache();
+    	if (rejectedTokenCache != null && rejectedTokenCache.isRejected(cacheKey)) {
+    		logger.debug("Rejected token cache hit for token: {}", accessToken.getRawResponse());
+    		throw new HttpCommunicationException("No data found for accessToken: " + accessToken);
+    	}
+    	final TokenProfileCache<P> profileCache = getProfileCache();
+    	if (profileCache == null) {
+    		return CompletableFuture.completedFuture(null);
+    	}
+    	return profileCache.getEntryAsync(cacheKey).thenApply(cached -> {
+    		if (cached != null) {
+    			logger.debug("Profile cache hit ({}) for token: {}", cached.getFreshness(), accessToken.getRawResponse());
+    		}
+    		return cached;
+    	});
+    }
+    
+    /**
+     * Refresh in the background the cached profile of the access token, one refresh per token at a time.
+     * The refresh is skipped if the executor is saturated : the cached profile is still served until its time to live.
+     * A profile rejected by the refresh is removed from the cache, a refresh failure keeps it.
+     *
+     * @param context the web context, only read by the calling thread
+     * @param accessToken the access token
+     * @param cached the cached profile, revalidated by a conditional request if enabled
+     * @param cacheKey the key of the access token in the profile cache
+     * @param executor the executor of the refresh
+     */
+    protected void refreshUserProfile(final WebContext context, final T accessToken, final CachedTokenProfile<P> cached, final String cacheKey,
+    		final Executor executor) {
+    	
+    	// the overridden call reads the web context, it cannot run in the background : the profile is reloaded once stale
+    	if (initState().restApiOverridden || !refreshing.add(cacheKey)) {
+    		return;
+    	}
+    	final long generation = getInvalidationLog().generation();
+    	final TokenProfileCache<P> profileCache = getProfileCache();
+    	try {
+    		final String profileUrl = getProfileDefinition().getProfileUrl(context, accessToken);
+    		// the refresh runs after the request, out of its time budget
+    		final HttpRequest request = buildProfileRequest(context, accessToken, profileUrl).withDeadline(null);
+    		final HttpRequest conditional = withValidators(request, cached);
+    		executor.execute(() -> {
+    			try {
+    				final CachedTokenProfile<P> refreshed = sendProfileRequest(conditional, profileUrl,
+    						response -> readRevalidatedProfile(response, accessToken, cached));
+    				cacheProfile(cacheKey, refreshed, generation);
+    				logger.debug("Profile refreshed for token: {}", accessToken.getRawResponse());
+    			} catch (final ProfileUnavailableException e) {
+    				logger.debug("Refresh failure for token: {} -> {}", accessToken.getRawResponse(), e.getMessage());
+    			} catch (final RuntimeException e) {
+    				profileCache.invalidate(cacheKey);
+    				logger.debug("Profile invalidated for token: {} -> {}", accessToken.getRawResponse(), e.getMessage());
+    			} finally {
+    				refreshing.remove(cacheKey);
+    			}
+    		});
+    	} catch (final RuntimeException e) {
+    		refreshing.remove(cacheKey);
+    		logger.debug("Refresh skipped for token: {} -> {}", accessToken.getRawResponse(), e.toString());
+    	}
+    }
+    
+    /**
+     * Load the user profile of the access token from the profile url, bypassing the profile cache.
+     *
+     * @param context the web context
+     * @param accessToken the access token
+     * @return the user profile
+     */
+    protected P loadUserProfile(final WebContext context, final T accessToken) {
+    	
+    	final InitState<T, P> state = initState();
+    	if (state.batcher != null) {
+    		return checkBatchedProfile(accessToken, FutureUtils.join(state.batcher.submit(accessToken)));
+    	}
+    	
     	TokenProfileDefinition<P, T> profileDefinition = getProfileDefinition();
 		CommonHelper.assertNotNull("profileDefinition", profileDefinition);
 			
 		final String profileUrl = profileDefinition.getProfileUrl(context, accessToken);
 		
+		if (profileDefinition.isStreamingSupported() && !state.restApiOverridden) {
+			return executeProfileRequest(buildProfileRequest(context, accessToken, profileUrl), accessToken, profileUrl);
+		}
         final String body = retrieveUserProfileFromRestApi(context, accessToken, profileUrl);
-        logger.debug("body: {}", body);
+        return extractUserProfile(accessToken, body);
+    }
+    
+    /**
+     * Load the user profile of the access token from the profile url without blocking the caller, bypassing the profile cache.
+     * The request is sent by the {@link AsyncHttpTransport}, or by the {@link HttpTransport} on the executor.
+     * Not called when {@link #retrieveUserProfileFromRestApi(WebContext, Token, String)} is overridden : the profile is then retrieved
+     * on the calling thread.
+     *
+     * @param context the web context, only read by the calling thread
+     * @param accessToken the access token
+     * @param executor the executor of the blocking work
+     * @return the future user profile
+     */
+    protected CompletableFuture<P> loadUserProfileAsync(final WebContext context, final T accessToken, final Executor executor) {
+    	
+    	final MicroBatcher<T, P> batcher = initState().batcher;
+    	if (batcher != null) {
+    		return batcher.submit(accessToken).thenApply(profile -> checkBatchedProfile(accessToken, profile));
+    	}
+    	
+    	TokenProfileDefinition<P, T> profileDefinition = getProfileDefinition();
+		CommonHelper.assertNotNull("profileDefinition", profileDefinition);
+			
+		final String profileUrl = profileDefinition.getProfileUrl(context, accessToken);
+		final HttpRequest request = buildProfileRequest(context, accessToken, profileUrl);
+		return sendProfileRequestAsync(request, profileUrl, response -> readUserProfile(response, accessToken), executor);
+    }
+    
+    private <R> CompletableFuture<R> sendProfileRequestAsync(final HttpRequest request, final String profileUrl, final ResponseReader<R> reader,
+    		final Executor executor) {
+    	
+		final RetryPolicy retryPolicy = getRetryPolicy();
+		if (retryPolicy != null) {
+			retryPolicy.onCall();
+		}
+		return sendProfileRequestAsync(request, profileUrl, reader, executor, 1);
+    }
+    
+    private <R> CompletableFuture<R> sendProfileRequestAsync(final HttpRequest request, final String profileUrl, final ResponseReader<R> reader,
+    		final Executor executor, final int attempt) {
+    	
+		final long started;
+		try {
+			checkDeadline(request, profileUrl);
+			started = acquireCallPermission(false);
+		} catch (final RuntimeException e) {
+			return FutureUtils.failedFuture(e);
+		}
+		final long t0 = System.currentTimeMillis();
+		
+		final HttpTransport transport = initState().profileTransport;
+		CompletableFuture<HttpResponse> future;
+		try {
+			if (transport instanceof AsyncHttpTransport) {
+				future = ((AsyncHttpTransport) transport).executeAsync(request, executor);
+			} else {
+				future = CompletableFuture.supplyAsync(() -> {
+					try {
+						return transport.execute(request);
+					} catch (final IOException e) {
+						throw new CompletionException(e);
+					}
+				}, executor);
+			}
+		} catch (final RuntimeException e) {
+			future = FutureUtils.failedFuture(e);
+		}
+		
+		final CompletableFuture<R> profile = future.handleAsync((response, t) -> {
+			if (t != null) {
+				final Throwable cause = FutureUtils.unwrap(t);
+				throw new ProfileUnavailableException("Error getting body: " + cause.getMessage(),
+						cause instanceof IOException ? (IOException) cause : null);
+			}
+			try {
+				try {
+					logger.debug("Request took: " + (System.currentTimeMillis() - t0) + " ms for: " + profileUrl);
+					return reader.read(response);
+				} finally {
+					response.close();
+				}
+			} catch (final IOException e) {
+				throw new ProfileUnavailableException("Error getting body: " + e.getMessage(), e);
+			}
+		}, executor);
+		
+		final CompletableFuture<R> result = new CompletableFuture<>();
+		// released on completion, even if the executor rejected the reading of the response
+		profile.whenComplete((loadedProfile, t) -> {
+			final Throwable cause = t == null ? null : FutureUtils.unwrap(t);
+			releaseCallPermission(started, cause);
+			if (cause == null) {
+				result.complete(loadedProfile);
+				return;
+			}
+			final long delay = retryDelay(request, cause, attempt);
+			if (delay < 0) {
+				result.completeExceptionally(cause);
+				return;
+			}
+			FutureUtils.TIMER.schedule(() -> sendProfileRequestAsync(request, profileUrl, reader, executor, attempt + 1)
+				.whenComplete((retriedProfile, e) -> {
+					if (e != null) {
+						result.completeExceptionally(FutureUtils.unwrap(e));
+					} else {
+						result.complete(retriedProfile);
+					}
+				}), delay, TimeUnit.MILLISECONDS);
+		});
+		return result;
+    }
+    
+    /**
+     * Load the user profile of the access token from the profile url to cache it, with a conditional request if the revalidation is enabled
+     * and the cached profile has validators : a <code>304 Not Modified</code> response revalidates the cached profile, which is not extracted again.
+     *
+     * @param context the web context
+     * @param accessToken the access token
+     * @param cached the cached profile past its time to live, null if none
+     * @return the loaded or revalidated user profile with the validators and the expiration time of the response
+     * @see #setRevalidationEnabled(boolean)
+     * @see #profileExpiresAt(HttpResponse, TokenProfile)
+     */
+    protected CachedTokenProfile<P> revalidateUserProfile(final WebContext context, final T accessToken, final CachedTokenProfile<P> cached) {
+    	
+    	final String profileUrl = getProfileDefinition().getProfileUrl(context, accessToken);
+    	final HttpRequest request = withValidators(buildProfileRequest(context, accessToken, profileUrl), cached);
+    	return sendProfileRequest(request, profileUrl, response -> readRevalidatedProfile(response, accessToken, cached));
+    }
+    
+    /**
+     * Load the user profile of the access token from the profile url without blocking the caller,
+     * to cache it, with a conditional request if the revalidation is enabled and the cached profile has validators.
+     *
+     * @param context the web context, only read by the calling thread
+     * @param accessToken the access token
+     * @param cached the cached profile past its time to live, null if none
+     * @param executor the executor of the blocking work
+     * @return the future loaded or revalidated user profile with the validators and the expiration time of the response
+     */
+    protected CompletableFuture<CachedTokenProfile<P>> revalidateUserProfileAsync(final WebContext context, final T accessToken,
+    		final CachedTokenProfile<P> cached, final Executor executor) {
+    	
+    	final String profileUrl = getProfileDefinition().getProfileUrl(context, accessToken);
+    	return revalidateUserProfileAsync(buildProfileRequest(context, accessToken, profileUrl), profileUrl, accessToken, cached, executor);
+    }
+    
+    private CompletableFuture<CachedTokenProfile<P>> revalidateUserProfileAsync(final HttpRequest request, final String profileUrl,
+    		final T accessToken, final CachedTokenProfile<P> cached, final Executor executor) {
+    	
+    	return sendProfileRequestAsync(withValidators(request, cached), profileUrl,
+    			response -> readRevalidatedProfile(response, accessToken, cached), executor);
+    }
+    
+    private HttpRequest withValidators(final HttpRequest request, final CachedTokenProfile<P> cached) {
+    	if (cached == null || !isRevalidationEnabled()) {
+    		return request;
+    	}
+    	HttpRequest conditional = request;
+    	if (cached.getEtag() != null) {
+    		conditional = conditional.withHeader(HttpHeaders.IF_NONE_MATCH, cached.getEtag());
+    	}
+    	if (cached.getLastModified() != null) {
+    		conditional = conditional.withHeader(HttpHeaders.IF_MODIFIED_SINCE, cached.getLastModified());
+    	}
+    	return conditional;
+    }
+    
+    /**
+     * Read the response of a conditional request : the cached profile if not modified, else the extracted profile.
+     *
+     * @param response the response
+     * @param accessToken the access token
+     * @param cached the cached profile, null if none
+     * @return the user profile with the validators and the expiration time of the response
+     * @throws IOException if the body cannot be read or exceeds the maximum size
+     */
+    protected CachedTokenProfile<P> readRevalidatedProfile(final HttpResponse response, final T accessToken, final CachedTokenProfile<P> cached)
+    		throws IOException {
+    	
+    	if (cached != null && response.getStatusCode() == 304) {
+    		logger.debug("Profile not modified for token: {}", accessToken.getRawResponse());
+    		notModifiedCount.increment();
+    		final String etag = response.getHeader(HttpHeaders.ETAG);
+    		final String lastModified = response.getHeader(HttpHeaders.LAST_MODIFIED);
+    		return new CachedTokenProfile<>(cached.getProfile(), Freshness.FRESH, etag != null ? etag : cached.getEtag(),
+    				lastModified != null ? lastModified : cached.getLastModified(), profileExpiresAt(response, cached.getProfile()));
+    	}
+    	final P profile = getProfileDefinition().isStreamingSupported() ? readUserProfile(response, accessToken)
+    			: extractUserProfile(accessToken, readProfileResponse(response, accessToken));
+    	return new CachedTokenProfile<>(profile, Freshness.FRESH, response.getHeader(HttpHeaders.ETAG), response.getHeader(HttpHeaders.LAST_MODIFIED),
+    			profileExpiresAt(response, profile));
+    }
+    
+    /**
+     * Compute the time the cached profile is no more fresh, from, in order of preference : the <code>max-age</code> of the
+     * <code>Cache-Control</code> header of the response, the expiration time of the token exposed by the profile
+     * (see {@link TokenProfile#getExpirationDate()}) and the configured time to live of the profiles.
+     * It is capped by the configured maximum time to live, by default the time to live of the profile cache,
+     * and never exceeds the expiration time of the token.
+     *
+     * @param response the response of the profile url, null if unknown
+     * @param profile the extracted user profile
+     * @return the expiration time, in milliseconds since the epoch, <code>0</code> for the time to live of the profile cache
+     * @see #setProfileTimeToLive(long)
+     * @see #setMaxProfileTimeToLive(long)
+     */
+    protected long profileExpiresAt(final HttpResponse response, final P profile) {
+    	
+    	final long now = System.currentTimeMillis();
+    	final Date expirationDate = profile.getExpirationDate();
+    	final long maxAge = response == null ? -1 : maxAge(response.getHeader(HttpHeaders.CACHE_CONTROL));
+    	long timeToLive;
+    	if (maxAge >= 0) {
+    		timeToLive = maxAge > Long.MAX_VALUE / 1000 ? Long.MAX_VALUE : maxAge * 1000;
+    	} else if (expirationDate != null) {
+    		timeToLive = expirationDate.getTime() - now;
+    	} else if (getProfileTimeToLive() > 0) {
+    		timeToLive = getProfileTimeToLive();
+    	} else {
+    		return 0;
+    	}
+    	if (expirationDate != null) {
+    		timeToLive = Math.min(timeToLive, expirationDate.getTime() - now);
+    	}
+    	timeToLive = Math.max(0, Math.min(timeToLive, effectiveMaxProfileTimeToLive()));
+    	return now + timeToLive;
+    }
+    
+    /*
+     * The configured maximum time to live, else the time to live of the profile cache, so that a long lived token
+     * is not cached longer than the cache was configured for
+     */
+    private long effectiveMaxProfileTimeToLive() {
+    	if (getMaxProfileTimeToLive() > 0) {
+    		return getMaxProfileTimeToLive();
+    	}
+    	final TokenProfileCache<P> profileCache = getProfileCache();
+    	final long cacheTimeToLive = profileCache != null ? profileCache.getTimeToLive() : 0;
+    	return cacheTimeToLive > 0 ? cacheTimeToLive : DEFAULT_MAX_PROFILE_TIME_TO_LIVE;
+    }
+    
+    private CachedTokenProfile<P> cacheEntry(final HttpResponse response, final P profile) {
+    	return new CachedTokenProfile<>(profile, Freshness.FRESH, null, null, profileExpiresAt(response, profile));
+    }
+    
+    /*
+     * Read the max-age directive of a Cache-Control header : 0 for no-store and no-cache, -1 if missing or invalid
+     */
+    private static long maxAge(final String cacheControl) {
+    	if (cacheControl == null) {
+    		return -1;
+    	}
+    	long maxAge = -1;
+    	for (final String directive : cacheControl.split(",")) {
+    		final String trimmed = directive.trim().toLowerCase(Locale.ROOT);
+    		if ("no-store".equals(trimmed) || "no-cache".equals(trimmed)) {
+    			return 0;
+    		}
+    		if (trimmed.startsWith("max-age=")) {
+    			try {
+    				maxAge = Long.parseLong(trimmed.substring("max-age=".length()).replace("\"", "").trim());
+    			} catch (final NumberFormatException e) {
+    				return -1;
+    			}
+    		}
+    	}
+    	return maxAge < 0 ? -1 : maxAge;
+    }
+    
+    /*
+     * Whether the cached loads go through the response of the profile url, to keep its validators and its max-age
+     */
+    private boolean isLoadingEntries() {
+    	if (getProfileCache() == null) {
+    		return false;
+    	}
+    	final InitState<T, P> state = initState();
+    	return state.batcher == null && !state.restApiOverridden;
+    }
+    
+    /**
+     * Extract the user profile from the body returned by the profile url.
+     *
+     * @param accessToken the access token
+     * @param body the response body, null if the token was rejected
+     * @return the user profile
+     */
+    protected P extractUserProfile(final T accessToken, final String body) {
+    	logger.debug("body: {}", body);
         if (body == null) {
             throw new HttpCommunicationException("No data found for accessToken: " + accessToken);
         }        
-        final P profile = (P) profileDefinition.extractUserProfile(body);
-        logger.debug("Authentication success for token: {}", accessToken.getRawResponse());
-        return Optional.of(profile);
+        return getProfileDefinition().extractUserProfile(body);
+    }
+    
+    /**
+     * Extract the user profile while reading the body returned by the profile url, see {@link TokenProfileDefinition#isStreamingSupported()}.
+     *
+     * @param accessToken the access token
+     * @param body the response body
+     * @return the user profile
+     * @throws IOException if the body cannot be read or exceeds the maximum size
+     */
+    protected P extractUserProfile(final T accessToken, final Reader body) throws IOException {
+        return getProfileDefinition().extractUserProfile(body);
+    }
+    
+    /**
+     * Return the key of the access token in the profile cache : a digest of the token, never the raw token.
+     *
+     * @param accessToken the access token
+     * @return the cache key
+     */
+    protected String profileCacheKey(final T accessToken) {
+    	return CacheKeys.sha256(accessToken.getRawResponse());
+    }
+    
+    /**
+     * Remove the cached profile of the token, on revocation or logout : the loads in progress do not cache it again,
+     * and the token is rejected by the local verification until it expires.
+     *
+     * @param token the raw token
+     * @see InvalidationLog
+     */
+    public void invalidateToken(final String token) {
+    	final String cacheKey = profileCacheKey(getAccessToken(new TokenCredentials(token)));
+    	final JwtVerifier jwtVerifier = getJwtVerifier();
+    	final long expiresAt = jwtVerifier != null && JwtVerifier.isJwt(token) ? JwtVerifier.getExpiration(token) : 0;
+    	getInvalidationLog().invalidateToken(cacheKey, expiresAt > 0 ? expiresAt + jwtVerifier.getClockSkew() : 0);
+    	final TokenProfileCache<P> profileCache = getProfileCache();
+    	if (profileCache != null) {
+    		profileCache.invalidate(cacheKey);
+    	}
+    	logger.debug("Profile invalidated for token: {}", cacheKey);
+    }
+    
+    /**
+     * Remove the cached profiles of all the tokens of the user, on revocation or logout : the loads in progress do not cache them again,
+     * and the tokens of the user issued before are rejected by the local verification.
+     *
+     * @param userId the id of the user profile
+     * @return the number of removed profiles
+     * @see TokenProfileCache#invalidateUser(String)
+     * @see InvalidationLog
+     */
+    public int invalidateUser(final String userId) {
+    	getInvalidationLog().invalidateUser(userId);
+    	final TokenProfileCache<P> profileCache = getProfileCache();
+    	if (profileCache == null) {
+    		return 0;
+    	}
+    	final int count = profileCache.invalidateUser(userId).size();
+    	logger.debug("{} profile(s) invalidated for user: {}", count, userId);
+    	return count;
+    }
+    
+    /**
+     * Remove all the cached profiles, the loads in progress do not cache them again.
+     */
+    public void invalidateAll() {
+    	getInvalidationLog().invalidateAll();
+    	final TokenProfileCache<P> profileCache = getProfileCache();
+    	if (profileCache != null) {
+    		profileCache.invalidateAll();
+    		logger.debug("All profiles invalidated");
+    	}
+    }
+    
+    /**
+     * Invalidate the cached profiles of the revoked tokens, see {@link org.pac4j.core.ext.revocation.RevocationEventSource#start(RevocationListener)}.
+     *
+     * @param event the revocation event
+     */
+    @Override
+    public void onRevocation(final RevocationEvent event) {
+    	switch (event.getType()) {
+    	case TOKEN:
+    		invalidateToken(event.getValue());
+    		break;
+    	case USER:
+    		invalidateUser(event.getValue());
+    		break;
+    	default:
+    		invalidateAll();
+    		break;
+    	}
     }
     
     /**
      * Return the body from the REST API, passing the token auth.
-     * To be overridden using another HTTP client if necessary.
+     * To be overridden using another HTTP client if necessary : an override loads every profile, on the calling thread,
+     * without batching, streaming, revalidation nor background refresh.
      *
     * @param context the web context
      * @param accessToken the access token
@@ -145,38 +1020,374 @@ public abstract class TokenAuthenticator<P extends TokenProfile, T extends Token
     protected String retrieveUserProfileFromRestApi(final WebContext context, final T accessToken, final String profileUrl) {
     	
     	logger.debug("accessToken: {} / profileUrl: {}", accessToken.getRawResponse(), profileUrl);
-        final long t0 = System.currentTimeMillis();
          
-        HttpURLConnection connection = null;
-        try {
-        	
-        	Map<String, String> finalHeaders = this.finalHeaders(context, accessToken, profileUrl, getCustomHeaders());
-       	 	logger.debug("finalHeaders: {} ", JSONObject.toJSONString(finalHeaders));
-        	
-       	 	Map<String, String> finalParams = this.finalParams(context, accessToken, profileUrl, getCustomParams());
-            logger.debug("finalParams: {} ", JSONObject.toJSONString(finalParams));
-             
-			connection = HttpUtils2.openGetConnection(profileUrl, finalHeaders, finalParams);
+        final HttpRequest request = buildProfileRequest(context, accessToken, profileUrl);
+        return sendProfileRequest(request, profileUrl, response -> readProfileResponse(response, accessToken));
+    }
+    
+    /**
+     * Send the request of the profile url and extract the user profile from its response.
+     *
+     * @param request the request
+     * @param accessToken the access token
+     * @param profileUrl  url of the data
+     * @return the user profile
+     * @throws ProfileUnavailableException if the profile url cannot be reached or fails
+     */
+    protected P executeProfileRequest(final HttpRequest request, final T accessToken, final String profileUrl) {
+    	return sendProfileRequest(request, profileUrl, response -> readUserProfile(response, accessToken));
+    }
+    
+    private <R> R sendProfileRequest(final HttpRequest request, final String profileUrl, final ResponseReader<R> reader) {
+    	
+    	final RetryPolicy retryPolicy = getRetryPolicy();
+    	if (retryPolicy != null) {
+    		retryPolicy.onCall();
+    	}
+    	for (int attempt = 1; ; attempt++) {
+    		try {
+    			return sendProfileRequestOnce(request, profileUrl, reader);
+    		} catch (final ProfileUnavailableException e) {
+    			final long delay = retryDelay(request, e, attempt);
+    			if (delay < 0) {
+    				throw e;
+    			}
+    			try {
+    				Thread.sleep(delay);
+    			} catch (final InterruptedException ie) {
+    				Thread.currentThread().interrupt();
+    				throw e;
+    			}
+    		}
+    	}
+    }
+    
+    private <R> R sendProfileRequestOnce(final HttpRequest request, final String profileUrl, final ResponseReader<R> reader) {
+    	
+    	checkDeadline(request, profileUrl);
+    	final long started = acquireCallPermission(true);
+        final long t0 = System.currentTimeMillis();
+        RuntimeException error = null;
+        try (HttpResponse response = initState().profileTransport.execute(request)) {
             
-            int code = connection.getResponseCode();
             final long t1 = System.currentTimeMillis();
             logger.debug("Request took: " + (t1 - t0) + " ms for: " + profileUrl);
-            if (code == 200) {
-                return HttpUtils.readBody(connection);
-            } else if (code == 401 || code == 403) {
-                logger.info("Authentication failure for token: {} -> {}", accessToken.getRawResponse(), HttpUtils.buildHttpErrorMessage(connection));
-                return null;
-            } else {
-                logger.warn("Unexpected error for token: {} -> {}", accessToken.getRawResponse(), HttpUtils.buildHttpErrorMessage(connection));
-                return null;
-            }
+            return reader.read(response);
         } catch (final IOException e) {
-        	throw new HttpCommunicationException("Error getting body: " + e.getMessage());
+        	error = new ProfileUnavailableException("Error getting body: " + e.getMessage(), e);
+        	throw error;
+        } catch (final RuntimeException e) {
+        	error = e;
+        	throw e;
         } finally {
-            HttpUtils.closeConnection(connection);
+        	releaseCallPermission(started, error);
+        }
+    }
+    
+    private void checkDeadline(final HttpRequest request, final String profileUrl) {
+    	if (request.getDeadline() != null) {
+    		request.getDeadline().check("calling " + profileUrl);
+    	}
+    }
+    
+    /**
+     * Decide whether a failed call to the profile url is retried : only the transient failures are retried,
+     * within the max attempts, the retry budget and the deadline of the request.
+     *
+     * @param request the request
+     * @param failure the failure of the attempt
+     * @param attempt the number of the failed attempts
+     * @return the delay before the retry in milliseconds, negative if the call is not retried
+     */
+    private long retryDelay(final HttpRequest request, final Throwable failure, final int attempt) {
+    	
+    	final RetryPolicy retryPolicy = getRetryPolicy();
+    	if (retryPolicy == null || attempt >= retryPolicy.getMaxAttempts() || !(failure instanceof ProfileUnavailableException)
+    			|| !retryPolicy.isRetryable((ProfileUnavailableException) failure)) {
+    		return -1;
+    	}
+    	final long delay = retryPolicy.backoff(attempt);
+    	if (request.getDeadline() != null && request.getDeadline().remaining() <= delay) {
+    		logger.debug("No time left to retry: {} -> {}", request.getUrl(), failure.getMessage());
+    		return -1;
+    	}
+    	if (!retryPolicy.tryAcquireRetry()) {
+    		logger.debug("Retry budget exhausted for: {} -> {}", request.getUrl(), failure.getMessage());
+    		return -1;
+    	}
+    	logger.debug("Retrying in {} ms (attempt {}): {} -> {}", delay, attempt + 1, request.getUrl(), failure.getMessage());
+    	return delay;
+    }
+    
+    /**
+     * Acquire the permission to call the profile url from the bulkhead, the concurrency limiter, then the circuit breaker.
+     *
+     * @param blocking whether the caller may wait for a slot of the bulkhead or of the concurrency limiter
+     * @return the start time of the call, in nanoseconds
+     * @throws BulkheadFullException if too many calls are in progress
+     * @throws CallNotPermittedException if the circuit breaker is open
+     */
+    private long acquireCallPermission(final boolean blocking) {
+    	
+    	final Bulkhead bulkhead = getBulkhead();
+    	if (bulkhead != null && !(blocking ? bulkhead.tryAcquire() : bulkhead.tryAcquireNow())) {
+    		throw new BulkheadFullException("Too many calls in progress to the profile url: " + bulkhead.getMaxConcurrentCalls());
+    	}
+    	final AdaptiveConcurrencyLimiter limiter = getConcurrencyLimiter();
+    	if (limiter != null && !(blocking ? limiter.tryAcquire() : limiter.tryAcquireNow())) {
+    		if (bulkhead != null) {
+    			bulkhead.release();
+    		}
+    		throw new BulkheadFullException("Concurrency limit of the profile url reached: " + limiter.getLimit());
+    	}
+    	final CircuitBreaker circuitBreaker = getCircuitBreaker();
+    	if (circuitBreaker != null && !circuitBreaker.tryAcquirePermission()) {
+    		if (limiter != null) {
+    			limiter.release();
+    		}
+    		if (bulkhead != null) {
+    			bulkhead.release();
+    		}
+    		throw new CallNotPermittedException("Circuit breaker " + circuitBreaker.getName() + " is " + circuitBreaker.getState());
+    	}
+    	return System.nanoTime();
+    }
+    
+    /**
+     * Release the permission of a call to the profile url : only the unavailability of the profile url is a failure
+     * for the circuit breaker and the concurrency limiter, a rejected token is a successful call.
+     *
+     * @param started the start time of the call, in nanoseconds
+     * @param error the failure of the call, null if successful
+     */
+    private void releaseCallPermission(final long started, final Throwable error) {
+    	
+    	final long duration = System.nanoTime() - started;
+    	final boolean failure = error instanceof ProfileUnavailableException;
+    	final CircuitBreaker circuitBreaker = getCircuitBreaker();
+    	if (circuitBreaker != null) {
+    		circuitBreaker.onResult(TimeUnit.NANOSECONDS.toMillis(duration), failure);
+    	}
+    	final AdaptiveConcurrencyLimiter limiter = getConcurrencyLimiter();
+    	if (limiter != null) {
+    		limiter.onResult(duration, failure);
+    	}
+    	final Bulkhead bulkhead = getBulkhead();
+    	if (bulkhead != null) {
+    		bulkhead.release();
+    	}
+    }
+    
+    /**
+     * Build the request of the profile url, passing the token auth.
+     *
+     * @param context the web context
+     * @param accessToken the access token
+     * @param profileUrl  url of the data
+     * @return the request
+     */
+    protected HttpRequest buildProfileRequest(final WebContext context, final T accessToken, final String profileUrl) {
+    	
+    	final InitState<T, P> state = initState();
+    	final HttpRequest request = (state.requestHooksOverridden ? buildHookedProfileRequest(context, accessToken, profileUrl)
+    			: state.requestTemplate.get(context, profileUrl, getParameterName(), accessToken.getRawResponse())).withDeadline(getDeadline(context));
+    	logger.debug("request: {}", request);
+        return request;
+    }
+    
+    /*
+     * Build the request from the overridden finalHeaders and finalParams, for each token
+     */
+    @SuppressWarnings("deprecation")
+    private HttpRequest buildHookedProfileRequest(final WebContext context, final T accessToken, final String profileUrl) {
+    	
+    	final Map<String, String> headers = finalHeaders(context, accessToken, profileUrl, getCustomHeaders());
+    	if (isCompressionEnabled()) {
+    		headers.putIfAbsent(HttpHeaders.ACCEPT_ENCODING, DecompressingHttpTransport.ACCEPT_ENCODING);
+    	}
+    	final StringBuilder url = new StringBuilder(profileUrl);
+    	char separator = profileUrl.indexOf('?') > 0 ? '&' : '?';
+    	for (Map.Entry<String, String> param : finalParams(context, accessToken, profileUrl, getCustomParams()).entrySet()) {
+    		url.append(separator).append(param.getKey()).append('=').append(param.getValue());
+    		separator = '&';
+    	}
+    	return new HttpRequest(HttpConstants.HTTP_METHOD.GET.name(), url.toString(), headers);
+    }
+    
+    /*
+     * Whether a subclass overrides the given method of this class
+     */
+    private boolean isOverridden(final String name, final Class<?>... parameterTypes) {
+    	for (Class<?> type = getClass(); type != TokenAuthenticator.class; type = type.getSuperclass()) {
+    		try {
+    			type.getDeclaredMethod(name, parameterTypes);
+    			return true;
+    		} catch (final NoSuchMethodException e) {
+    			// not declared by this class
+    		}
+    	}
+    	return false;
+    }
+    
+    /**
+     * Return the time by which the profile of the request must be retrieved, retries included.
+     *
+     * @param context the web context
+     * @return the deadline of the request, or after the request timeout of the authenticator, null if none
+     * @see Deadline#attach(WebContext, long)
+     */
+    protected Deadline getDeadline(final WebContext context) {
+    	final Deadline deadline = Deadline.from(context);
+    	if (deadline != null || getRequestTimeout() <= 0) {
+    		return deadline;
+    	}
+    	return Deadline.after(getRequestTimeout());
+    }
+    
+    /**
+     * Compile the parts of the profile request shared by all the tokens : the custom headers and the encoded custom params.
+     * Called at initialization, later changes of the custom headers or params require a re-initialization.
+     *
+     * @return the request template
+     */
+    protected HttpRequestTemplate compileRequestTemplate() {
+    	
+    	final Map<String, String> headers = new LinkedHashMap<>(getCustomHeaders());
+    	/* 
+		 * 配置本次连接的Content-type，配置为application/x-www-form-urlencoded的 意思是正文是urlencoded编码过的form参数
+		 */	
+    	headers.putIfAbsent(HttpConstants.CONTENT_TYPE_HEADER, HttpConstants.APPLICATION_FORM_ENCODED_HEADER_VALUE);
+    	if (isCompressionEnabled()) {
+    		headers.putIfAbsent(HttpHeaders.ACCEPT_ENCODING, DecompressingHttpTransport.ACCEPT_ENCODING);
+    	}
+    	// 设置通用的请求属性 (模拟浏览器请求头)，未自定义时取自当前请求
+    	final Map<String, String> forwardedHeaders = new LinkedHashMap<>();
+    	forwardedHeaders.put(HttpConstants.ACCEPT_HEADER, DEFAULT_ACCEPT_HEADER);
+    	forwardedHeaders.put(HttpHeaders.USER_AGENT, DEFAULT_USER_AGENT);
+    	
+    	final Map<String, String> params = new LinkedHashMap<>(getCustomParams());
+    	params.remove(getParameterName());
+    	return new HttpRequestTemplate(headers, forwardedHeaders, params, isEncodeParams() ? getCharset() : null);
+    }
+    
+    /**
+     * Read the response of the profile url.
+     *
+     * @param response the response
+     * @param accessToken the access token
+     * @return the response body, or null if the token was rejected
+     * @throws IOException if the body cannot be read
+     * @throws ProfileUnavailableException if the profile url fails
+     * @see #setRejectedTokenCache(RejectedTokenCache)
+     */
+    protected String readProfileResponse(final HttpResponse response, final T accessToken) throws IOException {
+    	
+    	int code = response.getStatusCode();
+        if (code == 200) {
+            return response.readBody(StandardCharsets.UTF_8, getMaxBodySize());
+        } else if (code == 401 || code == 403) {
+            logger.info("Authentication failure for token: {} -> {}", accessToken.getRawResponse(), response.buildErrorMessage(StandardCharsets.UTF_8));
+            rejectToken(accessToken);
+            return null;
+        } else {
+            final String error = response.buildErrorMessage(StandardCharsets.UTF_8);
+            logger.warn("Unexpected error for token: {} -> {}", accessToken.getRawResponse(), error);
+            throw new ProfileUnavailableException(code, error);
         }
     }
 
+    /**
+     * Record the rejection of the access token by the profile url.
+     *
+     * @param accessToken the access token
+     */
+    protected void rejectToken(final T accessToken) {
+    	// only a definitive answer of the profile url is remembered, never a server or network failure
+    	final RejectedTokenCache rejectedTokenCache = getRejectedTokenCache();
+    	if (rejectedTokenCache != null) {
+    		rejectedTokenCache.reject(profileCacheKey(accessToken));
+    	}
+    	// a profile kept to be served on failures of the profile url must not outlive the token
+    	final TokenProfileCache<P> profileCache = getProfileCache();
+    	if (profileCache != null) {
+    		profileCache.invalidate(profileCacheKey(accessToken));
+    	}
+    }
+    
+    /**
+     * Load the user profiles of a batch of access tokens from the profile url, in a single call.
+     *
+     * @param accessTokens the access tokens
+     * @return the user profiles in the order of the tokens, null for a rejected token
+     * @see TokenProfileDefinition#isBatchSupported()
+     */
+    protected List<P> loadUserProfiles(final List<T> accessTokens) {
+    	
+    	final HttpRequest request = getProfileDefinition().buildBatchRequest(accessTokens, initState().requestTemplate.getHeaders());
+    	logger.debug("batch request: {}", request);
+    	final List<P> profiles = sendProfileRequest(request, request.getUrl(), response -> readUserProfiles(response, accessTokens));
+    	for (int i = 0; i < profiles.size() && i < accessTokens.size(); i++) {
+    		if (profiles.get(i) == null) {
+    			logger.info("Authentication failure for token: {}", accessTokens.get(i).getRawResponse());
+    			rejectToken(accessTokens.get(i));
+    		}
+    	}
+    	return profiles;
+    }
+    
+    /**
+     * Read the response of a batch request and split it into the user profiles of its tokens.
+     *
+     * @param response the response
+     * @param accessTokens the access tokens of the batch
+     * @return the user profiles in the order of the tokens, null for a rejected token
+     * @throws IOException if the body cannot be read or exceeds the maximum size
+     * @throws ProfileUnavailableException if the profile url fails
+     */
+    protected List<P> readUserProfiles(final HttpResponse response, final List<T> accessTokens) throws IOException {
+    	
+    	if (response.getStatusCode() != 200) {
+    		final String error = response.buildErrorMessage(StandardCharsets.UTF_8);
+    		logger.warn("Unexpected error for a batch of {} tokens -> {}", accessTokens.size(), error);
+    		throw new ProfileUnavailableException(response.getStatusCode(), error);
+    	}
+    	final long maxBodySize = getMaxBodySize() > Long.MAX_VALUE / accessTokens.size() ? Long.MAX_VALUE : getMaxBodySize() * accessTokens.size();
+    	final String body = response.readBody(StandardCharsets.UTF_8, maxBodySize);
+    	logger.debug("body: {}", body);
+    	return getProfileDefinition().extractUserProfiles(accessTokens, body);
+    }
+    
+    private P checkBatchedProfile(final T accessToken, final P profile) {
+    	if (profile == null) {
+    		throw new HttpCommunicationException("No data found for accessToken: " + accessToken);
+    	}
+    	return profile;
+    }
+    
+    /**
+     * Read the response of the profile url and extract the user profile, streaming the body
+     * if the profile definition supports it.
+     *
+     * @param response the response
+     * @param accessToken the access token
+     * @return the user profile
+     * @throws IOException if the body cannot be read or exceeds the maximum size
+     */
+    protected P readUserProfile(final HttpResponse response, final T accessToken) throws IOException {
+    	
+    	if (response.getStatusCode() == 200 && getProfileDefinition().isStreamingSupported()) {
+    		try (Reader body = new InputStreamReader(new LimitedInputStream(response.getBody(), getMaxBodySize()), StandardCharsets.UTF_8)) {
+    			return extractUserProfile(accessToken, body);
+    		}
+    	}
+    	return extractUserProfile(accessToken, readProfileResponse(response, accessToken));
+    }
+
+    /**
+     * @deprecated only called when overridden, the profile request is then built for each token without the
+     *             {@link #compileRequestTemplate() request template} : override {@link #buildProfileRequest(WebContext, Token, String)} instead
+     */
+    @Deprecated
     protected Map<String, String> finalHeaders(final WebContext context,final T token, final String url, final Map<String, String> headers ) {
     	
     	 final Map<String,String> finalHeaders = new HashMap<>();
@@ -186,20 +1397,25 @@ public abstract class TokenAuthenticator<P extends TokenProfile, T extends Token
   		 * 配置本次连接的Content-type，配置为application/x-www-form-urlencoded的 意思是正文是urlencoded编码过的form参数，下面我们可以看到我们对正文内容使用URLEncoder.encode进行编码
   		 */	
          if(!headers.containsKey(HttpConstants.CONTENT_TYPE_HEADER)) {
-        	 headers.put( HttpConstants.CONTENT_TYPE_HEADER, HttpConstants.APPLICATION_FORM_ENCODED_HEADER_VALUE);
+        	 finalHeaders.put( HttpConstants.CONTENT_TYPE_HEADER, HttpConstants.APPLICATION_FORM_ENCODED_HEADER_VALUE);
          }
          // 设置通用的请求属性 (模拟浏览器请求头) 
          if(!headers.containsKey(HttpConstants.ACCEPT_HEADER)) {
-        	 headers.put( HttpConstants.ACCEPT_HEADER, context.getRequestHeader(HttpConstants.ACCEPT_HEADER).orElse(DEFAULT_ACCEPT_HEADER)); 
+        	 finalHeaders.put( HttpConstants.ACCEPT_HEADER, context.getRequestHeader(HttpConstants.ACCEPT_HEADER).orElse(DEFAULT_ACCEPT_HEADER)); 
          }
          if(!headers.containsKey(HttpHeaders.USER_AGENT)) {
-        	 headers.put(HttpHeaders.USER_AGENT, context.getRequestHeader(HttpHeaders.USER_AGENT).orElse(DEFAULT_USER_AGENT));
+        	 finalHeaders.put(HttpHeaders.USER_AGENT, context.getRequestHeader(HttpHeaders.USER_AGENT).orElse(DEFAULT_USER_AGENT));
          }
          
          return finalHeaders;
          
     }
     
+    /**
+     * @deprecated only called when overridden, the profile request is then built for each token without the
+     *             {@link #compileRequestTemplate() request template} : override {@link #buildProfileRequest(WebContext, Token, String)} instead
+     */
+    @Deprecated
     protected Map<String, String> finalParams(final WebContext context,final T token, final String url, final Map<String,String> params) {
     	
         final Map<String,String> finalParams = new HashMap<>();
@@ -253,6 +1469,320 @@ public abstract class TokenAuthenticator<P extends TokenProfile, T extends Token
 		this.charset = charset;
 	}
 
+	/**
+	 * @return the parts of the profile request shared by all the tokens, null until the authenticator is initialized
+	 */
+	public HttpRequestTemplate getRequestTemplate() {
+		final InitState<T, P> state = initState;
+		return state != null ? state.requestTemplate : null;
+	}
+
+	/**
+	 * @return the HTTP client calling the profile url, a {@link UrlConnectionHttpTransport} created on first use when not set
+	 */
+	public HttpTransport getHttpTransport() {
+		HttpTransport transport = httpTransport;
+		if (transport == null) {
+			synchronized (this) {
+				transport = httpTransport;
+				if (transport == null) {
+					httpTransport = transport = new UrlConnectionHttpTransport();
+				}
+			}
+		}
+		return transport;
+	}
+	
+	/**
+	 * @return whether an HTTP client was set or created, see {@link #getHttpTransport()}
+	 */
+	public boolean hasHttpTransport() {
+		return httpTransport != null;
+	}
+
+	public void setHttpTransport(HttpTransport httpTransport) {
+		this.httpTransport = httpTransport;
+	}
+
+	/**
+	 * @return the transport of the profile requests, a {@link LoadBalancingHttpTransport} when the profile definition declares several instances,
+	 *         wrapped by a {@link DecompressingHttpTransport} when the compression is enabled, null until the authenticator is initialized
+	 */
+	public HttpTransport getProfileTransport() {
+		final InitState<T, P> state = initState;
+		return state != null ? state.profileTransport : null;
+	}
+
+	public TokenProfileCache<P> getProfileCache() {
+		return profileCache;
+	}
+
+	/**
+	 * Cache the profiles extracted for the tokens, each one until the expiration time computed from the response of the profile url
+	 * and its token, see {@link #profileExpiresAt(HttpResponse, TokenProfile)}.
+	 * Unless batched, the cached loads are sent by the {@link HttpTransport} and revalidated in the background ; when
+	 * {@link #retrieveUserProfileFromRestApi(WebContext, Token, String)} is overridden, it loads every profile, without revalidation.
+	 * @param profileCache the profile cache
+	 */
+	public void setProfileCache(TokenProfileCache<P> profileCache) {
+		this.profileCache = profileCache;
+	}
+
+	public SingleFlight<P> getSingleFlight() {
+		return singleFlight;
+	}
+
+	/**
+	 * Coalesce the concurrent profile loads of a same token : only one call per token is sent to the profile url,
+	 * the other requests wait for its profile or its failure.
+	 * The {@link SingleFlight} should copy the profile it shares, see {@link ProfileUtils#copy(org.pac4j.core.profile.BasicUserProfile)}.
+	 * @param singleFlight the coalescing of the profile loads
+	 */
+	public void setSingleFlight(SingleFlight<P> singleFlight) {
+		this.singleFlight = singleFlight;
+	}
+
+	/**
+	 * Coalesce the concurrent profile loads of a same token, waiting at most the given time for the call in flight.
+	 * @param waitTimeout the maximum wait, in milliseconds
+	 */
+	public void setCoalescingWaitTimeout(long waitTimeout) {
+		this.singleFlight = new SingleFlight<>(waitTimeout, ProfileUtils::copy);
+	}
+
+	public RejectedTokenCache getRejectedTokenCache() {
+		return rejectedTokenCache;
+	}
+
+	/**
+	 * Remember for a short time the tokens rejected by the profile url (401, 403), so that they are refused
+	 * again without calling it. Server errors (5xx) and network failures are never remembered.
+	 * @param rejectedTokenCache the negative cache
+	 */
+	public void setRejectedTokenCache(RejectedTokenCache rejectedTokenCache) {
+		this.rejectedTokenCache = rejectedTokenCache;
+	}
+
+	public Executor getRefreshExecutor() {
+		return refreshExecutor != null ? refreshExecutor : FutureUtils.BACKGROUND;
+	}
+
+	/**
+	 * @param refreshExecutor the executor of the background refreshes of the cached profiles,
+	 * {@link FutureUtils#BACKGROUND} by default, see {@link org.pac4j.core.ext.cache.LocalTokenProfileCache#getRefreshAfter()}
+	 */
+	public void setRefreshExecutor(Executor refreshExecutor) {
+		this.refreshExecutor = refreshExecutor;
+	}
+
+	public long getMaxBodySize() {
+		return maxBodySize;
+	}
+
+	/**
+	 * @param maxBodySize the maximum size of the response of the profile url, in bytes
+	 */
+	public void setMaxBodySize(long maxBodySize) {
+		this.maxBodySize = maxBodySize;
+	}
+
+	public boolean isRevalidationEnabled() {
+		return revalidationEnabled;
+	}
+
+	/**
+	 * Keep the <code>ETag</code> and <code>Last-Modified</code> validators of the responses in the profile cache, and revalidate the cached
+	 * profiles past their refresh time or time to live by conditional requests : a <code>304 Not Modified</code> response extends
+	 * the life of the cached profile without extracting it again. The profile cache should keep the profiles past their time to live,
+	 * see {@link LocalTokenProfileCache#LocalTokenProfileCache(int, long, long, long)}.
+	 * @param revalidationEnabled whether the cached profiles are revalidated
+	 */
+	public void setRevalidationEnabled(boolean revalidationEnabled) {
+		this.revalidationEnabled = revalidationEnabled;
+	}
+
+	public long getProfileTimeToLive() {
+		return profileTimeToLive;
+	}
+
+	/**
+	 * @param profileTimeToLive the time to live, in milliseconds, of the cached profiles whose response has no <code>max-age</code>
+	 * and whose token has no expiration time, <code>0</code> for the time to live of the profile cache
+	 * @see #profileExpiresAt(HttpResponse, TokenProfile)
+	 */
+	public void setProfileTimeToLive(long profileTimeToLive) {
+		this.profileTimeToLive = profileTimeToLive;
+	}
+
+	public long getMaxProfileTimeToLive() {
+		return maxProfileTimeToLive;
+	}
+
+	/**
+	 * @param maxProfileTimeToLive the maximum time to live, in milliseconds, of the cached profiles, whatever the <code>max-age</code>
+	 * of their response or the expiration time of their token. <code>0</code>, the default, for the time to live of the profile cache,
+	 * see {@link TokenProfileCache#getTimeToLive()}, or {@link #DEFAULT_MAX_PROFILE_TIME_TO_LIVE} if unknown : set it to cache the profiles longer.
+	 */
+	public void setMaxProfileTimeToLive(long maxProfileTimeToLive) {
+		this.maxProfileTimeToLive = maxProfileTimeToLive;
+	}
+
+	/**
+	 * @return the number of the cached profiles revalidated by a <code>304 Not Modified</code> response
+	 */
+	public long getNotModifiedCount() {
+		return notModifiedCount.sum();
+	}
+
+	public boolean isCompressionEnabled() {
+		return compressionEnabled;
+	}
+
+	/**
+	 * Ask the profile url for gzip or deflate compressed responses, inflated on the fly and bounded by the max body size once inflated.
+	 * @param compressionEnabled whether the responses may be compressed
+	 */
+	public void setCompressionEnabled(boolean compressionEnabled) {
+		this.compressionEnabled = compressionEnabled;
+	}
+
+	public JwtVerifier getJwtVerifier() {
+		return jwtVerifier;
+	}
+
+	/**
+	 * Verify locally the signed JWTs : only the opaque tokens, and the JWTs signed by an unknown key, are sent to the profile url.
+	 * @param jwtVerifier the local verification
+	 */
+	public void setJwtVerifier(JwtVerifier jwtVerifier) {
+		this.jwtVerifier = jwtVerifier;
+	}
+
+	/**
+	 * Verify locally the JWTs signed by the keys of the given JWKS.
+	 * @param jwksLocation the url or the file path of the JWKS document
+	 */
+	public void setJwksLocation(String jwksLocation) {
+		this.jwtVerifier = new JwtVerifier(new JwkSetSource(jwksLocation));
+	}
+
+	public InvalidationLog getInvalidationLog() {
+		return invalidationLog;
+	}
+
+	/**
+	 * @param invalidationLog the invalidated tokens and users, to size the number of invalidations remembered
+	 */
+	public void setInvalidationLog(InvalidationLog invalidationLog) {
+		CommonHelper.assertNotNull("invalidationLog", invalidationLog);
+		this.invalidationLog = invalidationLog;
+	}
+
+	public CircuitBreaker getCircuitBreaker() {
+		return circuitBreaker;
+	}
+
+	/**
+	 * Stop calling the profile url while it fails or is too slow : the calls fail fast with a {@link CallNotPermittedException}.
+	 * @param circuitBreaker the circuit breaker of the profile url
+	 */
+	public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+		this.circuitBreaker = circuitBreaker;
+	}
+
+	public Bulkhead getBulkhead() {
+		return bulkhead;
+	}
+
+	/**
+	 * Cap the concurrent calls to the profile url : the calls above the cap fail fast with a {@link BulkheadFullException}.
+	 * Not shared with other authenticators.
+	 * @param bulkhead the bulkhead of the profile url
+	 */
+	public void setBulkhead(Bulkhead bulkhead) {
+		this.bulkhead = bulkhead;
+	}
+
+	public AdaptiveConcurrencyLimiter getConcurrencyLimiter() {
+		return concurrencyLimiter;
+	}
+
+	/**
+	 * Limit the concurrent calls to the profile url to what it can serve without queuing, measured from its response times :
+	 * the calls above the limit fail with a {@link BulkheadFullException}. Not shared with other authenticators.
+	 * @param concurrencyLimiter the adaptive limit of the profile url
+	 */
+	public void setConcurrencyLimiter(AdaptiveConcurrencyLimiter concurrencyLimiter) {
+		this.concurrencyLimiter = concurrencyLimiter;
+	}
+
+	public RetryPolicy getRetryPolicy() {
+		return retryPolicy;
+	}
+
+	/**
+	 * Retry the transient failures of the profile url, within the deadline of the request.
+	 * @param retryPolicy the retries of the profile url
+	 */
+	public void setRetryPolicy(RetryPolicy retryPolicy) {
+		this.retryPolicy = retryPolicy;
+	}
+
+	public long getRequestTimeout() {
+		return requestTimeout;
+	}
+
+	/**
+	 * @param requestTimeout the time budget of the profile retrieval, retries included, in milliseconds, when the request has no deadline ;
+	 *        0 for none
+	 */
+	public void setRequestTimeout(long requestTimeout) {
+		this.requestTimeout = requestTimeout;
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * Introspect the tokens missing from the cache by batches, if the profile definition supports it.
+	 * @param batchSize the maximum number of tokens of a batch, lower than 2 to disable the batching
+	 * @see TokenProfileDefinition#isBatchSupported()
+	 */
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	public long getBatchWindow() {
+		return batchWindow;
+	}
+
+	/**
+	 * @param batchWindow the maximum time, in milliseconds, a token waits for other tokens before its batch is sent
+	 */
+	public void setBatchWindow(long batchWindow) {
+		this.batchWindow = batchWindow;
+	}
+
+	public Executor getBatchExecutor() {
+		return batchExecutor;
+	}
+
+	/**
+	 * @param batchExecutor the executor of the batch calls, {@link FutureUtils#WORKER} by default
+	 */
+	public void setBatchExecutor(Executor batchExecutor) {
+		this.batchExecutor = batchExecutor;
+	}
+
+	/**
+	 * @return the batching of the profile loads, null if disabled or until the authenticator is initialized
+	 */
+	public MicroBatcher<T, P> getBatcher() {
+		final InitState<T, P> state = initState;
+		return state != null ? state.batcher : null;
+	}
+
 	public boolean isEncodeParams() {
 		return encodeParams;
 	}
@@ -261,4 +1791,43 @@ public abstract class TokenAuthenticator<P extends TokenProfile, T extends Token
 		this.encodeParams = encodeParams;
 	}
 	
+	/*
+	 * State built at initialization
+	 */
+	private static final class InitState<T extends Token, P extends TokenProfile> {
+		
+		/* Parts of the profile request shared by all the tokens */
+		final HttpRequestTemplate requestTemplate;
+		
+		/* Transport of the profile requests : the http transport, load balanced over the base urls of the profile definition if any,
+		 * inflating the compressed responses if enabled */
+		final HttpTransport profileTransport;
+		
+		/* Batching of the profile loads, when supported by the profile definition */
+		final MicroBatcher<T, P> batcher;
+		
+		/* Whether a subclass overrides finalHeaders or finalParams, which then build each profile request instead of the template */
+		final boolean requestHooksOverridden;
+		
+		/* Whether a subclass overrides retrieveUserProfileFromRestApi, which then loads every profile */
+		final boolean restApiOverridden;
+		
+		InitState(HttpRequestTemplate requestTemplate, HttpTransport profileTransport, MicroBatcher<T, P> batcher,
+				boolean requestHooksOverridden, boolean restApiOverridden) {
+			this.requestTemplate = requestTemplate;
+			this.profileTransport = profileTransport;
+			this.batcher = batcher;
+			this.requestHooksOverridden = requestHooksOverridden;
+			this.restApiOverridden = restApiOverridden;
+		}
+		
+	}
+	
+	@FunctionalInterface
+	private interface ResponseReader<R> {
+		
+		R read(HttpResponse response) throws IOException;
+		
+	}
+	
 }
@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.credentials.extractor;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.pac4j.core.context.WebContext;
+
+/**
+ * Access to the raw body of a request, which the {@link WebContext} only exposes as a {@link String}.
+ * <p>With the servlet API : <code>context -&gt; ((JEEContext) context).getNativeRequest().getInputStream()</code>.</p>
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+@FunctionalInterface
+public interface RequestBodySupplier {
+
+	/**
+	 * @param context the web context
+	 * @return the stream of the request body, not yet read, or <code>null</code> if the request has no body
+	 * @throws IOException if the body cannot be opened
+	 */
+	InputStream getRequestBody(WebContext context) throws IOException;
+
+}
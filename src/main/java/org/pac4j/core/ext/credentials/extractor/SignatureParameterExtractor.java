@@ -15,6 +15,8 @@
  */
 package org.pac4j.core.ext.credentials.extractor;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.Optional;
 
@@ -37,6 +39,17 @@ public class SignatureParameterExtractor implements CredentialsExtractor {
 	
 	private String signatureParamName = Pac4jExtConstants.SIGNATURE_PARAM;
 	
+	/* Name of the optional key id parameter, not extracted when null */
+	private String keyIdParamName;
+	
+	/* Names of the optional timestamp and nonce parameters, not extracted when null */
+	private String timestampParamName;
+	
+	private String nonceParamName;
+	
+	/* Raw body of the request, verified while read instead of being read as a String, when not null */
+	private RequestBodySupplier requestBodySupplier;
+	
     private boolean supportGetRequest = true;
 
     private boolean supportPostRequest;
@@ -73,20 +86,58 @@ public class SignatureParameterExtractor implements CredentialsExtractor {
         
         logger.debug("signatureParamName: {}", this.signatureParamName);
         
-        String paylod = context.getRequestContent();
         Optional<String> signature = context.getRequestParameter(this.signatureParamName);
-        if ( StringUtils.isEmpty(paylod) || !signature.isPresent()) {
+        if (!signature.isPresent()) {
+    		return Optional.empty();
+        }
+        
+        if (requestBodySupplier != null) {
+        	final InputStream body;
+        	try {
+        		body = requestBodySupplier.getRequestBody(context);
+        	} catch (IOException e) {
+        		throw new CredentialsException("Cannot read the request body: " + e.getMessage());
+        	}
+        	if (body == null) {
+        		return Optional.empty();
+        	}
+        	logger.debug("signature : {}", signature.get());
+        	return Optional.of(new SignatureCredentials(null, body, signature.get(), getParameter(context, this.keyIdParamName),
+        			getParameter(context, this.timestampParamName),
+        			getParameter(context, this.nonceParamName)));
+        }
+        
+        String paylod = context.getRequestContent();
+        if ( StringUtils.isEmpty(paylod)) {
     		return Optional.empty();
         }
         
     	logger.debug("paylod : {}", paylod);
     	logger.debug("signature : {}", signature.get());
-    	return Optional.of(new SignatureCredentials(paylod, signature.get()));
+    	return Optional.of(new SignatureCredentials(paylod, null, signature.get(), getParameter(context, this.keyIdParamName),
+    			getParameter(context, this.timestampParamName),
+    			getParameter(context, this.nonceParamName)));
     }
 	
+	/**
+	 * Read the value of the given request parameter, or header if missing.
+	 */
+	protected String getParameter(WebContext context, String name) {
+		if (CommonHelper.isBlank(name)) {
+			return null;
+		}
+		Optional<String> value = context.getRequestParameter(name);
+		if (!value.isPresent()) {
+			value = context.getRequestHeader(name);
+		}
+		return value.orElse(null);
+	}
+	
 	@Override
     public String toString() {
         return CommonHelper.toNiceString(this.getClass(), "signatureParamName", signatureParamName,
+        		 "keyIdParamName", keyIdParamName, "timestampParamName", timestampParamName, "nonceParamName", nonceParamName,
+        		 "streaming", requestBodySupplier != null,
         		 "supportGetRequest", supportGetRequest, "supportPostRequest", supportPostRequest, "charset", charset);
     }
 	
@@ -122,4 +173,51 @@ public class SignatureParameterExtractor implements CredentialsExtractor {
 		this.signatureParamName = signatureParamName;
 	}
 
+	public String getKeyIdParamName() {
+		return keyIdParamName;
+	}
+
+	/**
+	 * @param keyIdParamName the name of the parameter, or header, of the id of the key of the caller
+	 */
+	public void setKeyIdParamName(String keyIdParamName) {
+		this.keyIdParamName = keyIdParamName;
+	}
+
+	public String getTimestampParamName() {
+		return timestampParamName;
+	}
+
+	/**
+	 * @param timestampParamName the name of the parameter, or header, of the timestamp of the request
+	 */
+	public void setTimestampParamName(String timestampParamName) {
+		this.timestampParamName = timestampParamName;
+	}
+
+	public String getNonceParamName() {
+		return nonceParamName;
+	}
+
+	/**
+	 * @param nonceParamName the name of the parameter, or header, of the nonce of the request
+	 */
+	public void setNonceParamName(String nonceParamName) {
+		this.nonceParamName = nonceParamName;
+	}
+
+	public RequestBodySupplier getRequestBodySupplier() {
+		return requestBodySupplier;
+	}
+
+	/**
+	 * Read the raw request body while its signature is verified, see
+	 * {@link org.pac4j.core.ext.credentials.authenticator.SignatureAuthenticator#setMaxBodySize(long)},
+	 * instead of buffering it as a String with {@link WebContext#getRequestContent()}.
+	 * @param requestBodySupplier the access to the raw request body
+	 */
+	public void setRequestBodySupplier(RequestBodySupplier requestBodySupplier) {
+		this.requestBodySupplier = requestBodySupplier;
+	}
+
 }
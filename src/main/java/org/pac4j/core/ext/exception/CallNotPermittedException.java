@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.exception;
+
+/**
+ * The circuit breaker of the profile url is open : the call is not sent, to let the profile service recover.
+ * Like any {@link ProfileUnavailableException}, the last known profile may be served meanwhile.
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+@SuppressWarnings("serial")
+public class CallNotPermittedException extends ProfileUnavailableException {
+
+	/**
+	 * Constructs a <code>CallNotPermittedException</code> with the specified message.
+	 *
+	 * @param msg the detail message
+	 */
+	public CallNotPermittedException(String msg) {
+		super(msg);
+	}
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.exception;
+
+import java.io.IOException;
+
+import org.pac4j.core.exception.HttpCommunicationException;
+
+/**
+ * The profile url could not give an answer about the token : server error, timeout or network failure.
+ * Unlike a rejection of the token, the last known profile may be served meanwhile.
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+@SuppressWarnings("serial")
+public class ProfileUnavailableException extends HttpCommunicationException {
+
+	/**
+	 * Constructs a <code>ProfileUnavailableException</code> with the specified message.
+	 *
+	 * @param msg the detail message
+	 */
+	public ProfileUnavailableException(String msg) {
+		super(msg);
+	}
+
+	/**
+	 * Constructs a <code>ProfileUnavailableException</code> with the specified message and the I/O failure.
+	 *
+	 * @param msg the detail message
+	 * @param cause the I/O failure
+	 */
+	public ProfileUnavailableException(String msg, IOException cause) {
+		super(msg);
+		initCause(cause);
+	}
+
+	/**
+	 * Constructs a <code>ProfileUnavailableException</code> with the status code and body of the profile url.
+	 *
+	 * @param code the status code
+	 * @param body the response body
+	 */
+	public ProfileUnavailableException(int code, String body) {
+		super(code, body);
+	}
+
+}
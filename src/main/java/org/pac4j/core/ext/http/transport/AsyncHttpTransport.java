@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.http.transport;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * A {@link HttpTransport} which can also send requests without blocking the caller.
+ * <p>A non-blocking HTTP client should complete the future from its own I/O threads ;
+ * the executor is where the caller wants the blocking parts, if any, to run.</p>
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+public interface AsyncHttpTransport extends HttpTransport {
+
+	/**
+	 * Send the request without blocking the caller.
+	 * @param request the request to send
+	 * @param executor the executor of the blocking work
+	 * @return the future response, which must be closed by the caller ;
+	 *         the future fails with an {@link java.io.IOException} if the request cannot be sent,
+	 *         cancelling it aborts the request when the transport can
+	 */
+	CompletableFuture<HttpResponse> executeAsync(HttpRequest request, Executor executor);
+
+}
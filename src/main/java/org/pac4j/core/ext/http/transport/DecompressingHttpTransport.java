@@ -0,0 +1,246 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.http.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import org.pac4j.core.ext.utils.FutureUtils;
+import org.pac4j.core.ext.utils.HttpHeaders;
+import org.pac4j.core.util.CommonHelper;
+
+/**
+ * {@link HttpTransport} negotiating compressed responses : the requests advertise gzip and deflate,
+ * the compressed responses are inflated on the fly while their body is read.
+ * <p>The inflated body is limited to a maximum size, a small compressed response may inflate to a huge one.</p>
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+public class DecompressingHttpTransport implements AsyncHttpTransport {
+
+	public static final String ACCEPT_ENCODING = "gzip, deflate";
+
+	private final HttpTransport delegate;
+	private final long maxDecompressedSize;
+
+	private final LongAdder compressedResponseCount = new LongAdder();
+	private final LongAdder compressedBytes = new LongAdder();
+	private final LongAdder decompressedBytes = new LongAdder();
+
+	/**
+	 * @param delegate the transport sending the requests
+	 * @param maxDecompressedSize the maximum size of an inflated body, in bytes
+	 */
+	public DecompressingHttpTransport(HttpTransport delegate, long maxDecompressedSize) {
+		CommonHelper.assertNotNull("delegate", delegate);
+		CommonHelper.assertTrue(maxDecompressedSize > 0, "maxDecompressedSize must be greater than 0");
+		this.delegate = delegate;
+		this.maxDecompressedSize = maxDecompressedSize;
+	}
+
+	@Override
+	public HttpResponse execute(HttpRequest request) throws IOException {
+		return decode(delegate.execute(negotiate(request)));
+	}
+
+	@Override
+	public CompletableFuture<HttpResponse> executeAsync(HttpRequest request, Executor executor) {
+		final HttpRequest negotiated = negotiate(request);
+		if (delegate instanceof AsyncHttpTransport) {
+			final CompletableFuture<HttpResponse> future = ((AsyncHttpTransport) delegate).executeAsync(negotiated, executor);
+			return FutureUtils.propagateCancel(future.thenApply(this::decode), future);
+		}
+		final CompletableFuture<HttpResponse> future = new CompletableFuture<>();
+		try {
+			executor.execute(() -> {
+				try {
+					future.complete(decode(delegate.execute(negotiated)));
+				} catch (IOException | RuntimeException e) {
+					future.completeExceptionally(e);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			future.completeExceptionally(e);
+		}
+		return future;
+	}
+
+	private HttpRequest negotiate(HttpRequest request) {
+		for (final String name : request.getHeaders().keySet()) {
+			if (HttpHeaders.ACCEPT_ENCODING.equalsIgnoreCase(name)) {
+				return request;
+			}
+		}
+		return request.withHeader(HttpHeaders.ACCEPT_ENCODING, ACCEPT_ENCODING);
+	}
+
+	private HttpResponse decode(HttpResponse response) {
+		final String encoding = response.getHeader(HttpHeaders.CONTENT_ENCODING);
+		if (encoding == null) {
+			return response;
+		}
+		final String normalized = encoding.trim().toLowerCase();
+		if ("gzip".equals(normalized) || "x-gzip".equals(normalized)) {
+			return new DecodedResponse(response, true);
+		}
+		if ("deflate".equals(normalized)) {
+			return new DecodedResponse(response, false);
+		}
+		return response;
+	}
+
+	/**
+	 * @return the number of compressed responses
+	 */
+	public long getCompressedResponseCount() {
+		return compressedResponseCount.sum();
+	}
+
+	/**
+	 * @return the number of compressed bytes received
+	 */
+	public long getCompressedBytes() {
+		return compressedBytes.sum();
+	}
+
+	/**
+	 * @return the number of bytes of the compressed responses once inflated
+	 */
+	public long getDecompressedBytes() {
+		return decompressedBytes.sum();
+	}
+
+	/**
+	 * @return the number of bytes the compression saved on the network
+	 */
+	public long getBytesSaved() {
+		return getDecompressedBytes() - getCompressedBytes();
+	}
+
+	public HttpTransport getDelegate() {
+		return delegate;
+	}
+
+	public long getMaxDecompressedSize() {
+		return maxDecompressedSize;
+	}
+
+	@Override
+	public String toString() {
+		return CommonHelper.toNiceString(this.getClass(), "delegate", delegate, "maxDecompressedSize", maxDecompressedSize,
+				"compressedResponseCount", getCompressedResponseCount(), "compressedBytes", getCompressedBytes(),
+				"decompressedBytes", getDecompressedBytes(), "bytesSaved", getBytesSaved());
+	}
+
+	/**
+	 * A compressed response, inflated while its body is read.
+	 */
+	private final class DecodedResponse implements HttpResponse {
+
+		private final HttpResponse response;
+		private final boolean gzip;
+		private LimitedInputStream raw;
+		private LimitedInputStream body;
+
+		private DecodedResponse(HttpResponse response, boolean gzip) {
+			this.response = response;
+			this.gzip = gzip;
+			compressedResponseCount.increment();
+		}
+
+		@Override
+		public int getStatusCode() {
+			return response.getStatusCode();
+		}
+
+		@Override
+		public String getStatusMessage() {
+			return response.getStatusMessage();
+		}
+
+		@Override
+		public String getHeader(String name) {
+			return response.getHeader(name);
+		}
+
+		@Override
+		public Map<String, List<String>> getHeaders() {
+			return response.getHeaders();
+		}
+
+		@Override
+		public InputStream getBody() throws IOException {
+			if (body == null) {
+				raw = new LimitedInputStream(response.getBody(), Long.MAX_VALUE);
+				body = new LimitedInputStream(gzip ? new GZIPInputStream(raw, 4096) : inflate(raw), maxDecompressedSize);
+			}
+			return body;
+		}
+
+		/**
+		 * The deflate encoding should be zlib wrapped, some servers send a raw deflate stream : the zlib header tells them apart.
+		 */
+		private InputStream inflate(InputStream in) throws IOException {
+			final PushbackInputStream pushback = new PushbackInputStream(in, 2);
+			final byte[] header = new byte[2];
+			int n = 0;
+			while (n < 2) {
+				final int read = pushback.read(header, n, 2 - n);
+				if (read == -1) {
+					break;
+				}
+				n += read;
+			}
+			pushback.unread(header, 0, n);
+			final boolean zlib = n == 2 && (header[0] & 0x0F) == 8 && (((header[0] & 0xFF) << 8) | (header[1] & 0xFF)) % 31 == 0;
+			final Inflater inflater = new Inflater(!zlib);
+			return new InflaterInputStream(pushback, inflater, 4096) {
+				@Override
+				public void close() throws IOException {
+					try {
+						super.close();
+					} finally {
+						inflater.end();
+					}
+				}
+			};
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				if (body != null) {
+					compressedBytes.add(raw.getCount());
+					decompressedBytes.add(body.getCount());
+					body.close();
+				}
+			} finally {
+				response.close();
+			}
+		}
+
+	}
+
+}
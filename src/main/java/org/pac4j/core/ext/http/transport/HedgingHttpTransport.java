@@ -0,0 +1,390 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.http.transport;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.pac4j.core.ext.utils.FutureUtils;
+import org.pac4j.core.util.CommonHelper;
+
+/**
+ * {@link HttpTransport} hedging the slow requests : when a request has no response after a delay,
+ * computed as a percentile of the recent response times, the same request is sent to an alternate server,
+ * the first successful response is used and the other one is cancelled.
+ * <p>A response is successful when its status code is lower than 500. The cancellation reaches the wrapped transport when it is an
+ * {@link AsyncHttpTransport}, {@link UrlConnectionHttpTransport} then disconnects the request ; a blocking {@link HttpTransport}
+ * cannot be interrupted, its cancelled request keeps its thread until it completes or times out, and its response is closed as soon as it arrives.</p>
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+public class HedgingHttpTransport implements AsyncHttpTransport {
+
+	public static final double DEFAULT_PERCENTILE = 0.95;
+	public static final long DEFAULT_INITIAL_DELAY = 50;
+	public static final long DEFAULT_MIN_DELAY = 5;
+
+	private final HttpTransport delegate;
+	private final List<String> alternateOrigins;
+	private final AtomicInteger nextAlternate = new AtomicInteger();
+	private final LatencyWindow latencies = new LatencyWindow(1024);
+
+	private double percentile = DEFAULT_PERCENTILE;
+	private long initialDelay = DEFAULT_INITIAL_DELAY;
+	private long minDelay = DEFAULT_MIN_DELAY;
+	private Executor executor = FutureUtils.WORKER;
+
+	private final LongAdder requestCount = new LongAdder();
+	private final LongAdder hedgeCount = new LongAdder();
+	private final LongAdder hedgeWinCount = new LongAdder();
+
+	/**
+	 * @param delegate the transport sending the requests
+	 * @param alternateOrigins the servers receiving the hedged requests, like <code>https://replica2:8443</code>, used in turn
+	 */
+	public HedgingHttpTransport(HttpTransport delegate, String... alternateOrigins) {
+		this(delegate, Arrays.asList(alternateOrigins));
+	}
+
+	public HedgingHttpTransport(HttpTransport delegate, List<String> alternateOrigins) {
+		CommonHelper.assertNotNull("delegate", delegate);
+		CommonHelper.assertNotNull("alternateOrigins", alternateOrigins);
+		this.delegate = delegate;
+		this.alternateOrigins = new ArrayList<>(alternateOrigins);
+	}
+
+	@Override
+	public HttpResponse execute(HttpRequest request) throws IOException {
+		final CompletableFuture<HttpResponse> future = executeAsync(request, executor);
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			final Throwable cause = FutureUtils.unwrap(e);
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IOException(cause);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			future.thenAccept(this::closeQuietly);
+			throw new InterruptedIOException("Interrupted while waiting for: " + request.getUrl());
+		}
+	}
+
+	@Override
+	public CompletableFuture<HttpResponse> executeAsync(HttpRequest request, Executor executor) {
+		requestCount.increment();
+		if (alternateOrigins.isEmpty()) {
+			return send(request, executor);
+		}
+		return new Race(request, executor).start(getHedgeDelay());
+	}
+
+	/**
+	 * @return the current delay, in milliseconds, after which a request is hedged
+	 */
+	public long getHedgeDelay() {
+		final long delay = latencies.percentile(percentile);
+		return Math.max(minDelay, delay < 0 ? initialDelay : delay);
+	}
+
+	private CompletableFuture<HttpResponse> send(HttpRequest request, Executor executor) {
+		final long t0 = System.nanoTime();
+		final CompletableFuture<HttpResponse> future;
+		if (delegate instanceof AsyncHttpTransport) {
+			future = ((AsyncHttpTransport) delegate).executeAsync(request, executor);
+		} else {
+			final CompletableFuture<HttpResponse> blocking = new CompletableFuture<>();
+			try {
+				executor.execute(() -> {
+					try {
+						blocking.complete(delegate.execute(request));
+					} catch (IOException | RuntimeException e) {
+						blocking.completeExceptionally(e);
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				blocking.completeExceptionally(e);
+			}
+			future = blocking;
+		}
+		final CompletableFuture<HttpResponse> sent = new CompletableFuture<>();
+		future.whenComplete((response, t) -> {
+			if (t != null) {
+				sent.completeExceptionally(FutureUtils.unwrap(t));
+				return;
+			}
+			latencies.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0));
+			// the response of a cancelled request has nobody else to close it
+			if (!sent.complete(response)) {
+				closeQuietly(response);
+			}
+		});
+		return FutureUtils.propagateCancel(sent, future);
+	}
+
+	private String nextAlternateOrigin() {
+		return alternateOrigins.get(Math.floorMod(nextAlternate.getAndIncrement(), alternateOrigins.size()));
+	}
+
+	private void closeQuietly(HttpResponse response) {
+		try {
+			response.close();
+		} catch (IOException e) {
+			// nothing to do
+		}
+	}
+
+	/**
+	 * @return the number of requests sent
+	 */
+	public long getRequestCount() {
+		return requestCount.sum();
+	}
+
+	/**
+	 * @return the number of hedged requests sent to an alternate server
+	 */
+	public long getHedgeCount() {
+		return hedgeCount.sum();
+	}
+
+	/**
+	 * @return the number of hedged requests whose response was used
+	 */
+	public long getHedgeWinCount() {
+		return hedgeWinCount.sum();
+	}
+
+	public HttpTransport getDelegate() {
+		return delegate;
+	}
+
+	public List<String> getAlternateOrigins() {
+		return alternateOrigins;
+	}
+
+	public double getPercentile() {
+		return percentile;
+	}
+
+	/**
+	 * @param percentile the percentile of the recent response times used as hedging delay, between 0 and 1
+	 */
+	public void setPercentile(double percentile) {
+		CommonHelper.assertTrue(percentile > 0 && percentile <= 1, "percentile must be between 0 and 1");
+		this.percentile = percentile;
+	}
+
+	public long getInitialDelay() {
+		return initialDelay;
+	}
+
+	/**
+	 * @param initialDelay the hedging delay, in milliseconds, until enough response times are known
+	 */
+	public void setInitialDelay(long initialDelay) {
+		this.initialDelay = initialDelay;
+	}
+
+	public long getMinDelay() {
+		return minDelay;
+	}
+
+	/**
+	 * @param minDelay the minimum hedging delay, in milliseconds
+	 */
+	public void setMinDelay(long minDelay) {
+		this.minDelay = minDelay;
+	}
+
+	public Executor getExecutor() {
+		return executor;
+	}
+
+	/**
+	 * @param executor the executor of the blocking requests of {@link #execute(HttpRequest)}
+	 */
+	public void setExecutor(Executor executor) {
+		CommonHelper.assertNotNull("executor", executor);
+		this.executor = executor;
+	}
+
+	@Override
+	public String toString() {
+		return CommonHelper.toNiceString(this.getClass(), "delegate", delegate, "alternateOrigins", alternateOrigins, "hedgeDelay", getHedgeDelay(),
+				"requestCount", getRequestCount(), "hedgeCount", getHedgeCount(), "hedgeWinCount", getHedgeWinCount());
+	}
+
+	/**
+	 * A primary request and its hedged request, if any : the first successful response wins,
+	 * otherwise the outcome of the primary request is used.
+	 */
+	private final class Race {
+
+		private final HttpRequest request;
+		private final Executor executor;
+		private final CompletableFuture<HttpResponse> result = new CompletableFuture<>();
+		private CompletableFuture<HttpResponse> primary;
+		private CompletableFuture<HttpResponse> hedge;
+		private ScheduledFuture<?> timer;
+		private boolean primaryFailed;
+		private boolean hedgeFailed;
+		private HttpResponse primaryResponse;
+		private Throwable primaryError;
+
+		private Race(HttpRequest request, Executor executor) {
+			this.request = request;
+			this.executor = executor;
+		}
+
+		private synchronized CompletableFuture<HttpResponse> start(long delay) {
+			primary = send(request, executor);
+			if (!result.isDone()) {
+				timer = FutureUtils.TIMER.schedule(this::fireHedge, delay, TimeUnit.MILLISECONDS);
+			}
+			primary.whenComplete((response, t) -> settle(true, response, t));
+			return result;
+		}
+
+		private synchronized void fireHedge() {
+			if (result.isDone() || primaryFailed) {
+				return;
+			}
+			hedgeCount.increment();
+			hedge = send(request.withOrigin(nextAlternateOrigin()), executor);
+			hedge.whenComplete((response, t) -> settle(false, response, t));
+		}
+
+		private synchronized void settle(boolean isPrimary, HttpResponse response, Throwable t) {
+			if (result.isDone()) {
+				if (response != null) {
+					closeQuietly(response);
+				}
+				return;
+			}
+			if (t == null && response.getStatusCode() < 500) {
+				if (timer != null) {
+					timer.cancel(false);
+				}
+				result.complete(response);
+				// the failed response of the primary request is not the outcome anymore
+				if (primaryResponse != null) {
+					closeQuietly(primaryResponse);
+					primaryResponse = null;
+				}
+				final CompletableFuture<HttpResponse> loser = isPrimary ? hedge : primary;
+				if (loser != null) {
+					loser.cancel(false);
+				}
+				if (!isPrimary) {
+					hedgeWinCount.increment();
+				}
+				return;
+			}
+			if (isPrimary) {
+				primaryFailed = true;
+				primaryResponse = response;
+				primaryError = t;
+				if (hedge == null || hedgeFailed) {
+					if (timer != null) {
+						timer.cancel(false);
+					}
+					complete();
+				}
+			} else {
+				hedgeFailed = true;
+				if (response != null) {
+					closeQuietly(response);
+				}
+				if (primaryFailed) {
+					complete();
+				}
+			}
+		}
+
+		private void complete() {
+			if (primaryError != null) {
+				result.completeExceptionally(primaryError);
+			} else {
+				result.complete(primaryResponse);
+			}
+		}
+
+	}
+
+	/**
+	 * The last response times, with a percentile recomputed every few samples.
+	 */
+	private static final class LatencyWindow {
+
+		private static final int MIN_SAMPLES = 32;
+		private static final int RECOMPUTE_EVERY = 64;
+
+		private final AtomicLongArray samples;
+		private final AtomicLong count = new AtomicLong();
+		private volatile long[] sorted = new long[0];
+
+		private LatencyWindow(int size) {
+			this.samples = new AtomicLongArray(size);
+		}
+
+		private void record(long latency) {
+			final long n = count.getAndIncrement();
+			samples.set((int) (n % samples.length()), latency);
+			if (n + 1 == MIN_SAMPLES || (n + 1) % RECOMPUTE_EVERY == 0) {
+				final int size = (int) Math.min(n + 1, samples.length());
+				final long[] snapshot = new long[size];
+				for (int i = 0; i < size; i++) {
+					snapshot[i] = samples.get(i);
+				}
+				Arrays.sort(snapshot);
+				sorted = snapshot;
+			}
+		}
+
+		/**
+		 * @return the percentile of the response times, <code>-1</code> if there are not enough samples yet
+		 */
+		private long percentile(double percentile) {
+			final long[] current = sorted;
+			if (current.length < MIN_SAMPLES) {
+				return -1;
+			}
+			return current[Math.min(current.length - 1, (int) Math.ceil(percentile * current.length) - 1)];
+		}
+
+	}
+
+}
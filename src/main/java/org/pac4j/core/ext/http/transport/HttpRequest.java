@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.http.transport;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.pac4j.core.context.HttpConstants;
+import org.pac4j.core.ext.resilience.Deadline;
+import org.pac4j.core.util.CommonHelper;
+
+/**
+ * An outbound HTTP request sent by a {@link HttpTransport}.
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+public class HttpRequest {
+
+	private final String method;
+	private final String url;
+	private final Map<String, String> headers;
+	private final byte[] body;
+	private final Deadline deadline;
+
+	public HttpRequest(String method, String url, Map<String, String> headers) {
+		this(method, url, headers, null);
+	}
+
+	/**
+	 * @param method the HTTP method
+	 * @param url the full url, query string included
+	 * @param headers the request headers
+	 * @param body the request body, may be null
+	 */
+	public HttpRequest(String method, String url, Map<String, String> headers, byte[] body) {
+		CommonHelper.assertNotBlank("method", method);
+		CommonHelper.assertNotBlank("url", url);
+		this.method = method;
+		this.url = url;
+		this.headers = headers == null ? Collections.emptyMap() : Collections.unmodifiableMap(new LinkedHashMap<>(headers));
+		this.body = body;
+		this.deadline = null;
+	}
+
+	/**
+	 * Build a request owning the given headers, which must not be modified afterwards.
+	 */
+	HttpRequest(Map<String, String> headers, String method, String url) {
+		this.method = method;
+		this.url = url;
+		this.headers = Collections.unmodifiableMap(headers);
+		this.body = null;
+		this.deadline = null;
+	}
+
+	public static HttpRequest get(String url, Map<String, String> headers) {
+		return new HttpRequest(HttpConstants.HTTP_METHOD.GET.name(), url, headers);
+	}
+
+	/**
+	 * @param url the full url, query string included
+	 * @return a copy of this request sent to another url
+	 */
+	public HttpRequest withUrl(String url) {
+		CommonHelper.assertNotBlank("url", url);
+		return new HttpRequest(this, url, deadline);
+	}
+
+	/**
+	 * @param origin the scheme, host and port of the other server, like <code>https://host:8443</code>
+	 * @return a copy of this request sent to the same path on another server
+	 */
+	public HttpRequest withOrigin(String origin) {
+		CommonHelper.assertNotBlank("origin", origin);
+		final int scheme = url.indexOf("://");
+		int pathStart = scheme < 0 ? url.length() : scheme + 3;
+		while (pathStart < url.length() && url.charAt(pathStart) != '/' && url.charAt(pathStart) != '?') {
+			pathStart++;
+		}
+		final String base = origin.endsWith("/") ? origin.substring(0, origin.length() - 1) : origin;
+		return new HttpRequest(this, base + url.substring(pathStart), deadline);
+	}
+
+	/**
+	 * @param name the header name
+	 * @param value the header value
+	 * @return a copy of this request with the header added or replaced
+	 */
+	public HttpRequest withHeader(String name, String value) {
+		CommonHelper.assertNotBlank("name", name);
+		final Map<String, String> copy = new LinkedHashMap<>(headers);
+		copy.put(name, value);
+		return new HttpRequest(this, url, deadline, Collections.unmodifiableMap(copy));
+	}
+
+	/**
+	 * @param deadline the time by which the whole exchange must be over, null for the timeouts of the transport only
+	 * @return a copy of this request bounded by the deadline
+	 */
+	public HttpRequest withDeadline(Deadline deadline) {
+		return deadline == this.deadline ? this : new HttpRequest(this, url, deadline);
+	}
+
+	private HttpRequest(HttpRequest request, String url, Deadline deadline) {
+		this(request, url, deadline, request.headers);
+	}
+
+	private HttpRequest(HttpRequest request, String url, Deadline deadline, Map<String, String> headers) {
+		this.method = request.method;
+		this.url = url;
+		this.headers = headers;
+		this.body = request.body;
+		this.deadline = deadline;
+	}
+
+	public String getMethod() {
+		return method;
+	}
+
+	public String getUrl() {
+		return url;
+	}
+
+	public Map<String, String> getHeaders() {
+		return headers;
+	}
+
+	public byte[] getBody() {
+		return body;
+	}
+
+	/**
+	 * @return the time by which the whole exchange must be over, null if none
+	 */
+	public Deadline getDeadline() {
+		return deadline;
+	}
+
+	@Override
+	public String toString() {
+		return CommonHelper.toNiceString(this.getClass(), "method", method, "url", url, "headers", headers, "deadline", deadline);
+	}
+
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.http.transport;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.pac4j.core.context.HttpConstants;
+import org.pac4j.core.context.WebContext;
+import org.pac4j.core.exception.TechnicalException;
+import org.pac4j.core.util.CommonHelper;
+
+/**
+ * Immutable template of the GET requests sent for each authentication : the fixed headers and the encoded
+ * query string are computed once, only the forwarded headers and the per-request parameter are added to each request.
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+public final class HttpRequestTemplate {
+
+	private final Map<String, String> headers;
+	private final Map<String, String> forwardedHeaders;
+	private final String query;
+
+	/**
+	 * @param headers the fixed headers
+	 * @param forwardedHeaders the headers copied from the incoming request, with their default value; ignored if they are fixed headers
+	 * @param params the fixed query parameters
+	 * @param charset the charset encoding the values of the parameters, <code>null</code> if they are already encoded
+	 */
+	public HttpRequestTemplate(Map<String, String> headers, Map<String, String> forwardedHeaders, Map<String, String> params, String charset) {
+		CommonHelper.assertNotNull("headers", headers);
+		CommonHelper.assertNotNull("forwardedHeaders", forwardedHeaders);
+		CommonHelper.assertNotNull("params", params);
+		this.headers = Collections.unmodifiableMap(new LinkedHashMap<>(headers));
+		final Map<String, String> forwarded = new LinkedHashMap<>(forwardedHeaders);
+		forwarded.keySet().removeAll(headers.keySet());
+		this.forwardedHeaders = Collections.unmodifiableMap(forwarded);
+		final StringBuilder builder = new StringBuilder();
+		for (Map.Entry<String, String> param : params.entrySet()) {
+			if (builder.length() > 0) {
+				builder.append('&');
+			}
+			builder.append(param.getKey()).append('=').append(encode(String.valueOf(param.getValue()), charset));
+		}
+		this.query = builder.toString();
+	}
+
+	private static String encode(String value, String charset) {
+		if (charset == null) {
+			return value;
+		}
+		try {
+			return URLEncoder.encode(value, charset);
+		} catch (UnsupportedEncodingException e) {
+			throw new TechnicalException(e);
+		}
+	}
+
+	/**
+	 * Build a GET request from this template.
+	 * @param context the incoming request, source of the forwarded headers
+	 * @param url the url, with or without query string
+	 * @param paramName the name of the per-request parameter
+	 * @param paramValue the value of the per-request parameter, added as is
+	 * @return the request
+	 */
+	public HttpRequest get(WebContext context, String url, String paramName, String paramValue) {
+		final StringBuilder builder = new StringBuilder(url.length() + query.length() + paramName.length() + paramValue.length() + 3);
+		builder.append(url);
+		char separator = url.indexOf('?') > 0 ? '&' : '?';
+		if (!query.isEmpty()) {
+			builder.append(separator).append(query);
+			separator = '&';
+		}
+		builder.append(separator).append(paramName).append('=').append(paramValue);
+
+		final Map<String, String> requestHeaders = new LinkedHashMap<>(headers);
+		for (Map.Entry<String, String> header : forwardedHeaders.entrySet()) {
+			requestHeaders.put(header.getKey(), context.getRequestHeader(header.getKey()).orElse(header.getValue()));
+		}
+		return new HttpRequest(requestHeaders, HttpConstants.HTTP_METHOD.GET.name(), builder.toString());
+	}
+
+	public Map<String, String> getHeaders() {
+		return headers;
+	}
+
+	public Map<String, String> getForwardedHeaders() {
+		return forwardedHeaders;
+	}
+
+	/**
+	 * @return the encoded query string of the fixed parameters, empty if none
+	 */
+	public String getQuery() {
+		return query;
+	}
+
+	@Override
+	public String toString() {
+		return CommonHelper.toNiceString(this.getClass(), "headers", headers, "forwardedHeaders", forwardedHeaders, "query", query);
+	}
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.http.transport;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The response of a {@link HttpTransport}. It must be closed to release its connection.
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+public interface HttpResponse extends Closeable {
+
+	/**
+	 * @return the HTTP status code
+	 */
+	int getStatusCode();
+
+	/**
+	 * @return the HTTP reason phrase, may be null
+	 */
+	String getStatusMessage();
+
+	/**
+	 * @param name the header name, case insensitive
+	 * @return the first value of the header or <code>null</code>
+	 */
+	String getHeader(String name);
+
+	/**
+	 * @return all the response headers
+	 */
+	Map<String, List<String>> getHeaders();
+
+	/**
+	 * @return the response body stream, the error body for an error status, never null
+	 * @throws IOException if the body cannot be read
+	 */
+	InputStream getBody() throws IOException;
+
+	/**
+	 * Read the whole response body.
+	 * @param charset the charset of the body
+	 * @return the response body
+	 * @throws IOException if the body cannot be read
+	 */
+	default String readBody(Charset charset) throws IOException {
+		return readBody(charset, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Read the whole response body, failing if it is too large.
+	 * @param charset the charset of the body
+	 * @param maxSize the maximum size of the body, in bytes
+	 * @return the response body
+	 * @throws IOException if the body cannot be read or exceeds the maximum size
+	 */
+	default String readBody(Charset charset, long maxSize) throws IOException {
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final byte[] buffer = new byte[4096];
+		try (InputStream in = new LimitedInputStream(getBody(), maxSize)) {
+			int n;
+			while ((n = in.read(buffer)) != -1) {
+				out.write(buffer, 0, n);
+			}
+		}
+		return new String(out.toByteArray(), charset);
+	}
+
+	/**
+	 * Build the message of an error response : status code, reason phrase and body.
+	 * @param charset the charset of the body
+	 * @return the error message
+	 * @throws IOException if the body cannot be read
+	 */
+	default String buildErrorMessage(Charset charset) throws IOException {
+		final StringBuilder message = new StringBuilder("(").append(getStatusCode()).append(")");
+		if (getStatusMessage() != null) {
+			message.append(" ").append(getStatusMessage());
+		}
+		message.append("[").append(readBody(charset)).append("]");
+		return message.toString();
+	}
+
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.http.transport;
+
+import java.io.IOException;
+
+/**
+ * The HTTP client used to call the remote services (profile url...).
+ * <p>Implement it to plug another HTTP client, {@link UrlConnectionHttpTransport} is the default one.</p>
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+public interface HttpTransport {
+
+	/**
+	 * Send the request and return the response, which must be closed by the caller.
+	 * @param request the request to send
+	 * @return the response
+	 * @throws IOException if the request cannot be sent or the response cannot be received
+	 */
+	HttpResponse execute(HttpRequest request) throws IOException;
+
+}
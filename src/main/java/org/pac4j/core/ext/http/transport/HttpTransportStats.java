@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.http.transport;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.pac4j.core.util.CommonHelper;
+
+/**
+ * Immutable snapshot of the statistics of the connection pool of a {@link UrlConnectionHttpTransport}.
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+public final class HttpTransportStats {
+
+	private final long requestCount;
+	private final long failureCount;
+	private final long poolTimeoutCount;
+	private final long totalTimeoutCount;
+	private final long reusableCount;
+	private final long discardedCount;
+	private final int pendingCount;
+	private final Map<String, Integer> leasedPerHost;
+
+	public HttpTransportStats(long requestCount, long failureCount, long poolTimeoutCount, long totalTimeoutCount,
+			long reusableCount, long discardedCount, int pendingCount, Map<String, Integer> leasedPerHost) {
+		this.requestCount = requestCount;
+		this.failureCount = failureCount;
+		this.poolTimeoutCount = poolTimeoutCount;
+		this.totalTimeoutCount = totalTimeoutCount;
+		this.reusableCount = reusableCount;
+		this.discardedCount = discardedCount;
+		this.pendingCount = pendingCount;
+		this.leasedPerHost = Collections.unmodifiableMap(leasedPerHost);
+	}
+
+	/**
+	 * @return the number of requests sent
+	 */
+	public long getRequestCount() {
+		return requestCount;
+	}
+
+	/**
+	 * @return the number of requests which failed with an I/O error
+	 */
+	public long getFailureCount() {
+		return failureCount;
+	}
+
+	/**
+	 * @return the number of requests rejected because no connection became available in time
+	 */
+	public long getPoolTimeoutCount() {
+		return poolTimeoutCount;
+	}
+
+	/**
+	 * @return the number of requests aborted by the total timeout
+	 */
+	public long getTotalTimeoutCount() {
+		return totalTimeoutCount;
+	}
+
+	/**
+	 * @return the number of connections released in a reusable state, i.e. returned to the keep-alive cache
+	 */
+	public long getReusableCount() {
+		return reusableCount;
+	}
+
+	/**
+	 * @return the number of connections closed instead of being kept alive
+	 */
+	public long getDiscardedCount() {
+		return discardedCount;
+	}
+
+	/**
+	 * @return the ratio of released connections which were kept alive
+	 */
+	public double getReuseRate() {
+		long released = reusableCount + discardedCount;
+		return released == 0 ? 0.0 : (double) reusableCount / released;
+	}
+
+	/**
+	 * @return the number of requests currently waiting for a connection
+	 */
+	public int getPendingCount() {
+		return pendingCount;
+	}
+
+	/**
+	 * @return the number of connections currently in use
+	 */
+	public int getLeasedCount() {
+		int leased = 0;
+		for (Integer count : leasedPerHost.values()) {
+			leased += count;
+		}
+		return leased;
+	}
+
+	/**
+	 * @return the number of connections currently in use, per host
+	 */
+	public Map<String, Integer> getLeasedPerHost() {
+		return leasedPerHost;
+	}
+
+	@Override
+	public String toString() {
+		return CommonHelper.toNiceString(this.getClass(), "requestCount", requestCount, "failureCount", failureCount,
+				"poolTimeoutCount", poolTimeoutCount, "totalTimeoutCount", totalTimeoutCount, "reusableCount", reusableCount,
+				"discardedCount", discardedCount, "pendingCount", pendingCount, "leasedPerHost", leasedPerHost);
+	}
+
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.http.transport;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Stream failing as soon as more than a maximum number of bytes is read, to protect the memory from oversized responses.
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+public class LimitedInputStream extends FilterInputStream {
+
+	private final long maxSize;
+	private long count;
+
+	/**
+	 * @param in the stream to read
+	 * @param maxSize the maximum number of bytes read from the stream
+	 */
+	public LimitedInputStream(InputStream in, long maxSize) {
+		super(in);
+		this.maxSize = maxSize;
+	}
+
+	@Override
+	public int read() throws IOException {
+		int b = super.read();
+		if (b != -1) {
+			count(1);
+		}
+		return b;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		int n = super.read(b, off, len);
+		if (n > 0) {
+			count(n);
+		}
+		return n;
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		long skipped = super.skip(n);
+		count(skipped);
+		return skipped;
+	}
+
+	/**
+	 * @return the number of bytes read so far
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	@Override
+	public boolean markSupported() {
+		return false;
+	}
+
+	private void count(long n) throws IOException {
+		count += n;
+		if (count > maxSize) {
+			throw new IOException("Response body exceeds the maximum size of " + maxSize + " bytes");
+		}
+	}
+
+}
@@ -0,0 +1,326 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.http.transport;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.pac4j.core.ext.utils.FutureUtils;
+import org.pac4j.core.util.CommonHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link HttpTransport} spreading the requests over several instances of a same service : each request is sent
+ * to the same path on the least loaded of two instances picked at random (power of two choices on the outstanding requests).
+ * <p>An instance failing several times in a row (I/O error or status code 500 and more) is ejected for a while,
+ * longer at each new ejection, then takes a growing share of the traffic during its slow start.
+ * When all the instances are ejected, they are all used again rather than failing every request.</p>
+ * <p>All the instances share the wrapped transport, and so its connection pool.</p>
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+public class LoadBalancingHttpTransport implements AsyncHttpTransport {
+
+	public static final int DEFAULT_MAX_CONSECUTIVE_FAILURES = 5;
+	public static final long DEFAULT_BASE_EJECTION_TIME = 30 * 1000;
+	public static final long DEFAULT_MAX_EJECTION_TIME = 300 * 1000;
+	public static final long DEFAULT_SLOW_START = 30 * 1000;
+
+	/* Share of the traffic of an instance at the beginning of its slow start */
+	private static final double MIN_SLOW_START_WEIGHT = 0.1;
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(LoadBalancingHttpTransport.class);
+
+	private final HttpTransport delegate;
+	private final List<Endpoint> endpoints;
+
+	private int maxConsecutiveFailures = DEFAULT_MAX_CONSECUTIVE_FAILURES;
+	private long baseEjectionTime = DEFAULT_BASE_EJECTION_TIME;
+	private long maxEjectionTime = DEFAULT_MAX_EJECTION_TIME;
+	private long slowStart = DEFAULT_SLOW_START;
+
+	private final LongAdder panicCount = new LongAdder();
+
+	/**
+	 * @param delegate the transport sending the requests
+	 * @param baseUrls the instances of the service, like <code>https://replica1:8443</code>
+	 */
+	public LoadBalancingHttpTransport(HttpTransport delegate, String... baseUrls) {
+		this(delegate, Arrays.asList(baseUrls));
+	}
+
+	public LoadBalancingHttpTransport(HttpTransport delegate, List<String> baseUrls) {
+		CommonHelper.assertNotNull("delegate", delegate);
+		CommonHelper.assertTrue(baseUrls != null && !baseUrls.isEmpty(), "baseUrls cannot be empty");
+		this.delegate = delegate;
+		final List<Endpoint> list = new ArrayList<>(baseUrls.size());
+		for (final String baseUrl : baseUrls) {
+			CommonHelper.assertNotBlank("baseUrl", baseUrl);
+			list.add(new Endpoint(baseUrl));
+		}
+		this.endpoints = Collections.unmodifiableList(list);
+	}
+
+	@Override
+	public HttpResponse execute(HttpRequest request) throws IOException {
+		final Endpoint endpoint = choose();
+		endpoint.start();
+		boolean success = false;
+		try {
+			final HttpResponse response = delegate.execute(request.withOrigin(endpoint.baseUrl));
+			success = response.getStatusCode() < 500;
+			return response;
+		} finally {
+			endpoint.finish(success);
+		}
+	}
+
+	@Override
+	public CompletableFuture<HttpResponse> executeAsync(HttpRequest request, Executor executor) {
+		final Endpoint endpoint = choose();
+		final HttpRequest routed = request.withOrigin(endpoint.baseUrl);
+		endpoint.start();
+		CompletableFuture<HttpResponse> future;
+		if (delegate instanceof AsyncHttpTransport) {
+			try {
+				future = ((AsyncHttpTransport) delegate).executeAsync(routed, executor);
+			} catch (RuntimeException e) {
+				future = FutureUtils.failedFuture(e);
+			}
+		} else {
+			future = new CompletableFuture<>();
+			final CompletableFuture<HttpResponse> blocking = future;
+			try {
+				executor.execute(() -> {
+					try {
+						blocking.complete(delegate.execute(routed));
+					} catch (IOException | RuntimeException e) {
+						blocking.completeExceptionally(e);
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				future.completeExceptionally(e);
+			}
+		}
+		return FutureUtils.propagateCancel(future.whenComplete((response, t) -> endpoint.finish(t == null && response.getStatusCode() < 500)), future);
+	}
+
+	/**
+	 * Pick the least loaded of two random instances, among the instances which are not ejected.
+	 */
+	private Endpoint choose() {
+		final long now = System.currentTimeMillis();
+		final List<Endpoint> available = new ArrayList<>(endpoints.size());
+		for (final Endpoint endpoint : endpoints) {
+			if (endpoint.isAvailable(now)) {
+				available.add(endpoint);
+			}
+		}
+		final List<Endpoint> candidates;
+		if (available.isEmpty()) {
+			panicCount.increment();
+			candidates = endpoints;
+		} else {
+			candidates = available;
+		}
+		final int size = candidates.size();
+		if (size == 1) {
+			return candidates.get(0);
+		}
+		final ThreadLocalRandom random = ThreadLocalRandom.current();
+		final int first = random.nextInt(size);
+		int second = random.nextInt(size - 1);
+		if (second >= first) {
+			second++;
+		}
+		final Endpoint a = candidates.get(first);
+		final Endpoint b = candidates.get(second);
+		return a.load(now) <= b.load(now) ? a : b;
+	}
+
+	/**
+	 * @return the instances of the service
+	 */
+	public List<Endpoint> getEndpoints() {
+		return endpoints;
+	}
+
+	/**
+	 * @return the number of requests sent while all the instances were ejected
+	 */
+	public long getPanicCount() {
+		return panicCount.sum();
+	}
+
+	public HttpTransport getDelegate() {
+		return delegate;
+	}
+
+	public int getMaxConsecutiveFailures() {
+		return maxConsecutiveFailures;
+	}
+
+	/**
+	 * @param maxConsecutiveFailures the number of failures in a row ejecting an instance
+	 */
+	public void setMaxConsecutiveFailures(int maxConsecutiveFailures) {
+		CommonHelper.assertTrue(maxConsecutiveFailures > 0, "maxConsecutiveFailures must be greater than 0");
+		this.maxConsecutiveFailures = maxConsecutiveFailures;
+	}
+
+	public long getBaseEjectionTime() {
+		return baseEjectionTime;
+	}
+
+	/**
+	 * @param baseEjectionTime the time, in milliseconds, an instance is ejected the first time, multiplied by the number of its ejections
+	 */
+	public void setBaseEjectionTime(long baseEjectionTime) {
+		this.baseEjectionTime = baseEjectionTime;
+	}
+
+	public long getMaxEjectionTime() {
+		return maxEjectionTime;
+	}
+
+	/**
+	 * @param maxEjectionTime the maximum time, in milliseconds, an instance is ejected
+	 */
+	public void setMaxEjectionTime(long maxEjectionTime) {
+		this.maxEjectionTime = maxEjectionTime;
+	}
+
+	public long getSlowStart() {
+		return slowStart;
+	}
+
+	/**
+	 * @param slowStart the time, in milliseconds, an instance takes to get its full share of the traffic back after an ejection, 0 to disable
+	 */
+	public void setSlowStart(long slowStart) {
+		this.slowStart = slowStart;
+	}
+
+	@Override
+	public String toString() {
+		return CommonHelper.toNiceString(this.getClass(), "delegate", delegate, "endpoints", endpoints,
+				"maxConsecutiveFailures", maxConsecutiveFailures, "panicCount", getPanicCount());
+	}
+
+	/**
+	 * An instance of the service, with its load and health.
+	 */
+	public final class Endpoint {
+
+		private final String baseUrl;
+		private final AtomicInteger outstanding = new AtomicInteger();
+		private final LongAdder requestCount = new LongAdder();
+		private final LongAdder failureCount = new LongAdder();
+		private int consecutiveFailures;
+		private volatile int ejectionCount;
+		private volatile long ejectedUntil;
+
+		private Endpoint(String baseUrl) {
+			this.baseUrl = baseUrl;
+		}
+
+		private boolean isAvailable(long now) {
+			return ejectedUntil <= now;
+		}
+
+		/**
+		 * The outstanding requests, this one included, divided by the share of the traffic of the instance.
+		 */
+		private double load(long now) {
+			double weight = 1.0;
+			final long since = now - ejectedUntil;
+			if (ejectionCount > 0 && slowStart > 0 && since < slowStart) {
+				weight = Math.max(MIN_SLOW_START_WEIGHT, (double) since / slowStart);
+			}
+			return (outstanding.get() + 1) / weight;
+		}
+
+		private void start() {
+			outstanding.incrementAndGet();
+			requestCount.increment();
+		}
+
+		private synchronized void finish(boolean success) {
+			outstanding.decrementAndGet();
+			if (success) {
+				consecutiveFailures = 0;
+				return;
+			}
+			failureCount.increment();
+			if (++consecutiveFailures >= maxConsecutiveFailures && isAvailable(System.currentTimeMillis())) {
+				ejectionCount++;
+				final long ejectionTime = Math.min(maxEjectionTime, baseEjectionTime * ejectionCount);
+				ejectedUntil = System.currentTimeMillis() + ejectionTime;
+				consecutiveFailures = 0;
+				LOGGER.warn("Ejecting {} for {} s after {} consecutive failures", baseUrl,
+						TimeUnit.MILLISECONDS.toSeconds(ejectionTime), maxConsecutiveFailures);
+			}
+		}
+
+		public String getBaseUrl() {
+			return baseUrl;
+		}
+
+		/**
+		 * @return the number of requests sent to this instance and not answered yet
+		 */
+		public int getOutstanding() {
+			return outstanding.get();
+		}
+
+		public boolean isEjected() {
+			return !isAvailable(System.currentTimeMillis());
+		}
+
+		/**
+		 * @return the number of times this instance was ejected
+		 */
+		public int getEjectionCount() {
+			return ejectionCount;
+		}
+
+		public long getRequestCount() {
+			return requestCount.sum();
+		}
+
+		public long getFailureCount() {
+			return failureCount.sum();
+		}
+
+		@Override
+		public String toString() {
+			return CommonHelper.toNiceString(this.getClass(), "baseUrl", baseUrl, "outstanding", getOutstanding(), "ejected", isEjected(),
+					"ejectionCount", getEjectionCount(), "requestCount", getRequestCount(), "failureCount", getFailureCount());
+		}
+
+	}
+
+}
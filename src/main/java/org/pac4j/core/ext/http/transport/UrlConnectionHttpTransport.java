@@ -0,0 +1,454 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.http.transport;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.pac4j.core.ext.utils.FutureUtils;
+import org.pac4j.core.ext.utils.HttpHeaders;
+import org.pac4j.core.util.CommonHelper;
+import org.pac4j.core.util.HttpUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Default {@link HttpTransport}, based on {@link HttpURLConnection}.
+ * <p>Connections are kept alive : when a response is closed, its remaining body is drained so that the JDK
+ * keep-alive cache can reuse the connection, instead of disconnecting it (which leaves sockets in TIME_WAIT).
+ * The number of connections in use is bounded per host ; the number of idle connections kept per host by the JDK
+ * is set by the <code>http.maxConnections</code> system property (5 by default).</p>
+ * <p>The total timeout bounds the whole exchange, connection, headers and body included : when it expires the
+ * connection is aborted.</p>
+ * <p>{@link HttpURLConnection} is blocking : {@link #executeAsync(HttpRequest, Executor)} runs the exchange on the given executor,
+ * cancelling its future disconnects the connection.</p>
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+public class UrlConnectionHttpTransport implements AsyncHttpTransport {
+
+	public static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 20;
+	private static final int MAX_DRAIN_SIZE = 64 * 1024;
+
+	protected final Logger logger = LoggerFactory.getLogger(getClass());
+
+	private int connectTimeout = HttpUtils.getConnectTimeout();
+	private int readTimeout = HttpUtils.getReadTimeout();
+	private int totalTimeout;
+	private int maxConnectionsPerHost = DEFAULT_MAX_CONNECTIONS_PER_HOST;
+	/* Max connections of some hosts (host:port), overriding maxConnectionsPerHost */
+	private Map<String, Integer> hostMaxConnections = new HashMap<>();
+	private boolean keepAlive = true;
+
+	private final ConcurrentMap<String, HostPool> pools = new ConcurrentHashMap<>();
+	private final AtomicInteger pendingCount = new AtomicInteger();
+	private final LongAdder requestCount = new LongAdder();
+	private final LongAdder failureCount = new LongAdder();
+	private final LongAdder poolTimeoutCount = new LongAdder();
+	private final LongAdder totalTimeoutCount = new LongAdder();
+	private final LongAdder reusableCount = new LongAdder();
+	private final LongAdder discardedCount = new LongAdder();
+
+	public UrlConnectionHttpTransport() {
+	}
+
+	public UrlConnectionHttpTransport(int connectTimeout, int readTimeout, int totalTimeout) {
+		this.connectTimeout = connectTimeout;
+		this.readTimeout = readTimeout;
+		this.totalTimeout = totalTimeout;
+	}
+
+	@Override
+	public HttpResponse execute(HttpRequest request) throws IOException {
+		return execute(request, null);
+	}
+
+	/**
+	 * @param cancellable the future of an asynchronous request, whose cancellation disconnects the connection, <code>null</code> for none
+	 */
+	private HttpResponse execute(HttpRequest request, CompletableFuture<HttpResponse> cancellable) throws IOException {
+		final URL url = new URL(request.getUrl());
+		final long timeout = exchangeTimeout(request);
+		if (timeout < 0) {
+			totalTimeoutCount.increment();
+			throw new SocketTimeoutException("Deadline exceeded before sending: " + url);
+		}
+		final HostPool pool = pools.computeIfAbsent(hostKey(url), this::newHostPool);
+		acquire(pool, url);
+		requestCount.increment();
+
+		HttpURLConnection connection = null;
+		ScheduledFuture<?> watchdog = null;
+		final AtomicBoolean timedOut = new AtomicBoolean();
+		try {
+			connection = (HttpURLConnection) url.openConnection();
+			connection.setRequestMethod(request.getMethod());
+			connection.setConnectTimeout(timeout > 0 ? (int) Math.min(connectTimeout, timeout) : connectTimeout);
+			connection.setReadTimeout(timeout > 0 ? (int) Math.min(readTimeout, timeout) : readTimeout);
+			connection.setUseCaches(false);
+			if (!keepAlive) {
+				connection.setRequestProperty(HttpHeaders.CONNECTION, "close");
+			}
+			for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+				connection.setRequestProperty(header.getKey(), header.getValue());
+			}
+			if (timeout > 0) {
+				final HttpURLConnection abortable = connection;
+				watchdog = FutureUtils.TIMER.schedule(() -> {
+					timedOut.set(true);
+					abortable.disconnect();
+				}, timeout, TimeUnit.MILLISECONDS);
+			}
+			if (cancellable != null) {
+				final HttpURLConnection abortable = connection;
+				cancellable.whenComplete((response, t) -> {
+					if (cancellable.isCancelled()) {
+						abortable.disconnect();
+					}
+				});
+			}
+			if (request.getBody() != null) {
+				connection.setDoOutput(true);
+				connection.setFixedLengthStreamingMode(request.getBody().length);
+				try (OutputStream out = connection.getOutputStream()) {
+					out.write(request.getBody());
+				}
+			}
+			final int code = connection.getResponseCode();
+			return new UrlConnectionHttpResponse(connection, code, pool, watchdog, timedOut);
+		} catch (IOException | RuntimeException e) {
+			failureCount.increment();
+			release(pool, connection, watchdog, false);
+			if (timedOut.get()) {
+				totalTimeoutCount.increment();
+				throw new SocketTimeoutException("Total timeout of " + timeout + " ms exceeded for: " + url);
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * @return the maximum duration of the exchange, in milliseconds : the total timeout, shortened by the deadline of the request if any,
+	 *         <code>0</code> for none, negative if the deadline is already over
+	 */
+	private long exchangeTimeout(HttpRequest request) {
+		if (request.getDeadline() == null) {
+			return totalTimeout;
+		}
+		final long remaining = request.getDeadline().remaining();
+		if (remaining <= 0) {
+			return -1;
+		}
+		return totalTimeout > 0 ? Math.min(totalTimeout, remaining) : remaining;
+	}
+
+	@Override
+	public CompletableFuture<HttpResponse> executeAsync(HttpRequest request, Executor executor) {
+		final CompletableFuture<HttpResponse> future = new CompletableFuture<>();
+		try {
+			executor.execute(() -> {
+				if (future.isCancelled()) {
+					return;
+				}
+				try {
+					final HttpResponse response = execute(request, future);
+					// nobody will close the response of a cancelled request
+					if (!future.complete(response)) {
+						response.close();
+					}
+				} catch (IOException | RuntimeException e) {
+					future.completeExceptionally(e);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			future.completeExceptionally(e);
+		}
+		return future;
+	}
+
+	private void acquire(final HostPool pool, final URL url) throws IOException {
+		pendingCount.incrementAndGet();
+		try {
+			if (!pool.permits.tryAcquire(connectTimeout, TimeUnit.MILLISECONDS)) {
+				poolTimeoutCount.increment();
+				throw new ConnectionPoolTimeoutException("No connection available after " + connectTimeout + " ms for: " + hostKey(url));
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for a connection to: " + hostKey(url));
+		} finally {
+			pendingCount.decrementAndGet();
+		}
+		pool.leased.incrementAndGet();
+	}
+
+	private void release(final HostPool pool, final HttpURLConnection connection, final ScheduledFuture<?> watchdog, final boolean reusable) {
+		if (watchdog != null) {
+			watchdog.cancel(false);
+		}
+		if (connection != null) {
+			if (reusable) {
+				reusableCount.increment();
+			} else {
+				discardedCount.increment();
+				connection.disconnect();
+			}
+		}
+		pool.leased.decrementAndGet();
+		pool.permits.release();
+	}
+
+	private HostPool newHostPool(String hostKey) {
+		Integer maxConnections = hostMaxConnections.get(hostKey);
+		return new HostPool(maxConnections != null ? maxConnections : maxConnectionsPerHost);
+	}
+
+	protected String hostKey(URL url) {
+		return url.getHost() + ":" + (url.getPort() != -1 ? url.getPort() : url.getDefaultPort());
+	}
+
+	/**
+	 * @return a snapshot of the statistics of the connection pool
+	 */
+	public HttpTransportStats getStats() {
+		final Map<String, Integer> leasedPerHost = new HashMap<>();
+		for (Map.Entry<String, HostPool> pool : pools.entrySet()) {
+			leasedPerHost.put(pool.getKey(), pool.getValue().leased.get());
+		}
+		return new HttpTransportStats(requestCount.sum(), failureCount.sum(), poolTimeoutCount.sum(), totalTimeoutCount.sum(),
+				reusableCount.sum(), discardedCount.sum(), pendingCount.get(), leasedPerHost);
+	}
+
+	public int getConnectTimeout() {
+		return connectTimeout;
+	}
+
+	public void setConnectTimeout(int connectTimeout) {
+		this.connectTimeout = connectTimeout;
+	}
+
+	public int getReadTimeout() {
+		return readTimeout;
+	}
+
+	public void setReadTimeout(int readTimeout) {
+		this.readTimeout = readTimeout;
+	}
+
+	public int getTotalTimeout() {
+		return totalTimeout;
+	}
+
+	/**
+	 * @param totalTimeout the maximum duration of a whole exchange, in milliseconds, <code>0</code> for none
+	 */
+	public void setTotalTimeout(int totalTimeout) {
+		this.totalTimeout = totalTimeout;
+	}
+
+	public int getMaxConnectionsPerHost() {
+		return maxConnectionsPerHost;
+	}
+
+	public void setMaxConnectionsPerHost(int maxConnectionsPerHost) {
+		CommonHelper.assertTrue(maxConnectionsPerHost > 0, "maxConnectionsPerHost must be greater than 0");
+		this.maxConnectionsPerHost = maxConnectionsPerHost;
+	}
+
+	public Map<String, Integer> getHostMaxConnections() {
+		return hostMaxConnections;
+	}
+
+	/**
+	 * @param hostMaxConnections the max connections of some hosts, keyed by <code>host:port</code>
+	 */
+	public void setHostMaxConnections(Map<String, Integer> hostMaxConnections) {
+		this.hostMaxConnections = hostMaxConnections;
+	}
+
+	public boolean isKeepAlive() {
+		return keepAlive;
+	}
+
+	public void setKeepAlive(boolean keepAlive) {
+		this.keepAlive = keepAlive;
+	}
+
+	@Override
+	public String toString() {
+		return CommonHelper.toNiceString(this.getClass(), "connectTimeout", connectTimeout, "readTimeout", readTimeout,
+				"totalTimeout", totalTimeout, "maxConnectionsPerHost", maxConnectionsPerHost, "keepAlive", keepAlive);
+	}
+
+	private static final class HostPool {
+
+		private final Semaphore permits;
+		private final AtomicInteger leased = new AtomicInteger();
+
+		private HostPool(int maxConnections) {
+			this.permits = new Semaphore(maxConnections);
+		}
+
+	}
+
+	/**
+	 * Body stream which, when closed, reads the rest of the body so that the connection can be kept alive.
+	 */
+	private static final class DrainingInputStream extends FilterInputStream {
+
+		private boolean eof;
+		private boolean closed;
+		private boolean drained;
+
+		private DrainingInputStream(InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			eof = b == -1;
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int n = super.read(b, off, len);
+			eof = n == -1;
+			return n;
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			try {
+				final byte[] buffer = new byte[4096];
+				int remaining = MAX_DRAIN_SIZE;
+				while (!eof && remaining > 0) {
+					int n = super.read(buffer, 0, Math.min(buffer.length, remaining));
+					if (n == -1) {
+						eof = true;
+					} else {
+						remaining -= n;
+					}
+				}
+				drained = eof;
+			} finally {
+				super.close();
+			}
+		}
+
+	}
+
+	private final class UrlConnectionHttpResponse implements HttpResponse {
+
+		private final HttpURLConnection connection;
+		private final int statusCode;
+		private final HostPool pool;
+		private final ScheduledFuture<?> watchdog;
+		private final AtomicBoolean timedOut;
+		private final AtomicBoolean closed = new AtomicBoolean();
+		private InputStream body;
+
+		private UrlConnectionHttpResponse(HttpURLConnection connection, int statusCode, HostPool pool,
+				ScheduledFuture<?> watchdog, AtomicBoolean timedOut) {
+			this.connection = connection;
+			this.statusCode = statusCode;
+			this.pool = pool;
+			this.watchdog = watchdog;
+			this.timedOut = timedOut;
+		}
+
+		@Override
+		public int getStatusCode() {
+			return statusCode;
+		}
+
+		@Override
+		public String getStatusMessage() {
+			try {
+				return connection.getResponseMessage();
+			} catch (IOException e) {
+				return null;
+			}
+		}
+
+		@Override
+		public String getHeader(String name) {
+			return connection.getHeaderField(name);
+		}
+
+		@Override
+		public Map<String, List<String>> getHeaders() {
+			return connection.getHeaderFields();
+		}
+
+		@Override
+		public InputStream getBody() throws IOException {
+			if (body == null) {
+				InputStream stream = statusCode >= 400 ? connection.getErrorStream() : connection.getInputStream();
+				body = new DrainingInputStream(stream != null ? stream : new ByteArrayInputStream(new byte[0]));
+			}
+			return body;
+		}
+
+		@Override
+		public void close() {
+			if (!closed.compareAndSet(false, true)) {
+				return;
+			}
+			boolean reusable = false;
+			if (keepAlive && !timedOut.get()) {
+				try {
+					DrainingInputStream in = (DrainingInputStream) getBody();
+					in.close();
+					reusable = in.drained;
+				} catch (IOException e) {
+					logger.debug("Cannot drain the response of: {}", connection.getURL(), e);
+				}
+			}
+			if (timedOut.get()) {
+				totalTimeoutCount.increment();
+			}
+			release(pool, connection, watchdog, reusable);
+		}
+
+	}
+
+}
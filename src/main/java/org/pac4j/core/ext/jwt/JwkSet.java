@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.jwt;
+
+import java.math.BigInteger;
+import java.security.AlgorithmParameters;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
+import java.security.spec.RSAPublicKeySpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+
+import javax.crypto.spec.SecretKeySpec;
+
+import org.pac4j.core.exception.TechnicalException;
+import org.pac4j.core.util.CommonHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+
+/**
+ * Immutable set of the verification keys of a JWKS document (RFC 7517) : RSA, EC and symmetric keys.
+ * Encryption keys and unsupported key types are ignored.
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+public final class JwkSet {
+
+	private static final Logger logger = LoggerFactory.getLogger(JwkSet.class);
+
+	public static final String KTY_RSA = "RSA";
+	public static final String KTY_EC = "EC";
+	public static final String KTY_OCT = "oct";
+
+	private final List<Jwk> keys;
+
+	public JwkSet(List<Jwk> keys) {
+		this.keys = Collections.unmodifiableList(new ArrayList<>(keys));
+	}
+
+	/**
+	 * Parse a JWKS document.
+	 * @param json the JWKS document
+	 * @return the key set
+	 */
+	public static JwkSet parse(String json) {
+		final JSONObject document = JSON.parseObject(json);
+		final JSONArray array = document == null ? null : document.getJSONArray("keys");
+		if (array == null) {
+			throw new TechnicalException("No 'keys' in the JWKS document");
+		}
+		final List<Jwk> keys = new ArrayList<>(array.size());
+		for (int i = 0; i < array.size(); i++) {
+			final JSONObject jwk = array.getJSONObject(i);
+			if ("enc".equals(jwk.getString("use"))) {
+				continue;
+			}
+			try {
+				final Key key = toKey(jwk);
+				if (key != null) {
+					keys.add(new Jwk(jwk.getString("kid"), jwk.getString("kty"), jwk.getString("alg"), key));
+				}
+			} catch (GeneralSecurityException | IllegalArgumentException e) {
+				logger.warn("Ignoring invalid JWK {}: {}", jwk.getString("kid"), e.getMessage());
+			}
+		}
+		return new JwkSet(keys);
+	}
+
+	private static Key toKey(JSONObject jwk) throws GeneralSecurityException {
+		final String kty = jwk.getString("kty");
+		if (KTY_RSA.equals(kty)) {
+			return KeyFactory.getInstance("RSA").generatePublic(new RSAPublicKeySpec(integer(jwk, "n"), integer(jwk, "e")));
+		} else if (KTY_EC.equals(kty)) {
+			final AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+			parameters.init(new ECGenParameterSpec(curveName(jwk.getString("crv"))));
+			final ECPoint point = new ECPoint(integer(jwk, "x"), integer(jwk, "y"));
+			return KeyFactory.getInstance("EC").generatePublic(new ECPublicKeySpec(point, parameters.getParameterSpec(ECParameterSpec.class)));
+		} else if (KTY_OCT.equals(kty)) {
+			return new SecretKeySpec(bytes(jwk, "k"), "HmacSHA256");
+		}
+		logger.debug("Ignoring JWK {} of unsupported type: {}", jwk.getString("kid"), kty);
+		return null;
+	}
+
+	private static String curveName(String crv) {
+		if ("P-256".equals(crv)) {
+			return "secp256r1";
+		} else if ("P-384".equals(crv)) {
+			return "secp384r1";
+		} else if ("P-521".equals(crv)) {
+			return "secp521r1";
+		}
+		throw new IllegalArgumentException("Unsupported curve: " + crv);
+	}
+
+	private static BigInteger integer(JSONObject jwk, String name) {
+		return new BigInteger(1, bytes(jwk, name));
+	}
+
+	private static byte[] bytes(JSONObject jwk, String name) {
+		final String value = jwk.getString(name);
+		if (CommonHelper.isBlank(value)) {
+			throw new IllegalArgumentException("Missing member: " + name);
+		}
+		return Base64.getUrlDecoder().decode(value);
+	}
+
+	/**
+	 * Find the key verifying a token.
+	 * @param kid the key id of the token, may be null
+	 * @param kty the key type required by the algorithm of the token
+	 * @return the key or <code>null</code> if none matches, or if several keys match a token without key id
+	 */
+	public Key find(String kid, String kty) {
+		Key found = null;
+		for (Jwk jwk : keys) {
+			if (!jwk.kty.equals(kty)) {
+				continue;
+			}
+			if (kid != null) {
+				if (kid.equals(jwk.kid)) {
+					return jwk.key;
+				}
+			} else if (found != null) {
+				return null;
+			} else {
+				found = jwk.key;
+			}
+		}
+		return found;
+	}
+
+	public int size() {
+		return keys.size();
+	}
+
+	@Override
+	public String toString() {
+		return CommonHelper.toNiceString(this.getClass(), "keys", keys);
+	}
+
+	/**
+	 * A verification key of the set.
+	 */
+	public static final class Jwk {
+
+		private final String kid;
+		private final String kty;
+		private final String alg;
+		private final Key key;
+
+		public Jwk(String kid, String kty, String alg, Key key) {
+			CommonHelper.assertNotNull("kty", kty);
+			CommonHelper.assertNotNull("key", key);
+			this.kid = kid;
+			this.kty = kty;
+			this.alg = alg;
+			this.key = key;
+		}
+
+		public String getKid() {
+			return kid;
+		}
+
+		public String getKty() {
+			return kty;
+		}
+
+		public String getAlg() {
+			return alg;
+		}
+
+		public Key getKey() {
+			return key;
+		}
+
+		@Override
+		public String toString() {
+			return CommonHelper.toNiceString(this.getClass(), "kid", kid, "kty", kty, "alg", alg);
+		}
+
+	}
+
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.jwt;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.pac4j.core.ext.exception.KeySetUnavailableException;
+import org.pac4j.core.ext.http.transport.HttpRequest;
+import org.pac4j.core.ext.http.transport.HttpResponse;
+import org.pac4j.core.ext.http.transport.HttpTransport;
+import org.pac4j.core.ext.http.transport.UrlConnectionHttpTransport;
+import org.pac4j.core.ext.utils.FutureUtils;
+import org.pac4j.core.util.CommonHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Cached {@link JwkSet} loaded from a JWKS url or file, and reloaded periodically.
+ * The loads run in the background, on the refresh executor, while the callers keep using the current set ; if a reload fails,
+ * the current set is kept. Until the first load succeeds, the set is unavailable and the tokens must be introspected.
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+public class JwkSetSource {
+
+	private static final Logger logger = LoggerFactory.getLogger(JwkSetSource.class);
+
+	public static final long DEFAULT_REFRESH_INTERVAL = 5 * 60 * 1000;
+	public static final long DEFAULT_MIN_REFRESH_INTERVAL = 30 * 1000;
+
+	private final String location;
+	private final HttpTransport httpTransport;
+	private final long refreshInterval;
+	private final long minRefreshInterval;
+
+	private Executor refreshExecutor = FutureUtils.BACKGROUND;
+	private final AtomicBoolean refreshing = new AtomicBoolean();
+	private volatile JwkSet keySet;
+	private volatile long loadedAt;
+	private volatile long attemptedAt;
+
+	/**
+	 * @param location the url (http or https) or the file path of the JWKS document
+	 */
+	public JwkSetSource(String location) {
+		this(location, new UrlConnectionHttpTransport(), DEFAULT_REFRESH_INTERVAL, DEFAULT_MIN_REFRESH_INTERVAL);
+	}
+
+	/**
+	 * @param location the url (http or https) or the file path of the JWKS document
+	 * @param httpTransport the HTTP client loading a JWKS url
+	 * @param refreshInterval the time, in milliseconds, after which the key set is reloaded
+	 * @param minRefreshInterval the minimum time, in milliseconds, between two loads, when a key is missing or a load failed
+	 */
+	public JwkSetSource(String location, HttpTransport httpTransport, long refreshInterval, long minRefreshInterval) {
+		CommonHelper.assertNotBlank("location", location);
+		CommonHelper.assertNotNull("httpTransport", httpTransport);
+		CommonHelper.assertTrue(refreshInterval > 0, "refreshInterval must be greater than 0");
+		CommonHelper.assertTrue(minRefreshInterval >= 0 && minRefreshInterval <= refreshInterval, "minRefreshInterval must be positive and lower than refreshInterval");
+		this.location = location;
+		this.httpTransport = httpTransport;
+		this.refreshInterval = refreshInterval;
+		this.minRefreshInterval = minRefreshInterval;
+	}
+
+	/**
+	 * @return the current key set, reloaded in the background if it is too old
+	 * @throws KeySetUnavailableException if no key set was loaded yet
+	 */
+	public JwkSet getKeySet() {
+		final long now = System.currentTimeMillis();
+		if (keySet == null || now - loadedAt >= refreshInterval) {
+			refresh(now);
+		}
+		final JwkSet current = keySet;
+		if (current == null) {
+			throw new KeySetUnavailableException("JWKS not loaded from: " + location);
+		}
+		return current;
+	}
+
+	/**
+	 * Reload the key set in the background, because a token references an unknown key, unless it was loaded recently.
+	 * @return the current key set, the reloaded one being used by the next calls
+	 * @throws KeySetUnavailableException if no key set was loaded yet
+	 */
+	public JwkSet refreshKeySet() {
+		refresh(System.currentTimeMillis());
+		return getKeySet();
+	}
+
+	private void refresh(long now) {
+		if (attemptedAt != 0 && now - attemptedAt < minRefreshInterval) {
+			return;
+		}
+		// a single load at a time, the callers keep the current set
+		if (!refreshing.compareAndSet(false, true)) {
+			return;
+		}
+		attemptedAt = now;
+		try {
+			refreshExecutor.execute(this::reload);
+		} catch (RejectedExecutionException e) {
+			refreshing.set(false);
+			logger.warn("JWKS reload rejected for {}: {}", location, e.getMessage());
+		}
+	}
+
+	private void reload() {
+		try {
+			final JwkSet loaded = JwkSet.parse(load());
+			keySet = loaded;
+			loadedAt = System.currentTimeMillis();
+			logger.debug("JWKS loaded from {}: {} keys", location, loaded.size());
+		} catch (IOException | RuntimeException e) {
+			logger.warn("Cannot load the JWKS from {}: {}", location, e.getMessage());
+		} finally {
+			refreshing.set(false);
+		}
+	}
+
+	/**
+	 * @return the JWKS document
+	 * @throws IOException if it cannot be read
+	 */
+	protected String load() throws IOException {
+		if (location.startsWith("http://") || location.startsWith("https://")) {
+			try (HttpResponse response = httpTransport.execute(HttpRequest.get(location, Collections.emptyMap()))) {
+				if (response.getStatusCode() != 200) {
+					throw new IOException("Unexpected response: " + response.buildErrorMessage(StandardCharsets.UTF_8));
+				}
+				return response.readBody(StandardCharsets.UTF_8);
+			}
+		}
+		final String path = location.startsWith("file:") ? location.substring("file:".length()) : location;
+		return new String(Files.readAllBytes(Paths.get(path)), StandardCharsets.UTF_8);
+	}
+
+	public String getLocation() {
+		return location;
+	}
+
+	public long getRefreshInterval() {
+		return refreshInterval;
+	}
+
+	public long getMinRefreshInterval() {
+		return minRefreshInterval;
+	}
+
+	public Executor getRefreshExecutor() {
+		return refreshExecutor;
+	}
+
+	/**
+	 * @param refreshExecutor the executor of the loads of the key set, {@link FutureUtils#BACKGROUND} by default
+	 */
+	public void setRefreshExecutor(Executor refreshExecutor) {
+		CommonHelper.assertNotNull("refreshExecutor", refreshExecutor);
+		this.refreshExecutor = refreshExecutor;
+	}
+
+	@Override
+	public String toString() {
+		return CommonHelper.toNiceString(this.getClass(), "location", location, "refreshInterval", refreshInterval, "keySet", keySet);
+	}
+
+}
@@ -0,0 +1,298 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.jwt;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.crypto.Mac;
+
+import org.pac4j.core.exception.CredentialsException;
+import org.pac4j.core.util.CommonHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONException;
+import com.alibaba.fastjson.JSONObject;
+
+/**
+ * Local verification of the signed JWTs (compact JWS) : signature against a {@link JwkSetSource}, then <code>exp</code> and <code>nbf</code>.
+ * Supported algorithms : RS256, RS384, RS512, ES256, ES384, ES512, HS256, HS384, HS512.
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+public class JwtVerifier {
+
+	private static final Logger logger = LoggerFactory.getLogger(JwtVerifier.class);
+
+	public static final long DEFAULT_CLOCK_SKEW = 60 * 1000;
+
+	private static final Map<String, Algorithm> ALGORITHMS = new HashMap<>();
+
+	static {
+		ALGORITHMS.put("RS256", new Algorithm(JwkSet.KTY_RSA, "SHA256withRSA", 0));
+		ALGORITHMS.put("RS384", new Algorithm(JwkSet.KTY_RSA, "SHA384withRSA", 0));
+		ALGORITHMS.put("RS512", new Algorithm(JwkSet.KTY_RSA, "SHA512withRSA", 0));
+		ALGORITHMS.put("ES256", new Algorithm(JwkSet.KTY_EC, "SHA256withECDSA", 32));
+		ALGORITHMS.put("ES384", new Algorithm(JwkSet.KTY_EC, "SHA384withECDSA", 48));
+		ALGORITHMS.put("ES512", new Algorithm(JwkSet.KTY_EC, "SHA512withECDSA", 66));
+		ALGORITHMS.put("HS256", new Algorithm(JwkSet.KTY_OCT, "HmacSHA256", 0));
+		ALGORITHMS.put("HS384", new Algorithm(JwkSet.KTY_OCT, "HmacSHA384", 0));
+		ALGORITHMS.put("HS512", new Algorithm(JwkSet.KTY_OCT, "HmacSHA512", 0));
+	}
+
+	private final JwkSetSource keySource;
+	private long clockSkew = DEFAULT_CLOCK_SKEW;
+	private boolean requireExpiration = true;
+
+	public JwtVerifier(JwkSetSource keySource) {
+		CommonHelper.assertNotNull("keySource", keySource);
+		this.keySource = keySource;
+	}
+
+	/**
+	 * @param token the raw token
+	 * @return whether the token has the shape of a compact JWS : three base64url parts, the first one being a JSON object
+	 */
+	public static boolean isJwt(String token) {
+		if (token == null || !token.startsWith("eyJ")) {
+			return false;
+		}
+		final int first = token.indexOf('.');
+		final int second = token.indexOf('.', first + 1);
+		return second > first + 1 && second < token.length() - 1 && token.indexOf('.', second + 1) < 0;
+	}
+
+	/**
+	 * Verify the JWT locally.
+	 * @param token the raw token, see {@link #isJwt(String)}
+	 * @return the claims of the token, or <code>null</code> if it cannot be verified locally (unknown key or algorithm)
+	 * @throws CredentialsException if the token is malformed, its signature is invalid, it has no expiration (see {@link #setRequireExpiration(boolean)}),
+	 *         or it is expired or not yet valid
+	 * @throws org.pac4j.core.ext.exception.KeySetUnavailableException if the key set is not loaded yet, see {@link JwkSetSource#getKeySet()}
+	 */
+	public JSONObject verify(String token) {
+		final int first = token.indexOf('.');
+		final int second = token.indexOf('.', first + 1);
+		final Base64.Decoder decoder = Base64.getUrlDecoder();
+		final JSONObject header;
+		final byte[] signature;
+		try {
+			header = JSON.parseObject(new String(decoder.decode(token.substring(0, first)), StandardCharsets.UTF_8));
+			signature = decoder.decode(token.substring(second + 1));
+		} catch (IllegalArgumentException | JSONException e) {
+			throw new CredentialsException("Malformed JWT", e);
+		}
+
+		final Algorithm algorithm = ALGORITHMS.get(header.getString("alg"));
+		if (algorithm == null) {
+			logger.debug("JWT algorithm not supported locally: {}", header.getString("alg"));
+			return null;
+		}
+		final String kid = header.getString("kid");
+		Key key = keySource.getKeySet().find(kid, algorithm.kty);
+		if (key == null) {
+			key = keySource.refreshKeySet().find(kid, algorithm.kty);
+			if (key == null) {
+				logger.debug("No local key for the JWT: {}", kid);
+				return null;
+			}
+		}
+
+		final byte[] signingInput = token.substring(0, second).getBytes(StandardCharsets.US_ASCII);
+		final boolean valid;
+		try {
+			valid = algorithm.verify(key, signingInput, signature);
+		} catch (GeneralSecurityException e) {
+			throw new CredentialsException("Cannot verify the JWT signature", e);
+		}
+		if (!valid) {
+			throw new CredentialsException("Invalid JWT signature");
+		}
+
+		final JSONObject claims;
+		try {
+			claims = JSON.parseObject(new String(decoder.decode(token.substring(first + 1, second)), StandardCharsets.UTF_8));
+		} catch (IllegalArgumentException | JSONException e) {
+			throw new CredentialsException("Malformed JWT claims", e);
+		}
+		if (claims == null) {
+			throw new CredentialsException("Malformed JWT claims");
+		}
+		checkTimes(claims);
+		return claims;
+	}
+
+	/**
+	 * Check the <code>exp</code> and <code>nbf</code> claims, with the clock skew.
+	 * @param claims the claims
+	 */
+	protected void checkTimes(JSONObject claims) {
+		final long now = System.currentTimeMillis();
+		final Long exp = getNumericDate(claims, "exp");
+		if (exp == null) {
+			if (requireExpiration) {
+				throw new CredentialsException("JWT without expiration");
+			}
+		} else if (now - clockSkew >= exp * 1000) {
+			throw new CredentialsException("Expired JWT");
+		}
+		final Long nbf = getNumericDate(claims, "nbf");
+		if (nbf != null && now + clockSkew < nbf * 1000) {
+			throw new CredentialsException("JWT not yet valid");
+		}
+	}
+
+	/**
+	 * @param claims the claims
+	 * @param name the name of a NumericDate claim, like <code>exp</code> or <code>iat</code>
+	 * @return the value of the claim, in seconds since the epoch, <code>null</code> if missing
+	 * @throws CredentialsException if the claim is not a number
+	 */
+	public static Long getNumericDate(JSONObject claims, String name) {
+		try {
+			return claims.getLong(name);
+		} catch (JSONException | NumberFormatException e) {
+			throw new CredentialsException("Malformed JWT claim: " + name, e);
+		}
+	}
+
+	/**
+	 * Read the expiration of a JWT without verifying it.
+	 * @param token the raw token, see {@link #isJwt(String)}
+	 * @return the expiration time of the token, in milliseconds since the epoch, <code>0</code> if unknown
+	 */
+	public static long getExpiration(String token) {
+		final int first = token.indexOf('.');
+		final int second = token.indexOf('.', first + 1);
+		try {
+			final JSONObject claims = JSON.parseObject(new String(Base64.getUrlDecoder().decode(token.substring(first + 1, second)), StandardCharsets.UTF_8));
+			final Long exp = claims != null ? getNumericDate(claims, "exp") : null;
+			return exp != null ? exp * 1000 : 0;
+		} catch (IllegalArgumentException | JSONException | CredentialsException e) {
+			return 0;
+		}
+	}
+
+	public JwkSetSource getKeySource() {
+		return keySource;
+	}
+
+	public long getClockSkew() {
+		return clockSkew;
+	}
+
+	/**
+	 * @param clockSkew the tolerance, in milliseconds, on the <code>exp</code> and <code>nbf</code> claims
+	 */
+	public void setClockSkew(long clockSkew) {
+		this.clockSkew = clockSkew;
+	}
+
+	public boolean isRequireExpiration() {
+		return requireExpiration;
+	}
+
+	/**
+	 * @param requireExpiration whether the tokens without <code>exp</code> claim are rejected, <code>true</code> by default :
+	 *        a token verified locally cannot be revoked by its issuer, it must expire
+	 */
+	public void setRequireExpiration(boolean requireExpiration) {
+		this.requireExpiration = requireExpiration;
+	}
+
+	@Override
+	public String toString() {
+		return CommonHelper.toNiceString(this.getClass(), "keySource", keySource, "clockSkew", clockSkew, "requireExpiration", requireExpiration);
+	}
+
+	private static final class Algorithm {
+
+		private final String kty;
+		private final String jcaName;
+		/* size of R and S in a JOSE ECDSA signature, 0 for the other algorithms */
+		private final int ecPartSize;
+
+		private Algorithm(String kty, String jcaName, int ecPartSize) {
+			this.kty = kty;
+			this.jcaName = jcaName;
+			this.ecPartSize = ecPartSize;
+		}
+
+		private boolean verify(Key key, byte[] signingInput, byte[] signature) throws GeneralSecurityException {
+			if (JwkSet.KTY_OCT.equals(kty)) {
+				final Mac mac = Mac.getInstance(jcaName);
+				mac.init(key);
+				return MessageDigest.isEqual(mac.doFinal(signingInput), signature);
+			}
+			if (ecPartSize > 0) {
+				if (signature.length != 2 * ecPartSize) {
+					return false;
+				}
+				signature = toDer(signature, ecPartSize);
+			}
+			final Signature verifier = Signature.getInstance(jcaName);
+			verifier.initVerify((PublicKey) key);
+			verifier.update(signingInput);
+			return verifier.verify(signature);
+		}
+
+		/* JOSE signature (R | S) to the ASN.1 DER sequence expected by the JCA */
+		private static byte[] toDer(byte[] jose, int partSize) {
+			final byte[] r = unsignedInteger(jose, 0, partSize);
+			final byte[] s = unsignedInteger(jose, partSize, partSize);
+			final int sequenceLength = 2 + r.length + 2 + s.length;
+			final int lengthBytes = sequenceLength < 128 ? 1 : 2;
+			final byte[] der = new byte[1 + lengthBytes + sequenceLength];
+			int i = 0;
+			der[i++] = 0x30;
+			if (lengthBytes == 2) {
+				der[i++] = (byte) 0x81;
+			}
+			der[i++] = (byte) sequenceLength;
+			der[i++] = 0x02;
+			der[i++] = (byte) r.length;
+			System.arraycopy(r, 0, der, i, r.length);
+			i += r.length;
+			der[i++] = 0x02;
+			der[i++] = (byte) s.length;
+			System.arraycopy(s, 0, der, i, s.length);
+			return der;
+		}
+
+		/* minimal two's complement encoding of an unsigned big-endian integer */
+		private static byte[] unsignedInteger(byte[] bytes, int offset, int length) {
+			int start = offset;
+			final int end = offset + length;
+			while (start < end - 1 && bytes[start] == 0) {
+				start++;
+			}
+			final boolean pad = (bytes[start] & 0x80) != 0;
+			final byte[] integer = new byte[end - start + (pad ? 1 : 0)];
+			System.arraycopy(bytes, start, integer, pad ? 1 : 0, end - start);
+			return integer;
+		}
+
+	}
+
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.profile;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.pac4j.core.context.WebContext;
+import org.pac4j.core.profile.AttributeLocation;
+import org.pac4j.core.util.CommonHelper;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONException;
+import com.alibaba.fastjson.JSONObject;
+
+/**
+ * {@link TokenProfileDefinition} of a profile url answering a JSON object, like an OAuth 2 introspection or userinfo endpoint :
+ * the id is read from a field, <code>sub</code> by default, and the attributes from the other configured fields.
+ * <p>The profile is extracted while reading the response, the fields which are not kept are skipped without being built.</p>
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+public class JsonTokenProfileDefinition<T extends Token> extends TokenProfileDefinition<TokenProfile, T> {
+
+	public static final String DEFAULT_ID_FIELD_NAME = "sub";
+
+	private final String profileUrl;
+	private String idFieldName = DEFAULT_ID_FIELD_NAME;
+	/* Fields kept as attributes, all the fields when empty */
+	private Set<String> attributeNames = Collections.emptySet();
+	/* Fields read from the response : the id, the attributes and the expiration time, null for all */
+	private Set<String> fieldNames;
+
+	/**
+	 * @param profileUrl the url of the profile of the token
+	 */
+	public JsonTokenProfileDefinition(String profileUrl) {
+		super(parameters -> new TokenProfile());
+		CommonHelper.assertNotBlank("profileUrl", profileUrl);
+		this.profileUrl = profileUrl;
+	}
+
+	@Override
+	public String getProfileUrl(WebContext context, T accessToken) {
+		return profileUrl;
+	}
+
+	@Override
+	public boolean isStreamingSupported() {
+		return true;
+	}
+
+	@Override
+	public TokenProfile extractUserProfile(String body) {
+		final JSONObject fields;
+		try {
+			fields = JSON.parseObject(body);
+		} catch (JSONException e) {
+			raiseProfileExtractionJsonError(body);
+			return null;
+		}
+		if (fields == null) {
+			raiseProfileExtractionJsonError(body);
+		}
+		return buildProfile(fields);
+	}
+
+	@Override
+	public TokenProfile extractUserProfile(Reader body) throws IOException {
+		return buildProfile(readJsonFields(body, fieldNames));
+	}
+
+	/**
+	 * Build the profile from the fields of the response.
+	 * @param fields the fields of the response
+	 * @return the profile
+	 */
+	protected TokenProfile buildProfile(JSONObject fields) {
+		final Object id = fields.get(idFieldName);
+		if (id == null) {
+			raiseProfileExtractionJsonError(fields.toJSONString(), idFieldName);
+		}
+		final TokenProfile profile = (TokenProfile) newProfile();
+		profile.setId(id.toString());
+		for (final Map.Entry<String, Object> field : fields.entrySet()) {
+			if (!idFieldName.equals(field.getKey()) && (attributeNames.isEmpty() || attributeNames.contains(field.getKey())
+					|| TokenProfile.EXPIRATION_TIME.equals(field.getKey()))) {
+				convertAndAdd(profile, AttributeLocation.PROFILE_ATTRIBUTE, field.getKey(), field.getValue());
+			}
+		}
+		return profile;
+	}
+
+	public String getProfileUrl() {
+		return profileUrl;
+	}
+
+	public String getIdFieldName() {
+		return idFieldName;
+	}
+
+	/**
+	 * @param idFieldName the field holding the id of the user, <code>sub</code> by default
+	 */
+	public void setIdFieldName(String idFieldName) {
+		CommonHelper.assertNotBlank("idFieldName", idFieldName);
+		this.idFieldName = idFieldName;
+		updateFieldNames();
+	}
+
+	public Set<String> getAttributeNames() {
+		return attributeNames;
+	}
+
+	/**
+	 * @param attributeNames the fields kept as attributes, besides the expiration time <code>exp</code> ; all the fields when empty
+	 */
+	public void setAttributeNames(Set<String> attributeNames) {
+		this.attributeNames = attributeNames == null ? Collections.emptySet() : new LinkedHashSet<>(attributeNames);
+		updateFieldNames();
+	}
+
+	private void updateFieldNames() {
+		if (attributeNames.isEmpty()) {
+			fieldNames = null;
+			return;
+		}
+		final Set<String> names = new LinkedHashSet<>(attributeNames);
+		names.add(idFieldName);
+		names.add(TokenProfile.EXPIRATION_TIME);
+		fieldNames = names;
+	}
+
+	@Override
+	public String toString() {
+		return CommonHelper.toNiceString(this.getClass(), "profileUrl", profileUrl, "idFieldName", idFieldName,
+				"attributeNames", attributeNames);
+	}
+
+}
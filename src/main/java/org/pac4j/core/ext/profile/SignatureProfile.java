@@ -25,5 +25,15 @@ import org.pac4j.core.profile.CommonProfile;
  * @author 		： <a href="https://github.com/hiwepy">wandl</a>
  */
 public class SignatureProfile extends CommonProfile {
+
+	/* Id of the key which verified the signature */
+	public static final String KEY_ID = "kid";
      
+	/**
+	 * @return the id of the key which verified the signature, <code>null</code> without key registry
+	 */
+	public String getKeyId() {
+		return (String) getAttribute(KEY_ID);
+	}
+
 }
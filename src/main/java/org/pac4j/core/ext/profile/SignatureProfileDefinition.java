@@ -15,6 +15,12 @@
  */
 package org.pac4j.core.ext.profile;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+
 import org.pac4j.core.exception.TechnicalException;
 import org.pac4j.core.profile.definition.CommonProfileDefinition;
 import org.pac4j.core.profile.factory.ProfileFactory;
@@ -40,6 +46,29 @@ public abstract class SignatureProfileDefinition<P extends SignatureProfile, T e
      */
     public abstract P extractUserProfile(String body, String signature);
     
+    /**
+     * Extract the user profile while reading the verified request body, when the body is not read as a String,
+     * see {@link org.pac4j.core.ext.credentials.extractor.SignatureParameterExtractor#setRequestBodySupplier}.
+     * The default implementation reads the whole body and falls back on {@link #extractUserProfile(String, String)} :
+     * override it to parse the body as a stream.
+     *
+     * @param body the request body, closed by the caller
+     * @param charset the charset of the body
+     * @param signature the verified signature
+     * @return the returned profile
+     * @throws IOException if the body cannot be read
+     */
+    public P extractUserProfile(InputStream body, Charset charset, String signature) throws IOException {
+        final Reader reader = new InputStreamReader(body, charset);
+        final StringBuilder builder = new StringBuilder();
+        final char[] buffer = new char[4096];
+        int n;
+        while ((n = reader.read(buffer)) != -1) {
+            builder.append(buffer, 0, n);
+        }
+        return extractUserProfile(builder.toString(), signature);
+    }
+    
     /**
      * Throws a {@link TechnicalException} to indicate that user profile extraction has failed.
      * 
@@ -16,6 +16,8 @@
 package org.pac4j.core.ext.profile;
 
 
+import java.util.Date;
+
 import org.pac4j.core.profile.CommonProfile;
 
 /**
@@ -25,5 +27,41 @@ import org.pac4j.core.profile.CommonProfile;
  * @author 		： <a href="https://github.com/hiwepy">wandl</a>
  */
 public class TokenProfile extends CommonProfile {
-     
+
+	private static final long serialVersionUID = -2512403165231380349L;
+
+	/** Expiration time of the token : seconds since the epoch, as in the JWT claims and the introspection responses */
+	public static final String EXPIRATION_TIME = "exp";
+
+	/**
+	 * @return the expiration date of the token, from the <code>exp</code> attribute, or null if unknown
+	 */
+	public Date getExpirationDate() {
+		final Object exp = getAttribute(EXPIRATION_TIME);
+		if (exp instanceof Date) {
+			return (Date) exp;
+		}
+		if (exp instanceof Number) {
+			return new Date(((Number) exp).longValue() * 1000);
+		}
+		if (exp instanceof String) {
+			try {
+				return new Date(Long.parseLong(((String) exp).trim()) * 1000);
+			} catch (NumberFormatException e) {
+				return null;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Unlike {@link #isExpired()}, left to pac4j, this does not drop the profile from the session : the authenticator only uses it
+	 * to stop serving a cached profile.
+	 * @return whether the token is expired, <code>false</code> if its expiration date is unknown
+	 */
+	public boolean isTokenExpired() {
+		final Date expirationDate = getExpirationDate();
+		return expirationDate != null && expirationDate.getTime() <= System.currentTimeMillis();
+	}
+
 }
@@ -15,16 +15,33 @@
  */
 package org.pac4j.core.ext.profile;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 import org.pac4j.core.context.WebContext;
 import org.pac4j.core.exception.TechnicalException;
+import org.pac4j.core.ext.http.transport.HttpRequest;
+import org.pac4j.core.profile.AttributeLocation;
 import org.pac4j.core.profile.definition.CommonProfileDefinition;
 import org.pac4j.core.profile.factory.ProfileFactory;
 
+import com.alibaba.fastjson.JSONException;
+import com.alibaba.fastjson.JSONObject;
+import com.alibaba.fastjson.JSONReader;
+import com.alibaba.fastjson.parser.JSONToken;
+
 /**
  * Token profile definition.
  */
 public abstract class TokenProfileDefinition<P extends TokenProfile, T extends Token> extends CommonProfileDefinition {
 
+    /* Instances of the profile service sharing the load of the profile url, like https://replica1:8443 */
+    private List<String> profileBaseUrls = Collections.emptyList();
 	
     public TokenProfileDefinition() {
         super();
@@ -42,6 +59,19 @@ public abstract class TokenProfileDefinition<P extends TokenProfile, T extends T
      */
     public abstract String getProfileUrl(WebContext context, T accessToken);
 
+    /**
+     * Return the instances of the profile service : when not empty, each profile request is sent to the path
+     * of the profile url on one of these instances, see {@link org.pac4j.core.ext.http.transport.LoadBalancingHttpTransport}.
+     * @return the base urls, like <code>https://replica1:8443</code>, empty by default
+     */
+    public List<String> getProfileBaseUrls() {
+        return profileBaseUrls;
+    }
+
+    public void setProfileBaseUrls(List<String> profileBaseUrls) {
+        this.profileBaseUrls = profileBaseUrls == null ? Collections.emptyList() : new ArrayList<>(profileBaseUrls);
+    }
+
     /**
      * Extract the user profile from the response (JSON, XML...) of the profile url.
      *
@@ -50,6 +80,142 @@ public abstract class TokenProfileDefinition<P extends TokenProfile, T extends T
      */
     public abstract P extractUserProfile(String body);
     
+    /**
+     * Whether the profile is extracted while reading the response of the profile url, see {@link #extractUserProfile(Reader)}.
+     * 
+     * @return <code>false</code> by default
+     */
+    public boolean isStreamingSupported() {
+        return false;
+    }
+    
+    /**
+     * Extract the user profile while reading the response of the profile url, without buffering the whole body.
+     * Only called if {@link #isStreamingSupported()}, the default implementation reads the whole body
+     * and falls back on {@link #extractUserProfile(String)}.
+     *
+     * @param body the response body, closed by the caller
+     * @return the returned profile
+     * @throws IOException if the body cannot be read
+     */
+    public P extractUserProfile(Reader body) throws IOException {
+        final StringBuilder builder = new StringBuilder();
+        final char[] buffer = new char[4096];
+        int n;
+        while ((n = body.read(buffer)) != -1) {
+            builder.append(buffer, 0, n);
+        }
+        return extractUserProfile(builder.toString());
+    }
+    
+    /**
+     * Build the user profile from the claims of a token verified locally, see {@link org.pac4j.core.ext.jwt.JwtVerifier}.
+     * The default implementation takes the <code>sub</code> claim as id and all the claims as attributes.
+     *
+     * @param claims the verified claims
+     * @return the returned profile
+     */
+    @SuppressWarnings("unchecked")
+    public P extractUserProfileFromClaims(Map<String, Object> claims) {
+        final P profile = (P) newProfile();
+        final Object subject = claims.get("sub");
+        if (subject == null) {
+            raiseProfileExtractionJsonError(JSONObject.toJSONString(claims), "sub");
+        }
+        profile.setId(subject.toString());
+        for (final Map.Entry<String, Object> claim : claims.entrySet()) {
+            convertAndAdd(profile, AttributeLocation.PROFILE_ATTRIBUTE, claim.getKey(), claim.getValue());
+        }
+        return profile;
+    }
+    
+    /**
+     * Whether the profile url can introspect several tokens in a single call,
+     * see {@link #buildBatchRequest(List, Map)} and {@link #extractUserProfiles(List, String)}.
+     * 
+     * @return <code>false</code> by default
+     */
+    public boolean isBatchSupported() {
+        return false;
+    }
+    
+    /**
+     * Build the request introspecting several tokens in a single call. It is built outside of any web request.
+     * 
+     * @param accessTokens the tokens of the batch
+     * @param headers the custom headers of the authenticator
+     * @return the batch request
+     */
+    public HttpRequest buildBatchRequest(List<T> accessTokens, Map<String, String> headers) {
+        throw new TechnicalException("Batch introspection not supported by " + getClass().getName());
+    }
+    
+    /**
+     * Split the response of a batch request into the profiles of its tokens.
+     * 
+     * @param accessTokens the tokens of the batch
+     * @param body the response body
+     * @return the profiles in the order of the tokens, <code>null</code> for a token rejected by the profile url
+     */
+    public List<P> extractUserProfiles(List<T> accessTokens, String body) {
+        throw new TechnicalException("Batch introspection not supported by " + getClass().getName());
+    }
+    
+    /**
+     * Read the given fields of a JSON object : the objects and arrays of the other fields are walked without being built.
+     * 
+     * @param body the JSON object
+     * @param fieldNames the names of the fields to keep, <code>null</code> for all
+     * @return the kept fields
+     * @throws IOException if the body cannot be read
+     */
+    protected JSONObject readJsonFields(Reader body, Set<String> fieldNames) throws IOException {
+        final JSONObject fields = new JSONObject();
+        try {
+            final JSONReader reader = new JSONReader(body);
+            reader.startObject();
+            while (reader.hasNext()) {
+                final String name = reader.readString();
+                if (fieldNames == null || fieldNames.contains(name)) {
+                    fields.put(name, reader.readObject());
+                } else {
+                    skipJsonValue(reader);
+                }
+            }
+            reader.endObject();
+        } catch (JSONException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw e;
+        }
+        return fields;
+    }
+    
+    private static void skipJsonValue(JSONReader reader) {
+        switch (reader.peek()) {
+        case JSONToken.LBRACE:
+            reader.startObject();
+            while (reader.hasNext()) {
+                reader.readString();
+                skipJsonValue(reader);
+            }
+            reader.endObject();
+            break;
+        case JSONToken.LBRACKET:
+            reader.startArray();
+            while (reader.hasNext()) {
+                skipJsonValue(reader);
+            }
+            reader.endArray();
+            break;
+        default:
+            // a single string, number, boolean or null
+            reader.readObject();
+            break;
+        }
+    }
+    
     /**
      * Throws a {@link TechnicalException} to indicate that user profile extraction has failed.
      * 
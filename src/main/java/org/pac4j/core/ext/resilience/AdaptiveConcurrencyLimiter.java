@@ -0,0 +1,243 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.resilience;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.pac4j.core.util.CommonHelper;
+
+/**
+ * Limit of the concurrent calls to a remote service, tuned from the response times like TCP Vegas :
+ * the limit grows while the response times stay close to the fastest one observed,
+ * and shrinks when they grow, i.e. when the calls start to queue in the service, or when calls fail.
+ * <p>The calls above the limit wait for a slot until the max wait, then are rejected.
+ * Each acquired slot must be released by {@link #onResult(long, boolean)}.</p>
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+public class AdaptiveConcurrencyLimiter {
+
+	public static final int DEFAULT_INITIAL_LIMIT = 20;
+	public static final int DEFAULT_MIN_LIMIT = 1;
+	public static final int DEFAULT_MAX_LIMIT = 200;
+	public static final double DEFAULT_BACKOFF_RATIO = 0.9;
+
+	/* Number of samples after which the fastest response time is measured again, the service may have changed */
+	private static final int PROBE_INTERVAL = 1000;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition released = lock.newCondition();
+
+	private final int minLimit;
+	private final int maxLimit;
+	private final long maxWait;
+	private double backoffRatio = DEFAULT_BACKOFF_RATIO;
+
+	private volatile double limit;
+	private int inFlight;
+	private long rttNoLoad;
+	private int samplesSinceProbe;
+
+	private final LongAdder requestCount = new LongAdder();
+	private final LongAdder rejectedCount = new LongAdder();
+
+	public AdaptiveConcurrencyLimiter() {
+		this(DEFAULT_INITIAL_LIMIT, DEFAULT_MIN_LIMIT, DEFAULT_MAX_LIMIT, 0);
+	}
+
+	/**
+	 * @param initialLimit the limit until the first response times are known
+	 * @param minLimit the minimum limit
+	 * @param maxLimit the maximum limit
+	 * @param maxWait the maximum time, in milliseconds, a blocking caller waits for a slot, 0 to reject at once
+	 */
+	public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, long maxWait) {
+		CommonHelper.assertTrue(minLimit > 0 && minLimit <= initialLimit && initialLimit <= maxLimit,
+				"limits must verify 0 < minLimit <= initialLimit <= maxLimit");
+		CommonHelper.assertTrue(maxWait >= 0, "maxWait cannot be negative");
+		this.limit = initialLimit;
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.maxWait = maxWait;
+	}
+
+	/**
+	 * Acquire a slot, waiting at most the max wait.
+	 * @return <code>false</code> if the call must not be sent
+	 */
+	public boolean tryAcquire() {
+		return acquire(maxWait);
+	}
+
+	/**
+	 * Acquire a slot without waiting, for the callers which must not block.
+	 * @return <code>false</code> if the call must not be sent
+	 */
+	public boolean tryAcquireNow() {
+		return acquire(0);
+	}
+
+	private boolean acquire(long wait) {
+		requestCount.increment();
+		long remaining = TimeUnit.MILLISECONDS.toNanos(wait);
+		lock.lock();
+		try {
+			while (inFlight >= (int) limit) {
+				if (remaining <= 0) {
+					rejectedCount.increment();
+					return false;
+				}
+				remaining = released.awaitNanos(remaining);
+			}
+			inFlight++;
+			return true;
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			rejectedCount.increment();
+			return false;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Release the slot of a call and update the limit with its outcome.
+	 * @param rtt the duration of the call, in nanoseconds
+	 * @param dropped whether the call failed or timed out, a sign of overload
+	 */
+	public void onResult(long rtt, boolean dropped) {
+		lock.lock();
+		try {
+			final int sampleInFlight = inFlight--;
+			update(Math.max(1, rtt), dropped, sampleInFlight);
+			released.signal();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Release the slot of a call which was finally not sent, without updating the limit.
+	 */
+	public void release() {
+		lock.lock();
+		try {
+			inFlight--;
+			released.signal();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void update(long rtt, boolean dropped, int sampleInFlight) {
+		if (++samplesSinceProbe >= PROBE_INTERVAL) {
+			samplesSinceProbe = 0;
+			rttNoLoad = 0;
+		}
+		// the duration of a failed or timed out call says nothing of the response time without load
+		if (dropped) {
+			limit = Math.max(minLimit, limit * backoffRatio);
+			return;
+		}
+		if (rttNoLoad == 0 || rtt < rttNoLoad) {
+			rttNoLoad = rtt;
+			return;
+		}
+		double newLimit = limit;
+		if (sampleInFlight * 2 >= limit) {
+			// the number of calls queued in the service, estimated from the increase of the response time
+			final double queueSize = Math.ceil(limit * (1 - (double) rttNoLoad / rtt));
+			final double log = Math.max(1, Math.log10(limit));
+			if (queueSize < 3 * log) {
+				newLimit = newLimit + log;
+			} else if (queueSize > 6 * log) {
+				newLimit = newLimit - log;
+			}
+		}
+		limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+	}
+
+	/**
+	 * @return the current limit of the concurrent calls
+	 */
+	public int getLimit() {
+		return (int) limit;
+	}
+
+	/**
+	 * @return the number of calls in progress
+	 */
+	public int getInFlight() {
+		lock.lock();
+		try {
+			return inFlight;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public long getRequestCount() {
+		return requestCount.sum();
+	}
+
+	/**
+	 * @return the number of calls rejected because the limit was reached
+	 */
+	public long getRejectedCount() {
+		return rejectedCount.sum();
+	}
+
+	/**
+	 * @return the ratio of the calls rejected because the limit was reached, <code>0.0</code> when there was no call
+	 */
+	public double getRejectionRate() {
+		final long requests = getRequestCount();
+		return requests == 0 ? 0.0 : (double) getRejectedCount() / requests;
+	}
+
+	public int getMinLimit() {
+		return minLimit;
+	}
+
+	public int getMaxLimit() {
+		return maxLimit;
+	}
+
+	public long getMaxWait() {
+		return maxWait;
+	}
+
+	public double getBackoffRatio() {
+		return backoffRatio;
+	}
+
+	/**
+	 * @param backoffRatio the ratio applied to the limit when a call fails, between 0 and 1
+	 */
+	public void setBackoffRatio(double backoffRatio) {
+		CommonHelper.assertTrue(backoffRatio > 0 && backoffRatio < 1, "backoffRatio must be between 0 and 1");
+		this.backoffRatio = backoffRatio;
+	}
+
+	@Override
+	public String toString() {
+		return CommonHelper.toNiceString(this.getClass(), "limit", getLimit(), "inFlight", getInFlight(),
+				"requestCount", getRequestCount(), "rejectedCount", getRejectedCount(), "rejectionRate", getRejectionRate());
+	}
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.resilience;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.pac4j.core.util.CommonHelper;
+
+/**
+ * Cap of the concurrent calls to a remote service, so that a slow service cannot hold all the request threads.
+ * <p>Each acquired permit must be released by {@link #release()}.</p>
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+public class Bulkhead {
+
+	private final int maxConcurrentCalls;
+	private final long maxWait;
+	private final Semaphore permits;
+
+	private final LongAdder rejectedCount = new LongAdder();
+
+	/**
+	 * @param maxConcurrentCalls the maximum number of concurrent calls
+	 * @param maxWait the maximum time, in milliseconds, a blocking caller waits for a permit, 0 to fail fast
+	 */
+	public Bulkhead(int maxConcurrentCalls, long maxWait) {
+		CommonHelper.assertTrue(maxConcurrentCalls > 0, "maxConcurrentCalls must be greater than 0");
+		CommonHelper.assertTrue(maxWait >= 0, "maxWait cannot be negative");
+		this.maxConcurrentCalls = maxConcurrentCalls;
+		this.maxWait = maxWait;
+		this.permits = new Semaphore(maxConcurrentCalls);
+	}
+
+	/**
+	 * Acquire a permit, waiting at most the max wait.
+	 * @return <code>false</code> if the call must not be sent
+	 */
+	public boolean tryAcquire() {
+		boolean acquired;
+		try {
+			acquired = maxWait == 0 ? permits.tryAcquire() : permits.tryAcquire(maxWait, TimeUnit.MILLISECONDS);
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			acquired = false;
+		}
+		if (!acquired) {
+			rejectedCount.increment();
+		}
+		return acquired;
+	}
+
+	/**
+	 * Acquire a permit without waiting, for the callers which must not block.
+	 * @return <code>false</code> if the call must not be sent
+	 */
+	public boolean tryAcquireNow() {
+		final boolean acquired = permits.tryAcquire();
+		if (!acquired) {
+			rejectedCount.increment();
+		}
+		return acquired;
+	}
+
+	public void release() {
+		permits.release();
+	}
+
+	public int getMaxConcurrentCalls() {
+		return maxConcurrentCalls;
+	}
+
+	public long getMaxWait() {
+		return maxWait;
+	}
+
+	/**
+	 * @return the number of calls in progress
+	 */
+	public int getConcurrentCalls() {
+		return maxConcurrentCalls - permits.availablePermits();
+	}
+
+	/**
+	 * @return the number of calls rejected because the bulkhead was full
+	 */
+	public long getRejectedCount() {
+		return rejectedCount.sum();
+	}
+
+	@Override
+	public String toString() {
+		return CommonHelper.toNiceString(this.getClass(), "maxConcurrentCalls", maxConcurrentCalls, "maxWait", maxWait,
+				"concurrentCalls", getConcurrentCalls(), "rejectedCount", getRejectedCount());
+	}
+
+}
@@ -0,0 +1,352 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.resilience;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.pac4j.core.util.CommonHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Circuit breaker of the calls to a remote service, over a sliding window of the last calls.
+ * <ul>
+ * <li>CLOSED : the calls are permitted ; the breaker opens when the failure rate or the slow call rate of the window reaches its threshold.</li>
+ * <li>OPEN : the calls are rejected until the wait duration is over, then the breaker is half open.</li>
+ * <li>HALF_OPEN : a few trial calls are permitted ; the breaker closes if they succeed, opens again otherwise.</li>
+ * </ul>
+ * <p>Each permitted call must be reported by {@link #onResult(long, boolean)}.</p>
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+public class CircuitBreaker {
+
+	public enum State {
+		CLOSED, OPEN, HALF_OPEN
+	}
+
+	public static final int DEFAULT_WINDOW_SIZE = 100;
+	public static final int DEFAULT_MINIMUM_CALLS = 20;
+	public static final float DEFAULT_FAILURE_RATE_THRESHOLD = 50;
+	public static final float DEFAULT_SLOW_CALL_RATE_THRESHOLD = 100;
+	public static final long DEFAULT_SLOW_CALL_DURATION = 2000;
+	public static final long DEFAULT_WAIT_DURATION_IN_OPEN_STATE = 30 * 1000;
+	public static final int DEFAULT_PERMITTED_CALLS_IN_HALF_OPEN_STATE = 5;
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(CircuitBreaker.class);
+
+	private final String name;
+
+	private int windowSize = DEFAULT_WINDOW_SIZE;
+	private int minimumCalls = DEFAULT_MINIMUM_CALLS;
+	private float failureRateThreshold = DEFAULT_FAILURE_RATE_THRESHOLD;
+	private float slowCallRateThreshold = DEFAULT_SLOW_CALL_RATE_THRESHOLD;
+	private long slowCallDuration = DEFAULT_SLOW_CALL_DURATION;
+	private long waitDurationInOpenState = DEFAULT_WAIT_DURATION_IN_OPEN_STATE;
+	private int permittedCallsInHalfOpenState = DEFAULT_PERMITTED_CALLS_IN_HALF_OPEN_STATE;
+
+	private final List<CircuitBreakerListener> listeners = new CopyOnWriteArrayList<>();
+
+	/* Outcomes of the last calls : bit 0 for a failure, bit 1 for a slow call */
+	private byte[] outcomes;
+	private int position;
+	private int callCount;
+	private int failureCount;
+	private int slowCallCount;
+
+	private volatile State state = State.CLOSED;
+	private long openedAt;
+	private int halfOpenPermits;
+	private int halfOpenCalls;
+
+	private final LongAdder notPermittedCount = new LongAdder();
+	private final LongAdder openCount = new LongAdder();
+
+	public CircuitBreaker(String name) {
+		CommonHelper.assertNotBlank("name", name);
+		this.name = name;
+	}
+
+	/**
+	 * Ask for the permission to call the remote service.
+	 * @return <code>false</code> if the call must not be sent
+	 */
+	public boolean tryAcquirePermission() {
+		State from = null;
+		boolean permitted;
+		synchronized (this) {
+			if (state == State.OPEN && System.currentTimeMillis() - openedAt >= waitDurationInOpenState) {
+				from = transitionTo(State.HALF_OPEN);
+			}
+			if (state == State.CLOSED) {
+				permitted = true;
+			} else if (state == State.HALF_OPEN && halfOpenPermits > 0) {
+				halfOpenPermits--;
+				permitted = true;
+			} else {
+				permitted = false;
+			}
+		}
+		if (from != null) {
+			fireTransition(from, State.HALF_OPEN);
+		}
+		if (!permitted) {
+			notPermittedCount.increment();
+		}
+		return permitted;
+	}
+
+	/**
+	 * Report the outcome of a permitted call.
+	 * @param duration the duration of the call, in milliseconds
+	 * @param failure whether the call failed
+	 */
+	public void onResult(long duration, boolean failure) {
+		final boolean slow = duration >= slowCallDuration;
+		State from = null;
+		State to = null;
+		synchronized (this) {
+			if (state == State.CLOSED) {
+				record(failure, slow);
+				if (callCount >= minimumCalls && (failureCount * 100f / callCount >= failureRateThreshold
+						|| slowCallCount * 100f / callCount >= slowCallRateThreshold)) {
+					to = State.OPEN;
+				}
+			} else if (state == State.HALF_OPEN) {
+				if (failure || slow) {
+					to = State.OPEN;
+				} else if (++halfOpenCalls >= permittedCallsInHalfOpenState) {
+					to = State.CLOSED;
+				}
+			}
+			if (to != null) {
+				from = transitionTo(to);
+			}
+		}
+		if (from != null) {
+			fireTransition(from, to);
+		}
+	}
+
+	private void record(boolean failure, boolean slow) {
+		if (outcomes == null || outcomes.length != windowSize) {
+			resetWindow();
+		}
+		if (callCount == outcomes.length) {
+			final byte evicted = outcomes[position];
+			failureCount -= evicted & 1;
+			slowCallCount -= (evicted >> 1) & 1;
+		} else {
+			callCount++;
+		}
+		outcomes[position] = (byte) ((failure ? 1 : 0) | (slow ? 2 : 0));
+		failureCount += failure ? 1 : 0;
+		slowCallCount += slow ? 1 : 0;
+		position = (position + 1) % outcomes.length;
+	}
+
+	private void resetWindow() {
+		outcomes = new byte[windowSize];
+		position = 0;
+		callCount = 0;
+		failureCount = 0;
+		slowCallCount = 0;
+	}
+
+	/**
+	 * @return the previous state, the listeners are notified by the caller outside of the lock
+	 */
+	private State transitionTo(State to) {
+		final State from = state;
+		state = to;
+		if (to == State.OPEN) {
+			openedAt = System.currentTimeMillis();
+			openCount.increment();
+		} else if (to == State.HALF_OPEN) {
+			halfOpenPermits = permittedCallsInHalfOpenState;
+			halfOpenCalls = 0;
+		} else {
+			resetWindow();
+		}
+		return from;
+	}
+
+	private void fireTransition(State from, State to) {
+		if (to == State.OPEN) {
+			LOGGER.warn("Circuit breaker {} : {} -> {} for {} s", name, from, to, TimeUnit.MILLISECONDS.toSeconds(waitDurationInOpenState));
+		} else {
+			LOGGER.info("Circuit breaker {} : {} -> {}", name, from, to);
+		}
+		for (final CircuitBreakerListener listener : listeners) {
+			try {
+				listener.onStateTransition(this, from, to);
+			} catch (final RuntimeException e) {
+				LOGGER.error("Circuit breaker listener failure", e);
+			}
+		}
+	}
+
+	/**
+	 * Force the state of the breaker, for operations.
+	 * @param to the new state
+	 */
+	public void transitionToState(State to) {
+		CommonHelper.assertNotNull("state", to);
+		final State from;
+		synchronized (this) {
+			if (state == to) {
+				return;
+			}
+			from = transitionTo(to);
+		}
+		fireTransition(from, to);
+	}
+
+	public void addListener(CircuitBreakerListener listener) {
+		CommonHelper.assertNotNull("listener", listener);
+		listeners.add(listener);
+	}
+
+	public void removeListener(CircuitBreakerListener listener) {
+		listeners.remove(listener);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public State getState() {
+		return state;
+	}
+
+	/**
+	 * @return the failure rate of the sliding window, in percent
+	 */
+	public synchronized float getFailureRate() {
+		return callCount == 0 ? 0 : failureCount * 100f / callCount;
+	}
+
+	/**
+	 * @return the slow call rate of the sliding window, in percent
+	 */
+	public synchronized float getSlowCallRate() {
+		return callCount == 0 ? 0 : slowCallCount * 100f / callCount;
+	}
+
+	/**
+	 * @return the number of calls rejected because the breaker was open
+	 */
+	public long getNotPermittedCount() {
+		return notPermittedCount.sum();
+	}
+
+	/**
+	 * @return the number of times the breaker opened
+	 */
+	public long getOpenCount() {
+		return openCount.sum();
+	}
+
+	public int getWindowSize() {
+		return windowSize;
+	}
+
+	/**
+	 * @param windowSize the number of the last calls the rates are computed on
+	 */
+	public synchronized void setWindowSize(int windowSize) {
+		CommonHelper.assertTrue(windowSize > 0, "windowSize must be greater than 0");
+		this.windowSize = windowSize;
+	}
+
+	public int getMinimumCalls() {
+		return minimumCalls;
+	}
+
+	/**
+	 * @param minimumCalls the number of calls in the window before the rates are evaluated
+	 */
+	public synchronized void setMinimumCalls(int minimumCalls) {
+		this.minimumCalls = minimumCalls;
+	}
+
+	public float getFailureRateThreshold() {
+		return failureRateThreshold;
+	}
+
+	/**
+	 * @param failureRateThreshold the failure rate, in percent, opening the breaker
+	 */
+	public synchronized void setFailureRateThreshold(float failureRateThreshold) {
+		CommonHelper.assertTrue(failureRateThreshold > 0 && failureRateThreshold <= 100, "failureRateThreshold must be between 0 and 100");
+		this.failureRateThreshold = failureRateThreshold;
+	}
+
+	public float getSlowCallRateThreshold() {
+		return slowCallRateThreshold;
+	}
+
+	/**
+	 * @param slowCallRateThreshold the slow call rate, in percent, opening the breaker
+	 */
+	public synchronized void setSlowCallRateThreshold(float slowCallRateThreshold) {
+		CommonHelper.assertTrue(slowCallRateThreshold > 0 && slowCallRateThreshold <= 100, "slowCallRateThreshold must be between 0 and 100");
+		this.slowCallRateThreshold = slowCallRateThreshold;
+	}
+
+	public long getSlowCallDuration() {
+		return slowCallDuration;
+	}
+
+	/**
+	 * @param slowCallDuration the duration, in milliseconds, from which a call is slow
+	 */
+	public synchronized void setSlowCallDuration(long slowCallDuration) {
+		this.slowCallDuration = slowCallDuration;
+	}
+
+	public long getWaitDurationInOpenState() {
+		return waitDurationInOpenState;
+	}
+
+	/**
+	 * @param waitDurationInOpenState the time, in milliseconds, the breaker stays open before the trial calls
+	 */
+	public synchronized void setWaitDurationInOpenState(long waitDurationInOpenState) {
+		this.waitDurationInOpenState = waitDurationInOpenState;
+	}
+
+	public int getPermittedCallsInHalfOpenState() {
+		return permittedCallsInHalfOpenState;
+	}
+
+	/**
+	 * @param permittedCallsInHalfOpenState the number of successful trial calls closing the breaker
+	 */
+	public synchronized void setPermittedCallsInHalfOpenState(int permittedCallsInHalfOpenState) {
+		CommonHelper.assertTrue(permittedCallsInHalfOpenState > 0, "permittedCallsInHalfOpenState must be greater than 0");
+		this.permittedCallsInHalfOpenState = permittedCallsInHalfOpenState;
+	}
+
+	@Override
+	public String toString() {
+		return CommonHelper.toNiceString(this.getClass(), "name", name, "state", state, "failureRate", getFailureRate(),
+				"slowCallRate", getSlowCallRate(), "openCount", getOpenCount(), "notPermittedCount", getNotPermittedCount());
+	}
+
+}
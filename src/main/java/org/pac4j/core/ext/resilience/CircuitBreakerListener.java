@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.resilience;
+
+/**
+ * Listener of the state transitions of a {@link CircuitBreaker}, to export them to the metrics or alerting system.
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+public interface CircuitBreakerListener {
+
+	/**
+	 * Called after the state of the breaker changed, outside of its lock.
+	 * @param circuitBreaker the circuit breaker
+	 * @param from the previous state
+	 * @param to the new state
+	 */
+	void onStateTransition(CircuitBreaker circuitBreaker, CircuitBreaker.State from, CircuitBreaker.State to);
+
+}
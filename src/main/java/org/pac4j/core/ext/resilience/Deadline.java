@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.resilience;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.pac4j.core.context.WebContext;
+import org.pac4j.core.ext.exception.DeadlineExceededException;
+import org.pac4j.core.util.CommonHelper;
+
+/**
+ * The time by which the authentication of a request must be over : the credentials extraction, the profile retrieval,
+ * its retries included, and the authorization generation share this time budget.
+ * <p>It is carried by the web context, see {@link #attach(WebContext, long)}, and by the outbound requests.</p>
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+public final class Deadline {
+
+	/* Name of the request attribute holding the deadline of the request */
+	public static final String ATTRIBUTE = Deadline.class.getName();
+
+	private final long deadlineNanos;
+
+	private Deadline(long deadlineNanos) {
+		this.deadlineNanos = deadlineNanos;
+	}
+
+	/**
+	 * @param timeout the time budget, in milliseconds
+	 * @return the deadline after the given time budget
+	 */
+	public static Deadline after(long timeout) {
+		CommonHelper.assertTrue(timeout >= 0, "timeout cannot be negative");
+		return new Deadline(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout));
+	}
+
+	/**
+	 * @param context the web context
+	 * @return the deadline of the request, null if none
+	 */
+	public static Deadline from(WebContext context) {
+		if (context == null) {
+			return null;
+		}
+		final Optional<?> deadline = context.getRequestAttribute(ATTRIBUTE);
+		return (Deadline) deadline.filter(Deadline.class::isInstance).orElse(null);
+	}
+
+	/**
+	 * Give a deadline to the request, unless it already has one.
+	 * @param context the web context
+	 * @param timeout the time budget of the request, in milliseconds
+	 * @return the deadline of the request
+	 */
+	public static Deadline attach(WebContext context, long timeout) {
+		Deadline deadline = from(context);
+		if (deadline == null) {
+			deadline = after(timeout);
+			context.setRequestAttribute(ATTRIBUTE, deadline);
+		}
+		return deadline;
+	}
+
+	/**
+	 * @return the remaining time, in milliseconds, 0 if the deadline is over
+	 */
+	public long remaining() {
+		return Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime()));
+	}
+
+	public boolean isExpired() {
+		return deadlineNanos - System.nanoTime() <= 0;
+	}
+
+	/**
+	 * @param operation the operation about to start
+	 * @throws DeadlineExceededException if the deadline is over
+	 */
+	public void check(String operation) {
+		if (isExpired()) {
+			throw new DeadlineExceededException("Deadline exceeded before: " + operation);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return CommonHelper.toNiceString(this.getClass(), "remaining", remaining());
+	}
+
+}
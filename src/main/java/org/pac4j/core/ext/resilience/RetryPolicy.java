@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.resilience;
+
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.pac4j.core.ext.exception.ProfileUnavailableException;
+import org.pac4j.core.util.CommonHelper;
+
+/**
+ * Retries of the idempotent calls to a remote service, after a capped exponential backoff with full jitter.
+ * <p>Only the transient failures are retried : connection errors and the status codes 502, 503 and 504 by default.
+ * The retries are bounded by a budget : each call earns a fraction of a retry, so that the retries stay a small
+ * share of the traffic and cannot turn an outage into a retry storm.</p>
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+public class RetryPolicy {
+
+	public static final int DEFAULT_MAX_ATTEMPTS = 3;
+	public static final long DEFAULT_BASE_DELAY = 50;
+	public static final long DEFAULT_MAX_DELAY = 1000;
+	public static final double DEFAULT_BUDGET_RATIO = 0.1;
+	public static final int DEFAULT_MAX_BUDGET = 10;
+
+	/* The budget is counted in thousandths of retry */
+	private static final long RETRY_COST = 1000;
+
+	private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+	private long baseDelay = DEFAULT_BASE_DELAY;
+	private long maxDelay = DEFAULT_MAX_DELAY;
+	private Set<Integer> retryableStatusCodes = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(502, 503, 504)));
+	private boolean retryOnTimeout = false;
+	private double budgetRatio = DEFAULT_BUDGET_RATIO;
+	private int maxBudget = DEFAULT_MAX_BUDGET;
+
+	private final AtomicLong budget = new AtomicLong(DEFAULT_MAX_BUDGET * RETRY_COST);
+
+	private final LongAdder retryCount = new LongAdder();
+	private final LongAdder budgetExhaustedCount = new LongAdder();
+
+	/**
+	 * Record a first attempt, which earns its share of the retry budget.
+	 */
+	public void onCall() {
+		final long max = maxBudget * RETRY_COST;
+		final long earned = (long) (budgetRatio * RETRY_COST);
+		budget.getAndUpdate(current -> Math.min(max, current + earned));
+	}
+
+	/**
+	 * @param failure the failure of an attempt
+	 * @return whether the failure is transient and the call may be retried
+	 */
+	public boolean isRetryable(ProfileUnavailableException failure) {
+		if (retryableStatusCodes.contains(failure.getCode())) {
+			return true;
+		}
+		final Throwable cause = failure.getCause();
+		if (cause instanceof SocketTimeoutException) {
+			return retryOnTimeout;
+		}
+		// refused or reset connections, not the local failures like an oversized or corrupted body
+		return cause instanceof SocketException;
+	}
+
+	/**
+	 * Take a retry from the budget.
+	 * @return <code>false</code> if the budget is exhausted
+	 */
+	public boolean tryAcquireRetry() {
+		while (true) {
+			final long current = budget.get();
+			if (current < RETRY_COST) {
+				budgetExhaustedCount.increment();
+				return false;
+			}
+			if (budget.compareAndSet(current, current - RETRY_COST)) {
+				retryCount.increment();
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * @param attempt the number of the failed attempts
+	 * @return the delay before the next attempt, in milliseconds, random between 0 and the capped exponential backoff
+	 */
+	public long backoff(int attempt) {
+		final long ceiling = Math.min(maxDelay, baseDelay << Math.min(attempt - 1, 30));
+		return ceiling <= 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+	}
+
+	/**
+	 * @return the number of retries
+	 */
+	public long getRetryCount() {
+		return retryCount.sum();
+	}
+
+	/**
+	 * @return the number of retries not sent because the budget was exhausted
+	 */
+	public long getBudgetExhaustedCount() {
+		return budgetExhaustedCount.sum();
+	}
+
+	public int getMaxAttempts() {
+		return maxAttempts;
+	}
+
+	/**
+	 * @param maxAttempts the maximum number of attempts of a call, the first one included
+	 */
+	public void setMaxAttempts(int maxAttempts) {
+		CommonHelper.assertTrue(maxAttempts > 0, "maxAttempts must be greater than 0");
+		this.maxAttempts = maxAttempts;
+	}
+
+	public long getBaseDelay() {
+		return baseDelay;
+	}
+
+	/**
+	 * @param baseDelay the backoff ceiling after the first failure, in milliseconds, doubled at each failure
+	 */
+	public void setBaseDelay(long baseDelay) {
+		this.baseDelay = baseDelay;
+	}
+
+	public long getMaxDelay() {
+		return maxDelay;
+	}
+
+	/**
+	 * @param maxDelay the maximum backoff ceiling, in milliseconds
+	 */
+	public void setMaxDelay(long maxDelay) {
+		this.maxDelay = maxDelay;
+	}
+
+	public Set<Integer> getRetryableStatusCodes() {
+		return retryableStatusCodes;
+	}
+
+	public void setRetryableStatusCodes(Set<Integer> retryableStatusCodes) {
+		CommonHelper.assertNotNull("retryableStatusCodes", retryableStatusCodes);
+		this.retryableStatusCodes = Collections.unmodifiableSet(new LinkedHashSet<>(retryableStatusCodes));
+	}
+
+	public boolean isRetryOnTimeout() {
+		return retryOnTimeout;
+	}
+
+	/**
+	 * @param retryOnTimeout whether the calls timing out are retried, <code>false</code> by default : a slow service is rarely faster on retry
+	 */
+	public void setRetryOnTimeout(boolean retryOnTimeout) {
+		this.retryOnTimeout = retryOnTimeout;
+	}
+
+	public double getBudgetRatio() {
+		return budgetRatio;
+	}
+
+	/**
+	 * @param budgetRatio the number of retries earned by a call, i.e. the maximum ratio of retries over the calls
+	 */
+	public void setBudgetRatio(double budgetRatio) {
+		CommonHelper.assertTrue(budgetRatio >= 0, "budgetRatio cannot be negative");
+		this.budgetRatio = budgetRatio;
+	}
+
+	public int getMaxBudget() {
+		return maxBudget;
+	}
+
+	/**
+	 * @param maxBudget the number of retries which can be saved up, allowing retries when the traffic is low
+	 */
+	public void setMaxBudget(int maxBudget) {
+		CommonHelper.assertTrue(maxBudget >= 0, "maxBudget cannot be negative");
+		this.maxBudget = maxBudget;
+		budget.getAndUpdate(current -> Math.min(maxBudget * RETRY_COST, current));
+	}
+
+	@Override
+	public String toString() {
+		return CommonHelper.toNiceString(this.getClass(), "maxAttempts", maxAttempts, "baseDelay", baseDelay, "maxDelay", maxDelay,
+				"budgetRatio", budgetRatio, "retryCount", getRetryCount(), "budgetExhaustedCount", getBudgetExhaustedCount());
+	}
+
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.revocation;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.pac4j.core.util.CommonHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link RevocationEventSource} delivering its events from its own daemon thread.
+ * A failure of the listener is logged and counted, it never stops the delivery.
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+public abstract class AbstractRevocationEventSource implements RevocationEventSource {
+
+	private static final AtomicInteger THREADS = new AtomicInteger();
+
+	protected final Logger logger = LoggerFactory.getLogger(getClass());
+
+	private final LongAdder deliveredCount = new LongAdder();
+	private final LongAdder failedCount = new LongAdder();
+	private volatile Thread thread;
+	private volatile boolean closed;
+
+	@Override
+	public synchronized void start(RevocationListener listener) {
+		CommonHelper.assertNotNull("listener", listener);
+		CommonHelper.assertTrue(thread == null && !closed, "source already started");
+		thread = new Thread(() -> {
+			try {
+				run(listener);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}, "pac4j-ext-revocation-" + THREADS.incrementAndGet());
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Deliver the events to the listener, see {@link #deliver(RevocationListener, RevocationEvent)}, until the source is closed.
+	 * @param listener the listener
+	 * @throws InterruptedException if the source was closed while waiting for events
+	 */
+	protected abstract void run(RevocationListener listener) throws InterruptedException;
+
+	protected void deliver(RevocationListener listener, RevocationEvent event) {
+		try {
+			listener.onRevocation(event);
+			deliveredCount.increment();
+		} catch (RuntimeException e) {
+			failedCount.increment();
+			logger.error("Revocation failure: {}", event, e);
+		}
+	}
+
+	protected boolean isClosed() {
+		return closed;
+	}
+
+	@Override
+	public synchronized void close() {
+		closed = true;
+		if (thread != null) {
+			thread.interrupt();
+		}
+	}
+
+	/**
+	 * @return the number of events delivered to the listener
+	 */
+	public long getDeliveredCount() {
+		return deliveredCount.sum();
+	}
+
+	/**
+	 * @return the number of events the listener failed to handle
+	 */
+	public long getFailedCount() {
+		return failedCount.sum();
+	}
+
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.revocation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+
+import org.pac4j.core.exception.TechnicalException;
+import org.pac4j.core.util.CommonHelper;
+
+/**
+ * {@link RevocationEventSource} tailing a file of events, one per line in the text form of {@link RevocationEvent} :
+ * the lines appended to the file are read every poll interval. A truncated or replaced file is read again from its start.
+ * <p>Blank lines and lines starting with <code>#</code> are ignored, invalid lines are logged and skipped.</p>
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+public class FileRevocationEventSource extends AbstractRevocationEventSource {
+
+	public static final long DEFAULT_POLL_INTERVAL = 1000;
+
+	private final Path file;
+	private final long pollInterval;
+	private final boolean fromStart;
+	private long position = -1;
+	private final ByteArrayOutputStream partialLine = new ByteArrayOutputStream();
+
+	/**
+	 * @param file the path of the file, the events already in the file being skipped
+	 */
+	public FileRevocationEventSource(String file) {
+		this(Paths.get(file), DEFAULT_POLL_INTERVAL, false);
+	}
+
+	/**
+	 * @param file the path of the file, which may not exist yet
+	 * @param pollInterval the time, in milliseconds, between two reads of the file
+	 * @param fromStart whether the events already in the file are delivered
+	 */
+	public FileRevocationEventSource(Path file, long pollInterval, boolean fromStart) {
+		CommonHelper.assertNotNull("file", file);
+		CommonHelper.assertTrue(pollInterval > 0, "pollInterval must be greater than 0");
+		this.file = file;
+		this.pollInterval = pollInterval;
+		this.fromStart = fromStart;
+	}
+
+	@Override
+	protected void run(RevocationListener listener) throws InterruptedException {
+		while (!isClosed()) {
+			try {
+				poll(listener);
+			} catch (NoSuchFileException e) {
+				position = 0;
+			} catch (IOException e) {
+				logger.warn("Cannot read the revocation file: {} -> {}", file, e.getMessage());
+			}
+			Thread.sleep(pollInterval);
+		}
+	}
+
+	private void poll(RevocationListener listener) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			final long size = channel.size();
+			if (position < 0) {
+				position = fromStart ? 0 : size;
+			}
+			if (size < position) {
+				logger.info("Revocation file truncated, read again from its start: {}", file);
+				position = 0;
+				partialLine.reset();
+			}
+			final ByteBuffer buffer = ByteBuffer.allocate(8192);
+			while (position < size) {
+				buffer.clear();
+				final int read = channel.read(buffer, position);
+				if (read <= 0) {
+					break;
+				}
+				position += read;
+				for (int i = 0; i < read; i++) {
+					final byte b = buffer.get(i);
+					if (b == '\n') {
+						onLine(listener, new String(partialLine.toByteArray(), StandardCharsets.UTF_8));
+						partialLine.reset();
+					} else {
+						partialLine.write(b);
+					}
+				}
+			}
+		}
+	}
+
+	private void onLine(RevocationListener listener, String line) {
+		final String trimmed = line.trim();
+		if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+			return;
+		}
+		final RevocationEvent event;
+		try {
+			event = RevocationEvent.parse(trimmed);
+		} catch (TechnicalException e) {
+			logger.warn("{} in: {}", e.getMessage(), file);
+			return;
+		}
+		deliver(listener, event);
+	}
+
+	/**
+	 * Append an event to the given file, for the producers sharing the file with this source.
+	 * @param file the path of the file
+	 * @param event the event
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void append(Path file, RevocationEvent event) throws IOException {
+		final String line = event.getType() == RevocationEvent.Type.ALL ? "all"
+				: event.getType().name().toLowerCase(Locale.ROOT) + " " + event.getValue();
+		Files.write(file, (line + "\n").getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+	}
+
+	public Path getFile() {
+		return file;
+	}
+
+	public long getPollInterval() {
+		return pollInterval;
+	}
+
+	@Override
+	public String toString() {
+		return CommonHelper.toNiceString(this.getClass(), "file", file, "pollInterval", pollInterval,
+				"deliveredCount", getDeliveredCount(), "failedCount", getFailedCount());
+	}
+
+}
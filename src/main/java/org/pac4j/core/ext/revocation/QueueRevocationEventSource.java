@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.revocation;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.pac4j.core.util.CommonHelper;
+
+/**
+ * {@link RevocationEventSource} fed by a local bounded queue : the logout endpoint or the consumer of a message broker
+ * publishes the events, delivered in order by the thread of the source.
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+public class QueueRevocationEventSource extends AbstractRevocationEventSource {
+
+	public static final int DEFAULT_CAPACITY = 10000;
+
+	private final BlockingQueue<RevocationEvent> queue;
+	private final int capacity;
+
+	public QueueRevocationEventSource() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * @param capacity the maximum number of events waiting for their delivery
+	 */
+	public QueueRevocationEventSource(int capacity) {
+		CommonHelper.assertTrue(capacity > 0, "capacity must be greater than 0");
+		this.capacity = capacity;
+		this.queue = new LinkedBlockingQueue<>(capacity);
+	}
+
+	/**
+	 * Publish an event without blocking.
+	 * @param event the event
+	 * @return whether the event was queued, <code>false</code> if the queue is full or the source closed
+	 */
+	public boolean publish(RevocationEvent event) {
+		CommonHelper.assertNotNull("event", event);
+		return !isClosed() && queue.offer(event);
+	}
+
+	@Override
+	protected void run(RevocationListener listener) throws InterruptedException {
+		while (!isClosed()) {
+			deliver(listener, queue.take());
+		}
+	}
+
+	/**
+	 * @return the number of events waiting for their delivery
+	 */
+	public int getPendingCount() {
+		return queue.size();
+	}
+
+	@Override
+	public String toString() {
+		return CommonHelper.toNiceString(this.getClass(), "capacity", capacity, "pendingCount", getPendingCount(),
+				"deliveredCount", getDeliveredCount(), "failedCount", getFailedCount());
+	}
+
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.revocation;
+
+import org.pac4j.core.exception.TechnicalException;
+import org.pac4j.core.util.CommonHelper;
+
+/**
+ * Revocation of cached token profiles : a token, all the tokens of a user, or all the tokens.
+ * <p>Its text form, one event per line, is <code>token &lt;raw token&gt;</code>, <code>user &lt;user id&gt;</code> or <code>all</code>.</p>
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+public final class RevocationEvent {
+
+	public enum Type {
+		/** A single token, revoked or logged out */
+		TOKEN,
+		/** All the tokens of a user */
+		USER,
+		/** All the tokens */
+		ALL
+	}
+
+	private static final RevocationEvent ALL = new RevocationEvent(Type.ALL, null);
+
+	private final Type type;
+	private final String value;
+
+	private RevocationEvent(Type type, String value) {
+		this.type = type;
+		this.value = value;
+	}
+
+	/**
+	 * @param token the raw token
+	 * @return the revocation of the token
+	 */
+	public static RevocationEvent token(String token) {
+		CommonHelper.assertNotBlank("token", token);
+		return new RevocationEvent(Type.TOKEN, token);
+	}
+
+	/**
+	 * @param userId the id of the user profile
+	 * @return the revocation of all the tokens of the user
+	 */
+	public static RevocationEvent user(String userId) {
+		CommonHelper.assertNotBlank("userId", userId);
+		return new RevocationEvent(Type.USER, userId);
+	}
+
+	/**
+	 * @return the revocation of all the tokens
+	 */
+	public static RevocationEvent all() {
+		return ALL;
+	}
+
+	/**
+	 * Parse the text form of an event.
+	 * @param line the text form, see {@link RevocationEvent}
+	 * @return the event
+	 * @throws TechnicalException if the line is not a valid event
+	 */
+	public static RevocationEvent parse(String line) {
+		final String trimmed = line.trim();
+		final int separator = trimmed.indexOf(' ');
+		final String type = separator < 0 ? trimmed : trimmed.substring(0, separator);
+		final String value = separator < 0 ? null : trimmed.substring(separator + 1).trim();
+		if ("all".equalsIgnoreCase(type) && value == null) {
+			return all();
+		}
+		if (CommonHelper.isNotBlank(value)) {
+			if ("token".equalsIgnoreCase(type)) {
+				return token(value);
+			}
+			if ("user".equalsIgnoreCase(type)) {
+				return user(value);
+			}
+		}
+		throw new TechnicalException("Invalid revocation event: " + (type.length() > 16 ? type.substring(0, 16) + "..." : type));
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	/**
+	 * @return the raw token, the user id, or <code>null</code> for all the tokens
+	 */
+	public String getValue() {
+		return value;
+	}
+
+	@Override
+	public String toString() {
+		// the raw token never leaves the request
+		return CommonHelper.toNiceString(this.getClass(), "type", type, "value", type == Type.TOKEN ? "[hidden]" : value);
+	}
+
+}
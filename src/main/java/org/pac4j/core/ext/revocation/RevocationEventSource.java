@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.revocation;
+
+import java.io.Closeable;
+
+/**
+ * Source of the {@link RevocationEvent}s, fed by a message queue, a file, a webhook...
+ * <p>Each node of a cluster runs its own source, so that the profiles cached by all the nodes are invalidated.</p>
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+public interface RevocationEventSource extends Closeable {
+
+	/**
+	 * Start delivering the events to the listener, until the source is closed.
+	 * @param listener the listener of the events
+	 */
+	void start(RevocationListener listener);
+
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.revocation;
+
+/**
+ * Listener of the {@link RevocationEvent}s, like the {@link org.pac4j.core.ext.credentials.authenticator.TokenAuthenticator}
+ * invalidating its cached profiles.
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+@FunctionalInterface
+public interface RevocationListener {
+
+	/**
+	 * Called by the thread of the {@link RevocationEventSource} for each event : it must not block.
+	 * @param event the revocation event
+	 */
+	void onRevocation(RevocationEvent event);
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.signature;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter of fixed size over strings, whose bits are set without lock.
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+final class BloomFilter {
+
+	private final AtomicLongArray bits;
+	private final long bitCount;
+	private final int hashCount;
+
+	/**
+	 * @param expectedInsertions the number of values the filter is sized for
+	 * @param falsePositiveRate the probability of a false positive once the expected values inserted
+	 */
+	BloomFilter(int expectedInsertions, double falsePositiveRate) {
+		final long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+		final int words = (int) Math.max(1, (optimalBits + 63) / 64);
+		this.bits = new AtomicLongArray(words);
+		this.bitCount = (long) words * 64;
+		this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+	}
+
+	boolean mightContain(long hash1, long hash2) {
+		long combined = hash1;
+		for (int i = 0; i < hashCount; i++) {
+			final long index = (combined & Long.MAX_VALUE) % bitCount;
+			if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+				return false;
+			}
+			combined += hash2;
+		}
+		return true;
+	}
+
+	void put(long hash1, long hash2) {
+		long combined = hash1;
+		for (int i = 0; i < hashCount; i++) {
+			final long index = (combined & Long.MAX_VALUE) % bitCount;
+			final int word = (int) (index >>> 6);
+			final long mask = 1L << index;
+			long current;
+			while (((current = bits.get(word)) & mask) == 0 && !bits.compareAndSet(word, current, current | mask)) {
+				// retry
+			}
+			combined += hash2;
+		}
+	}
+
+	void clear() {
+		for (int i = 0; i < bits.length(); i++) {
+			bits.set(i, 0);
+		}
+	}
+
+	/**
+	 * @return the size of the filter, in bytes
+	 */
+	long sizeInBytes() {
+		return bitCount / 8;
+	}
+
+	static long hash1(CharSequence value) {
+		long hash = 0xcbf29ce484222325L;
+		for (int i = 0; i < value.length(); i++) {
+			hash ^= value.charAt(i);
+			hash *= 0x100000001b3L;
+		}
+		return mix(hash);
+	}
+
+	static long hash2(long hash1) {
+		return mix(hash1 ^ 0x9e3779b97f4a7c15L) | 1;
+	}
+
+	private static long mix(long hash) {
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+
+}
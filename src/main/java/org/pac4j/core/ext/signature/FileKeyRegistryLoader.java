@@ -0,0 +1,277 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.signature;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.pac4j.core.exception.TechnicalException;
+import org.pac4j.core.util.CommonHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Load the keys of a {@link KeyRegistry} from a local file, and reload them from their own daemon thread
+ * each time the file changes. One key per line :
+ * <pre>
+ * # keyId algorithm key [notBefore [notAfter]]
+ * partner-1 HS256 c2VjcmV0LW9mLXBhcnRuZXItMQ==
+ * partner-2 HS512 b2xkLXNlY3JldA== - 2024-06-01T00:00:00Z
+ * partner-2 HS512 bmV3LXNlY3JldA== 2024-05-25T00:00:00Z
+ * partner-3 ES256 MFkwEwYHKoZIzj0CAQYIKoZIzj0DAQcDQgAE...
+ * </pre>
+ * <p>The key is base64 encoded : the shared secret for {@link HmacAlgorithm}, the X.509 <code>SubjectPublicKeyInfo</code>,
+ * as in the body of a PEM public key, for {@link PublicKeyAlgorithm}. The verifier of a key unchanged by a reload is kept,
+ * its key is not parsed again. The validity bounds are ISO-8601 instants or <code>-</code>. Blank lines and lines starting
+ * with <code>#</code> are ignored. A file with an invalid line is not loaded at all : the registry keeps its keys
+ * until the file is fixed. Replace the file atomically, by a rename, so that a half written file is never read.</p>
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+public class FileKeyRegistryLoader implements Closeable {
+
+	public static final long DEFAULT_POLL_INTERVAL = 5000;
+
+	private static final AtomicInteger THREADS = new AtomicInteger();
+
+	protected final Logger logger = LoggerFactory.getLogger(getClass());
+
+	private final KeyRegistry registry;
+	private final Path file;
+	private final long pollInterval;
+	private final SignatureEncoding encoding;
+	private volatile Thread thread;
+	private volatile boolean closed;
+	/* Last modification time and size of the file read, loaded or invalid */
+	private long readModified = -1;
+	private long readSize = -1;
+	/* Verifiers of the keys loaded, and of the keys being loaded, by key id, algorithm and key */
+	private Map<String, SignatureVerifier> verifiers = new HashMap<>();
+	private Map<String, SignatureVerifier> loadingVerifiers;
+
+	private final LongAdder loadCount = new LongAdder();
+	private final LongAdder failedCount = new LongAdder();
+
+	/**
+	 * @param registry the registry of the keys
+	 * @param file the path of the file of the keys
+	 * @param encoding the encoding of the signatures
+	 */
+	public FileKeyRegistryLoader(KeyRegistry registry, Path file, SignatureEncoding encoding) {
+		this(registry, file, DEFAULT_POLL_INTERVAL, encoding);
+	}
+
+	/**
+	 * @param registry the registry of the keys
+	 * @param file the path of the file of the keys
+	 * @param pollInterval the time, in milliseconds, between two checks of the file
+	 * @param encoding the encoding of the signatures
+	 */
+	public FileKeyRegistryLoader(KeyRegistry registry, Path file, long pollInterval, SignatureEncoding encoding) {
+		CommonHelper.assertNotNull("registry", registry);
+		CommonHelper.assertNotNull("file", file);
+		CommonHelper.assertTrue(pollInterval > 0, "pollInterval must be greater than 0");
+		CommonHelper.assertNotNull("encoding", encoding);
+		this.registry = registry;
+		this.file = file;
+		this.pollInterval = pollInterval;
+		this.encoding = encoding;
+	}
+
+	/**
+	 * Load the keys, then watch the file for changes.
+	 * @throws TechnicalException if the keys cannot be loaded
+	 */
+	public synchronized void start() {
+		CommonHelper.assertTrue(thread == null && !closed, "loader already started");
+		try {
+			reload();
+		} catch (IOException e) {
+			throw new TechnicalException("Cannot load the keys from: " + file, e);
+		}
+		thread = new Thread(this::run, "pac4j-ext-key-reload-" + THREADS.incrementAndGet());
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	private void run() {
+		while (!closed) {
+			try {
+				Thread.sleep(pollInterval);
+				reload();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch (NoSuchFileException e) {
+				logger.warn("Keys file missing, the keys are kept: {}", file);
+			} catch (IOException | TechnicalException e) {
+				failedCount.increment();
+				logger.error("Cannot reload the keys, they are kept: {} -> {}", file, e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Load the keys if the file changed since the last load.
+	 * @return whether the keys were loaded
+	 * @throws IOException if the file cannot be read
+	 * @throws TechnicalException if a line of the file is invalid
+	 */
+	public synchronized boolean reload() throws IOException {
+		final BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+		final long modified = attributes.lastModifiedTime().toMillis();
+		if (modified == readModified && attributes.size() == readSize) {
+			return false;
+		}
+		final List<SigningKey> keys = new ArrayList<>();
+		loadingVerifiers = new HashMap<>();
+		try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			String line;
+			int number = 0;
+			while ((line = reader.readLine()) != null) {
+				number++;
+				final String trimmed = line.trim();
+				if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+					continue;
+				}
+				final String[] fields = trimmed.split("\\s+");
+				try {
+					keys.add(parseLine(fields));
+				} catch (RuntimeException e) {
+					// an invalid file is not read again until it changes
+					readModified = modified;
+					readSize = attributes.size();
+					throw new TechnicalException("Invalid key " + fields[0] + " at line " + number + " of " + file + ": "
+							+ (e.getMessage() != null ? e.getMessage() : e.toString()), e);
+				}
+			}
+			verifiers = loadingVerifiers;
+		} finally {
+			loadingVerifiers = null;
+		}
+		registry.replaceAll(keys);
+		readModified = modified;
+		readSize = attributes.size();
+		loadCount.increment();
+		logger.info("{} keys loaded from: {}", keys.size(), file);
+		return true;
+	}
+
+	private SigningKey parseLine(String[] fields) {
+		if (fields.length < 3 || fields.length > 5) {
+			throw new TechnicalException("expected: keyId algorithm key [notBefore [notAfter]]");
+		}
+		final long notBefore = fields.length > 3 ? parseInstant(fields[3]) : 0;
+		final long notAfter = fields.length > 4 ? parseInstant(fields[4]) : 0;
+		final byte[] key;
+		try {
+			key = Base64.getDecoder().decode(fields[2]);
+		} catch (IllegalArgumentException e) {
+			throw new TechnicalException("key is not base64 encoded: " + e.getMessage());
+		}
+		return newKey(fields[0], fields[1], key, notBefore, notAfter);
+	}
+
+	private static long parseInstant(String value) {
+		if ("-".equals(value)) {
+			return 0;
+		}
+		try {
+			return Instant.parse(value).toEpochMilli();
+		} catch (DateTimeParseException e) {
+			throw new TechnicalException("invalid instant: " + value);
+		}
+	}
+
+	private SigningKey newKey(String keyId, String algorithm, byte[] key, long notBefore, long notAfter) {
+		final String verifierKey = keyId + ' ' + algorithm + ' ' + Base64.getEncoder().encodeToString(key);
+		SignatureVerifier verifier = verifiers.get(verifierKey);
+		if (verifier == null) {
+			verifier = newVerifier(algorithm, key);
+		}
+		loadingVerifiers.put(verifierKey, verifier);
+		return new SigningKey(keyId, algorithm, verifier, notBefore, notAfter);
+	}
+
+	/**
+	 * Build the verifier of a key, override to support other algorithms.
+	 * @param algorithm the name of the algorithm
+	 * @param key the decoded key
+	 * @return the verifier
+	 */
+	protected SignatureVerifier newVerifier(String algorithm, byte[] key) {
+		if (PublicKeyAlgorithm.isPublicKeyAlgorithm(algorithm)) {
+			final PublicKeyAlgorithm publicKeyAlgorithm = PublicKeyAlgorithm.forName(algorithm);
+			return new PublicKeySignatureVerifier(publicKeyAlgorithm, publicKeyAlgorithm.parsePublicKey(key), encoding);
+		}
+		return new HmacSignatureVerifier(HmacAlgorithm.forName(algorithm), key, encoding);
+	}
+
+	@Override
+	public synchronized void close() {
+		closed = true;
+		if (thread != null) {
+			thread.interrupt();
+		}
+	}
+
+	public Path getFile() {
+		return file;
+	}
+
+	public long getPollInterval() {
+		return pollInterval;
+	}
+
+	public SignatureEncoding getEncoding() {
+		return encoding;
+	}
+
+	/**
+	 * @return the number of loads of the file
+	 */
+	public long getLoadCount() {
+		return loadCount.sum();
+	}
+
+	/**
+	 * @return the number of reloads failed because of an unreadable file or an invalid line
+	 */
+	public long getFailedCount() {
+		return failedCount.sum();
+	}
+
+	@Override
+	public String toString() {
+		return CommonHelper.toNiceString(this.getClass(), "file", file, "pollInterval", pollInterval, "encoding", encoding,
+				"loadCount", getLoadCount(), "failedCount", getFailedCount());
+	}
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.signature;
+
+import org.pac4j.core.exception.TechnicalException;
+
+/**
+ * HMAC algorithms of the {@link HmacSignatureVerifier}.
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+public enum HmacAlgorithm {
+
+	HMAC_SHA256("HS256", "HmacSHA256", 32),
+
+	HMAC_SHA512("HS512", "HmacSHA512", 64);
+
+	private final String shortName;
+	private final String jcaName;
+	private final int macLength;
+
+	HmacAlgorithm(String shortName, String jcaName, int macLength) {
+		this.shortName = shortName;
+		this.jcaName = jcaName;
+		this.macLength = macLength;
+	}
+
+	/**
+	 * @param name the short name, like <code>HS256</code>, or the JCA name of the algorithm
+	 * @return the algorithm
+	 * @throws TechnicalException if the algorithm is unknown
+	 */
+	public static HmacAlgorithm forName(String name) {
+		for (HmacAlgorithm algorithm : values()) {
+			if (algorithm.shortName.equalsIgnoreCase(name) || algorithm.jcaName.equalsIgnoreCase(name)) {
+				return algorithm;
+			}
+		}
+		throw new TechnicalException("Unknown HMAC algorithm: " + name);
+	}
+
+	/**
+	 * @return the short name of the algorithm, as in a JWS header
+	 */
+	public String getShortName() {
+		return shortName;
+	}
+
+	/**
+	 * @return the name of the algorithm for {@link javax.crypto.Mac#getInstance(String)}
+	 */
+	public String getJcaName() {
+		return jcaName;
+	}
+
+	/**
+	 * @return the length of the MAC, in bytes
+	 */
+	public int getMacLength() {
+		return macLength;
+	}
+
+}
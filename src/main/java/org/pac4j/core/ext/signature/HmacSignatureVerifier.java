@@ -0,0 +1,286 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.signature;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.pac4j.core.exception.TechnicalException;
+import org.pac4j.core.util.CommonHelper;
+
+/**
+ * {@link SignatureVerifier} of the HMAC-SHA256 or HMAC-SHA512 signatures computed with a shared secret.
+ * <p>Each thread reuses its own {@link Mac} per algorithm, and its own buffers : a verification neither looks the algorithm up,
+ * nor allocates, and only derives the key when the thread verified another key last. The memory stays bounded by the threads,
+ * however many verifiers, see {@link KeyRegistry}. The signature is decoded in place and compared in constant time.</p>
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+public class HmacSignatureVerifier implements SignatureVerifier {
+
+	private static final int MAX_IDLE_VERIFICATIONS = 64;
+
+	/* States shared by all the verifiers of an algorithm, by index of the algorithm */
+	private static final ThreadLocal<State[]> STATES = ThreadLocal.withInitial(() -> new State[HmacAlgorithm.values().length]);
+	private static final Queue<State>[] IDLE_STATES = newIdleStates();
+	private static final AtomicInteger[] IDLE_COUNTS = newIdleCounts();
+
+	private final HmacAlgorithm algorithm;
+	private final SignatureEncoding encoding;
+	private final SecretKeySpec key;
+
+	private final LongAdder verifiedCount = new LongAdder();
+	private final LongAdder rejectedCount = new LongAdder();
+
+	/**
+	 * @param algorithm the HMAC algorithm
+	 * @param secret the shared secret, UTF-8 encoded
+	 * @param encoding the encoding of the signatures
+	 */
+	public HmacSignatureVerifier(HmacAlgorithm algorithm, String secret, SignatureEncoding encoding) {
+		this(algorithm, CommonHelper.isNotBlank(secret) ? secret.getBytes(StandardCharsets.UTF_8) : null, encoding);
+	}
+
+	/**
+	 * @param algorithm the HMAC algorithm
+	 * @param secret the shared secret
+	 * @param encoding the encoding of the signatures
+	 */
+	public HmacSignatureVerifier(HmacAlgorithm algorithm, byte[] secret, SignatureEncoding encoding) {
+		CommonHelper.assertNotNull("algorithm", algorithm);
+		CommonHelper.assertTrue(secret != null && secret.length > 0, "secret cannot be empty");
+		CommonHelper.assertNotNull("encoding", encoding);
+		this.algorithm = algorithm;
+		this.encoding = encoding;
+		this.key = new SecretKeySpec(secret, algorithm.getJcaName());
+		// fail fast on an unsupported algorithm or key
+		keyed(state());
+	}
+
+	@Override
+	public boolean verify(byte[] payload, int offset, int length, CharSequence signature) {
+		final State state = state();
+		if (!decode(state, signature)) {
+			return false;
+		}
+		try {
+			keyed(state).mac.update(payload, offset, length);
+		} catch (RuntimeException e) {
+			state.mac.reset();
+			throw new TechnicalException(e);
+		}
+		return finish(state);
+	}
+
+	/**
+	 * Verifications reuse the pre-keyed {@link Mac} of the previous ones, a few of them are kept idle.
+	 */
+	@Override
+	public SignatureVerification newVerification() {
+		State state = IDLE_STATES[algorithm.ordinal()].poll();
+		if (state == null) {
+			state = newState();
+		} else {
+			IDLE_COUNTS[algorithm.ordinal()].decrementAndGet();
+			keyed(state);
+		}
+		return new Verification(state);
+	}
+
+	private State state() {
+		final State[] states = STATES.get();
+		State state = states[algorithm.ordinal()];
+		if (state == null) {
+			state = newState();
+			states[algorithm.ordinal()] = state;
+		}
+		return state;
+	}
+
+	private State keyed(State state) {
+		if (state.key != key) {
+			try {
+				state.mac.init(key);
+			} catch (GeneralSecurityException e) {
+				throw new TechnicalException(e);
+			}
+			state.key = key;
+		}
+		return state;
+	}
+
+	private boolean decode(State state, CharSequence signature) {
+		if (signature == null || encoding.decode(signature, state.expected) != algorithm.getMacLength()) {
+			rejectedCount.increment();
+			return false;
+		}
+		return true;
+	}
+
+	private boolean finish(State state) {
+		try {
+			state.mac.doFinal(state.actual, 0);
+		} catch (GeneralSecurityException | RuntimeException e) {
+			state.mac.reset();
+			throw new TechnicalException(e);
+		}
+		if (constantTimeEquals(state.expected, state.actual, algorithm.getMacLength())) {
+			verifiedCount.increment();
+			return true;
+		}
+		rejectedCount.increment();
+		return false;
+	}
+
+	/**
+	 * Compare the first bytes of two buffers in a time independent of their content.
+	 * @param a the first buffer
+	 * @param b the second buffer
+	 * @param length the number of bytes to compare
+	 * @return whether the bytes are equal
+	 */
+	public static boolean constantTimeEquals(byte[] a, byte[] b, int length) {
+		int diff = 0;
+		for (int i = 0; i < length; i++) {
+			diff |= a[i] ^ b[i];
+		}
+		return diff == 0;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Queue<State>[] newIdleStates() {
+		final Queue<State>[] idleStates = (Queue<State>[]) new Queue<?>[HmacAlgorithm.values().length];
+		for (int i = 0; i < idleStates.length; i++) {
+			idleStates[i] = new ConcurrentLinkedQueue<>();
+		}
+		return idleStates;
+	}
+
+	private static AtomicInteger[] newIdleCounts() {
+		final AtomicInteger[] idleCounts = new AtomicInteger[HmacAlgorithm.values().length];
+		for (int i = 0; i < idleCounts.length; i++) {
+			idleCounts[i] = new AtomicInteger();
+		}
+		return idleCounts;
+	}
+
+	private State newState() {
+		try {
+			final Mac mac = Mac.getInstance(algorithm.getJcaName());
+			mac.init(key);
+			return new State(mac, algorithm.getMacLength(), key);
+		} catch (GeneralSecurityException e) {
+			throw new TechnicalException(e);
+		}
+	}
+
+	public HmacAlgorithm getAlgorithm() {
+		return algorithm;
+	}
+
+	public SignatureEncoding getEncoding() {
+		return encoding;
+	}
+
+	/**
+	 * @return the number of valid signatures
+	 */
+	public long getVerifiedCount() {
+		return verifiedCount.sum();
+	}
+
+	/**
+	 * @return the number of invalid or undecodable signatures
+	 */
+	public long getRejectedCount() {
+		return rejectedCount.sum();
+	}
+
+	@Override
+	public String toString() {
+		return CommonHelper.toNiceString(this.getClass(), "algorithm", algorithm, "encoding", encoding,
+				"verifiedCount", getVerifiedCount(), "rejectedCount", getRejectedCount());
+	}
+
+	private final class Verification implements SignatureVerification {
+
+		private State state;
+
+		private Verification(State state) {
+			this.state = state;
+		}
+
+		@Override
+		public void update(byte[] payload, int offset, int length) {
+			if (state == null) {
+				throw new TechnicalException("Verification already closed");
+			}
+			state.mac.update(payload, offset, length);
+		}
+
+		@Override
+		public boolean verify(CharSequence signature) {
+			if (state == null) {
+				throw new TechnicalException("Verification already closed");
+			}
+			try {
+				return decode(state, signature) && finish(state);
+			} finally {
+				close();
+			}
+		}
+
+		@Override
+		public void close() {
+			final State released = state;
+			if (released == null) {
+				return;
+			}
+			state = null;
+			released.mac.reset();
+			if (IDLE_COUNTS[algorithm.ordinal()].incrementAndGet() <= MAX_IDLE_VERIFICATIONS) {
+				IDLE_STATES[algorithm.ordinal()].offer(released);
+			} else {
+				IDLE_COUNTS[algorithm.ordinal()].decrementAndGet();
+			}
+		}
+
+	}
+
+	private static final class State {
+
+		private final Mac mac;
+		private final byte[] expected;
+		private final byte[] actual;
+		/* Key the mac is initialized with */
+		private SecretKeySpec key;
+
+		private State(Mac mac, int macLength, SecretKeySpec key) {
+			this.mac = mac;
+			this.expected = new byte[macLength];
+			this.actual = new byte[macLength];
+			this.key = key;
+		}
+
+	}
+
+}
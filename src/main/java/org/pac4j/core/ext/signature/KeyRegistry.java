@@ -0,0 +1,243 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.signature;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.pac4j.core.util.CommonHelper;
+
+/**
+ * Registry of the {@link SigningKey} of the callers, by key id.
+ * <p>Lookups read an immutable snapshot of the keys without lock : they take constant time whatever the number of keys.
+ * Updates copy the snapshot and publish the copy, so that the verifications in flight go on with the keys they looked up.
+ * They are meant to be rare, like a reload of all the keys, see {@link FileKeyRegistryLoader}.</p>
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+public class KeyRegistry {
+
+	private volatile Map<String, KeySet> keySets = Collections.emptyMap();
+
+	private final LongAdder lookupCount = new LongAdder();
+	private final LongAdder unknownCount = new LongAdder();
+
+	public KeyRegistry() {
+	}
+
+	/**
+	 * @param keys the initial keys
+	 */
+	public KeyRegistry(Collection<SigningKey> keys) {
+		replaceAll(keys);
+	}
+
+	/**
+	 * Return the verifier of the signatures of a key id : a signature is valid if one of the keys of this id valid
+	 * at verification time verifies it.
+	 * @param keyId the key id sent by the caller
+	 * @return the verifier, or <code>null</code> if the key id is unknown
+	 */
+	public SignatureVerifier getVerifier(String keyId) {
+		lookupCount.increment();
+		final KeySet keySet = keyId == null ? null : keySets.get(keyId);
+		if (keySet == null) {
+			unknownCount.increment();
+		}
+		return keySet;
+	}
+
+	/**
+	 * @param keyId the key id
+	 * @return the keys of this id, valid or not, or an empty list if unknown
+	 */
+	public List<SigningKey> getKeys(String keyId) {
+		final KeySet keySet = keyId == null ? null : keySets.get(keyId);
+		return keySet == null ? Collections.emptyList() : Collections.unmodifiableList(Arrays.asList(keySet.keys));
+	}
+
+	/**
+	 * Replace all the keys at once.
+	 * @param keys the new keys
+	 */
+	public synchronized void replaceAll(Collection<SigningKey> keys) {
+		CommonHelper.assertNotNull("keys", keys);
+		final Map<String, List<SigningKey>> byId = new LinkedHashMap<>();
+		for (SigningKey key : keys) {
+			byId.computeIfAbsent(key.getKeyId(), id -> new ArrayList<>(1)).add(key);
+		}
+		final Map<String, KeySet> copy = new HashMap<>((int) (byId.size() / 0.75f) + 1);
+		for (Map.Entry<String, List<SigningKey>> entry : byId.entrySet()) {
+			copy.put(entry.getKey(), new KeySet(entry.getValue().toArray(new SigningKey[0])));
+		}
+		keySets = copy;
+	}
+
+	/**
+	 * Add a key, next to the keys of the same id.
+	 * @param key the key
+	 */
+	public synchronized void add(SigningKey key) {
+		CommonHelper.assertNotNull("key", key);
+		final Map<String, KeySet> copy = new HashMap<>(keySets);
+		final KeySet existing = copy.get(key.getKeyId());
+		final SigningKey[] keys;
+		if (existing == null) {
+			keys = new SigningKey[] { key };
+		} else {
+			keys = Arrays.copyOf(existing.keys, existing.keys.length + 1);
+			keys[existing.keys.length] = key;
+		}
+		copy.put(key.getKeyId(), new KeySet(keys));
+		keySets = copy;
+	}
+
+	/**
+	 * Remove all the keys of a key id.
+	 * @param keyId the key id
+	 * @return whether the key id was known
+	 */
+	public synchronized boolean remove(String keyId) {
+		if (!keySets.containsKey(keyId)) {
+			return false;
+		}
+		final Map<String, KeySet> copy = new HashMap<>(keySets);
+		copy.remove(keyId);
+		keySets = copy;
+		return true;
+	}
+
+	/**
+	 * @return the number of key ids
+	 */
+	public int size() {
+		return keySets.size();
+	}
+
+	/**
+	 * @return the number of lookups
+	 */
+	public long getLookupCount() {
+		return lookupCount.sum();
+	}
+
+	/**
+	 * @return the number of lookups of an unknown key id
+	 */
+	public long getUnknownCount() {
+		return unknownCount.sum();
+	}
+
+	@Override
+	public String toString() {
+		return CommonHelper.toNiceString(this.getClass(), "size", size(), "lookupCount", getLookupCount(),
+				"unknownCount", getUnknownCount());
+	}
+
+	/**
+	 * Keys of a key id, trying the keys valid at verification time in turn.
+	 */
+	private static final class KeySet implements SignatureVerifier {
+
+		private final SigningKey[] keys;
+
+		private KeySet(SigningKey[] keys) {
+			this.keys = keys;
+		}
+
+		@Override
+		public boolean verify(byte[] payload, int offset, int length, CharSequence signature) {
+			final long now = System.currentTimeMillis();
+			for (SigningKey key : keys) {
+				if (key.isValidAt(now) && key.getVerifier().verify(payload, offset, length, signature)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		@Override
+		public SignatureVerification newVerification() {
+			final long now = System.currentTimeMillis();
+			SignatureVerification single = null;
+			List<SignatureVerification> several = null;
+			for (SigningKey key : keys) {
+				if (!key.isValidAt(now)) {
+					continue;
+				}
+				final SignatureVerification verification = key.getVerifier().newVerification();
+				if (single == null) {
+					single = verification;
+				} else {
+					if (several == null) {
+						several = new ArrayList<>(keys.length);
+						several.add(single);
+					}
+					several.add(verification);
+				}
+			}
+			if (several != null) {
+				return new AnyVerification(several);
+			}
+			return single != null ? single : new AnyVerification(Collections.emptyList());
+		}
+
+	}
+
+	/**
+	 * Verification of the keys valid during a rotation : the payload is fed to all of them, one of them must verify it.
+	 */
+	private static final class AnyVerification implements SignatureVerification {
+
+		private final List<SignatureVerification> verifications;
+
+		private AnyVerification(List<SignatureVerification> verifications) {
+			this.verifications = verifications;
+		}
+
+		@Override
+		public void update(byte[] payload, int offset, int length) {
+			for (SignatureVerification verification : verifications) {
+				verification.update(payload, offset, length);
+			}
+		}
+
+		@Override
+		public boolean verify(CharSequence signature) {
+			boolean valid = false;
+			for (SignatureVerification verification : verifications) {
+				// every verification is completed, to release all of them
+				valid |= verification.verify(signature);
+			}
+			return valid;
+		}
+
+		@Override
+		public void close() {
+			for (SignatureVerification verification : verifications) {
+				verification.close();
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.signature;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+
+import org.pac4j.core.exception.TechnicalException;
+
+/**
+ * Public key algorithms of the {@link PublicKeySignatureVerifier}.
+ * <p>ECDSA signatures are accepted in their DER form, as computed by JCA, or as the concatenation of R and S, as in a JWS.
+ * Ed25519 needs Java 15 or a provider supporting it, see {@link #isSupported()}.</p>
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+public enum PublicKeyAlgorithm {
+
+	RSA_SHA256("RS256", "SHA256withRSA", "RSA", 0),
+
+	RSA_SHA384("RS384", "SHA384withRSA", "RSA", 0),
+
+	RSA_SHA512("RS512", "SHA512withRSA", "RSA", 0),
+
+	ECDSA_P256_SHA256("ES256", "SHA256withECDSA", "EC", 32),
+
+	ECDSA_P384_SHA384("ES384", "SHA384withECDSA", "EC", 48),
+
+	ECDSA_P521_SHA512("ES512", "SHA512withECDSA", "EC", 66),
+
+	ED25519("EdDSA", "Ed25519", "Ed25519", 0);
+
+	private final String shortName;
+	private final String jcaName;
+	private final String keyAlgorithm;
+	private final int ecFieldLength;
+	/* Whether the JVM supports the algorithm, null until checked */
+	private volatile Boolean supported;
+
+	PublicKeyAlgorithm(String shortName, String jcaName, String keyAlgorithm, int ecFieldLength) {
+		this.shortName = shortName;
+		this.jcaName = jcaName;
+		this.keyAlgorithm = keyAlgorithm;
+		this.ecFieldLength = ecFieldLength;
+	}
+
+	/**
+	 * @param name the short name, like <code>RS256</code>, or the JCA name of the algorithm
+	 * @return the algorithm
+	 * @throws TechnicalException if the algorithm is unknown
+	 */
+	public static PublicKeyAlgorithm forName(String name) {
+		for (PublicKeyAlgorithm algorithm : values()) {
+			if (algorithm.shortName.equalsIgnoreCase(name) || algorithm.jcaName.equalsIgnoreCase(name)) {
+				return algorithm;
+			}
+		}
+		throw new TechnicalException("Unknown public key algorithm: " + name);
+	}
+
+	/**
+	 * @param name the name of an algorithm
+	 * @return whether it is a public key algorithm, see {@link #forName(String)}
+	 */
+	public static boolean isPublicKeyAlgorithm(String name) {
+		for (PublicKeyAlgorithm algorithm : values()) {
+			if (algorithm.shortName.equalsIgnoreCase(name) || algorithm.jcaName.equalsIgnoreCase(name)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return whether the JVM has a provider of the signature and of the keys of this algorithm
+	 */
+	public boolean isSupported() {
+		Boolean supported = this.supported;
+		if (supported == null) {
+			try {
+				Signature.getInstance(jcaName);
+				KeyFactory.getInstance(keyAlgorithm);
+				supported = Boolean.TRUE;
+			} catch (GeneralSecurityException e) {
+				supported = Boolean.FALSE;
+			}
+			this.supported = supported;
+		}
+		return supported;
+	}
+
+	/**
+	 * Parse a public key of this algorithm.
+	 * @param encoded the X.509 <code>SubjectPublicKeyInfo</code> of the key
+	 * @return the public key
+	 * @throws TechnicalException if the key is invalid or the algorithm not supported by the JVM
+	 */
+	public PublicKey parsePublicKey(byte[] encoded) {
+		if (!isSupported()) {
+			throw new TechnicalException(shortName + " is not supported by this JVM" + (this == ED25519 ? ", it needs Java 15 or a provider supporting it" : ""));
+		}
+		try {
+			return KeyFactory.getInstance(keyAlgorithm).generatePublic(new X509EncodedKeySpec(encoded));
+		} catch (GeneralSecurityException e) {
+			throw new TechnicalException("Invalid " + shortName + " public key: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Parse a public key of this algorithm.
+	 * @param text the PEM form of the key, or its base64 encoded X.509 <code>SubjectPublicKeyInfo</code>
+	 * @return the public key
+	 * @throws TechnicalException if the key is invalid or the algorithm not supported by the JVM
+	 */
+	public PublicKey parsePublicKey(String text) {
+		final String base64 = text.replaceAll("-----(BEGIN|END) PUBLIC KEY-----", "").replaceAll("\\s", "");
+		try {
+			return parsePublicKey(Base64.getDecoder().decode(base64.getBytes(StandardCharsets.US_ASCII)));
+		} catch (IllegalArgumentException e) {
+			throw new TechnicalException("Invalid " + shortName + " public key: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * @return the short name of the algorithm, as in a JWS header
+	 */
+	public String getShortName() {
+		return shortName;
+	}
+
+	/**
+	 * @return the name of the algorithm for {@link java.security.Signature#getInstance(String)}
+	 */
+	public String getJcaName() {
+		return jcaName;
+	}
+
+	/**
+	 * @return the name of the algorithm for {@link KeyFactory#getInstance(String)}
+	 */
+	public String getKeyAlgorithm() {
+		return keyAlgorithm;
+	}
+
+	/**
+	 * @return the length, in bytes, of R and S in an ECDSA signature, <code>0</code> for the other algorithms
+	 */
+	public int getEcFieldLength() {
+		return ecFieldLength;
+	}
+
+}
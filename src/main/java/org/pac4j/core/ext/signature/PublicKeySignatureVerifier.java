@@ -0,0 +1,352 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.signature;
+
+import java.security.GeneralSecurityException;
+import java.security.InvalidKeyException;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.pac4j.core.exception.TechnicalException;
+import org.pac4j.core.util.CommonHelper;
+
+/**
+ * {@link SignatureVerifier} of the RSA, ECDSA or Ed25519 signatures computed with the private key of the caller.
+ * <p>The public key is parsed once, when the verifier is built, see {@link PublicKeyAlgorithm#parsePublicKey(String)}.
+ * Each thread reuses its own {@link Signature} per algorithm and its own buffers, only initialized again when the thread
+ * verified another key last : the memory stays bounded by the threads, however many keys, see {@link KeyRegistry}.</p>
+ * <p>RSA verifications are much more expensive than HMAC ones : see
+ * {@link org.pac4j.core.ext.credentials.authenticator.SignatureAuthenticator#setVerificationExecutor} to cap their concurrency.</p>
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+public class PublicKeySignatureVerifier implements SignatureVerifier {
+
+	/* Longest signature, of an 8192 bits RSA key */
+	private static final int MAX_SIGNATURE_LENGTH = 1024;
+	private static final int MAX_IDLE_VERIFICATIONS = 64;
+
+	/* States shared by all the verifiers of an algorithm, by index of the algorithm */
+	private static final ThreadLocal<State[]> STATES = ThreadLocal.withInitial(() -> new State[PublicKeyAlgorithm.values().length]);
+	private static final Queue<State>[] IDLE_STATES = newIdleStates();
+	private static final AtomicInteger[] IDLE_COUNTS = newIdleCounts();
+
+	private final PublicKeyAlgorithm algorithm;
+	private final SignatureEncoding encoding;
+	private final PublicKey key;
+
+	private final LongAdder verifiedCount = new LongAdder();
+	private final LongAdder rejectedCount = new LongAdder();
+
+	/**
+	 * @param algorithm the public key algorithm
+	 * @param key the public key of the caller, in PEM or base64 encoded X.509 form
+	 * @param encoding the encoding of the signatures
+	 */
+	public PublicKeySignatureVerifier(PublicKeyAlgorithm algorithm, String key, SignatureEncoding encoding) {
+		this(algorithm, algorithm.parsePublicKey(key), encoding);
+	}
+
+	/**
+	 * @param algorithm the public key algorithm
+	 * @param key the public key of the caller
+	 * @param encoding the encoding of the signatures
+	 */
+	public PublicKeySignatureVerifier(PublicKeyAlgorithm algorithm, PublicKey key, SignatureEncoding encoding) {
+		CommonHelper.assertNotNull("algorithm", algorithm);
+		CommonHelper.assertNotNull("key", key);
+		CommonHelper.assertNotNull("encoding", encoding);
+		this.algorithm = algorithm;
+		this.encoding = encoding;
+		this.key = key;
+		// fail fast on an unsupported algorithm or key
+		keyed(state());
+	}
+
+	@Override
+	public boolean verify(byte[] payload, int offset, int length, CharSequence signature) {
+		final State state = state();
+		final int signatureLength = decode(state, signature);
+		if (signatureLength < 0) {
+			return false;
+		}
+		try {
+			keyed(state).signature.update(payload, offset, length);
+		} catch (SignatureException | RuntimeException e) {
+			state.key = null;
+			throw new TechnicalException(e);
+		}
+		return finish(state, signatureLength);
+	}
+
+	/**
+	 * Verifications reuse the {@link Signature} of the previous ones, a few of them are kept idle.
+	 */
+	@Override
+	public SignatureVerification newVerification() {
+		State state = IDLE_STATES[algorithm.ordinal()].poll();
+		if (state == null) {
+			state = newState();
+		} else {
+			IDLE_COUNTS[algorithm.ordinal()].decrementAndGet();
+		}
+		return new Verification(keyed(state));
+	}
+
+	private State state() {
+		final State[] states = STATES.get();
+		State state = states[algorithm.ordinal()];
+		if (state == null) {
+			state = newState();
+			states[algorithm.ordinal()] = state;
+		}
+		return state;
+	}
+
+	private State keyed(State state) {
+		if (state.key != key) {
+			try {
+				state.signature.initVerify(key);
+			} catch (InvalidKeyException e) {
+				throw new TechnicalException(e);
+			}
+			state.key = key;
+		}
+		return state;
+	}
+
+	/**
+	 * Decode the signature into the buffer of the state, in the DER form for ECDSA.
+	 * @return the length of the decoded signature, <code>-1</code> if invalid
+	 */
+	private int decode(State state, CharSequence signature) {
+		final int length = signature == null ? -1 : encoding.decode(signature, state.decoded);
+		if (length <= 0) {
+			rejectedCount.increment();
+			return -1;
+		}
+		final int fieldLength = algorithm.getEcFieldLength();
+		if (fieldLength > 0 && length == 2 * fieldLength && !isDer(state.decoded, length)) {
+			state.signatureBytes = state.der;
+			return concatenatedToDer(state.decoded, fieldLength, state.der);
+		}
+		state.signatureBytes = state.decoded;
+		return length;
+	}
+
+	private boolean finish(State state, int signatureLength) {
+		boolean valid;
+		try {
+			valid = state.signature.verify(state.signatureBytes, 0, signatureLength);
+		} catch (SignatureException e) {
+			// malformed signature, initialized again on next use
+			state.key = null;
+			valid = false;
+		}
+		if (valid) {
+			verifiedCount.increment();
+		} else {
+			rejectedCount.increment();
+		}
+		return valid;
+	}
+
+	private static boolean isDer(byte[] signature, int length) {
+		if (length < 8 || signature[0] != 0x30) {
+			return false;
+		}
+		final int contentLength = signature[1] == (byte) 0x81 ? (signature[2] & 0xFF) + 3 : (signature[1] & 0xFF) + 2;
+		return contentLength == length;
+	}
+
+	/**
+	 * Convert an ECDSA signature from the concatenation of R and S to its DER form.
+	 * @return the length of the DER form
+	 */
+	private static int concatenatedToDer(byte[] concatenated, int fieldLength, byte[] der) {
+		final int rLength = integerLength(concatenated, 0, fieldLength);
+		final int sLength = integerLength(concatenated, fieldLength, fieldLength);
+		final int contentLength = 2 + rLength + 2 + sLength;
+		int position = 0;
+		der[position++] = 0x30;
+		if (contentLength >= 128) {
+			der[position++] = (byte) 0x81;
+		}
+		der[position++] = (byte) contentLength;
+		position = writeInteger(concatenated, 0, fieldLength, rLength, der, position);
+		position = writeInteger(concatenated, fieldLength, fieldLength, sLength, der, position);
+		return position;
+	}
+
+	/**
+	 * @return the length of the DER integer of the unsigned big endian value : without its leading zeros, with a zero if negative
+	 */
+	private static int integerLength(byte[] value, int offset, int length) {
+		int start = offset;
+		while (start < offset + length - 1 && value[start] == 0) {
+			start++;
+		}
+		final int significant = offset + length - start;
+		return (value[start] & 0x80) != 0 ? significant + 1 : significant;
+	}
+
+	private static int writeInteger(byte[] value, int offset, int length, int integerLength, byte[] der, int position) {
+		der[position++] = 0x02;
+		der[position++] = (byte) integerLength;
+		final int significant = Math.min(integerLength, length);
+		if (integerLength > length) {
+			der[position++] = 0;
+		}
+		System.arraycopy(value, offset + length - significant, der, position, significant);
+		return position + significant;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Queue<State>[] newIdleStates() {
+		final Queue<State>[] idleStates = (Queue<State>[]) new Queue<?>[PublicKeyAlgorithm.values().length];
+		for (int i = 0; i < idleStates.length; i++) {
+			idleStates[i] = new ConcurrentLinkedQueue<>();
+		}
+		return idleStates;
+	}
+
+	private static AtomicInteger[] newIdleCounts() {
+		final AtomicInteger[] idleCounts = new AtomicInteger[PublicKeyAlgorithm.values().length];
+		for (int i = 0; i < idleCounts.length; i++) {
+			idleCounts[i] = new AtomicInteger();
+		}
+		return idleCounts;
+	}
+
+	private State newState() {
+		try {
+			return new State(Signature.getInstance(algorithm.getJcaName()), 2 * algorithm.getEcFieldLength() + 9);
+		} catch (GeneralSecurityException e) {
+			throw new TechnicalException(algorithm.getJcaName() + " not supported: " + e.getMessage(), e);
+		}
+	}
+
+	public PublicKeyAlgorithm getAlgorithm() {
+		return algorithm;
+	}
+
+	public SignatureEncoding getEncoding() {
+		return encoding;
+	}
+
+	public PublicKey getKey() {
+		return key;
+	}
+
+	/**
+	 * @return the number of valid signatures
+	 */
+	public long getVerifiedCount() {
+		return verifiedCount.sum();
+	}
+
+	/**
+	 * @return the number of invalid or undecodable signatures
+	 */
+	public long getRejectedCount() {
+		return rejectedCount.sum();
+	}
+
+	@Override
+	public String toString() {
+		return CommonHelper.toNiceString(this.getClass(), "algorithm", algorithm, "encoding", encoding,
+				"verifiedCount", getVerifiedCount(), "rejectedCount", getRejectedCount());
+	}
+
+	private final class Verification implements SignatureVerification {
+
+		private State state;
+		private boolean completed;
+
+		private Verification(State state) {
+			this.state = state;
+		}
+
+		@Override
+		public void update(byte[] payload, int offset, int length) {
+			if (state == null) {
+				throw new TechnicalException("Verification already closed");
+			}
+			try {
+				state.signature.update(payload, offset, length);
+			} catch (SignatureException e) {
+				throw new TechnicalException(e);
+			}
+		}
+
+		@Override
+		public boolean verify(CharSequence signature) {
+			if (state == null) {
+				throw new TechnicalException("Verification already closed");
+			}
+			try {
+				final int signatureLength = decode(state, signature);
+				final boolean valid = signatureLength >= 0 && finish(state, signatureLength);
+				// verify resets the signature object, a rejected decoding did not
+				completed = signatureLength >= 0;
+				return valid;
+			} finally {
+				close();
+			}
+		}
+
+		@Override
+		public void close() {
+			final State released = state;
+			if (released == null) {
+				return;
+			}
+			state = null;
+			if (!completed) {
+				// the signature object keeps the bytes of an unfinished verification until initialized again
+				released.key = null;
+			}
+			if (IDLE_COUNTS[algorithm.ordinal()].incrementAndGet() <= MAX_IDLE_VERIFICATIONS) {
+				IDLE_STATES[algorithm.ordinal()].offer(released);
+			} else {
+				IDLE_COUNTS[algorithm.ordinal()].decrementAndGet();
+			}
+		}
+
+	}
+
+	private static final class State {
+
+		private final Signature signature;
+		private final byte[] decoded = new byte[MAX_SIGNATURE_LENGTH];
+		private final byte[] der;
+		/* Buffer of the decoded signature, decoded or der */
+		private byte[] signatureBytes;
+		/* Key the signature is initialized with */
+		private PublicKey key;
+
+		private State(Signature signature, int derLength) {
+			this.signature = signature;
+			this.der = new byte[derLength];
+		}
+
+	}
+
+}
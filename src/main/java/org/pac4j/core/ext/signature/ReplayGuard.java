@@ -0,0 +1,343 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.signature;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.pac4j.core.exception.CredentialsException;
+import org.pac4j.core.util.CommonHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reject the replays of the signed requests : the timestamp of a request must be within the window around the current time,
+ * and its nonce must not have been seen while the timestamp is in this window.
+ * <p>The nonces are remembered in fixed memory, until the end of the window of their timestamp :</p>
+ * <ul>
+ * <li>an exact set split in shards, each one locked on its own and bounded, holds the most recent nonces ;</li>
+ * <li>a ring of Bloom filters, one per time bucket of expiration, holds all the nonces of the window. The oldest filter
+ * is cleared and reused for a new bucket as time goes.</li>
+ * </ul>
+ * <p>As long as a shard did not evict a live nonce, its exact set answers alone : no false positive. Once it did,
+ * a nonce missing from the shard but found by the Bloom filters is rejected, with the false positive probability
+ * of the filters, until the evicted nonces expire.</p>
+ * <p>Sizing : a Bloom filter holds the nonces of <code>2 * window / 10</code> milliseconds, so it must expect
+ * <code>requestsPerSecond * 2 * window / 10000</code> nonces ; it takes about 1.8 bytes per nonce at a false positive rate of 0.001.
+ * By default, it is sized for {@value #DEFAULT_REQUESTS_PER_SECOND} requests per second over a window of 5 minutes, about 13 MB for
+ * the whole ring. A filter receiving more than twice its expected nonces is saturated : its false positive rate would reject
+ * genuine requests, so it is no more trusted, only the exact set detects the replays of its nonces,
+ * see {@link #getSaturatedBucketCount()}.</p>
+ * <p>The timestamp and the nonce must be covered by the signature, or they can be replaced in a replayed request :
+ * {@link org.pac4j.core.ext.credentials.authenticator.SignatureAuthenticator} signs them before the payload.</p>
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+public class ReplayGuard {
+
+	private static final Logger logger = LoggerFactory.getLogger(ReplayGuard.class);
+
+	public static final long DEFAULT_WINDOW = 5 * 60 * 1000;
+	public static final int DEFAULT_REQUESTS_PER_SECOND = 10_000;
+	public static final double DEFAULT_FALSE_POSITIVE_RATE = 0.001;
+	public static final int DEFAULT_EXACT_CAPACITY = 100_000;
+	public static final int DEFAULT_MAX_NONCE_LENGTH = 128;
+
+	/* Number of buckets over the lifetime of a nonce, two windows */
+	private static final int BUCKETS = 10;
+	private static final int SHARDS = 64;
+	/* Timestamps below are in seconds, above in milliseconds : 1e11 seconds is in year 5138, 1e11 milliseconds in 1973 */
+	private static final long SECONDS_THRESHOLD = 100_000_000_000L;
+	/* Ratio of the expected nonces beyond which a Bloom filter is saturated, its false positive rate is then about 5% */
+	private static final int SATURATION_RATIO = 2;
+
+	private final long window;
+	private final long bucketDuration;
+	private final int maxNonceLength;
+	private final long maxTrustedInsertions;
+	private final Shard[] shards;
+	private final Generation[] generations;
+
+	private final LongAdder acceptedCount = new LongAdder();
+	private final LongAdder replayCount = new LongAdder();
+	private final LongAdder outOfWindowCount = new LongAdder();
+	private final LongAdder probableReplayCount = new LongAdder();
+	private final LongAdder saturatedBucketCount = new LongAdder();
+
+	public ReplayGuard() {
+		this(DEFAULT_WINDOW);
+	}
+
+	/**
+	 * @param window the maximum difference, in milliseconds, between the timestamp of a request and the current time
+	 */
+	public ReplayGuard(long window) {
+		this(window, DEFAULT_REQUESTS_PER_SECOND);
+	}
+
+	/**
+	 * @param window the maximum difference, in milliseconds, between the timestamp of a request and the current time
+	 * @param requestsPerSecond the peak number of requests per second the Bloom filters are sized for
+	 */
+	public ReplayGuard(long window, int requestsPerSecond) {
+		this(window, expectedNoncesPerBucket(window, requestsPerSecond), DEFAULT_FALSE_POSITIVE_RATE, DEFAULT_EXACT_CAPACITY,
+				DEFAULT_MAX_NONCE_LENGTH);
+	}
+
+	/**
+	 * @param window the maximum difference, in milliseconds, between the timestamp of a request and the current time
+	 * @param expectedNoncesPerBucket the number of nonces each Bloom filter is sized for, a tenth of the nonces seen in two windows,
+	 *        see {@link ReplayGuard} for the sizing
+	 * @param falsePositiveRate the false positive probability of a Bloom filter holding the expected nonces
+	 * @param exactCapacity the maximum number of nonces held by the exact set
+	 * @param maxNonceLength the maximum length of a nonce
+	 */
+	public ReplayGuard(long window, int expectedNoncesPerBucket, double falsePositiveRate, int exactCapacity, int maxNonceLength) {
+		CommonHelper.assertTrue(window >= BUCKETS, "window must be at least " + BUCKETS + " ms");
+		CommonHelper.assertTrue(expectedNoncesPerBucket > 0, "expectedNoncesPerBucket must be greater than 0");
+		CommonHelper.assertTrue(falsePositiveRate > 0 && falsePositiveRate < 1, "falsePositiveRate must be between 0 and 1");
+		CommonHelper.assertTrue(exactCapacity >= SHARDS, "exactCapacity must be at least " + SHARDS);
+		CommonHelper.assertTrue(maxNonceLength > 0, "maxNonceLength must be greater than 0");
+		this.window = window;
+		this.bucketDuration = (2 * window + BUCKETS - 1) / BUCKETS;
+		this.maxNonceLength = maxNonceLength;
+		this.maxTrustedInsertions = (long) expectedNoncesPerBucket * SATURATION_RATIO;
+		this.shards = new Shard[SHARDS];
+		for (int i = 0; i < SHARDS; i++) {
+			this.shards[i] = new Shard(exactCapacity / SHARDS);
+		}
+		// the live expirations span two windows, plus the bucket in progress
+		this.generations = new Generation[BUCKETS + 2];
+		for (int i = 0; i < generations.length; i++) {
+			this.generations[i] = new Generation(expectedNoncesPerBucket, falsePositiveRate);
+		}
+	}
+
+	private static int expectedNoncesPerBucket(long window, int requestsPerSecond) {
+		CommonHelper.assertTrue(requestsPerSecond > 0, "requestsPerSecond must be greater than 0");
+		return (int) Math.min(Integer.MAX_VALUE, Math.max(1, (long) Math.ceil(requestsPerSecond * 2.0 * window / BUCKETS / 1000)));
+	}
+
+	/**
+	 * Check the timestamp and the nonce of a request, and remember the nonce.
+	 * @param timestamp the timestamp of the request, in seconds or milliseconds since the epoch
+	 * @param nonce the nonce of the request
+	 * @throws CredentialsException if the timestamp or the nonce is missing or invalid, or if the request is a replay
+	 */
+	public void check(String timestamp, String nonce) {
+		if (CommonHelper.isBlank(timestamp)) {
+			throw new CredentialsException("Timestamp cannot be blank");
+		}
+		final long value;
+		try {
+			value = Long.parseLong(timestamp.trim());
+		} catch (NumberFormatException e) {
+			throw new CredentialsException("Invalid timestamp");
+		}
+		check(value < SECONDS_THRESHOLD ? value * 1000 : value, nonce);
+	}
+
+	/**
+	 * Check the timestamp and the nonce of a request, and remember the nonce.
+	 * @param timestamp the timestamp of the request, in milliseconds since the epoch
+	 * @param nonce the nonce of the request
+	 * @throws CredentialsException if the nonce is missing or invalid, or if the request is a replay
+	 */
+	public void check(long timestamp, String nonce) {
+		if (CommonHelper.isBlank(nonce)) {
+			throw new CredentialsException("Nonce cannot be blank");
+		}
+		if (nonce.length() > maxNonceLength) {
+			throw new CredentialsException("Nonce longer than " + maxNonceLength + " characters");
+		}
+		final long now = System.currentTimeMillis();
+		if (timestamp < now - window || timestamp > now + window) {
+			outOfWindowCount.increment();
+			throw new CredentialsException("Timestamp out of the window of " + window + " ms");
+		}
+		// the nonce can be replayed as long as its timestamp is in the window
+		final long expiresAt = timestamp + window;
+		final long hash1 = BloomFilter.hash1(nonce);
+		final long hash2 = BloomFilter.hash2(hash1);
+		final Shard shard = shards[(int) (hash1 >>> 58)];
+		synchronized (shard) {
+			final Long seen = shard.nonces.get(nonce);
+			if (seen != null && seen >= now) {
+				replayCount.increment();
+				throw new CredentialsException("Nonce already used");
+			}
+			if (shard.inexactUntil >= now && mightContain(hash1, hash2, now)) {
+				probableReplayCount.increment();
+				throw new CredentialsException("Nonce already used");
+			}
+			shard.put(nonce, expiresAt, now);
+			final Generation generation = generation(expiresAt);
+			generation.filter.put(hash1, hash2);
+			if (generation.insertions.incrementAndGet() == maxTrustedInsertions + 1) {
+				saturatedBucketCount.increment();
+				logger.warn("Bloom filter saturated by more than {} nonces, only the exact set detects the replays until it expires : "
+						+ "the replay guard is sized for fewer requests", maxTrustedInsertions);
+			}
+		}
+		acceptedCount.increment();
+	}
+
+	private boolean mightContain(long hash1, long hash2, long now) {
+		final long currentBucket = now / bucketDuration;
+		for (Generation generation : generations) {
+			if (generation.bucket >= currentBucket && generation.insertions.get() <= maxTrustedInsertions
+					&& generation.filter.mightContain(hash1, hash2)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private Generation generation(long expiresAt) {
+		final long bucket = expiresAt / bucketDuration;
+		final Generation generation = generations[(int) (bucket % generations.length)];
+		if (generation.bucket != bucket) {
+			synchronized (generation) {
+				if (generation.bucket < bucket) {
+					generation.filter.clear();
+					generation.insertions.set(0);
+					generation.bucket = bucket;
+				}
+			}
+		}
+		return generation;
+	}
+
+	/**
+	 * @return the memory used by the Bloom filters, in bytes
+	 */
+	public long getBloomFilterSize() {
+		long size = 0;
+		for (Generation generation : generations) {
+			size += generation.filter.sizeInBytes();
+		}
+		return size;
+	}
+
+	/**
+	 * @return the number of nonces held by the exact set, expired ones not yet evicted included
+	 */
+	public long getExactSize() {
+		long size = 0;
+		for (Shard shard : shards) {
+			synchronized (shard) {
+				size += shard.nonces.size();
+			}
+		}
+		return size;
+	}
+
+	public long getWindow() {
+		return window;
+	}
+
+	/**
+	 * @return the number of accepted requests
+	 */
+	public long getAcceptedCount() {
+		return acceptedCount.sum();
+	}
+
+	/**
+	 * @return the number of requests rejected because their nonce was found in the exact set
+	 */
+	public long getReplayCount() {
+		return replayCount.sum();
+	}
+
+	/**
+	 * @return the number of requests rejected because their nonce was found in the Bloom filters only, false positives included
+	 */
+	public long getProbableReplayCount() {
+		return probableReplayCount.sum();
+	}
+
+	/**
+	 * @return the number of Bloom filters which received more than twice their expected nonces, and were no more trusted
+	 */
+	public long getSaturatedBucketCount() {
+		return saturatedBucketCount.sum();
+	}
+
+	/**
+	 * @return the number of requests rejected because of their timestamp
+	 */
+	public long getOutOfWindowCount() {
+		return outOfWindowCount.sum();
+	}
+
+	@Override
+	public String toString() {
+		return CommonHelper.toNiceString(this.getClass(), "window", window, "maxNonceLength", maxNonceLength,
+				"bloomFilterSize", getBloomFilterSize(), "acceptedCount", getAcceptedCount(), "replayCount", getReplayCount(),
+				"probableReplayCount", getProbableReplayCount(), "outOfWindowCount", getOutOfWindowCount(),
+				"saturatedBucketCount", getSaturatedBucketCount());
+	}
+
+	private static final class Shard {
+
+		/* Nonces by expiration time, in insertion order : timestamps are close to the current time so it is almost the expiration order */
+		private final LinkedHashMap<String, Long> nonces = new LinkedHashMap<>();
+		private final int capacity;
+		/* Expiration time of the latest live nonce evicted, the exact set misses nonces until then */
+		private long inexactUntil;
+
+		private Shard(int capacity) {
+			this.capacity = capacity;
+		}
+
+		private void put(String nonce, long expiresAt, long now) {
+			final Iterator<Map.Entry<String, Long>> iterator = nonces.entrySet().iterator();
+			while (iterator.hasNext()) {
+				final Map.Entry<String, Long> eldest = iterator.next();
+				if (eldest.getValue() < now) {
+					iterator.remove();
+				} else if (nonces.size() >= capacity) {
+					inexactUntil = Math.max(inexactUntil, eldest.getValue());
+					iterator.remove();
+				} else {
+					break;
+				}
+			}
+			// an expired entry of the same nonce keeps its place otherwise
+			nonces.remove(nonce);
+			nonces.put(nonce, expiresAt);
+		}
+
+	}
+
+	private static final class Generation {
+
+		private final BloomFilter filter;
+		/* Number of nonces put in the filter since it was cleared */
+		private final AtomicLong insertions = new AtomicLong();
+		/* Bucket of expiration times held by the filter */
+		private volatile long bucket = -1;
+
+		private Generation(int expectedInsertions, double falsePositiveRate) {
+			this.filter = new BloomFilter(expectedInsertions, falsePositiveRate);
+		}
+
+	}
+
+}
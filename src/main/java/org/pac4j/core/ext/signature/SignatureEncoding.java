@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.signature;
+
+import java.util.Arrays;
+
+/**
+ * Text encoding of the signatures sent by the clients, decoded without allocation.
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+public enum SignatureEncoding {
+
+	/** Hexadecimal, lower or upper case */
+	HEX {
+		@Override
+		public int decode(CharSequence text, byte[] out) {
+			final int length = text.length();
+			if ((length & 1) != 0 || length / 2 > out.length) {
+				return -1;
+			}
+			for (int i = 0; i < length; i += 2) {
+				final int high = Character.digit(text.charAt(i), 16);
+				final int low = Character.digit(text.charAt(i + 1), 16);
+				if (high < 0 || low < 0) {
+					return -1;
+				}
+				out[i / 2] = (byte) ((high << 4) | low);
+			}
+			return length / 2;
+		}
+	},
+
+	/** Base64, standard or url-safe alphabet, padded or not */
+	BASE64 {
+		@Override
+		public int decode(CharSequence text, byte[] out) {
+			int length = text.length();
+			while (length > 0 && text.charAt(length - 1) == '=') {
+				length--;
+			}
+			if (length % 4 == 1 || (long) length * 3 / 4 > out.length) {
+				return -1;
+			}
+			int bits = 0;
+			int bitCount = 0;
+			int size = 0;
+			for (int i = 0; i < length; i++) {
+				final char c = text.charAt(i);
+				final int value = c < 128 ? BASE64_VALUES[c] : -1;
+				if (value < 0) {
+					return -1;
+				}
+				bits = (bits << 6) | value;
+				bitCount += 6;
+				if (bitCount >= 8) {
+					bitCount -= 8;
+					out[size++] = (byte) (bits >> bitCount);
+				}
+			}
+			return size;
+		}
+	};
+
+	private static final int[] BASE64_VALUES = new int[128];
+
+	static {
+		Arrays.fill(BASE64_VALUES, -1);
+		final String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+		for (int i = 0; i < alphabet.length(); i++) {
+			BASE64_VALUES[alphabet.charAt(i)] = i;
+		}
+		BASE64_VALUES['-'] = 62;
+		BASE64_VALUES['_'] = 63;
+	}
+
+	/**
+	 * Decode the given text into the given buffer.
+	 * @param text the encoded signature
+	 * @param out the buffer of the decoded bytes
+	 * @return the number of decoded bytes, <code>-1</code> if the text is invalid or too long for the buffer
+	 */
+	public abstract int decode(CharSequence text, byte[] out);
+
+}
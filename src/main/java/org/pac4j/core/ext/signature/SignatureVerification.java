@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.signature;
+
+/**
+ * Verification of a signature over a payload read in several parts, see {@link SignatureVerifier#newVerification()}.
+ * <p>A verification is used by one request at a time, and must be released once verified or abandoned.</p>
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+public interface SignatureVerification extends AutoCloseable {
+
+	/**
+	 * Add the next signed bytes.
+	 * @param payload the buffer of the signed bytes
+	 * @param offset the offset of the signed bytes in the buffer
+	 * @param length the number of signed bytes
+	 */
+	void update(byte[] payload, int offset, int length);
+
+	/**
+	 * Verify the signature of all the bytes added, the verification cannot be updated anymore.
+	 * @param signature the encoded signature sent by the client
+	 * @return whether the signature is valid
+	 */
+	boolean verify(CharSequence signature);
+
+	/**
+	 * Release the resources of the verification.
+	 */
+	@Override
+	void close();
+
+}
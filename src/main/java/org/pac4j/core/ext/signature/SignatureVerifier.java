@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.signature;
+
+import org.pac4j.core.ext.exception.MethodNotSupportedException;
+
+/**
+ * Verification of the signature of a payload, computed by the client with its key.
+ * <p>Implementations are thread safe, and meant to be shared by all the requests.</p>
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+public interface SignatureVerifier {
+
+	/**
+	 * Verify the signature of the payload.
+	 * @param payload the buffer of the signed bytes
+	 * @param offset the offset of the signed bytes in the buffer
+	 * @param length the number of signed bytes
+	 * @param signature the encoded signature sent by the client
+	 * @return whether the signature is valid
+	 */
+	boolean verify(byte[] payload, int offset, int length, CharSequence signature);
+
+	/**
+	 * Verify the signature of the payload.
+	 * @param payload the signed bytes
+	 * @param signature the encoded signature sent by the client
+	 * @return whether the signature is valid
+	 */
+	default boolean verify(byte[] payload, CharSequence signature) {
+		return verify(payload, 0, payload.length, signature);
+	}
+
+	/**
+	 * Start the verification of a payload read in several parts, like a request body, see {@link VerifyingInputStream}.
+	 * @return the new verification
+	 * @throws MethodNotSupportedException if the verifier only verifies whole payloads
+	 */
+	default SignatureVerification newVerification() {
+		throw new MethodNotSupportedException("Streaming verification not supported by: " + getClass().getName());
+	}
+
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.signature;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.pac4j.core.context.WebContext;
+import org.pac4j.core.ext.utils.ByteArrayPool;
+import org.pac4j.core.util.CommonHelper;
+
+/**
+ * Request body kept in pooled byte arrays once read, so that it can be verified while read and still be read again
+ * by the profile extraction and the application, without ever being held in one contiguous array nor in a {@link String}.
+ * <p>The arrays go back to the pool on {@link #close()}, the body cannot be read anymore after. The authenticator attaches the
+ * verified body to the request, see {@link #from(WebContext)} : the application owns it and must release it at the end of the
+ * request, see {@link #release(WebContext)}, typically in the <code>finally</code> block of a filter. A body never released is
+ * garbage collected, its arrays are not reused.</p>
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+public class SignedBody implements Closeable {
+
+	/* Name of the request attribute holding the verified body of the request */
+	public static final String ATTRIBUTE = SignedBody.class.getName();
+
+	private final ByteArrayPool pool;
+	private final long maxLength;
+	private final List<byte[]> chunks = new ArrayList<>();
+	private long length;
+	private volatile boolean closed;
+
+	/**
+	 * @param pool the pool of the arrays holding the body
+	 * @param maxLength the maximum length of the body, in bytes
+	 */
+	public SignedBody(ByteArrayPool pool, long maxLength) {
+		CommonHelper.assertNotNull("pool", pool);
+		CommonHelper.assertTrue(maxLength >= 0, "maxLength cannot be negative");
+		this.pool = pool;
+		this.maxLength = maxLength;
+	}
+
+	/**
+	 * @param context the web context
+	 * @return the verified body of the request, null if none
+	 */
+	public static SignedBody from(WebContext context) {
+		if (context == null) {
+			return null;
+		}
+		final Optional<?> body = context.getRequestAttribute(ATTRIBUTE);
+		return body.filter(SignedBody.class::isInstance).map(SignedBody.class::cast).orElse(null);
+	}
+
+	/**
+	 * Release the verified body of the request, if any : to be called once the request is handled.
+	 * @param context the web context
+	 */
+	public static void release(WebContext context) {
+		final SignedBody body = from(context);
+		if (body != null) {
+			body.close();
+		}
+	}
+
+	/**
+	 * Read the given stream to the end, straight into the pooled arrays.
+	 * @param in the stream, like a {@link VerifyingInputStream}, it is not closed
+	 * @return this body
+	 * @throws IOException if the stream cannot be read or is longer than the maximum length
+	 */
+	public SignedBody readFrom(InputStream in) throws IOException {
+		if (closed) {
+			throw new IOException("Body already released");
+		}
+		final int chunkSize = pool.getArraySize();
+		while (true) {
+			final int offset = (int) (length % chunkSize);
+			if (offset == 0 && length == (long) chunks.size() * chunkSize) {
+				chunks.add(pool.acquire());
+			}
+			final byte[] chunk = chunks.get(chunks.size() - 1);
+			final int n = in.read(chunk, offset, chunkSize - offset);
+			if (n == -1) {
+				return this;
+			}
+			length += n;
+			if (length > maxLength) {
+				throw new IOException("Body longer than " + maxLength + " bytes");
+			}
+		}
+	}
+
+	/**
+	 * @return a new stream over the body, each one reads it from the start
+	 */
+	public InputStream getInputStream() {
+		return new BodyInputStream();
+	}
+
+	/**
+	 * @return the length of the body, in bytes
+	 */
+	public long getLength() {
+		return length;
+	}
+
+	@Override
+	public synchronized void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		for (byte[] chunk : chunks) {
+			pool.release(chunk);
+		}
+		chunks.clear();
+	}
+
+	@Override
+	public String toString() {
+		return CommonHelper.toNiceString(this.getClass(), "length", length, "maxLength", maxLength, "closed", closed);
+	}
+
+	private final class BodyInputStream extends InputStream {
+
+		private long position;
+
+		@Override
+		public int read() throws IOException {
+			if (position >= length) {
+				return -1;
+			}
+			final int chunkSize = pool.getArraySize();
+			final byte b = chunks().get((int) (position / chunkSize))[(int) (position % chunkSize)];
+			position++;
+			return b & 0xFF;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (len == 0) {
+				return 0;
+			}
+			if (position >= length) {
+				return -1;
+			}
+			final int chunkSize = pool.getArraySize();
+			final int offset = (int) (position % chunkSize);
+			final int n = (int) Math.min(Math.min(len, chunkSize - offset), length - position);
+			System.arraycopy(chunks().get((int) (position / chunkSize)), offset, b, off, n);
+			position += n;
+			return n;
+		}
+
+		@Override
+		public long skip(long n) {
+			final long skipped = Math.max(0, Math.min(n, length - position));
+			position += skipped;
+			return skipped;
+		}
+
+		@Override
+		public int available() {
+			return (int) Math.min(Integer.MAX_VALUE, length - position);
+		}
+
+		private List<byte[]> chunks() throws IOException {
+			if (closed) {
+				throw new IOException("Body already released");
+			}
+			return chunks;
+		}
+
+	}
+
+}
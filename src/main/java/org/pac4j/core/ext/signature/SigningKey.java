@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.signature;
+
+import org.pac4j.core.util.CommonHelper;
+
+/**
+ * Key of a caller, identified by its key id (or app id), verifying its signatures during its validity window.
+ * <p>Several keys of a same id with overlapping windows let a caller rotate its key : the signatures of both keys
+ * are accepted during the overlap, see {@link KeyRegistry}.</p>
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+public final class SigningKey {
+
+	private final String keyId;
+	private final String algorithm;
+	private final SignatureVerifier verifier;
+	private final long notBefore;
+	private final long notAfter;
+
+	/**
+	 * @param keyId the id of the key
+	 * @param algorithm the name of the algorithm, like <code>HS256</code>
+	 * @param verifier the verifier of the signatures of the key
+	 */
+	public SigningKey(String keyId, String algorithm, SignatureVerifier verifier) {
+		this(keyId, algorithm, verifier, 0, 0);
+	}
+
+	/**
+	 * @param keyId the id of the key
+	 * @param algorithm the name of the algorithm, like <code>HS256</code>
+	 * @param verifier the verifier of the signatures of the key
+	 * @param notBefore the start of the validity, in milliseconds since the epoch, <code>0</code> for none
+	 * @param notAfter the end of the validity, in milliseconds since the epoch, <code>0</code> for none
+	 */
+	public SigningKey(String keyId, String algorithm, SignatureVerifier verifier, long notBefore, long notAfter) {
+		CommonHelper.assertNotBlank("keyId", keyId);
+		CommonHelper.assertNotNull("verifier", verifier);
+		CommonHelper.assertTrue(notAfter == 0 || notAfter > notBefore, "notAfter must be after notBefore");
+		this.keyId = keyId;
+		this.algorithm = algorithm;
+		this.verifier = verifier;
+		this.notBefore = notBefore;
+		this.notAfter = notAfter;
+	}
+
+	/**
+	 * @param now the time, in milliseconds since the epoch
+	 * @return whether the key is valid at this time
+	 */
+	public boolean isValidAt(long now) {
+		return (notBefore == 0 || now >= notBefore) && (notAfter == 0 || now < notAfter);
+	}
+
+	public String getKeyId() {
+		return keyId;
+	}
+
+	public String getAlgorithm() {
+		return algorithm;
+	}
+
+	public SignatureVerifier getVerifier() {
+		return verifier;
+	}
+
+	public long getNotBefore() {
+		return notBefore;
+	}
+
+	public long getNotAfter() {
+		return notAfter;
+	}
+
+	@Override
+	public String toString() {
+		return CommonHelper.toNiceString(this.getClass(), "keyId", keyId, "algorithm", algorithm,
+				"notBefore", notBefore, "notAfter", notAfter);
+	}
+
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.signature;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.pac4j.core.util.CommonHelper;
+
+/**
+ * {@link InputStream} feeding the bytes read from the underlying stream into a {@link SignatureVerification}, so that
+ * the payload is verified while a reader consumes it, without being buffered nor decoded.
+ * <p>The reader gets the bytes as they are, and asks for the verification once the stream is read to the end,
+ * see {@link #verify(CharSequence)}. Skipped bytes are read and verified too. Closing the stream releases the verification.</p>
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+public class VerifyingInputStream extends FilterInputStream {
+
+	private final SignatureVerification verification;
+	private final long maxLength;
+	private long length;
+	private boolean ended;
+	private final byte[] singleByte = new byte[1];
+	private byte[] skipBuffer;
+
+	/**
+	 * @param in the signed stream
+	 * @param verification the verification of the signed bytes
+	 */
+	public VerifyingInputStream(InputStream in, SignatureVerification verification) {
+		this(in, verification, Long.MAX_VALUE);
+	}
+
+	/**
+	 * @param in the signed stream
+	 * @param verification the verification of the signed bytes
+	 * @param maxLength the maximum number of bytes read, an {@link IOException} is thrown beyond
+	 */
+	public VerifyingInputStream(InputStream in, SignatureVerification verification, long maxLength) {
+		super(in);
+		CommonHelper.assertNotNull("in", in);
+		CommonHelper.assertNotNull("verification", verification);
+		CommonHelper.assertTrue(maxLength >= 0, "maxLength cannot be negative");
+		this.verification = verification;
+		this.maxLength = maxLength;
+	}
+
+	@Override
+	public int read() throws IOException {
+		final int b = in.read();
+		if (b == -1) {
+			ended = true;
+		} else {
+			count(1);
+			singleByte[0] = (byte) b;
+			verification.update(singleByte, 0, 1);
+		}
+		return b;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		final int n = in.read(b, off, len);
+		if (n == -1) {
+			ended = true;
+		} else if (n > 0) {
+			count(n);
+			verification.update(b, off, n);
+		}
+		return n;
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		if (n <= 0) {
+			return 0;
+		}
+		if (skipBuffer == null) {
+			skipBuffer = new byte[(int) Math.min(n, 4096)];
+		}
+		final int read = read(skipBuffer, 0, (int) Math.min(n, skipBuffer.length));
+		return read == -1 ? 0 : read;
+	}
+
+	@Override
+	public boolean markSupported() {
+		return false;
+	}
+
+	@Override
+	public synchronized void mark(int readlimit) {
+		// the verified bytes cannot be read again
+	}
+
+	@Override
+	public synchronized void reset() throws IOException {
+		throw new IOException("mark/reset not supported");
+	}
+
+	private void count(int n) throws IOException {
+		length += n;
+		if (length > maxLength) {
+			throw new IOException("Signed stream longer than " + maxLength + " bytes");
+		}
+	}
+
+	/**
+	 * Verify the signature of all the bytes read, the stream must have been read to the end.
+	 * @param signature the encoded signature sent by the client
+	 * @return whether the signature is valid
+	 * @throws IOException if the stream is not read to the end
+	 */
+	public boolean verify(CharSequence signature) throws IOException {
+		if (!ended) {
+			verification.close();
+			throw new IOException("Signed stream not read to the end");
+		}
+		return verification.verify(signature);
+	}
+
+	/**
+	 * @return the number of bytes read so far
+	 */
+	public long getLength() {
+		return length;
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			super.close();
+		} finally {
+			verification.close();
+		}
+	}
+
+}
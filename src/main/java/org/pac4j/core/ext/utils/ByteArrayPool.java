@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.utils;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.pac4j.core.util.CommonHelper;
+
+/**
+ * Pool of byte arrays of a same size, reused across requests instead of allocated for each one.
+ * <p>A bounded number of arrays is kept idle : the arrays released beyond it are left to the garbage collector,
+ * and the arrays never released are simply not reused.</p>
+ * @author 		： <a href="https://github.com/hiwepy">wandl</a>
+ */
+public class ByteArrayPool {
+
+	public static final int DEFAULT_ARRAY_SIZE = 8 * 1024;
+	public static final int DEFAULT_MAX_IDLE = 1024;
+
+	private static final ByteArrayPool SHARED = new ByteArrayPool(DEFAULT_ARRAY_SIZE, DEFAULT_MAX_IDLE);
+
+	private final int arraySize;
+	private final int maxIdle;
+	private final Queue<byte[]> idle = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger idleCount = new AtomicInteger();
+
+	private final LongAdder reusedCount = new LongAdder();
+	private final LongAdder allocatedCount = new LongAdder();
+
+	/**
+	 * @param arraySize the size of the arrays
+	 * @param maxIdle the maximum number of arrays kept for reuse
+	 */
+	public ByteArrayPool(int arraySize, int maxIdle) {
+		CommonHelper.assertTrue(arraySize > 0, "arraySize must be greater than 0");
+		CommonHelper.assertTrue(maxIdle >= 0, "maxIdle cannot be negative");
+		this.arraySize = arraySize;
+		this.maxIdle = maxIdle;
+	}
+
+	/**
+	 * @return the pool of {@value #DEFAULT_ARRAY_SIZE} bytes arrays shared by default
+	 */
+	public static ByteArrayPool shared() {
+		return SHARED;
+	}
+
+	/**
+	 * @return an idle array, or a new one, its content is undefined
+	 */
+	public byte[] acquire() {
+		final byte[] array = idle.poll();
+		if (array != null) {
+			idleCount.decrementAndGet();
+			reusedCount.increment();
+			return array;
+		}
+		allocatedCount.increment();
+		return new byte[arraySize];
+	}
+
+	/**
+	 * Give back an array acquired from this pool, it must not be used anymore.
+	 * @param array the array
+	 */
+	public void release(byte[] array) {
+		if (array == null || array.length != arraySize) {
+			return;
+		}
+		if (idleCount.incrementAndGet() <= maxIdle) {
+			idle.offer(array);
+		} else {
+			idleCount.decrementAndGet();
+		}
+	}
+
+	public int getArraySize() {
+		return arraySize;
+	}
+
+	public int getMaxIdle() {
+		return maxIdle;
+	}
+
+	public int getIdleCount() {
+		return idleCount.get();
+	}
+
+	/**
+	 * @return the number of arrays taken from the idle ones
+	 */
+	public long getReusedCount() {
+		return reusedCount.sum();
+	}
+
+	/**
+	 * @return the number of arrays allocated because none was idle
+	 */
+	public long getAllocatedCount() {
+		return allocatedCount.sum();
+	}
+
+	@Override
+	public String toString() {
+		return CommonHelper.toNiceString(this.getClass(), "arraySize", arraySize, "maxIdle", maxIdle, "idleCount", getIdleCount(),
+				"reusedCount", getReusedCount(), "allocatedCount", getAllocatedCount());
+	}
+
+}
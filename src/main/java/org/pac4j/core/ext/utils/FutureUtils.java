@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.utils;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.pac4j.core.exception.TechnicalException;
+
+/**
+ * Shared executors of the asynchronous calls, and helpers to fail, unwrap, join, cancel and time out their {@link CompletableFuture}.
+ * @author ： <a href="https://github.com/hiwepy">hiwepy</a>
+ */
+public class FutureUtils {
+
+	/**
+	 * Shared daemon timer, for timeouts and delayed tasks : the scheduled tasks must be short and non-blocking.
+	 */
+	public static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread thread = new Thread(r, "pac4j-ext-timer");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private static final AtomicInteger BACKGROUND_THREADS = new AtomicInteger();
+
+	/**
+	 * Shared bounded daemon pool, for optional background work like refreshes ahead of expiry :
+	 * a task is rejected, rather than queued, when all the threads are busy.
+	 */
+	public static final ExecutorService BACKGROUND = new ThreadPoolExecutor(0, 8, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), r -> {
+		Thread thread = new Thread(r, "pac4j-ext-background-" + BACKGROUND_THREADS.incrementAndGet());
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private static final AtomicInteger WORKER_THREADS = new AtomicInteger();
+
+	/**
+	 * Shared daemon pool, growing on demand, for blocking work that cannot be skipped like the calls sending batches.
+	 */
+	public static final ExecutorService WORKER = Executors.newCachedThreadPool(r -> {
+		Thread thread = new Thread(r, "pac4j-ext-worker-" + WORKER_THREADS.incrementAndGet());
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/**
+	 * Build a daemon pool of a fixed number of threads and a bounded queue, for CPU bound work like signature verifications :
+	 * a task is rejected with a {@link java.util.concurrent.RejectedExecutionException} when the queue is full.
+	 * @param name the name of the pool, in the names of its threads
+	 * @param threads the number of threads
+	 * @param queueCapacity the maximum number of tasks waiting for a thread
+	 * @return the pool, its idle threads stop after a minute
+	 */
+	public static ExecutorService newBoundedExecutor(String name, int threads, int queueCapacity) {
+		final AtomicInteger count = new AtomicInteger();
+		final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(queueCapacity), r -> {
+			Thread thread = new Thread(r, "pac4j-ext-" + name + "-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	public static <V> CompletableFuture<V> failedFuture(Throwable t) {
+		final CompletableFuture<V> future = new CompletableFuture<>();
+		future.completeExceptionally(t);
+		return future;
+	}
+
+	/**
+	 * @param t an exception raised by a future
+	 * @return the actual cause of the exception, without the {@link CompletionException} or {@link ExecutionException} wrapper
+	 */
+	public static Throwable unwrap(Throwable t) {
+		while ((t instanceof CompletionException || t instanceof ExecutionException) && t.getCause() != null) {
+			t = t.getCause();
+		}
+		return t;
+	}
+
+	/**
+	 * Wait for the value of the given future, rethrowing its failure as is.
+	 * @param <V> the type of the value
+	 * @param future the future
+	 * @return the value
+	 */
+	public static <V> V join(CompletableFuture<V> future) {
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			final Throwable cause = unwrap(e);
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new TechnicalException(cause);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new TechnicalException(e);
+		}
+	}
+
+	/**
+	 * Cancel the source future when the dependent one is cancelled : the stages derived from a {@link CompletableFuture} do not cancel it.
+	 * @param <V> the type of the value
+	 * @param dependent the future returned to the caller
+	 * @param source the future actually doing the work
+	 * @return the dependent future
+	 */
+	public static <V> CompletableFuture<V> propagateCancel(CompletableFuture<V> dependent, Future<?> source) {
+		dependent.whenComplete((value, t) -> {
+			if (dependent.isCancelled()) {
+				source.cancel(false);
+			}
+		});
+		return dependent;
+	}
+
+	/**
+	 * Return a future completed like the given one, or failed with the given exception if it is not completed in time.
+	 * @param <V> the type of the value
+	 * @param future the future
+	 * @param timeout the timeout, in milliseconds
+	 * @param exception the exception of the timeout
+	 * @return the future bounded by the timeout
+	 */
+	public static <V> CompletableFuture<V> withTimeout(CompletableFuture<V> future, long timeout, Supplier<? extends Throwable> exception) {
+		final CompletableFuture<V> bounded = new CompletableFuture<>();
+		final ScheduledFuture<?> timer = TIMER.schedule(() -> bounded.completeExceptionally(exception.get()), timeout, TimeUnit.MILLISECONDS);
+		future.whenComplete((value, t) -> {
+			timer.cancel(false);
+			if (t != null) {
+				bounded.completeExceptionally(unwrap(t));
+			} else {
+				bounded.complete(value);
+			}
+		});
+		return bounded;
+	}
+
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2018, hiwepy (https://github.com/hiwepy).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.pac4j.core.ext.utils;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+
+import org.pac4j.core.exception.TechnicalException;
+import org.pac4j.core.profile.BasicUserProfile;
+
+/**
+ * Helpers of the user profiles shared across requests, like the copy of a cached profile handed to a single request.
+ * @author ： <a href="https://github.com/hiwepy">hiwepy</a>
+ */
+public class ProfileUtils {
+
+	/**
+	 * Copy the given profile, so that the authorization generators can safely update the copy (roles, permissions...)
+	 * while the original one is shared, by a cache for example.
+	 * @param <P> the type of the profile
+	 * @param profile the profile to copy, its class must have a no-arg constructor like any {@link java.io.Externalizable}
+	 * @return the copy of the profile
+	 */
+	@SuppressWarnings("unchecked")
+	public static <P extends BasicUserProfile> P copy(P profile) {
+		if (profile == null) {
+			return null;
+		}
+		final P copy;
+		try {
+			copy = (P) profile.getClass().getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException e) {
+			throw new TechnicalException("Cannot copy profile of type " + profile.getClass().getName(), e);
+		}
+		copy.build(profile.getId(), new HashMap<>(profile.getAttributes()), new HashMap<>(profile.getAuthenticationAttributes()));
+		copy.setRoles(new LinkedHashSet<>(profile.getRoles()));
+		copy.setPermissions(new LinkedHashSet<>(profile.getPermissions()));
+		copy.setClientName(profile.getClientName());
+		copy.setLinkedId(profile.getLinkedId());
+		copy.setRemembered(profile.isRemembered());
+		return copy;
+	}
+
+}
@@ -0,0 +1,88 @@
+package org.pac4j.core.ext;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.pac4j.core.ext.signature.HmacAlgorithm;
+import org.pac4j.core.ext.signature.HmacSignatureVerifier;
+import org.pac4j.core.ext.signature.SignatureEncoding;
+
+/**
+ * Allocation and time per HMAC verification : the usual integration code, looking the {@link Mac} up and keying it
+ * on every request, against the {@link HmacSignatureVerifier}.
+ * Run with -Xms1g -Xmx1g to limit the GC noise.
+ */
+public class HmacVerifierBenchmark {
+
+	private static final int WARMUP = 200_000;
+	private static final int ITERATIONS = 1_000_000;
+
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	interface Verification {
+		boolean verify() throws Exception;
+	}
+
+	public static void main(String[] args) throws Exception {
+
+		final String secret = "4b1f7c0e-partner-secret-2f8d9a63";
+		final byte[] payload = new byte[1024];
+		for (int i = 0; i < payload.length; i++) {
+			payload[i] = (byte) ('a' + i % 26);
+		}
+
+		for (HmacAlgorithm algorithm : HmacAlgorithm.values()) {
+			final Mac signer = Mac.getInstance(algorithm.getJcaName());
+			signer.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), algorithm.getJcaName()));
+			final byte[] mac = signer.doFinal(payload);
+			final String hexSignature = hex(mac);
+			final String base64Signature = Base64.getEncoder().encodeToString(mac);
+
+			final HmacSignatureVerifier hexVerifier = new HmacSignatureVerifier(algorithm, secret, SignatureEncoding.HEX);
+			final HmacSignatureVerifier base64Verifier = new HmacSignatureVerifier(algorithm, secret, SignatureEncoding.BASE64);
+
+			for (int round = 0; round < 3; round++) {
+				run(algorithm + " naive   ", () -> {
+					/* the verification of the previous integrations */
+					final Mac naive = Mac.getInstance(algorithm.getJcaName());
+					naive.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), algorithm.getJcaName()));
+					return hex(naive.doFinal(payload)).equals(hexSignature);
+				});
+				run(algorithm + " hex     ", () -> hexVerifier.verify(payload, hexSignature));
+				run(algorithm + " base64  ", () -> base64Verifier.verify(payload, base64Signature));
+			}
+		}
+	}
+
+	private static String hex(byte[] bytes) {
+		final char[] chars = new char[bytes.length * 2];
+		for (int i = 0; i < bytes.length; i++) {
+			chars[i * 2] = HEX[(bytes[i] >> 4) & 0x0F];
+			chars[i * 2 + 1] = HEX[bytes[i] & 0x0F];
+		}
+		return new String(chars);
+	}
+
+	private static void run(String name, Verification verification) throws Exception {
+		final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		final long threadId = Thread.currentThread().getId();
+		int sink = 0;
+		for (int i = 0; i < WARMUP; i++) {
+			sink += verification.verify() ? 1 : 0;
+		}
+		final long bytes0 = threads.getThreadAllocatedBytes(threadId);
+		final long t0 = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) {
+			sink += verification.verify() ? 1 : 0;
+		}
+		final long t1 = System.nanoTime();
+		final long bytes1 = threads.getThreadAllocatedBytes(threadId);
+		System.out.println(String.format("%s : %6d ns/op %6d bytes/op (%d)", name, (t1 - t0) / ITERATIONS,
+				(bytes1 - bytes0) / ITERATIONS, sink));
+	}
+
+}
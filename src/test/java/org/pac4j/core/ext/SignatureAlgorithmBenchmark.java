@@ -0,0 +1,135 @@
+package org.pac4j.core.ext;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.pac4j.core.exception.TechnicalException;
+import org.pac4j.core.ext.signature.HmacAlgorithm;
+import org.pac4j.core.ext.signature.HmacSignatureVerifier;
+import org.pac4j.core.ext.signature.PublicKeyAlgorithm;
+import org.pac4j.core.ext.signature.PublicKeySignatureVerifier;
+import org.pac4j.core.ext.signature.SignatureEncoding;
+import org.pac4j.core.ext.signature.SignatureVerifier;
+
+/**
+ * Throughput and latency of the verification of a 1 KB payload for each signature algorithm, on one thread
+ * then on as many threads as processors, to choose the cheapest algorithm meeting a latency budget.
+ * Run with -Xms1g -Xmx1g to limit the GC noise.
+ */
+public class SignatureAlgorithmBenchmark {
+
+	private static final long WARMUP_MILLIS = 2000;
+	private static final long MEASURE_MILLIS = 3000;
+
+	public static void main(String[] args) throws Exception {
+
+		final byte[] payload = new byte[1024];
+		for (int i = 0; i < payload.length; i++) {
+			payload[i] = (byte) ('a' + i % 26);
+		}
+		final int threads = Runtime.getRuntime().availableProcessors();
+		System.out.println(String.format("%-22s %12s %10s %10s %14s", "algorithm", "ops/s 1 thr", "p50 ns", "p99 ns", "ops/s " + threads + " thr"));
+
+		final String secret = "4b1f7c0e-partner-secret-2f8d9a63";
+		for (HmacAlgorithm algorithm : HmacAlgorithm.values()) {
+			final Mac signer = Mac.getInstance(algorithm.getJcaName());
+			signer.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), algorithm.getJcaName()));
+			final String signature = Base64.getEncoder().encodeToString(signer.doFinal(payload));
+			run(algorithm.getShortName(), new HmacSignatureVerifier(algorithm, secret, SignatureEncoding.BASE64), payload, signature, threads);
+		}
+
+		for (PublicKeyAlgorithm algorithm : PublicKeyAlgorithm.values()) {
+			if ("RSA".equals(algorithm.getKeyAlgorithm())) {
+				for (int keySize : new int[] { 2048, 3072, 4096 }) {
+					if (keySize != 2048 && algorithm != PublicKeyAlgorithm.RSA_SHA256) {
+						continue;
+					}
+					runPublicKey(algorithm, algorithm.getShortName() + " " + keySize, keySize, payload, threads);
+				}
+			} else {
+				runPublicKey(algorithm, algorithm.getShortName() + (algorithm == PublicKeyAlgorithm.ED25519 ? " Ed25519" : ""), 0, payload, threads);
+			}
+		}
+	}
+
+	private static void runPublicKey(PublicKeyAlgorithm algorithm, String name, int keySize, byte[] payload, int threads) throws Exception {
+		final KeyPair keyPair;
+		final PublicKeySignatureVerifier verifier;
+		try {
+			final KeyPairGenerator generator = KeyPairGenerator.getInstance(algorithm.getKeyAlgorithm());
+			if (keySize > 0) {
+				generator.initialize(keySize);
+			} else if (algorithm.getEcFieldLength() > 0) {
+				generator.initialize(new ECGenParameterSpec(algorithm.getEcFieldLength() == 32 ? "secp256r1"
+						: algorithm.getEcFieldLength() == 48 ? "secp384r1" : "secp521r1"));
+			}
+			keyPair = generator.generateKeyPair();
+			verifier = new PublicKeySignatureVerifier(algorithm, keyPair.getPublic(), SignatureEncoding.BASE64);
+		} catch (TechnicalException | java.security.GeneralSecurityException e) {
+			System.out.println(String.format("%-22s not supported by this JVM", name));
+			return;
+		}
+		final Signature signer = Signature.getInstance(algorithm.getJcaName());
+		signer.initSign(keyPair.getPrivate());
+		signer.update(payload);
+		run(name, verifier, payload, Base64.getEncoder().encodeToString(signer.sign()), threads);
+	}
+
+	private static void run(String name, SignatureVerifier verifier, byte[] payload, String signature, int threads) throws Exception {
+		if (!verifier.verify(payload, signature)) {
+			throw new IllegalStateException("Invalid signature for " + name);
+		}
+		measure(verifier, payload, signature, WARMUP_MILLIS, null);
+
+		final long[] latencies = new long[1 << 20];
+		final long single = measure(verifier, payload, signature, MEASURE_MILLIS, latencies);
+		final int samples = (int) Math.min(single, latencies.length);
+		Arrays.sort(latencies, 0, samples);
+
+		final LongAdder total = new LongAdder();
+		final CountDownLatch done = new CountDownLatch(threads);
+		for (int i = 0; i < threads; i++) {
+			final Thread thread = new Thread(() -> {
+				total.add(measure(verifier, payload, signature, MEASURE_MILLIS, null));
+				done.countDown();
+			});
+			thread.start();
+		}
+		done.await();
+
+		System.out.println(String.format("%-22s %12d %10d %10d %14d", name, single * 1000 / MEASURE_MILLIS,
+				latencies[samples / 2], latencies[(int) (samples * 0.99)], total.sum() * 1000 / MEASURE_MILLIS));
+	}
+
+	/**
+	 * @return the number of verifications during the duration
+	 */
+	private static long measure(SignatureVerifier verifier, byte[] payload, String signature, long millis, long[] latencies) {
+		final long end = System.nanoTime() + millis * 1_000_000;
+		long count = 0;
+		long now = System.nanoTime();
+		while (now < end) {
+			if (!verifier.verify(payload, signature)) {
+				throw new IllegalStateException("Invalid signature");
+			}
+			final long next = System.nanoTime();
+			if (latencies != null && count < latencies.length) {
+				latencies[(int) count] = next - now;
+			}
+			now = next;
+			count++;
+		}
+		return count;
+	}
+
+}
@@ -0,0 +1,117 @@
+package org.pac4j.core.ext;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.Optional;
+
+import org.pac4j.core.context.WebContext;
+import org.pac4j.core.credentials.TokenCredentials;
+import org.pac4j.core.ext.credentials.authenticator.TokenAuthenticator;
+import org.pac4j.core.ext.http.transport.HttpRequest;
+import org.pac4j.core.ext.profile.Token;
+import org.pac4j.core.ext.profile.TokenProfile;
+import org.pac4j.core.ext.profile.TokenProfileDefinition;
+import org.pac4j.core.util.HttpUtils2;
+
+import com.alibaba.fastjson.JSONObject;
+
+/**
+ * Allocation and time per profile request built by {@link TokenAuthenticator}, before and after the request template.
+ * Run with -Xms1g -Xmx1g to limit the GC noise.
+ */
+public class TokenRequestBenchmark {
+
+	private static final int WARMUP = 200_000;
+	private static final int ITERATIONS = 1_000_000;
+
+	static class BenchToken extends Token {
+		private static final long serialVersionUID = 1L;
+		BenchToken(String rawResponse) {
+			super(rawResponse);
+		}
+	}
+
+	static class BenchAuthenticator extends TokenAuthenticator<TokenProfile, BenchToken> {
+
+		@Override
+		protected BenchToken getAccessToken(TokenCredentials credentials) {
+			return new BenchToken(credentials.getToken());
+		}
+
+		HttpRequest template(WebContext context, BenchToken token, String url) {
+			return buildProfileRequest(context, token, url);
+		}
+
+		/* the request building of the previous versions */
+		@SuppressWarnings("deprecation")
+		HttpRequest legacy(WebContext context, BenchToken token, String url) {
+			Map<String, String> finalHeaders = this.finalHeaders(context, token, url, getCustomHeaders());
+			logger.debug("finalHeaders: {} ", JSONObject.toJSONString(finalHeaders));
+			Map<String, String> finalParams = this.finalParams(context, token, url, getCustomParams());
+			logger.debug("finalParams: {} ", JSONObject.toJSONString(finalParams));
+			return HttpRequest.get(HttpUtils2.buildURL(url, finalParams), finalHeaders);
+		}
+
+	}
+
+	interface Builder {
+		HttpRequest build();
+	}
+
+	public static void main(String[] args) throws Exception {
+
+		final BenchAuthenticator authenticator = new BenchAuthenticator();
+		authenticator.setProfileDefinition(new TokenProfileDefinition<TokenProfile, BenchToken>() {
+			@Override
+			public String getProfileUrl(WebContext context, BenchToken accessToken) {
+				return "https://sso.example.com/oauth/userinfo";
+			}
+			@Override
+			public TokenProfile extractUserProfile(String body) {
+				return new TokenProfile();
+			}
+		});
+		authenticator.getCustomHeaders().put("X-App-Id", "pac4j-biz");
+		authenticator.getCustomParams().put("client_id", "pac4j biz");
+		authenticator.getCustomParams().put("scope", "openid profile email");
+		authenticator.init();
+
+		final WebContext context = (WebContext) Proxy.newProxyInstance(TokenRequestBenchmark.class.getClassLoader(),
+				new Class<?>[] { WebContext.class }, (proxy, method, methodArgs) -> {
+					if ("getRequestHeader".equals(method.getName())) {
+						return "User-Agent".equals(methodArgs[0]) ? Optional.of("bench/1.0") : Optional.empty();
+					}
+					return null;
+				});
+		final BenchToken token = new BenchToken("ST2ACrGrKv-U4aRp8gA9qD-vIqQB-XZ3n81TwErzo-3ymjPh-YgyIyKEN7C8S4A");
+		final String url = "https://sso.example.com/oauth/userinfo";
+
+		System.out.println(authenticator.legacy(context, token, url));
+		System.out.println(authenticator.template(context, token, url));
+
+		for (int round = 0; round < 3; round++) {
+			run("legacy  ", () -> authenticator.legacy(context, token, url));
+			run("template", () -> authenticator.template(context, token, url));
+		}
+	}
+
+	private static void run(String name, Builder builder) {
+		final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		final long threadId = Thread.currentThread().getId();
+		int sink = 0;
+		for (int i = 0; i < WARMUP; i++) {
+			sink += builder.build().getUrl().length();
+		}
+		final long bytes0 = threads.getThreadAllocatedBytes(threadId);
+		final long t0 = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) {
+			sink += builder.build().getUrl().length();
+		}
+		final long t1 = System.nanoTime();
+		final long bytes1 = threads.getThreadAllocatedBytes(threadId);
+		System.out.println(String.format("%s : %6d ns/op %6d bytes/op (%d)", name, (t1 - t0) / ITERATIONS,
+				(bytes1 - bytes0) / ITERATIONS, sink));
+	}
+
+}